@@ -38,6 +38,7 @@ import org.mule.api.registry.MuleRegistry;
 import org.mule.api.registry.RegistrationException;
 import org.mule.api.registry.Registry;
 import org.mule.api.security.SecurityManager;
+import org.mule.api.serialization.ObjectSerializer;
 import org.mule.api.store.ListableObjectStore;
 import org.mule.api.transaction.TransactionManagerFactory;
 import org.mule.client.DefaultLocalMuleClient;
@@ -54,6 +55,7 @@ import org.mule.management.stats.AllStatistics;
 import org.mule.management.stats.ProcessingTimeWatcher;
 import org.mule.registry.DefaultRegistryBroker;
 import org.mule.registry.MuleRegistryHelper;
+import org.mule.serialization.JavaObjectSerializer;
 import org.mule.transport.DefaultPollingController;
 import org.mule.transport.PollingController;
 import org.mule.util.ApplicationShutdownSplashScreen;
@@ -144,6 +146,8 @@ public class DefaultMuleContext implements MuleContext
 
     private LockFactory lockFactory;
 
+    private volatile ObjectSerializer objectSerializer;
+
     private ProcessingTimeWatcher processingTimeWatcher;
 
     public DefaultMuleContext(MuleConfiguration config,
@@ -843,4 +847,19 @@ public class DefaultMuleContext implements MuleContext
 
         return this.processingTimeWatcher;
     }
+
+    @Override
+    public ObjectSerializer getObjectSerializer()
+    {
+        if (this.objectSerializer == null)
+        {
+            ObjectSerializer serializer = registryBroker.lookupObject(MuleProperties.OBJECT_SERIALIZER);
+            if (serializer == null)
+            {
+                serializer = new JavaObjectSerializer(this);
+            }
+            this.objectSerializer = serializer;
+        }
+        return this.objectSerializer;
+    }
 }
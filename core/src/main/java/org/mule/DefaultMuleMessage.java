@@ -98,17 +98,24 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
     /**
      * Scoped properties for this message
      */
-    private MessagePropertiesContext properties = new MessagePropertiesContext();
+    private MessagePropertiesContext properties;
 
     /**
      * Collection of attachments that were attached to the incoming message
      */
-    private transient Map<String, DataHandler> inboundAttachments = new ConcurrentHashMap<String, DataHandler>();
+    private transient Map<String, DataHandler> inboundAttachments = Collections.emptyMap();
 
     /**
      * Collection of attachments that will be sent out with this message
      */
-    private transient Map<String, DataHandler> outboundAttachments = new ConcurrentHashMap<String, DataHandler>();
+    private transient Map<String, DataHandler> outboundAttachments = Collections.emptyMap();
+
+    /**
+     * Whether the attachment maps are shared with another message (or are the immutable empty
+     * map), in which case they are copied before being modified.
+     */
+    private transient volatile boolean inboundAttachmentsShared = true;
+    private transient volatile boolean outboundAttachmentsShared = true;
 
     private transient byte[] cache;
     protected transient MuleContext muleContext;
@@ -166,10 +173,11 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
         {
             MuleMessage muleMessage = (MuleMessage) message;
             setPayload(muleMessage.getPayload());
-            copyMessageProperties(muleMessage);
+            shareMessageProperties(muleMessage);
         }
         else
         {
+            properties = new MessagePropertiesContext();
             setPayload(message);
             originalPayload = message;
         }
@@ -180,6 +188,7 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
         if (attachments != null)
         {
             inboundAttachments = attachments;
+            inboundAttachmentsShared = false;
         }
 
         resetAccessControl();
@@ -190,18 +199,24 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
         id = previous.getUniqueId();
         rootId = previous.getMessageRootId();
         setMuleContext(muleContext);
-        setEncoding(previous.getEncoding());
+        String encoding = previous.getEncoding();
 
         if (message instanceof MuleMessage)
         {
             MuleMessage payloadMessage = (MuleMessage) message;
             setPayload(payloadMessage.getPayload());
-            copyMessageProperties(payloadMessage);
+            shareMessageProperties(payloadMessage);
         }
         else
         {
             setPayload(message);
-            copyMessageProperties(previous);
+            shareMessageProperties(previous);
+        }
+        // the encoding of the copied properties takes precedence, only set it when they have
+        // none so a shared outbound scope is not copied needlessly
+        if (properties.getProperty(MuleProperties.MULE_ENCODING_PROPERTY, PropertyScope.OUTBOUND) == null)
+        {
+            setEncoding(encoding);
         }
         originalPayload = previous.getPayload();
 
@@ -216,11 +231,29 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
             setSessionProperties(((DefaultMuleMessage) previous).properties.sessionMap);
         }
 
-        copyAttachments(previous);
+        shareAttachments(previous);
 
         resetAccessControl();
     }
 
+    /**
+     * Initializes the properties of this message with the inbound and outbound properties of
+     * another message. The properties of a {@link DefaultMuleMessage} are shared and only copied
+     * when either message modifies them.
+     */
+    private void shareMessageProperties(MuleMessage muleMessage)
+    {
+        if (muleMessage instanceof DefaultMuleMessage)
+        {
+            properties = new MessagePropertiesContext(((DefaultMuleMessage) muleMessage).properties);
+        }
+        else
+        {
+            properties = new MessagePropertiesContext();
+            copyMessageProperties(muleMessage);
+        }
+    }
+
     protected void copyMessageProperties(MuleMessage muleMessage)
     {
         // explicitly copy INBOUND message properties over. This cannot be done in the loop below
@@ -249,6 +282,61 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
         }
     }
 
+    /**
+     * Initializes the attachments of this message with the attachments of another message. The
+     * attachment maps of a {@link DefaultMuleMessage} are shared and only copied when either
+     * message adds or removes an attachment.
+     */
+    private void shareAttachments(MuleMessage previous)
+    {
+        if (previous instanceof DefaultMuleMessage)
+        {
+            DefaultMuleMessage previousMessage = (DefaultMuleMessage) previous;
+            previousMessage.inboundAttachmentsShared = true;
+            previousMessage.outboundAttachmentsShared = true;
+            inboundAttachments = previousMessage.inboundAttachments;
+            outboundAttachments = previousMessage.outboundAttachments;
+            inboundAttachmentsShared = true;
+            outboundAttachmentsShared = true;
+        }
+        else
+        {
+            copyAttachments(previous);
+        }
+    }
+
+    private Map<String, DataHandler> getWritableInboundAttachments()
+    {
+        if (inboundAttachmentsShared)
+        {
+            synchronized (this)
+            {
+                if (inboundAttachmentsShared)
+                {
+                    inboundAttachments = new ConcurrentHashMap<String, DataHandler>(inboundAttachments);
+                    inboundAttachmentsShared = false;
+                }
+            }
+        }
+        return inboundAttachments;
+    }
+
+    private Map<String, DataHandler> getWritableOutboundAttachments()
+    {
+        if (outboundAttachmentsShared)
+        {
+            synchronized (this)
+            {
+                if (outboundAttachmentsShared)
+                {
+                    outboundAttachments = new ConcurrentHashMap<String, DataHandler>(outboundAttachments);
+                    outboundAttachmentsShared = false;
+                }
+            }
+        }
+        return outboundAttachments;
+    }
+
     private void copyAttachments(MuleMessage previous)
     {
         if (previous.getInboundAttachmentNames().size() > 0)
@@ -257,7 +345,7 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
             {
                 try
                 {
-                    inboundAttachments.put(name, previous.getInboundAttachment(name));
+                    getWritableInboundAttachments().put(name, previous.getInboundAttachment(name));
                 }
                 catch (Exception e)
                 {
@@ -1070,7 +1158,7 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
     public void addOutboundAttachment(String name, DataHandler dataHandler) throws Exception
     {
         assertAccess(WRITE);
-        outboundAttachments.put(name, dataHandler);
+        getWritableOutboundAttachments().put(name, dataHandler);
     }
 
     ///TODO this should not be here, but needed so that a message factory can add attachments
@@ -1079,7 +1167,7 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
     public void addInboundAttachment(String name, DataHandler dataHandler) throws Exception
     {
         assertAccess(WRITE);
-        inboundAttachments.put(name, dataHandler);
+        getWritableInboundAttachments().put(name, dataHandler);
     }
 
     @Override
@@ -1114,14 +1202,17 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
         {
             dh = new DataHandler(object, contentType);
         }
-        outboundAttachments.put(name, dh);
+        getWritableOutboundAttachments().put(name, dh);
     }
 
     @Override
     public void removeOutboundAttachment(String name) throws Exception
     {
         assertAccess(WRITE);
-        outboundAttachments.remove(name);
+        if (outboundAttachments.containsKey(name))
+        {
+            getWritableOutboundAttachments().remove(name);
+        }
     }
 
     @Override
@@ -1967,8 +2058,10 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
             newMessage.setInboundProperty(s.getKey(), s.getValue());
         }
 
-        newMessage.inboundAttachments.clear();
-        newMessage.outboundAttachments.clear();
+        newMessage.inboundAttachments = Collections.emptyMap();
+        newMessage.inboundAttachmentsShared = true;
+        newMessage.outboundAttachments = Collections.emptyMap();
+        newMessage.outboundAttachmentsShared = true;
 
         for (Map.Entry<String, DataHandler> s : attachments.entrySet())
         {
@@ -49,6 +49,11 @@ import org.apache.commons.logging.LogFactory;
  * used once a {@link MuleEvent} has been created as there is no {@link MuleSession} and therefore Session
  * scope properties before this time</li>
  * </ol>
+ * <p/>
+ * Copies made with {@link #MessagePropertiesContext(MessagePropertiesContext)} share the inbound and
+ * outbound maps with the original context. A shared map is only copied the first time that either
+ * context changes it, so copying a message that carries many properties does not cost more than
+ * copying one without properties until the copy, or the original, is modified.
  */
 public class MessagePropertiesContext implements Serializable
 {
@@ -66,10 +71,18 @@ public class MessagePropertiesContext implements Serializable
     protected transient Map<String, Object> sessionMap = new UndefinedSessionPropertiesMap();
 
     /**
-     * The union of all property names from all scopes.
+     * The union of all property names from all scopes. A copy of another context only creates it,
+     * from the inbound and outbound properties it shares, once it is needed.
      */
     protected Set<String> keySet;
 
+    /**
+     * Whether the inbound and outbound maps are shared with another context, in which case they
+     * have to be copied before being modified.
+     */
+    private transient volatile boolean inboundShared;
+    private transient volatile boolean outboundShared;
+
     @SuppressWarnings("unchecked")
     public MessagePropertiesContext()
     {
@@ -79,6 +92,34 @@ public class MessagePropertiesContext implements Serializable
         scopedMap.put(PropertyScope.OUTBOUND, new CaseInsensitiveHashMap/* <String, Object> */(6));
     }
 
+    /**
+     * Creates a context with the same inbound and outbound properties as <code>previous</code>.
+     * The properties are not copied: both contexts share them until one of them changes them.
+     * Invocation and session properties are not part of the copy.
+     *
+     * @param previous the context to copy
+     */
+    public MessagePropertiesContext(MessagePropertiesContext previous)
+    {
+        scopedMap = new TreeMap<PropertyScope, Map<String, Object>>(new PropertyScope.ScopeComparator());
+        scopedMap.put(PropertyScope.INBOUND, previous.scopedMap.get(PropertyScope.INBOUND));
+        scopedMap.put(PropertyScope.OUTBOUND, previous.scopedMap.get(PropertyScope.OUTBOUND));
+        previous.inboundShared = true;
+        previous.outboundShared = true;
+        inboundShared = true;
+        outboundShared = true;
+    }
+
+    private Set<String> getKeySet()
+    {
+        if (keySet == null)
+        {
+            keySet = new TreeSet<String>(getScopedProperties(PropertyScope.INBOUND).keySet());
+            keySet.addAll(getScopedProperties(PropertyScope.OUTBOUND).keySet());
+        }
+        return keySet;
+    }
+
     protected Map<String, Object> getScopedProperties(PropertyScope scope)
     {
         if (PropertyScope.SESSION.equals(scope))
@@ -100,6 +141,48 @@ public class MessagePropertiesContext implements Serializable
         }
     }
 
+    /**
+     * Returns the map of a scope for modification, first copying it if it is shared with another
+     * context.
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, Object> getWritableScopedProperties(PropertyScope scope)
+    {
+        if (PropertyScope.INBOUND.equals(scope) && inboundShared)
+        {
+            scopedMap.put(scope, new CaseInsensitiveHashMap(scopedMap.get(scope)));
+            inboundShared = false;
+        }
+        else if (PropertyScope.OUTBOUND.equals(scope) && outboundShared)
+        {
+            scopedMap.put(scope, new CaseInsensitiveHashMap(scopedMap.get(scope)));
+            outboundShared = false;
+        }
+        return getScopedProperties(scope);
+    }
+
+    /**
+     * Empties the map of a scope. A shared map is replaced instead of copied.
+     */
+    @SuppressWarnings("unchecked")
+    protected void clearScopedProperties(PropertyScope scope)
+    {
+        if (PropertyScope.INBOUND.equals(scope) && inboundShared)
+        {
+            scopedMap.put(scope, new CaseInsensitiveHashMap(6));
+            inboundShared = false;
+        }
+        else if (PropertyScope.OUTBOUND.equals(scope) && outboundShared)
+        {
+            scopedMap.put(scope, new CaseInsensitiveHashMap(6));
+            outboundShared = false;
+        }
+        else
+        {
+            getScopedProperties(scope).clear();
+        }
+    }
+
     public PropertyScope getDefaultScope()
     {
         return DEFAULT_SCOPE;
@@ -114,8 +197,8 @@ public class MessagePropertiesContext implements Serializable
             {
                 props.put(entry.getKey(), entry.getValue());
             }
-            getScopedProperties(PropertyScope.INBOUND).putAll(props);
-            keySet.addAll(props.keySet());
+            getKeySet().addAll(props.keySet());
+            getWritableScopedProperties(PropertyScope.INBOUND).putAll(props);
         }
     }
 
@@ -146,12 +229,10 @@ public class MessagePropertiesContext implements Serializable
      */
     public void clearProperties()
     {
-        Map<String, Object> props = getScopedProperties(PropertyScope.INVOCATION);
-        keySet.removeAll(props.keySet());
-        props.clear();
-        props = getScopedProperties(PropertyScope.OUTBOUND);
-        keySet.removeAll(props.keySet());
-        props.clear();
+        getKeySet().removeAll(getScopedProperties(PropertyScope.INVOCATION).keySet());
+        clearScopedProperties(PropertyScope.INVOCATION);
+        getKeySet().removeAll(getScopedProperties(PropertyScope.OUTBOUND).keySet());
+        clearScopedProperties(PropertyScope.OUTBOUND);
     }
 
     public void clearProperties(PropertyScope scope)
@@ -162,9 +243,8 @@ public class MessagePropertiesContext implements Serializable
             return;
         }
 
-        Map<String, Object> props = getScopedProperties(scope);
-        keySet.removeAll(props.keySet());
-        props.clear();
+        getKeySet().removeAll(getScopedProperties(scope).keySet());
+        clearScopedProperties(scope);
     }
 
     /**
@@ -176,10 +256,10 @@ public class MessagePropertiesContext implements Serializable
      */
     public Object removeProperty(String key)
     {
-        Object value = getScopedProperties(PropertyScope.OUTBOUND).remove(key);
-        Object inv = getScopedProperties(PropertyScope.INVOCATION).remove(key);
+        Object value = removeScopedProperty(key, PropertyScope.OUTBOUND);
+        Object inv = removeScopedProperty(key, PropertyScope.INVOCATION);
 
-        keySet.remove(key);
+        getKeySet().remove(key);
 
         if (value == null)
         {
@@ -202,19 +282,29 @@ public class MessagePropertiesContext implements Serializable
             return removeProperty(key);
         }
 
-        Object value = getScopedProperties(scope).remove(key);
+        Object value = removeScopedProperty(key, scope);
 
         // Only remove the property from the keySet if it does not exist in any other scope besides this one.
         if (getProperty(key, PropertyScope.OUTBOUND) == null
             && getProperty(key, PropertyScope.INVOCATION) == null
             && getProperty(key, PropertyScope.INBOUND) == null)
         {
-            keySet.remove(key);
+            getKeySet().remove(key);
         }
 
         return value;
     }
 
+    private Object removeScopedProperty(String key, PropertyScope scope)
+    {
+        // avoid copying a shared map when there is nothing to remove
+        if (!getScopedProperties(scope).containsKey(key))
+        {
+            return null;
+        }
+        return getWritableScopedProperties(scope).remove(key);
+    }
+
     /**
      * Set a property on the message
      *
@@ -225,8 +315,8 @@ public class MessagePropertiesContext implements Serializable
     @Deprecated
     public void setProperty(String key, Object value)
     {
-        getScopedProperties(DEFAULT_SCOPE).put(key, value);
-        keySet.add(key);
+        getWritableScopedProperties(DEFAULT_SCOPE).put(key, value);
+        getKeySet().add(key);
     }
 
     /**
@@ -244,8 +334,8 @@ public class MessagePropertiesContext implements Serializable
             logger.warn(CoreMessages.sessionPropertyNotSerializableWarning(key));
         }
 
-        getScopedProperties(scope).put(key, value);
-        keySet.add(key);
+        getWritableScopedProperties(scope).put(key, value);
+        getKeySet().add(key);
     }
 
     /**
@@ -255,7 +345,7 @@ public class MessagePropertiesContext implements Serializable
     public Set<String> getPropertyNames()
     {
         Set<String> allProps = new HashSet<String>();
-        allProps.addAll(keySet);
+        allProps.addAll(getKeySet());
         return allProps;
     }
 
@@ -381,6 +471,8 @@ public class MessagePropertiesContext implements Serializable
                 }
             }
         }
+        // a copy that never needed its key set still has to write it
+        getKeySet();
         out.defaultWriteObject();
     }
 
@@ -388,6 +480,9 @@ public class MessagePropertiesContext implements Serializable
     {
         in.defaultReadObject();
         sessionMap = new UndefinedSessionPropertiesMap();
+        // other contexts in the same stream may have been sharing the maps
+        inboundShared = true;
+        outboundShared = true;
     }
 
     private static class UndefinedSessionPropertiesMap extends AbstractMap<String, Object>
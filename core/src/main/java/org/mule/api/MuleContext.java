@@ -29,6 +29,7 @@ import org.mule.api.registry.MuleRegistry;
 import org.mule.api.registry.RegistrationException;
 import org.mule.api.registry.Registry;
 import org.mule.api.security.SecurityManager;
+import org.mule.api.serialization.ObjectSerializer;
 import org.mule.api.store.ListableObjectStore;
 import org.mule.context.notification.NotificationException;
 import org.mule.context.notification.ServerNotificationManager;
@@ -316,5 +317,11 @@ public interface MuleContext extends Lifecycle
      * @return {@link {ProcessingTimeWatcher} used to compute processing time of finalized events
      */
     ProcessingTimeWatcher getProcessorTimeWatcher();
+
+    /**
+     * @return the {@link ObjectSerializer} used to persist and send objects over the wire. If no
+     *         serializer was configured it returns a {@link org.mule.serialization.JavaObjectSerializer}
+     */
+    ObjectSerializer getObjectSerializer();
 }
 
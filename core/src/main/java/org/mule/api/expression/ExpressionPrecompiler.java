@@ -0,0 +1,29 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.api.expression;
+
+/**
+ * Implemented by an {@link ExpressionManager} that can compile expressions ahead of their
+ * first evaluation. Components that know their expressions when they are initialised pass them
+ * on, so that the first messages they process do not pay the compilation cost. An expression
+ * manager that does not implement it compiles them when they are first evaluated.
+ */
+public interface ExpressionPrecompiler
+{
+
+    /**
+     * Compiles an expression and the expressions embedded in it. Invalid expressions are
+     * ignored, so that they fail when they are evaluated as they would otherwise.
+     *
+     * @param expression a single expression or a template with embedded expressions, or null
+     */
+    void precompile(String expression);
+}
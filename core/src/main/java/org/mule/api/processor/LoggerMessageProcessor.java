@@ -22,6 +22,7 @@ import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.context.MuleContextAware;
 import org.mule.api.expression.ExpressionManager;
+import org.mule.api.expression.ExpressionPrecompiler;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.util.StringUtils;
@@ -52,6 +53,10 @@ public class LoggerMessageProcessor implements MessageProcessor, Initialisable,
     {
         initLogger();
         expressionManager = muleContext.getExpressionManager();
+        if (expressionManager instanceof ExpressionPrecompiler)
+        {
+            ((ExpressionPrecompiler) expressionManager).precompile(message);
+        }
     }
 
     protected void initLogger()
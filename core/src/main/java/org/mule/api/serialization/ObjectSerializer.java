@@ -0,0 +1,65 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.api.serialization;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.lang.SerializationException;
+
+/**
+ * Serializes the objects that Mule persists or sends over the wire, such as the events kept
+ * in persistent queues and object stores, the messages of the serialized wire formats and the
+ * sessions written to the <code>MULE_SESSION</code> property.
+ * <p/>
+ * The serializer of an application is registered under
+ * {@link org.mule.api.config.MuleProperties#OBJECT_SERIALIZER} and obtained through
+ * {@link org.mule.api.MuleContext#getObjectSerializer()}. Objects deserialized by it that
+ * implement {@link org.mule.util.store.DeserializationPostInitialisable} are initialised with
+ * the context before being returned.
+ * <p/>
+ * Implementations must be thread-safe.
+ */
+public interface ObjectSerializer
+{
+
+    /**
+     * @param object the object to serialize, which may be null
+     * @return the serialized object
+     * @throws SerializationException if the object cannot be serialized
+     */
+    byte[] serialize(Object object) throws SerializationException;
+
+    /**
+     * Serializes an object into a stream, closing the stream once the object is written.
+     *
+     * @param object the object to serialize, which may be null
+     * @param out the stream to write to
+     * @throws SerializationException if the object cannot be serialized
+     */
+    void serialize(Object object, OutputStream out) throws SerializationException;
+
+    /**
+     * @param bytes the serialized object
+     * @return the deserialized object
+     * @throws SerializationException if the object cannot be deserialized
+     */
+    <T> T deserialize(byte[] bytes) throws SerializationException;
+
+    /**
+     * Deserializes an object from a stream, closing the stream once the object is read.
+     *
+     * @param in the stream to read from
+     * @return the deserialized object
+     * @throws SerializationException if the object cannot be deserialized
+     */
+    <T> T deserialize(InputStream in) throws SerializationException;
+}
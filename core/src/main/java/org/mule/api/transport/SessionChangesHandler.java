@@ -0,0 +1,32 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.api.transport;
+
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleSession;
+
+/**
+ * A {@link SessionHandler} that tracks the changes made to a received session, so that the
+ * response sent back to the sender of the session only has to hold those changes. The session
+ * of a response is stored with
+ * {@link SessionHandler#storeSessionInfoToMessage(MuleSession, MuleMessage)} when the handler
+ * does not implement this interface.
+ */
+public interface SessionChangesHandler extends SessionHandler
+{
+
+    /**
+     * Stores the changes made to a session since it was received into the response sent back
+     * to its sender. Nothing may be stored if the session did not change.
+     */
+    void storeSessionChangesToMessage(MuleSession session, MuleMessage message) throws MuleException;
+}
@@ -0,0 +1,96 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.cache;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.cache.CachingStrategy;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.processor.AbstractMessageProcessorOwner;
+import org.mule.processor.chain.DefaultMessageProcessorChainBuilder;
+
+import java.util.List;
+
+/**
+ * A scope that processes its nested message processors through a {@link CachingStrategy},
+ * so that the response of a request can be reused for the following requests with the
+ * same key instead of processing them again.
+ * <p/>
+ * Unless a caching strategy is set, the responses are cached by a
+ * {@link ObjectStoreCachingStrategy} with its default configuration.
+ */
+public class CachingMessageProcessor extends AbstractMessageProcessorOwner implements MessageProcessor
+{
+
+    private List<MessageProcessor> messageProcessors;
+    private MessageProcessor ownedMessageProcessor;
+    private CachingStrategy cachingStrategy;
+    private ObjectStoreCachingStrategy defaultCachingStrategy;
+
+    @Override
+    public MuleEvent process(MuleEvent event) throws MuleException
+    {
+        return cachingStrategy.process(event, ownedMessageProcessor);
+    }
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        try
+        {
+            ownedMessageProcessor = new DefaultMessageProcessorChainBuilder().chain(messageProcessors).build();
+        }
+        catch (MuleException e)
+        {
+            throw new InitialisationException(e, this);
+        }
+        if (cachingStrategy == null)
+        {
+            defaultCachingStrategy = new ObjectStoreCachingStrategy();
+            defaultCachingStrategy.setMuleContext(muleContext);
+            defaultCachingStrategy.initialise();
+            cachingStrategy = defaultCachingStrategy;
+        }
+        super.initialise();
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+        if (defaultCachingStrategy != null)
+        {
+            defaultCachingStrategy.dispose();
+        }
+    }
+
+    @Override
+    protected List<MessageProcessor> getOwnedMessageProcessors()
+    {
+        return messageProcessors;
+    }
+
+    public void setMessageProcessors(List<MessageProcessor> messageProcessors)
+    {
+        this.messageProcessors = messageProcessors;
+    }
+
+    public CachingStrategy getCachingStrategy()
+    {
+        return cachingStrategy;
+    }
+
+    public void setCachingStrategy(CachingStrategy cachingStrategy)
+    {
+        this.cachingStrategy = cachingStrategy;
+    }
+}
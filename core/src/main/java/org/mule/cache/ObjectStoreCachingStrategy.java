@@ -0,0 +1,526 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.cache;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.VoidMuleEvent;
+import org.mule.api.MessagingException;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleEventKeyGenerator;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.NameableObject;
+import org.mule.api.cache.CachingStrategy;
+import org.mule.api.cache.InvalidatableCachingStrategy;
+import org.mule.api.cache.InvalidateCacheException;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.context.MuleContextAware;
+import org.mule.api.lifecycle.Disposable;
+import org.mule.api.lifecycle.Initialisable;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.api.store.ListableObjectStore;
+import org.mule.api.store.ObjectAlreadyExistsException;
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreManager;
+import org.mule.keygenerator.ExpressionMuleEventKeyGenerator;
+import org.mule.keygenerator.MD5MuleEventKeyGenerator;
+import org.mule.management.stats.CachingStrategyStatistics;
+import org.mule.transport.NullPayload;
+import org.mule.util.SerializationUtils;
+import org.mule.util.UUID;
+
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link CachingStrategy} that keeps the responses of the message processor in an
+ * {@link ObjectStore}, keyed by a {@link MuleEventKeyGenerator}.
+ * <p/>
+ * Unless an object store is configured, responses are kept in memory in a store obtained
+ * from the {@link ObjectStoreManager}, which expires them after <code>entryTTL</code>
+ * milliseconds and keeps at most <code>maxEntries</code> of them.
+ * <p/>
+ * Requests with a consumable payload are processed without using the cache, since
+ * generating their key would consume them. Consumable responses are read into memory
+ * before being cached. Every hit gets its own copy of the cached payload, so responses
+ * whose payload is neither immutable nor serializable are not cached. When several requests
+ * with the same key miss the cache at the same time, only the first one is processed and
+ * the others are answered with its response, or processed themselves if it does not arrive
+ * within the default response timeout. A failure of the store is logged and the response
+ * is returned without being cached.
+ */
+public class ObjectStoreCachingStrategy implements CachingStrategy, InvalidatableCachingStrategy,
+    MuleContextAware, Initialisable, Disposable, NameableObject
+{
+
+    public static final int DEFAULT_MAX_ENTRIES = 4000;
+    public static final int DEFAULT_ENTRY_TTL = 300000;
+    public static final int DEFAULT_EXPIRATION_INTERVAL = 5000;
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private String name;
+    private MuleContext muleContext;
+    private MuleEventKeyGenerator keyGenerator;
+    private String keyGenerationExpression;
+    private ObjectStore<MuleMessage> store;
+    private boolean ownsStore;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private int entryTTL = DEFAULT_ENTRY_TTL;
+    private int expirationInterval = DEFAULT_EXPIRATION_INTERVAL;
+    private final ConcurrentMap<Serializable, PendingResponse> pendingResponses = new ConcurrentHashMap<Serializable, PendingResponse>();
+    private final CachingStrategyStatistics statistics = new CachingStrategyStatistics();
+
+    public void initialise() throws InitialisationException
+    {
+        if (keyGenerator == null)
+        {
+            if (keyGenerationExpression != null)
+            {
+                ExpressionMuleEventKeyGenerator expressionKeyGenerator = new ExpressionMuleEventKeyGenerator();
+                expressionKeyGenerator.setExpression(keyGenerationExpression);
+                keyGenerator = expressionKeyGenerator;
+            }
+            else
+            {
+                keyGenerator = new MD5MuleEventKeyGenerator();
+            }
+        }
+        if (store == null)
+        {
+            ObjectStoreManager objectStoreManager = muleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER);
+            store = objectStoreManager.getObjectStore("_cachingStrategy." + (name != null ? name : UUID.getUUID()),
+                false, maxEntries, entryTTL, expirationInterval);
+            ownsStore = true;
+        }
+    }
+
+    public void dispose()
+    {
+        pendingResponses.clear();
+        if (ownsStore)
+        {
+            try
+            {
+                ObjectStoreManager objectStoreManager = muleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER);
+                objectStoreManager.disposeStore(store);
+            }
+            catch (ObjectStoreException e)
+            {
+                logger.warn("Failed to dispose the caching strategy store: " + e.getMessage());
+            }
+        }
+    }
+
+    public MuleEvent process(MuleEvent request, MessageProcessor messageProcessor) throws MuleException
+    {
+        Serializable key = generateKey(request);
+        if (key == null)
+        {
+            return messageProcessor.process(request);
+        }
+
+        MuleMessage cached = retrieve(key);
+        if (cached != null)
+        {
+            statistics.incHits();
+            return createResponse(cached, request);
+        }
+
+        PendingResponse pending = new PendingResponse();
+        PendingResponse current = pendingResponses.putIfAbsent(key, pending);
+        if (current != null)
+        {
+            cached = current.await(muleContext.getConfiguration().getDefaultResponseTimeout());
+            if (cached != null)
+            {
+                statistics.incCoalescedRequests();
+                return createResponse(cached, request);
+            }
+            // the concurrent request failed or its response cannot be cached
+            statistics.incMisses();
+            return messageProcessor.process(request);
+        }
+
+        try
+        {
+            // the response may have been stored since it was looked up
+            cached = retrieve(key);
+            if (cached != null)
+            {
+                statistics.incHits();
+                return createResponse(cached, request);
+            }
+
+            statistics.incMisses();
+            MuleEvent response = messageProcessor.process(request);
+            cached = store(key, response);
+            return response;
+        }
+        finally
+        {
+            pendingResponses.remove(key, pending);
+            pending.complete(cached);
+        }
+    }
+
+    /**
+     * @return the key of the request, or null if it must not be cached
+     */
+    protected Serializable generateKey(MuleEvent request)
+    {
+        if (isConsumable(request.getMessage()))
+        {
+            return null;
+        }
+        try
+        {
+            return keyGenerator.generateKey(request);
+        }
+        catch (NotSerializableException e)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Processing request without caching, its key could not be generated: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private MuleMessage retrieve(Serializable key) throws ObjectStoreException
+    {
+        try
+        {
+            return store.contains(key) ? store.retrieve(key) : null;
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            // expired since it was checked
+            return null;
+        }
+    }
+
+    /**
+     * Stores a copy of the response message, reading its payload into memory first if it
+     * is consumable.
+     *
+     * @return the stored message, or null if the response cannot be cached or the store
+     *         failed
+     */
+    private MuleMessage store(Serializable key, MuleEvent response) throws MuleException
+    {
+        if (response == null || response instanceof VoidMuleEvent)
+        {
+            return null;
+        }
+        MuleMessage message = response.getMessage();
+        if (message.getExceptionPayload() != null)
+        {
+            return null;
+        }
+        if (isConsumable(message))
+        {
+            try
+            {
+                message.setPayload(message.getPayloadAsBytes());
+            }
+            catch (Exception e)
+            {
+                throw new MessagingException(response, e);
+            }
+        }
+
+        Object payload = message.getPayload();
+        if (!isImmutable(payload) && !(payload instanceof byte[]) && !(payload instanceof Serializable))
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Not caching response, its payload cannot be copied: " + payload.getClass().getName());
+            }
+            return null;
+        }
+
+        MuleMessage copy = new DefaultMuleMessage(payload, message, muleContext);
+        try
+        {
+            store.store(key, copy);
+            statistics.incStoredEntries();
+        }
+        catch (ObjectAlreadyExistsException e)
+        {
+            // stored by another node of the cluster
+        }
+        catch (ObjectStoreException e)
+        {
+            logger.warn("Failed to cache the response of caching strategy " + name + ": " + e.getMessage(), e);
+            return null;
+        }
+        return copy;
+    }
+
+    /**
+     * Creates the response to a request from a cached message. The response has a copy of
+     * the payload and the properties of the cached message and the variables of the request.
+     */
+    protected MuleEvent createResponse(MuleMessage cached, MuleEvent request)
+    {
+        MuleMessage message = new DefaultMuleMessage(cached, request.getMessage(), muleContext);
+        message.setPayload(copyPayload(cached.getPayload()));
+        return new DefaultMuleEvent(message, request);
+    }
+
+    /**
+     * Copies a cached payload, so that the requests answered from the cache can not change
+     * each other's responses.
+     */
+    private Object copyPayload(Object payload)
+    {
+        if (isImmutable(payload))
+        {
+            return payload;
+        }
+        if (payload instanceof byte[])
+        {
+            return ((byte[]) payload).clone();
+        }
+        return SerializationUtils.deserialize(SerializationUtils.serialize((Serializable) payload), muleContext);
+    }
+
+    private boolean isImmutable(Object payload)
+    {
+        return payload instanceof String || payload instanceof Number || payload instanceof Boolean
+               || payload instanceof Character || payload instanceof NullPayload;
+    }
+
+    private boolean isConsumable(MuleMessage message)
+    {
+        return message instanceof DefaultMuleMessage && ((DefaultMuleMessage) message).isConsumable();
+    }
+
+    public void invalidate()
+    {
+        if (!(store instanceof ListableObjectStore))
+        {
+            throw new InvalidateCacheException("The store of caching strategy " + name + " cannot list its entries");
+        }
+        try
+        {
+            long count = 0;
+            for (Serializable key : ((ListableObjectStore<MuleMessage>) store).allKeys())
+            {
+                if (remove(key))
+                {
+                    count++;
+                }
+            }
+            statistics.addInvalidatedEntries(count);
+        }
+        catch (ObjectStoreException e)
+        {
+            throw new InvalidateCacheException("Failed to invalidate caching strategy " + name, e);
+        }
+    }
+
+    public void invalidate(Serializable key) throws InvalidateCacheException
+    {
+        if (key == null)
+        {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        try
+        {
+            if (remove(key))
+            {
+                statistics.addInvalidatedEntries(1);
+            }
+        }
+        catch (ObjectStoreException e)
+        {
+            throw new InvalidateCacheException("Failed to invalidate entry " + key + " of caching strategy " + name, e);
+        }
+    }
+
+    private boolean remove(Serializable key) throws ObjectStoreException
+    {
+        try
+        {
+            store.remove(key);
+            return true;
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of cached entries, or -1 if the store cannot list its entries
+     */
+    public int getEntryCount()
+    {
+        if (store instanceof ListableObjectStore)
+        {
+            try
+            {
+                return ((ListableObjectStore<MuleMessage>) store).allKeys().size();
+            }
+            catch (ObjectStoreException e)
+            {
+                logger.debug("Failed to count cached entries: " + e.getMessage());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of entries that left the cache because they expired or the cache
+     *         was full, or -1 if the store cannot list its entries
+     */
+    public long getEvictions()
+    {
+        int entries = getEntryCount();
+        if (entries < 0)
+        {
+            return -1;
+        }
+        return Math.max(0, statistics.getStoredEntries() - statistics.getInvalidatedEntries() - entries);
+    }
+
+    public CachingStrategyStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    public void setMuleContext(MuleContext context)
+    {
+        this.muleContext = context;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public MuleEventKeyGenerator getKeyGenerator()
+    {
+        return keyGenerator;
+    }
+
+    public void setKeyGenerator(MuleEventKeyGenerator keyGenerator)
+    {
+        this.keyGenerator = keyGenerator;
+    }
+
+    public String getKeyGenerationExpression()
+    {
+        return keyGenerationExpression;
+    }
+
+    /**
+     * Generates the keys of the requests with an expression instead of a digest of their
+     * payload. Ignored when a key generator is set.
+     */
+    public void setKeyGenerationExpression(String keyGenerationExpression)
+    {
+        this.keyGenerationExpression = keyGenerationExpression;
+    }
+
+    public ObjectStore<MuleMessage> getStore()
+    {
+        return store;
+    }
+
+    public void setStore(ObjectStore<MuleMessage> store)
+    {
+        this.store = store;
+    }
+
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getEntryTTL()
+    {
+        return entryTTL;
+    }
+
+    public void setEntryTTL(int entryTTL)
+    {
+        this.entryTTL = entryTTL;
+    }
+
+    public int getExpirationInterval()
+    {
+        return expirationInterval;
+    }
+
+    public void setExpirationInterval(int expirationInterval)
+    {
+        this.expirationInterval = expirationInterval;
+    }
+
+    /**
+     * The response of a request being processed, awaited by the concurrent requests with
+     * the same key.
+     */
+    private static class PendingResponse
+    {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile MuleMessage message;
+
+        void complete(MuleMessage message)
+        {
+            this.message = message;
+            latch.countDown();
+        }
+
+        /**
+         * @return the cached response, or null if there is none or it did not arrive within
+         *         <code>timeout</code> milliseconds
+         */
+        MuleMessage await(long timeout)
+        {
+            try
+            {
+                return latch.await(timeout, TimeUnit.MILLISECONDS) ? message : null;
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.mule.api.source.MessageSource;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.construct.flow.DefaultFlowProcessingStrategy;
 import org.mule.context.notification.PipelineMessageNotification;
+import org.mule.context.notification.ServerNotificationManager;
 import org.mule.exception.ChoiceMessagingExceptionStrategy;
 import org.mule.exception.RollbackMessagingExceptionStrategy;
 import org.mule.processor.AbstractFilteringMessageProcessor;
@@ -101,9 +102,7 @@ public abstract class AbstractPipeline extends AbstractFlowConstruct implements
             @Override
             public MuleEvent process(MuleEvent event) throws MuleException
             {
-                muleContext.getNotificationManager().fireNotification(
-                        new PipelineMessageNotification(AbstractPipeline.this, event,
-                                PipelineMessageNotification.PROCESS_START));
+                firePipelineNotification(event, PipelineMessageNotification.PROCESS_START, null);
 
                 MuleEvent result = null;
                 MessagingException exceptionThrown = null;
@@ -119,9 +118,8 @@ public abstract class AbstractPipeline extends AbstractFlowConstruct implements
                 finally
                 {
                     MuleEvent notificationEvent = result != null ? result : event;
-                    muleContext.getNotificationManager().fireNotification(
-                            new PipelineMessageNotification(AbstractPipeline.this, notificationEvent,
-                                    PipelineMessageNotification.PROCESS_COMPLETE, exceptionThrown));
+                    firePipelineNotification(notificationEvent, PipelineMessageNotification.PROCESS_COMPLETE,
+                        exceptionThrown);
                 }
             }
         });
@@ -134,14 +132,25 @@ public abstract class AbstractPipeline extends AbstractFlowConstruct implements
             @Override
             public MuleEvent process(MuleEvent event) throws MuleException
             {
-                muleContext.getNotificationManager().fireNotification(
-                        new PipelineMessageNotification(AbstractPipeline.this, event,
-                                PipelineMessageNotification.PROCESS_END));
+                firePipelineNotification(event, PipelineMessageNotification.PROCESS_END, null);
                 return event;
             }
         });
     }
 
+    /**
+     * Fires a {@link PipelineMessageNotification}, unless no listener is interested in them, in
+     * which case it is not even created.
+     */
+    private void firePipelineNotification(MuleEvent event, int action, MessagingException exception)
+    {
+        ServerNotificationManager notificationManager = muleContext.getNotificationManager();
+        if (notificationManager.isNotificationEnabled(PipelineMessageNotification.class))
+        {
+            notificationManager.fireNotification(new PipelineMessageNotification(this, event, action, exception));
+        }
+    }
+
     @Override
     public void setMessageProcessors(List<MessageProcessor> messageProcessors)
     {
@@ -0,0 +1,293 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.context.notification;
+
+import org.mule.api.context.WorkManager;
+import org.mule.api.context.notification.ServerNotification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+import javax.resource.spi.work.WorkListener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Delivers the asynchronous notifications of a {@link ServerNotificationManager}. Notifications
+ * are queued in one of several bounded shards, chosen by the thread firing them, and each shard
+ * is drained in batches by its own work.
+ * <p/>
+ * When a shard is full the {@link NotificationOverflowPolicy} decides whether the notification
+ * is delivered in the firing thread, dropped, or waits for room in the shard. Delivering in the
+ * firing thread goes through the shard: the firing thread delivers the oldest notifications of
+ * the shard itself until there is room for its own, while the drainer of the shard waits. The
+ * same is done under BLOCK while the shards are not being drained yet, as waiting would never
+ * end.
+ * <p/>
+ * Ordering: the notifications of a shard are delivered one at a time in the order they were
+ * queued, so the notifications fired by a thread are delivered in the order they were fired,
+ * except for the ones dropped under DROP and the ones fired by a listener while it handles a
+ * notification, which are delivered right away on the dispatching thread. Notifications fired
+ * by different threads may be delivered in any order.
+ */
+class NotificationDispatcher
+{
+
+    private static final Log logger = LogFactory.getLog(NotificationDispatcher.class);
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final int DROPPED_NOTIFICATIONS_LOG_INTERVAL = 10000;
+
+    private static final ThreadLocal<NotificationDispatcher> dispatchingThread = new ThreadLocal<NotificationDispatcher>();
+
+    private final ServerNotificationManager notificationManager;
+    private final List<Shard> shards;
+    private final NotificationOverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final AtomicLong droppedNotifications = new AtomicLong();
+    private volatile boolean started = false;
+    private volatile boolean disposed = false;
+
+    NotificationDispatcher(ServerNotificationManager notificationManager, int shardCount, int queueSize,
+                           NotificationOverflowPolicy overflowPolicy, int batchSize)
+    {
+        this.notificationManager = notificationManager;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.shards = new ArrayList<Shard>(shardCount);
+        for (int i = 0; i < shardCount; i++)
+        {
+            shards.add(new Shard(queueSize));
+        }
+    }
+
+    void start(WorkManager workManager, WorkListener workListener) throws WorkException
+    {
+        for (Shard shard : shards)
+        {
+            workManager.scheduleWork(new ShardDrainer(shard), WorkManager.INDEFINITE, null, workListener);
+        }
+        started = true;
+    }
+
+    void dispatch(ServerNotification notification)
+    {
+        Shard shard = shards.get(shardIndex());
+        if (shard.queue.offer(notification))
+        {
+            return;
+        }
+
+        if (overflowPolicy == NotificationOverflowPolicy.DROP)
+        {
+            long dropped = droppedNotifications.incrementAndGet();
+            if (dropped == 1 || dropped % DROPPED_NOTIFICATIONS_LOG_INTERVAL == 0)
+            {
+                logger.warn(String.format("Notification queue is full, %d notifications dropped so far. Last dropped: %s",
+                    dropped, notification));
+            }
+            else if (logger.isDebugEnabled())
+            {
+                logger.debug("Notification queue is full, dropped: " + notification);
+            }
+        }
+        else if (dispatchingThread.get() == this)
+        {
+            // the shards can not be drained until the listener firing it returns
+            deliver(notification);
+        }
+        else if (overflowPolicy == NotificationOverflowPolicy.DELIVER || !started)
+        {
+            shard.deliverUntilQueued(notification);
+        }
+        else
+        {
+            try
+            {
+                while (!disposed)
+                {
+                    if (shard.queue.offer(notification, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                    {
+                        return;
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                if (!disposed)
+                {
+                    logger.error("Failed to queue notification: " + notification, e);
+                }
+            }
+        }
+    }
+
+    void dispose()
+    {
+        disposed = true;
+    }
+
+    long getDroppedNotifications()
+    {
+        return droppedNotifications.get();
+    }
+
+    /**
+     * @return the notifications waiting to be delivered
+     */
+    List<ServerNotification> getQueuedNotifications()
+    {
+        List<ServerNotification> notifications = new ArrayList<ServerNotification>();
+        for (Shard shard : shards)
+        {
+            notifications.addAll(shard.queue);
+        }
+        return notifications;
+    }
+
+    private int shardIndex()
+    {
+        if (shards.size() == 1)
+        {
+            return 0;
+        }
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32));
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % shards.size();
+    }
+
+    private void deliver(ServerNotification notification)
+    {
+        try
+        {
+            notificationManager.notifyListeners(notification);
+        }
+        catch (RuntimeException e)
+        {
+            // Don't let a listener stop the delivery of the other notifications
+            logger.error("Failed to deliver notification: " + notification, e);
+        }
+    }
+
+    private class Shard
+    {
+
+        private final BlockingQueue<ServerNotification> queue;
+        /**
+         * Held while notifications taken from the queue are delivered, so that they are
+         * delivered in the order they were queued. Fair, so that a firing thread delivering
+         * in its place does not wait for the drainer more than one batch.
+         */
+        private final Lock deliveryLock = new ReentrantLock(true);
+
+        Shard(int queueSize)
+        {
+            queue = new LinkedBlockingQueue<ServerNotification>(queueSize);
+        }
+
+        /**
+         * Delivers the oldest queued notifications in the calling thread until there is room
+         * for <code>notification</code>.
+         */
+        void deliverUntilQueued(ServerNotification notification)
+        {
+            deliveryLock.lock();
+            try
+            {
+                while (!queue.offer(notification))
+                {
+                    ServerNotification queued = queue.poll();
+                    if (queued != null)
+                    {
+                        deliver(queued);
+                    }
+                }
+            }
+            finally
+            {
+                deliveryLock.unlock();
+            }
+        }
+    }
+
+    private class ShardDrainer implements Work
+    {
+
+        private final Shard shard;
+
+        ShardDrainer(Shard shard)
+        {
+            this.shard = shard;
+        }
+
+        @Override
+        public void run()
+        {
+            dispatchingThread.set(NotificationDispatcher.this);
+            List<ServerNotification> batch = new ArrayList<ServerNotification>(batchSize);
+            try
+            {
+                while (!disposed)
+                {
+                    // the lock is held while polling, so no firing thread can deliver queued
+                    // notifications between the poll and the delivery; firing threads only
+                    // take it when the queue is full, in which case the poll does not wait
+                    shard.deliveryLock.lock();
+                    try
+                    {
+                        ServerNotification notification = shard.queue.poll(notificationManager.getQueuePollTimeout(),
+                            TimeUnit.MILLISECONDS);
+                        if (notification == null)
+                        {
+                            continue;
+                        }
+                        batch.add(notification);
+                        shard.queue.drainTo(batch, batchSize - 1);
+                        for (ServerNotification queued : batch)
+                        {
+                            deliver(queued);
+                        }
+                        batch.clear();
+                    }
+                    finally
+                    {
+                        shard.deliveryLock.unlock();
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                dispatchingThread.remove();
+            }
+        }
+
+        @Override
+        public void release()
+        {
+            notificationManager.release();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.context.notification;
+
+/**
+ * What the {@link ServerNotificationManager} does with a notification fired while the queue
+ * of notifications waiting to be delivered is full.
+ */
+public enum NotificationOverflowPolicy
+{
+    /**
+     * The thread firing the notification delivers the oldest notifications of the queue itself
+     * until there is room for its own, so that no notification is lost and the notifications
+     * are still delivered in the order they were queued. A slow listener only holds up the
+     * firing thread while the queue is full. This is the default.
+     */
+    DELIVER,
+
+    /**
+     * The notification is discarded, counted and logged. Listeners that pair notifications,
+     * such as the ones fired before and after processing an event, may miss one of them.
+     */
+    DROP,
+
+    /**
+     * The thread firing the notification waits until there is room in the queue, so a slow
+     * listener holds up the processing of the events firing notifications
+     */
+    BLOCK
+}
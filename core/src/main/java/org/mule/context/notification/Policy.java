@@ -150,7 +150,21 @@ class Policy
             }
             knownEventsSuper.put(notfnClass, Boolean.valueOf(found));
         }
-        if (!knownEventsExact.containsKey(notfnClass))
+        return ((Boolean) knownEventsSuper.get(notfnClass)).booleanValue() || isDispatched(notfnClass);
+    }
+
+    /**
+     * Unlike {@link #isNotificationEnabled(Class)} this is exact: it is true only if a
+     * notification of this very class would be delivered to a listener (ignoring subscriptions).
+     * Once known, the answer is a single map lookup, so it can be asked for every notification.
+     *
+     * @param notfnClass The class of the notification being generated
+     * @return false if there is no need to dispatch the notification
+     */
+    boolean isDispatched(Class notfnClass)
+    {
+        Boolean known = (Boolean) knownEventsExact.get(notfnClass);
+        if (known == null)
         {
             boolean found = false;
             for (Iterator events = eventToSenders.keySet().iterator(); events.hasNext() && !found;)
@@ -158,11 +172,10 @@ class Policy
                 Class event = (Class) events.next();
                 found = event.isAssignableFrom(notfnClass);
             }
-            knownEventsExact.put(notfnClass, Boolean.valueOf(found));
-
+            known = Boolean.valueOf(found);
+            knownEventsExact.put(notfnClass, known);
         }
-        return ((Boolean) knownEventsSuper.get(notfnClass)).booleanValue()
-                || ((Boolean) knownEventsExact.get(notfnClass)).booleanValue();
+        return known.booleanValue();
     }
 
 }
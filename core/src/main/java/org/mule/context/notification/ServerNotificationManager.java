@@ -23,12 +23,10 @@ import org.mule.util.ClassUtils;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.resource.spi.work.Work;
@@ -63,15 +61,33 @@ import org.apache.commons.logging.LogFactory;
  * <li>Disabling an event or interface disables all uses of that class or any subclass.</li>
  * <li>Enquiring whether an event is enabled returns true if any subclass is enabled.</li>
  * </ul>
+ *
+ * <p>Once the manager is started, notifications that no listener would receive are discarded
+ * when they are fired.  The others, unless they are {@link BlockingServerEvent}s, are delivered
+ * asynchronously by a number of dispatcher threads, each draining its own bounded queue in
+ * batches.  The number of threads, the size of their queues and what to do when a queue is full
+ * can be set until the manager is started.  By default a thread firing a notification while its
+ * queue is full delivers queued notifications itself until there is room, so that none is lost.
+ * The notifications fired by a thread are delivered in the order they were fired, see
+ * {@link NotificationDispatcher} for the exceptions.</p>
  */
 public class ServerNotificationManager implements Work, Disposable, ServerNotificationHandler, MuleContextAware
 {
     public static final String NULL_SUBSCRIPTION = "NULL";
+    public static final int DEFAULT_DISPATCHER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
     protected Log logger = LogFactory.getLog(getClass());
     private boolean dynamic = false;
     private Configuration configuration = new Configuration();
     private AtomicBoolean disposed = new AtomicBoolean(false);
-    private BlockingDeque<ServerNotification> eventQueue = new LinkedBlockingDeque<ServerNotification>();
+    private int dispatcherThreads = DEFAULT_DISPATCHER_THREADS;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private NotificationOverflowPolicy overflowPolicy = NotificationOverflowPolicy.DELIVER;
+    private volatile NotificationDispatcher dispatcher = createDispatcher();
+    private volatile boolean started = false;
     private MuleContext muleContext;
 
     @Override
@@ -95,7 +111,11 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
     {
         try
         {
-            workManager.scheduleWork(this, WorkManager.INDEFINITE, null, workListener);
+            synchronized (this)
+            {
+                started = true;
+                dispatcher.start(workManager, workListener);
+            }
         }
         catch (WorkException e)
         {
@@ -103,6 +123,111 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
         }
     }
 
+    /**
+     * @param dispatcherThreads the number of threads delivering the asynchronous notifications
+     */
+    public void setDispatcherThreads(int dispatcherThreads)
+    {
+        if (dispatcherThreads < 1)
+        {
+            throw new IllegalArgumentException("dispatcherThreads must be at least 1: " + dispatcherThreads);
+        }
+        this.dispatcherThreads = dispatcherThreads;
+        reconfigureDispatcher();
+    }
+
+    public int getDispatcherThreads()
+    {
+        return dispatcherThreads;
+    }
+
+    /**
+     * @param queueSize the number of notifications each dispatcher thread can have waiting to
+     *            be delivered
+     */
+    public void setQueueSize(int queueSize)
+    {
+        if (queueSize < 1)
+        {
+            throw new IllegalArgumentException("queueSize must be at least 1: " + queueSize);
+        }
+        this.queueSize = queueSize;
+        reconfigureDispatcher();
+    }
+
+    public int getQueueSize()
+    {
+        return queueSize;
+    }
+
+    /**
+     * @param batchSize the maximum number of notifications a dispatcher thread takes from its
+     *            queue at once
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        reconfigureDispatcher();
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setOverflowPolicy(NotificationOverflowPolicy overflowPolicy)
+    {
+        if (overflowPolicy == null)
+        {
+            throw new IllegalArgumentException("overflowPolicy cannot be null");
+        }
+        this.overflowPolicy = overflowPolicy;
+        reconfigureDispatcher();
+    }
+
+    public NotificationOverflowPolicy getOverflowPolicy()
+    {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return the number of notifications dropped because the queue of a dispatcher thread was
+     *         full
+     */
+    public long getDroppedNotifications()
+    {
+        return dispatcher.getDroppedNotifications();
+    }
+
+    private NotificationDispatcher createDispatcher()
+    {
+        return new NotificationDispatcher(this, dispatcherThreads, queueSize, overflowPolicy, batchSize);
+    }
+
+    /**
+     * Replaces the dispatcher with one using the current settings, passing on the notifications
+     * fired so far
+     */
+    private synchronized void reconfigureDispatcher()
+    {
+        if (started)
+        {
+            logger.warn("The notification dispatcher settings only take effect if they are set before the manager is started");
+            return;
+        }
+        NotificationDispatcher previous = dispatcher;
+        dispatcher = createDispatcher();
+        previous.dispose();
+        for (ServerNotification notification : previous.getQueuedNotifications())
+        {
+            dispatcher.dispatch(notification);
+        }
+    }
+
     public void addInterfaceToType(Class<? extends ServerNotificationListener> iface, Class<? extends ServerNotification> event)
     {
         configuration.addInterfaceToType(iface, event);
@@ -194,6 +319,15 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
     {
         if (!disposed.get())
         {
+            // until the manager is started listeners are still being registered, so the
+            // notifications fired during startup are queued whether or not anybody listens yet
+            Configuration currentConfiguration = configuration;
+            Policy policy = started && currentConfiguration != null ? currentConfiguration.getPolicy() : null;
+            if (policy != null && !policy.isDispatched(notification.getClass()))
+            {
+                // nobody listens to it
+                return;
+            }
             notification.setMuleContext(muleContext);
             if (notification instanceof BlockingServerEvent)
             {
@@ -201,17 +335,7 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
             }
             else
             {
-                try
-                {
-                    eventQueue.put(notification);
-                }
-                catch (InterruptedException e)
-                {
-                    if (!disposed.get())
-                    {
-                        logger.error("Failed to queue notification: " + notification, e);
-                    }
-                }
+                dispatcher.dispatch(notification);
             }
         }
         else
@@ -239,6 +363,7 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
     public void dispose()
     {
         disposed.set(true);
+        dispatcher.dispose();
         configuration = null;
     }
 
@@ -260,33 +385,30 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
         dispose();
     }
 
+    /**
+     * The notifications are delivered by the dispatcher threads scheduled by
+     * {@link #start(WorkManager, WorkListener)}, so this does nothing.
+     */
     @Override
     public void run()
     {
-        while (!disposed.get())
-        {
-            try
-            {
-                int timeout = muleContext.getConfiguration().getDefaultQueueTimeout();
-                ServerNotification notification = eventQueue.poll(timeout, TimeUnit.MILLISECONDS);
-                if (notification != null)
-                {
-                    notifyListeners(notification);
-                }
-            }
-            catch (InterruptedException e)
-            {
-                Thread.currentThread().interrupt();
-            }
-        }
+        // nothing to do
+    }
+
+    int getQueuePollTimeout()
+    {
+        return muleContext.getConfiguration().getDefaultQueueTimeout();
     }
 
     /**
-     * @return DIRECT reference to an event queue
+     * @return a copy of the notifications waiting to be delivered
+     * @deprecated notifications are now queued by several dispatcher threads, so changes to the
+     *             returned queue have no effect
      */
+    @Deprecated
     public Queue<ServerNotification> getEventQueue()
     {
-        return eventQueue;
+        return new LinkedList<ServerNotification>(dispatcher.getQueuedNotifications());
     }
 
     /**
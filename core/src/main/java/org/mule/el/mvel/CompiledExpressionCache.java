@@ -0,0 +1,224 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.el.mvel;
+
+import java.io.Serializable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mvel2.MVEL;
+import org.mvel2.ParserContext;
+import org.mvel2.ast.ASTNode;
+import org.mvel2.compiler.ExecutableAccessor;
+import org.mvel2.compiler.ExecutableLiteral;
+
+/**
+ * Bounded cache of compiled MVEL expressions that can be safely shared by concurrent flows.
+ * <p/>
+ * Lookups never lock. When the cache grows over its maximum size entries are evicted using a
+ * second chance (clock) policy: entries that were used since the last time the eviction
+ * hand passed over them are given another round, so frequently used expressions stay
+ * compiled while one-off expressions are discarded first.
+ * <p/>
+ * Hit, miss and eviction counters are kept so the effectiveness of the cache can be
+ * monitored.
+ */
+public class CompiledExpressionCache
+{
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final ParserContext parserContext;
+    private final int maxSize;
+
+    private final ConcurrentMap<String, CompiledExpression> expressions = new ConcurrentHashMap<String, CompiledExpression>();
+    private final Queue<CompiledExpression> evictionQueue = new ConcurrentLinkedQueue<CompiledExpression>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CompiledExpressionCache(ParserContext parserContext)
+    {
+        this(parserContext, DEFAULT_MAX_SIZE);
+    }
+
+    public CompiledExpressionCache(ParserContext parserContext, int maxSize)
+    {
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("Compiled expression cache size must be greater than zero");
+        }
+        this.parserContext = parserContext;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the compiled form of an expression, compiling it if it was not cached already.
+     *
+     * @param expression the expression to compile
+     * @return the cached compiled expression
+     */
+    public CompiledExpression get(String expression)
+    {
+        CompiledExpression compiled = expressions.get(expression);
+        if (compiled != null)
+        {
+            hits.incrementAndGet();
+            compiled.referenced = true;
+            return compiled;
+        }
+
+        misses.incrementAndGet();
+        compiled = new CompiledExpression(expression, MVEL.compileExpression(expression, parserContext));
+        CompiledExpression previous = expressions.putIfAbsent(expression, compiled);
+        if (previous != null)
+        {
+            // compiled concurrently by another thread, keep the one already shared
+            return previous;
+        }
+        evictionQueue.add(compiled);
+        if (size.incrementAndGet() > maxSize)
+        {
+            evict();
+        }
+        return compiled;
+    }
+
+    private void evict()
+    {
+        // every entry gets at most one second chance, so this always ends
+        int attempts = 2 * maxSize + 1;
+        while (size.get() > maxSize && attempts-- > 0)
+        {
+            CompiledExpression candidate = evictionQueue.poll();
+            if (candidate == null)
+            {
+                return;
+            }
+            if (candidate.referenced)
+            {
+                candidate.referenced = false;
+                evictionQueue.add(candidate);
+            }
+            else if (expressions.remove(candidate.expression, candidate))
+            {
+                size.decrementAndGet();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void clear()
+    {
+        CompiledExpression compiled;
+        while ((compiled = evictionQueue.poll()) != null)
+        {
+            if (expressions.remove(compiled.expression, compiled))
+            {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    public int getSize()
+    {
+        return size.get();
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * A compiled expression together with the bookkeeping needed by the cache and the
+     * executor.
+     */
+    public static class CompiledExpression
+    {
+
+        private final String expression;
+        private final Serializable compiledExpression;
+        private final boolean optimizable;
+
+        private volatile boolean referenced;
+        private volatile boolean optimized;
+
+        CompiledExpression(String expression, Serializable compiledExpression)
+        {
+            this.expression = expression;
+            this.compiledExpression = compiledExpression;
+            this.optimizable = isSingleAccessor(compiledExpression);
+        }
+
+        private static boolean isSingleAccessor(Serializable compiledExpression)
+        {
+            if (compiledExpression instanceof ExecutableLiteral)
+            {
+                return true;
+            }
+            // subclasses of ASTNode are control flow, assignments or operators
+            return compiledExpression instanceof ExecutableAccessor
+                   && ((ExecutableAccessor) compiledExpression).getNode().getClass() == ASTNode.class;
+        }
+
+        public String getExpression()
+        {
+            return expression;
+        }
+
+        public Serializable getCompiledExpression()
+        {
+            return compiledExpression;
+        }
+
+        /**
+         * @return true if the expression is made of a single literal or accessor chain, so it
+         *         does not have branches that could be optimized lazily by concurrent
+         *         executions once its first execution has completed
+         */
+        public boolean isOptimizable()
+        {
+            return optimizable;
+        }
+
+        boolean isOptimized()
+        {
+            return optimized;
+        }
+
+        void setOptimized()
+        {
+            optimized = true;
+        }
+    }
+}
@@ -12,42 +12,111 @@ package org.mule.el.mvel;
 
 import org.mule.api.el.ExpressionExecutor;
 import org.mule.api.expression.InvalidExpressionException;
+import org.mule.el.mvel.CompiledExpressionCache.CompiledExpression;
 
 import java.io.Serializable;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.mvel2.MVEL;
 import org.mvel2.ParserContext;
+import org.mvel2.optimizers.AccessorOptimizer;
 import org.mvel2.optimizers.OptimizerFactory;
+import org.mvel2.optimizers.impl.asm.ASMAccessorOptimizer;
+import org.mvel2.optimizers.impl.refl.ReflectiveAccessorOptimizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Executes MVEL expressions, keeping their compiled form in a {@link CompiledExpressionCache}.
+ * <p/>
+ * Accessors are optimized using the reflective optimizer, which is safe to use from concurrent
+ * threads (see MULE-6630). The optimizer is selected for the executing thread only, so other
+ * MVEL users in the same JVM keep their own default optimizer.
+ * <p/>
+ * When <code>optimizeThreadSafeExpressions</code> is enabled, expressions that consist of a
+ * single literal or accessor chain are JIT compiled with the ASM optimizer instead. As ASM
+ * optimization happens on the first execution of such an expression, that execution is
+ * serialized and, once it completes, the expression is executed without any locking.
+ */
 public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpressionLanguageContext>
 {
 
     private static Logger log = LoggerFactory.getLogger(MVELExpressionExecutor.class);
 
-    protected static final int COMPILED_EXPRESSION_MAX_CACHE_SIZE = 1000;
+    protected static final int COMPILED_EXPRESSION_MAX_CACHE_SIZE = CompiledExpressionCache.DEFAULT_MAX_SIZE;
+
+    private static final ThreadLocal<Class<? extends AccessorOptimizer>> threadOptimizer = new ThreadLocal<Class<? extends AccessorOptimizer>>();
 
     protected ParserContext parserContext;
-    protected LRUMap compiledExpressionsCache = new LRUMap(COMPILED_EXPRESSION_MAX_CACHE_SIZE);
+    protected CompiledExpressionCache compiledExpressionsCache;
+    protected boolean optimizeThreadSafeExpressions;
 
     public MVELExpressionExecutor(ParserContext parserContext)
+    {
+        this(parserContext, COMPILED_EXPRESSION_MAX_CACHE_SIZE, false);
+    }
+
+    public MVELExpressionExecutor(ParserContext parserContext,
+                                  int compiledExpressionCacheSize,
+                                  boolean optimizeThreadSafeExpressions)
     {
         this.parserContext = parserContext;
+        this.compiledExpressionsCache = new CompiledExpressionCache(parserContext, compiledExpressionCacheSize);
+        this.optimizeThreadSafeExpressions = optimizeThreadSafeExpressions;
     }
 
     public Object execute(String expression, MVELExpressionLanguageContext context)
     {
-        // Use reflective optimizer rather than default to avoid concurrency issues with JIT complication.
-        // See MULE-6630
-        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
-
         if (log.isTraceEnabled())
         {
             log.trace("Executing MVEL expression '" + expression + "' with context: \n" + context.toString());
         }
-        return MVEL.executeExpression(getCompiledExpression(expression), context);
+        CompiledExpression compiled = compiledExpressionsCache.get(expression);
+
+        if (optimizeThreadSafeExpressions && compiled.isOptimizable())
+        {
+            if (compiled.isOptimized())
+            {
+                // any accessor that needs to be optimized again falls back to reflection
+                return execute(compiled, context, ReflectiveAccessorOptimizer.class);
+            }
+            synchronized (compiled)
+            {
+                Object result = execute(compiled, context, ASMAccessorOptimizer.class);
+                compiled.setOptimized();
+                return result;
+            }
+        }
+        return execute(compiled, context, ReflectiveAccessorOptimizer.class);
+    }
+
+    protected Object execute(CompiledExpression compiled,
+                             MVELExpressionLanguageContext context,
+                             Class<? extends AccessorOptimizer> optimizer)
+    {
+        // expressions may be nested (e.g. aliases), so restore the optimizer of the outer one
+        Class<? extends AccessorOptimizer> outerOptimizer = threadOptimizer.get();
+        if (outerOptimizer != optimizer)
+        {
+            OptimizerFactory.setThreadAccessorOptimizer(optimizer);
+            threadOptimizer.set(optimizer);
+        }
+        try
+        {
+            return MVEL.executeExpression(compiled.getCompiledExpression(), context);
+        }
+        finally
+        {
+            if (outerOptimizer == null)
+            {
+                OptimizerFactory.clearThreadAccessorOptimizer();
+                threadOptimizer.remove();
+            }
+            else if (outerOptimizer != optimizer)
+            {
+                OptimizerFactory.setThreadAccessorOptimizer(outerOptimizer);
+                threadOptimizer.set(outerOptimizer);
+            }
+        }
     }
 
     public void validate(String expression) throws InvalidExpressionException
@@ -55,6 +124,17 @@ public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpression
         getCompiledExpression(expression);
     }
 
+    /**
+     * Compiles an expression ahead of its first execution so it is already cached when it is
+     * used. Does nothing if the expression was compiled before.
+     *
+     * @param expression Expression to be compiled
+     */
+    public void precompile(String expression)
+    {
+        getCompiledExpression(expression);
+    }
+
     /**
      * Compile an expression. If such expression was compiled before then return the compilation output from a
      * cache.
@@ -64,16 +144,17 @@ public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpression
      */
     protected Serializable getCompiledExpression(String expression)
     {
-        if (compiledExpressionsCache.containsKey(expression))
-        {
-            return (Serializable) compiledExpressionsCache.get(expression);
-        }
-        else
-        {
-            Serializable compiledExpression = MVEL.compileExpression(expression, parserContext);
-            compiledExpressionsCache.put(expression, compiledExpression);
-            return compiledExpression;
-        }
+        return compiledExpressionsCache.get(expression).getCompiledExpression();
+    }
+
+    public CompiledExpressionCache getCompiledExpressionsCache()
+    {
+        return compiledExpressionsCache;
+    }
+
+    public boolean isOptimizeThreadSafeExpressions()
+    {
+        return optimizeThreadSafeExpressions;
     }
 
 }
@@ -13,6 +13,7 @@ package org.mule.el.mvel;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleMessage;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.el.ExpressionLanguage;
 import org.mule.api.expression.ExpressionManager;
 import org.mule.api.expression.ExpressionRuntimeException;
@@ -50,6 +51,11 @@ import org.slf4j.LoggerFactory;
  */
 public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
 {
+    public static final String COMPILED_EXPRESSION_CACHE_SIZE_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX
+                                                                         + "mel.compiledExpressionCacheSize";
+    public static final String OPTIMIZE_THREAD_SAFE_EXPRESSIONS_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX
+                                                                           + "mel.optimizeThreadSafeExpressions";
+
     private static Logger log = LoggerFactory.getLogger(MVELExpressionLanguage.class);
 
     protected ParserContext parserContext;
@@ -65,6 +71,9 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
     protected Map<String, String> aliases = new HashMap<String, String>();
     protected Map<String, Class<?>> imports = new HashMap<String, Class<?>>();
     protected boolean autoResolveVariables = true;
+    protected int compiledExpressionCacheSize = Integer.getInteger(COMPILED_EXPRESSION_CACHE_SIZE_PROPERTY,
+        CompiledExpressionCache.DEFAULT_MAX_SIZE);
+    protected boolean optimizeThreadSafeExpressions = Boolean.getBoolean(OPTIMIZE_THREAD_SAFE_EXPRESSIONS_PROPERTY);
 
     public MVELExpressionLanguage(MuleContext muleContext)
     {
@@ -76,7 +85,8 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
     public void initialise() throws InitialisationException
     {
         parserContext = createParserContext();
-        expressionExecutor = new MVELExpressionExecutor(parserContext);
+        expressionExecutor = new MVELExpressionExecutor(parserContext, compiledExpressionCacheSize,
+            optimizeThreadSafeExpressions);
 
         loadGlobalFunctions();
         createStaticContext();
@@ -249,6 +259,49 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
         }
     }
 
+    /**
+     * Compiles an expression so it is already cached by the time it is first evaluated. Invalid
+     * expressions are ignored here, they are reported when validated or evaluated.
+     *
+     * @param expression the expression to compile, with or without the <code>#[]</code> delimiters
+     */
+    public void precompile(String expression)
+    {
+        if (expressionExecutor == null || expression == null)
+        {
+            return;
+        }
+        if (expression.startsWith(ExpressionManager.DEFAULT_EXPRESSION_PREFIX))
+        {
+            if (!expression.endsWith(ExpressionManager.DEFAULT_EXPRESSION_POSTFIX))
+            {
+                return;
+            }
+            expression = expression.substring(2, expression.length() - 1);
+        }
+
+        try
+        {
+            expressionExecutor.precompile(expression);
+        }
+        catch (RuntimeException e)
+        {
+            if (log.isDebugEnabled())
+            {
+                log.debug("Expression '" + expression + "' could not be precompiled: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the cache of compiled expressions, or null if the expression language was not
+     *         initialised yet
+     */
+    public CompiledExpressionCache getCompiledExpressionCache()
+    {
+        return expressionExecutor == null ? null : expressionExecutor.getCompiledExpressionsCache();
+    }
+
     protected MVELExpressionLanguageContext createExpressionLanguageContext()
     {
         MVELExpressionLanguageContext factory = new MVELExpressionLanguageContext(
@@ -310,6 +363,28 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
         this.autoResolveVariables = autoResolveVariables;
     }
 
+    /**
+     * @param compiledExpressionCacheSize the maximum number of compiled expressions that are cached
+     */
+    public void setCompiledExpressionCacheSize(int compiledExpressionCacheSize)
+    {
+        this.compiledExpressionCacheSize = compiledExpressionCacheSize;
+    }
+
+    /**
+     * @param optimizeThreadSafeExpressions whether expressions made of a single literal or accessor
+     *            chain are JIT compiled using the ASM optimizer
+     */
+    public void setOptimizeThreadSafeExpressions(boolean optimizeThreadSafeExpressions)
+    {
+        this.optimizeThreadSafeExpressions = optimizeThreadSafeExpressions;
+    }
+
+    public boolean isOptimizeThreadSafeExpressions()
+    {
+        return optimizeThreadSafeExpressions;
+    }
+
     public void addGlobalFunction(String name, Function function)
     {
         this.globalFunctions.put(name, function);
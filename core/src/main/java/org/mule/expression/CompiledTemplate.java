@@ -0,0 +1,143 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.expression;
+
+import org.mule.api.expression.ExpressionEvaluator;
+import org.mule.util.TemplateParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * A template such as <code>"Hello #[message.payload] from #[header:inbound:host]"</code> parsed
+ * into its literal and expression segments, so that it does not need to be tokenized again
+ * every time it is evaluated. Expression segments are bound to the
+ * {@link ExpressionEvaluator} that handles them, or to the expression language when the
+ * expression does not start with the name of a registered evaluator.
+ * <p/>
+ * Compiled templates are immutable and can be shared between threads.
+ */
+class CompiledTemplate
+{
+
+    private static final int PREFIX_LENGTH = 2;
+    private static final int SUFFIX_LENGTH = 1;
+
+    private final String template;
+    private final Object[] segments;
+    private final int literalLength;
+
+    private CompiledTemplate(String template, Object[] segments, int literalLength)
+    {
+        this.template = template;
+        this.segments = segments;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * Splits a template in segments.
+     *
+     * @param template the template to compile
+     * @param evaluators the registered evaluators, by name
+     * @return the compiled template
+     */
+    static CompiledTemplate compile(String template, Map<?, ?> evaluators)
+    {
+        List<Object> segments = new ArrayList<Object>();
+        int literalLength = 0;
+        int position = 0;
+
+        Matcher matcher = TemplateParser.WIGGLY_MULE_TEMPLATE_PATTERN.matcher(template);
+        while (matcher.find())
+        {
+            if (matcher.start() > position)
+            {
+                String literal = template.substring(position, matcher.start());
+                segments.add(literal);
+                literalLength += literal.length();
+            }
+            String match = matcher.group();
+            segments.add(ExpressionSegment.create(match.substring(PREFIX_LENGTH, match.length() - SUFFIX_LENGTH), evaluators));
+            position = matcher.end();
+        }
+        if (position < template.length())
+        {
+            String literal = template.substring(position);
+            segments.add(literal);
+            literalLength += literal.length();
+        }
+        return new CompiledTemplate(template, segments.toArray(), literalLength);
+    }
+
+    String getTemplate()
+    {
+        return template;
+    }
+
+    /**
+     * @return the segments of the template, each one either a literal {@link String} or an
+     *         {@link ExpressionSegment}
+     */
+    Object[] getSegments()
+    {
+        return segments;
+    }
+
+    /**
+     * @return the total length of the literal segments, used to size the output buffer
+     */
+    int getLiteralLength()
+    {
+        return literalLength;
+    }
+
+    /**
+     * An expression of the template, split in evaluator and expression if it is handled by an
+     * evaluator.
+     */
+    static final class ExpressionSegment
+    {
+
+        final String expression;
+        final String evaluatorName;
+        final ExpressionEvaluator evaluator;
+
+        private ExpressionSegment(String expression, String evaluatorName, ExpressionEvaluator evaluator)
+        {
+            this.expression = expression;
+            this.evaluatorName = evaluatorName;
+            this.evaluator = evaluator;
+        }
+
+        static ExpressionSegment create(String token, Map<?, ?> evaluators)
+        {
+            String expression = token;
+            if (expression.startsWith(DefaultExpressionManager.DEFAULT_EXPRESSION_PREFIX))
+            {
+                expression = expression.substring(PREFIX_LENGTH, expression.length() - SUFFIX_LENGTH);
+            }
+
+            int colonIndex = expression.indexOf(':');
+            if (colonIndex >= 0)
+            {
+                String evaluatorName = expression.substring(0, colonIndex);
+                ExpressionEvaluator evaluator = (ExpressionEvaluator) evaluators.get(evaluatorName);
+                if (evaluator != null)
+                {
+                    return new ExpressionSegment(expression.substring(colonIndex + 1), evaluatorName, evaluator);
+                }
+            }
+            return new ExpressionSegment(expression, null, null);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.expression;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded cache of {@link CompiledTemplate}s shared by all the threads parsing templates.
+ * <p/>
+ * Lookups never lock. Templates are usually static per flow, but they may also be built from
+ * message data, so when the cache grows over its maximum size templates are evicted with the
+ * same second chance (clock) policy as
+ * {@link org.mule.el.mvel.CompiledExpressionCache}: templates used since the eviction hand last
+ * passed over them are given another round.
+ */
+class CompiledTemplateCache
+{
+
+    private final int maxSize;
+
+    private final ConcurrentMap<String, Entry> templates = new ConcurrentHashMap<String, Entry>();
+    private final Queue<Entry> evictionQueue = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    CompiledTemplateCache(int maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the cached template, or null if it is not cached
+     */
+    CompiledTemplate get(String template)
+    {
+        Entry entry = templates.get(template);
+        if (entry == null)
+        {
+            return null;
+        }
+        entry.referenced = true;
+        return entry.template;
+    }
+
+    void put(CompiledTemplate template)
+    {
+        Entry entry = new Entry(template);
+        if (templates.putIfAbsent(template.getTemplate(), entry) != null)
+        {
+            // compiled concurrently by another thread
+            return;
+        }
+        evictionQueue.add(entry);
+        if (size.incrementAndGet() > maxSize)
+        {
+            evict();
+        }
+    }
+
+    private void evict()
+    {
+        // every entry gets at most one second chance, so this always ends
+        int attempts = 2 * maxSize + 1;
+        while (size.get() > maxSize && attempts-- > 0)
+        {
+            Entry candidate = evictionQueue.poll();
+            if (candidate == null)
+            {
+                return;
+            }
+            if (candidate.referenced)
+            {
+                candidate.referenced = false;
+                evictionQueue.add(candidate);
+            }
+            else if (templates.remove(candidate.template.getTemplate(), candidate))
+            {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    void clear()
+    {
+        Entry entry;
+        while ((entry = evictionQueue.poll()) != null)
+        {
+            if (templates.remove(entry.template.getTemplate(), entry))
+            {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    int getSize()
+    {
+        return size.get();
+    }
+
+    private static final class Entry
+    {
+
+        final CompiledTemplate template;
+        volatile boolean referenced;
+
+        Entry(CompiledTemplate template)
+        {
+            this.template = template;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.mule.api.el.ExpressionLanguage;
 import org.mule.api.expression.ExpressionEnricher;
 import org.mule.api.expression.ExpressionEvaluator;
 import org.mule.api.expression.ExpressionManager;
+import org.mule.api.expression.ExpressionPrecompiler;
 import org.mule.api.expression.ExpressionRuntimeException;
 import org.mule.api.expression.InvalidExpressionException;
 import org.mule.api.expression.RequiredValueException;
@@ -45,7 +46,7 @@ import org.apache.commons.logging.LogFactory;
  * <p/>
  * Users can register or unregister {@link ExpressionEvaluator} through this interface.
  */
-public class DefaultExpressionManager implements ExpressionManager, MuleContextAware, Initialisable
+public class DefaultExpressionManager implements ExpressionManager, ExpressionPrecompiler, MuleContextAware, Initialisable
 {
 
     /**
@@ -61,6 +62,9 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
     private ConcurrentMap evaluators = new ConcurrentHashMap(8);
     private ConcurrentMap enrichers = new ConcurrentHashMap(8);
 
+    private static final int MAX_COMPILED_TEMPLATES = 1000;
+    private final CompiledTemplateCache compiledTemplates = new CompiledTemplateCache(MAX_COMPILED_TEMPLATES);
+
     private MuleContext muleContext;
 
     private ExpressionLanguage expressionLanguage;
@@ -85,6 +89,7 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
                          + "'.  The previous object will be overwritten.");
         }
         evaluators.put(evaluator.getName(), evaluator);
+        compiledTemplates.clear();
     }
 
     public void registerEnricher(ExpressionEnricher enricher)
@@ -139,6 +144,7 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
         }
 
         ExpressionEvaluator evaluator = (ExpressionEvaluator) evaluators.remove(name);
+        compiledTemplates.clear();
         if (evaluator instanceof Disposable)
         {
             ((Disposable) evaluator).dispose();
@@ -223,15 +229,18 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
     public Object evaluate(String expression, MuleMessage message, boolean failIfNull)
     {
         expression = preProcessExpression(expression);
-        if (isEvaluatorExpression(expression))
-        {
-            String[] parts = expression.split(":", 2);
-            return evaluate(parts[1], parts[0], message, failIfNull);
-        }
-        else
+        int colonIndex = expression.indexOf(':');
+        if (colonIndex >= 0)
         {
-            return expressionLanguage.evaluate(expression, message);
+            String evaluatorName = expression.substring(0, colonIndex);
+            ExpressionEvaluator evaluator = (ExpressionEvaluator) evaluators.get(evaluatorName);
+            if (evaluator != null)
+            {
+                return evaluate(expression.substring(colonIndex + 1), evaluatorName, evaluator, message,
+                    failIfNull);
+            }
         }
+        return expressionLanguage.evaluate(expression, message);
     }
 
     public void enrich(String expression, MuleMessage message, Object object)
@@ -240,8 +249,8 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
         expression = preProcessExpression(expression);
         if (isEvaluatorExpression(expression))
         {
-            String[] parts = expression.split(":", 2);
-            enrich(parts[1], parts[0], message, object);
+            int colonIndex = expression.indexOf(':');
+            enrich(expression.substring(colonIndex + 1), expression.substring(0, colonIndex), message, object);
         }
         else
         {
@@ -307,6 +316,15 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
             throw new IllegalArgumentException(CoreMessages.expressionEvaluatorNotRegistered(evaluator)
                 .getMessage());
         }
+        return evaluate(expression, evaluator, extractor, message, failIfNull);
+    }
+
+    protected Object evaluate(String expression,
+                              String evaluator,
+                              ExpressionEvaluator extractor,
+                              MuleMessage message,
+                              boolean failIfNull)
+    {
         Object result = extractor.evaluate(expression, message);
         // TODO Handle empty collections || (result instanceof Collection && ((Collection)result).size()==0)
         if (failIfNull && (result == null))
@@ -449,45 +467,79 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
      * @throws ExpressionRuntimeException if the expression is invalid, or a null is found for the expression
      *             and 'failIfNull is set to true.
      */
-    public String parse(final String expression, final MuleMessage message, final boolean failIfNull)
+    public String parse(String expression, MuleMessage message, boolean failIfNull)
         throws ExpressionRuntimeException
     {
-        return parser.parse(new TemplateParser.TemplateCallback()
-        {
-            public Object match(String token)
-            {
-                Object result = evaluate(token, message, failIfNull);
-                if (result instanceof MuleMessage)
-                {
-                    return ((MuleMessage) result).getPayload();
-                }
-                else
-                {
-                    return result;
-                }
-            }
-        }, expression);
+        return parse(getCompiledTemplate(expression), null, message, failIfNull);
     }
 
     @Override
-    public String parse(String expression, final MuleEvent event, final boolean failIfNull)
+    public String parse(String expression, MuleEvent event, boolean failIfNull)
         throws ExpressionRuntimeException
     {
-        return parser.parse(new TemplateParser.TemplateCallback()
+        return parse(getCompiledTemplate(expression), event, event.getMessage(), failIfNull);
+    }
+
+    /**
+     * Evaluates a compiled template in a single pass. Expressions handled by an evaluator are
+     * evaluated against the message, the rest against the event if there is one.
+     */
+    protected String parse(CompiledTemplate template, MuleEvent event, MuleMessage message, boolean failIfNull)
+    {
+        Object[] segments = template.getSegments();
+        if (segments.length == 1 && segments[0] instanceof String)
         {
-            public Object match(String token)
+            return (String) segments[0];
+        }
+
+        StringBuilder result = new StringBuilder(template.getLiteralLength() + 16 * segments.length);
+        for (Object segment : segments)
+        {
+            if (segment instanceof String)
             {
-                Object result = evaluate(token, event, failIfNull);
-                if (result instanceof MuleMessage)
-                {
-                    return ((MuleMessage) result).getPayload();
-                }
-                else
-                {
-                    return result;
-                }
+                result.append((String) segment);
+                continue;
             }
-        }, expression);
+
+            CompiledTemplate.ExpressionSegment expression = (CompiledTemplate.ExpressionSegment) segment;
+            Object value;
+            if (expression.evaluator != null)
+            {
+                value = evaluate(expression.expression, expression.evaluatorName, expression.evaluator, message,
+                    failIfNull);
+            }
+            else if (event != null)
+            {
+                value = expressionLanguage.evaluate(expression.expression, event);
+            }
+            else
+            {
+                value = expressionLanguage.evaluate(expression.expression, message);
+            }
+
+            if (value instanceof MuleMessage)
+            {
+                value = ((MuleMessage) value).getPayload();
+            }
+            result.append(value);
+        }
+        return result.toString();
+    }
+
+    protected CompiledTemplate getCompiledTemplate(String expression)
+    {
+        CompiledTemplate template = compiledTemplates.get(expression);
+        if (template == null)
+        {
+            template = CompiledTemplate.compile(expression, evaluators);
+            compiledTemplates.put(template);
+        }
+        return template;
+    }
+
+    int getCompiledTemplatesSize()
+    {
+        return compiledTemplates.getSize();
     }
 
     /**
@@ -504,6 +556,7 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
             }
         }
         evaluators.clear();
+        compiledTemplates.clear();
     }
 
     public void clearEnrichers()
@@ -603,6 +656,42 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
         }
     }
 
+    /**
+     * Compiles a template and the expression language expressions it contains ahead of their
+     * first evaluation, so a flow does not pay the compilation cost on the first messages it
+     * processes. Invalid expressions are ignored here. Values without expressions are not
+     * cached, so that they do not evict the templates that need it.
+     *
+     * @param expression a single expression or a template with embedded expressions
+     */
+    public void precompile(String expression)
+    {
+        if (expression == null || !(expressionLanguage instanceof MVELExpressionLanguage))
+        {
+            return;
+        }
+        MVELExpressionLanguage mel = (MVELExpressionLanguage) expressionLanguage;
+        CompiledTemplate template = compiledTemplates.get(expression);
+        if (template == null)
+        {
+            template = CompiledTemplate.compile(expression, evaluators);
+            if (template.getLiteralLength() == expression.length())
+            {
+                // a plain value
+                return;
+            }
+            compiledTemplates.put(template);
+        }
+        for (Object segment : template.getSegments())
+        {
+            if (segment instanceof CompiledTemplate.ExpressionSegment
+                && ((CompiledTemplate.ExpressionSegment) segment).evaluator == null)
+            {
+                mel.precompile(((CompiledTemplate.ExpressionSegment) segment).expression);
+            }
+        }
+    }
+
     @Override
     public void initialise() throws InitialisationException
     {
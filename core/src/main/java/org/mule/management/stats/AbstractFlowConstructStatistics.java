@@ -12,8 +12,6 @@ package org.mule.management.stats;
 
 import org.mule.api.management.stats.Statistics;
 
-import java.util.concurrent.atomic.AtomicLong;
-
 /**
  * Statistics common to flows and services
  */
@@ -23,10 +21,10 @@ public abstract class AbstractFlowConstructStatistics implements Statistics
 
     protected final String flowConstructType;
     protected String name;
-    protected boolean enabled = false;
+    protected volatile boolean enabled = false;
     private long samplePeriod = 0;
-    protected final AtomicLong receivedEventSync = new AtomicLong(0);
-    protected final AtomicLong receivedEventASync = new AtomicLong(0);
+    protected final StripedCounter receivedEventSync = new StripedCounter();
+    protected final StripedCounter receivedEventASync = new StripedCounter();
 
     public AbstractFlowConstructStatistics(String flowConstructType, String name)
     {
@@ -62,30 +60,30 @@ public abstract class AbstractFlowConstructStatistics implements Statistics
 
     public synchronized void clear()
     {
-        receivedEventSync.set(0);
-        receivedEventASync.set(0);
+        receivedEventSync.reset();
+        receivedEventASync.reset();
         samplePeriod = System.currentTimeMillis();
     }
 
 
     public void incReceivedEventSync()
     {
-        receivedEventSync.addAndGet(1);
+        receivedEventSync.increment();
     }
 
     public void incReceivedEventASync()
     {
-        receivedEventASync.addAndGet(1);
+        receivedEventASync.increment();
     }
 
     public long getAsyncEventsReceived()
     {
-        return receivedEventASync.get();
+        return receivedEventASync.sum();
     }
 
     public long getSyncEventsReceived()
     {
-        return receivedEventSync.get();
+        return receivedEventSync.sum();
     }
 
     public long getTotalEventsReceived()
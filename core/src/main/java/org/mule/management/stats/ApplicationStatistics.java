@@ -105,6 +105,20 @@ public class ApplicationStatistics extends FlowConstructStatistics
         return total;
     }
 
+    @Override
+    public long getProcessingTimeAtPercentile(double percentile)
+    {
+        LatencyHistogram processingTimes = new LatencyHistogram();
+        for (FlowConstructStatistics stats : parent.getServiceStatistics())
+        {
+            if (!(stats instanceof ApplicationStatistics))
+            {
+                processingTimes.add(stats.getProcessingTimes());
+            }
+        }
+        return processingTimes.getValueAtPercentile(percentile);
+    }
+
     @Override
     public long getExecutionErrors()
     {
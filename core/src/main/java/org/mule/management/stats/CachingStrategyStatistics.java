@@ -0,0 +1,133 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.management.stats;
+
+import org.mule.api.management.stats.Statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <code>CachingStrategyStatistics</code> counts how the requests processed by a
+ * {@link org.mule.cache.ObjectStoreCachingStrategy} were answered.
+ */
+public class CachingStrategyStatistics implements Statistics
+{
+
+    private static final long serialVersionUID = -2950186306932127459L;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    private final AtomicLong storedEntries = new AtomicLong();
+    private final AtomicLong invalidatedEntries = new AtomicLong();
+    private volatile boolean enabled = true;
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public void clear()
+    {
+        hits.set(0);
+        misses.set(0);
+        coalescedRequests.set(0);
+        storedEntries.set(0);
+        invalidatedEntries.set(0);
+    }
+
+    public void incHits()
+    {
+        if (enabled)
+        {
+            hits.incrementAndGet();
+        }
+    }
+
+    public void incMisses()
+    {
+        if (enabled)
+        {
+            misses.incrementAndGet();
+        }
+    }
+
+    public void incCoalescedRequests()
+    {
+        if (enabled)
+        {
+            coalescedRequests.incrementAndGet();
+        }
+    }
+
+    public void incStoredEntries()
+    {
+        if (enabled)
+        {
+            storedEntries.incrementAndGet();
+        }
+    }
+
+    public void addInvalidatedEntries(long count)
+    {
+        if (enabled)
+        {
+            invalidatedEntries.addAndGet(count);
+        }
+    }
+
+    /**
+     * @return the number of requests answered from the cache
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests that were processed because their response was not
+     *         cached
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of requests answered with the response of a concurrent request
+     *         for the same key instead of being processed
+     */
+    public long getCoalescedRequests()
+    {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * @return the number of responses added to the cache
+     */
+    public long getStoredEntries()
+    {
+        return storedEntries.get();
+    }
+
+    /**
+     * @return the number of entries removed by invalidating the cache
+     */
+    public long getInvalidatedEntries()
+    {
+        return invalidatedEntries.get();
+    }
+}
@@ -15,6 +15,7 @@ import org.mule.management.stats.printers.SimplePrinter;
 import org.mule.util.StringUtils;
 
 import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,14 +33,14 @@ public class ComponentStatistics implements Statistics
      */
     private static final long serialVersionUID = -2086999226732861674L;
 
-    private long minExecutionTime = 0;
-    private long maxExecutionTime = 0;
-    private long averageExecutionTime = 0;
-    private long executedEvent = 0;
-    private long totalExecTime = 0;
-    private boolean enabled = false;
+    private final AtomicLong minExecutionTime = new AtomicLong(0);
+    private final AtomicLong maxExecutionTime = new AtomicLong(0);
+    private final StripedCounter executedEvent = new StripedCounter();
+    private final StripedCounter totalExecTime = new StripedCounter();
+    private final LatencyHistogram executionTimes = new LatencyHistogram();
+    private volatile boolean enabled = false;
     private long intervalTime = 0;
-    private long currentIntervalStartTime = 0;
+    private final AtomicLong currentIntervalStartTime = new AtomicLong(0);
     private boolean statIntervalTimeEnabled = false;
 
     /**
@@ -76,11 +77,11 @@ public class ComponentStatistics implements Statistics
 
     public void clear()
     {
-        minExecutionTime = 0;
-        maxExecutionTime = 0;
-        executedEvent = 0;
-        totalExecTime = 0;
-        averageExecutionTime = 0;
+        minExecutionTime.set(0);
+        maxExecutionTime.set(0);
+        executedEvent.reset();
+        totalExecTime.reset();
+        executionTimes.clear();
     }
 
     public boolean isEnabled()
@@ -105,17 +106,17 @@ public class ComponentStatistics implements Statistics
 
     public long getMaxExecutionTime()
     {
-        return maxExecutionTime;
+        return maxExecutionTime.get();
     }
 
     public long getMinExecutionTime()
     {
-        return minExecutionTime;
+        return minExecutionTime.get();
     }
 
     public long getTotalExecutionTime()
     {
-        return totalExecTime;
+        return totalExecTime.sum();
     }
 
     /*
@@ -123,7 +124,7 @@ public class ComponentStatistics implements Statistics
      */
     public long getExecutedEvents()
     {
-        return executedEvent;
+        return executedEvent.sum();
     }
 
     /**
@@ -132,47 +133,27 @@ public class ComponentStatistics implements Statistics
      * @param branch the time to execute this branch
      * @param total the total time (so far) for  processing this event
      */
-    public synchronized void addExecutionBranchTime(boolean first, long branch, long total)
+    public void addExecutionBranchTime(boolean first, long branch, long total)
     {
-        if (statIntervalTimeEnabled)
-        {
-            long currentTime = System.currentTimeMillis();
-            if (currentIntervalStartTime == 0)
-            {
-                currentIntervalStartTime = currentTime;
-            }
-
-            if ((currentTime - currentIntervalStartTime) > intervalTime)
-            {
-                clear();
-                currentIntervalStartTime = currentTime;
-            }
-        }
+        checkInterval();
 
         if (first)
         {
-            executedEvent++;
+            executedEvent.increment();
         }
 
-        totalExecTime += ProcessingTime.getEffectiveTime(branch);
-        long effectiveTotal = ProcessingTime.getEffectiveTime(total);
-        if (maxExecutionTime == 0 || effectiveTotal > maxExecutionTime)
-        {
-            maxExecutionTime = effectiveTotal;
-        }
-        averageExecutionTime = Math.round(totalExecTime / executedEvent);
+        totalExecTime.add(ProcessingTime.getEffectiveTime(branch));
+        updateMax(ProcessingTime.getEffectiveTime(total));
     }
 
     /**
      * Add the complete execution time for a flow that also reports branhc execution times
      */
-    public synchronized void addCompleteExecutionTime(long time)
+    public void addCompleteExecutionTime(long time)
     {
         long effectiveTime = ProcessingTime.getEffectiveTime(time);
-        if (minExecutionTime == 0 || effectiveTime < minExecutionTime)
-        {
-            minExecutionTime = effectiveTime;
-        }
+        updateMin(effectiveTime);
+        executionTimes.record(effectiveTime);
     }
 
     /**
@@ -180,42 +161,92 @@ public class ComponentStatistics implements Statistics
      *
      * @param time
      */
-    public synchronized void addExecutionTime(long time)
+    public void addExecutionTime(long time)
+    {
+        checkInterval();
+
+        executedEvent.increment();
+
+        long effectiveTime = ProcessingTime.getEffectiveTime(time);
+        totalExecTime.add(effectiveTime);
+        updateMin(effectiveTime);
+        updateMax(effectiveTime);
+        executionTimes.record(effectiveTime);
+    }
+
+    public long getAverageExecutionTime()
+    {
+        long executed = executedEvent.sum();
+        return executed == 0 ? 0 : totalExecTime.sum() / executed;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the execution time that percentile of the executions took at most
+     */
+    public long getExecutionTimeAtPercentile(double percentile)
+    {
+        return executionTimes.getValueAtPercentile(percentile);
+    }
+
+    public long getExecutionTimeP50()
+    {
+        return getExecutionTimeAtPercentile(50);
+    }
+
+    public long getExecutionTimeP99()
+    {
+        return getExecutionTimeAtPercentile(99);
+    }
+
+    public long getExecutionTimeP999()
+    {
+        return getExecutionTimeAtPercentile(99.9);
+    }
+
+    LatencyHistogram getExecutionTimes()
+    {
+        return executionTimes;
+    }
+
+    /**
+     * Clears the statistics when the current interval is over, if intervals are enabled. Only
+     * the thread that starts the new interval clears them.
+     */
+    private void checkInterval()
     {
         if (statIntervalTimeEnabled)
         {
             long currentTime = System.currentTimeMillis();
-            if (currentIntervalStartTime == 0)
+            long intervalStartTime = currentIntervalStartTime.get();
+            if (intervalStartTime == 0)
             {
-                currentIntervalStartTime = currentTime;
+                currentIntervalStartTime.compareAndSet(0, currentTime);
             }
-
-            if ((currentTime - currentIntervalStartTime) > intervalTime)
+            else if ((currentTime - intervalStartTime) > intervalTime
+                     && currentIntervalStartTime.compareAndSet(intervalStartTime, currentTime))
             {
                 clear();
-                currentIntervalStartTime = currentTime;
             }
         }
+    }
 
-        executedEvent++;
-
-        long effectiveTime = ProcessingTime.getEffectiveTime(time);
-        totalExecTime += effectiveTime;
-
-        if (minExecutionTime == 0 || effectiveTime < minExecutionTime)
-        {
-            minExecutionTime = time;
-        }
-        if (maxExecutionTime == 0 || effectiveTime > maxExecutionTime)
+    private void updateMin(long time)
+    {
+        long min = minExecutionTime.get();
+        while ((min == 0 || time < min) && !minExecutionTime.compareAndSet(min, time))
         {
-            maxExecutionTime = time;
+            min = minExecutionTime.get();
         }
-        averageExecutionTime = Math.round(totalExecTime / executedEvent);
     }
 
-    public long getAverageExecutionTime()
+    private void updateMax(long time)
     {
-        return averageExecutionTime;
+        long max = maxExecutionTime.get();
+        while (time > max && !maxExecutionTime.compareAndSet(max, time))
+        {
+            max = maxExecutionTime.get();
+        }
     }
 
 }
@@ -0,0 +1,26 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+/**
+ * Implemented by connectors that keep statistics of their own, which the JMX agent
+ * publishes in the domain of the application next to the service of the connector.
+ */
+public interface ConnectorStatisticsProvider
+{
+
+    /**
+     * @return the statistics of the connector as a standard MBean, i.e. an object
+     *         implementing an interface named after its class followed by
+     *         <code>MBean</code>, or null if the connector currently keeps none
+     */
+    Object getStatisticsMBean();
+
+}
@@ -13,22 +13,33 @@ package org.mule.management.stats;
 import org.mule.api.processor.ProcessingStrategy;
 import org.mule.processor.strategy.AsynchronousProcessingStrategy;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class FlowConstructStatistics extends AbstractFlowConstructStatistics implements QueueStatistics
 {
     private static final long serialVersionUID = 5337576392583767442L;
+
+    /**
+     * The number of outbound endpoints whose times are kept apart. The times of any other
+     * endpoint, such as the ones resolved from dynamic endpoints, are kept together under
+     * {@link #OTHER_OUTBOUND_ENDPOINTS}.
+     */
+    public static final int MAX_OUTBOUND_ENDPOINTS = 100;
+    public static final String OTHER_OUTBOUND_ENDPOINTS = "(other)";
+
     private final AtomicLong executionError = new AtomicLong(0);
     private final AtomicLong fatalError = new AtomicLong(0);
     private int threadPoolSize = 0;
     protected final ComponentStatistics flowStatistics = new ComponentStatistics();
-    
-    // these can't sensibly converted to AtomicLong as they are processed together
-    // in incQueuedEvent
-    private long queuedEvent = 0;
-    private long maxQueuedEvent = 0;
-    private long averageQueueSize = 0;
-    private long totalQueuedEvent = 0;
+    private final ConcurrentMap<String, LatencyHistogram> outboundEndpointTimes = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private final AtomicLong queuedEvent = new AtomicLong(0);
+    private final AtomicLong maxQueuedEvent = new AtomicLong(0);
+    private final StripedCounter totalQueuedEvent = new StripedCounter();
 
 
     public FlowConstructStatistics(String flowConstructType, String name, ProcessingStrategy processingStrategy)
@@ -98,6 +109,10 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
         {
             flowStatistics.clear();
         }
+        outboundEndpointTimes.clear();
+        // queuedEvent is the number of events queued right now, which clearing does not change
+        maxQueuedEvent.set(0);
+        totalQueuedEvent.reset();
     }
 
     public void addCompleteFlowExecutionTime(long time)
@@ -135,6 +150,68 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
         return flowStatistics.getTotalExecutionTime();
     }
 
+    /**
+     * @param percentile between 0 and 100
+     * @return the time that percentile of the processed events took at most
+     */
+    public long getProcessingTimeAtPercentile(double percentile)
+    {
+        return flowStatistics.getExecutionTimeAtPercentile(percentile);
+    }
+
+    public long getProcessingTimeP50()
+    {
+        return getProcessingTimeAtPercentile(50);
+    }
+
+    public long getProcessingTimeP99()
+    {
+        return getProcessingTimeAtPercentile(99);
+    }
+
+    public long getProcessingTimeP999()
+    {
+        return getProcessingTimeAtPercentile(99.9);
+    }
+
+    LatencyHistogram getProcessingTimes()
+    {
+        return flowStatistics.getExecutionTimes();
+    }
+
+    /**
+     * Add the time taken to send or dispatch an event to an outbound endpoint. Once the times
+     * of {@link #MAX_OUTBOUND_ENDPOINTS} endpoints are kept, the times of new endpoints are
+     * added to {@link #OTHER_OUTBOUND_ENDPOINTS}.
+     */
+    public void addOutboundEndpointTime(String endpointName, long time)
+    {
+        LatencyHistogram times = outboundEndpointTimes.get(endpointName);
+        if (times == null)
+        {
+            if (outboundEndpointTimes.size() >= MAX_OUTBOUND_ENDPOINTS)
+            {
+                endpointName = OTHER_OUTBOUND_ENDPOINTS;
+            }
+            times = new LatencyHistogram();
+            LatencyHistogram existing = outboundEndpointTimes.putIfAbsent(endpointName, times);
+            if (existing != null)
+            {
+                times = existing;
+            }
+        }
+        times.record(ProcessingTime.getEffectiveTime(time));
+    }
+
+    /**
+     * @return the times taken to send or dispatch events to each outbound endpoint, by
+     *         endpoint name
+     */
+    public Map<String, LatencyHistogram> getOutboundEndpointTimes()
+    {
+        return Collections.unmodifiableMap(outboundEndpointTimes);
+    }
+
     public long getExecutionErrors()
     {
         return executionError.get();
@@ -150,25 +227,36 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
         return threadPoolSize;
     }
 
-    public synchronized void incQueuedEvent()
+    public void incQueuedEvent()
     {
-        queuedEvent++;
-        totalQueuedEvent++;
-        if (queuedEvent > maxQueuedEvent)
+        long queued = queuedEvent.incrementAndGet();
+        totalQueuedEvent.increment();
+        long max = maxQueuedEvent.get();
+        while (queued > max && !maxQueuedEvent.compareAndSet(max, queued))
         {
-            maxQueuedEvent = queuedEvent;
+            max = maxQueuedEvent.get();
         }
-        averageQueueSize = receivedEventASync.get() / totalQueuedEvent;
     }
 
-    public synchronized void decQueuedEvent()
+    public void decQueuedEvent()
     {
-        queuedEvent--;
+        queuedEvent.decrementAndGet();
     }
     
-    public synchronized long getAverageQueueSize()
+    public long getAverageQueueSize()
+    {
+        long totalQueued = totalQueuedEvent.sum();
+        return totalQueued == 0 ? 0 : receivedEventASync.sum() / totalQueued;
+    }
+
+    public long getMaxQueueSize()
+    {
+        return maxQueuedEvent.get();
+    }
+
+    public long getQueuedEvents()
     {
-        return averageQueueSize;
+        return queuedEvent.get();
     }
 
 }
\ No newline at end of file
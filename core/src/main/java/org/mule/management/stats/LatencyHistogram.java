@@ -0,0 +1,179 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.management.stats;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the distribution of latencies so that percentiles can be reported along with the
+ * average. Values below 128 are counted exactly; larger values are counted in buckets that
+ * are 1/64 of their power of two wide, so a reported percentile is never more than about 1.6%
+ * above the recorded value. Recording a value is lock free and does not allocate.
+ */
+public class LatencyHistogram implements Serializable
+{
+
+    private static final long serialVersionUID = 2609358452004585391L;
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+
+    /**
+     * Larger values are counted as this one; it is over two years in milliseconds.
+     */
+    private static final long HIGHEST_TRACKABLE_VALUE = (1L << 36) - 1;
+
+    private static final int BUCKETS = indexOf(HIGHEST_TRACKABLE_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final StripedCounter totalCount = new StripedCounter();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long value)
+    {
+        long trackedValue = Math.min(Math.max(value, 0), HIGHEST_TRACKABLE_VALUE);
+        counts.incrementAndGet(indexOf(trackedValue));
+        totalCount.increment();
+
+        long max = maxValue.get();
+        while (trackedValue > max && !maxValue.compareAndSet(max, trackedValue))
+        {
+            max = maxValue.get();
+        }
+    }
+
+    public long getCount()
+    {
+        return totalCount.sum();
+    }
+
+    public long getMax()
+    {
+        return maxValue.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value that percentile of the recorded values is at or below, or 0 if
+     *         no value was recorded
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) * total / 100.0));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            cumulative += snapshot[i];
+            if (cumulative >= target)
+            {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public long getP50()
+    {
+        return getValueAtPercentile(50);
+    }
+
+    public long getP99()
+    {
+        return getValueAtPercentile(99);
+    }
+
+    public long getP999()
+    {
+        return getValueAtPercentile(99.9);
+    }
+
+    /**
+     * Adds the values recorded by another histogram to this one.
+     */
+    public void add(LatencyHistogram other)
+    {
+        long otherTotal = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            long count = other.counts.get(i);
+            if (count != 0)
+            {
+                counts.addAndGet(i, count);
+                otherTotal += count;
+            }
+        }
+        totalCount.add(otherTotal);
+
+        long otherMax = other.getMax();
+        long max = maxValue.get();
+        while (otherMax > max && !maxValue.compareAndSet(max, otherMax))
+        {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Removes all the recorded values. Values recorded concurrently may be lost.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        maxValue.set(0);
+    }
+
+    static int indexOf(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        // the value shifted right this much is between HALF_SUB_BUCKETS and SUB_BUCKETS - 1
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    static long highestValueOf(int index)
+    {
+        if (index < SUB_BUCKETS)
+        {
+            return index;
+        }
+        int bucket = index - SUB_BUCKETS;
+        int shift = bucket / HALF_SUB_BUCKETS + 1;
+        long subBucket = bucket % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%d/%d/%d", getP50(), getP99(), getP999());
+    }
+}
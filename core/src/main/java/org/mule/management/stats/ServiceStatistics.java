@@ -13,22 +13,14 @@ package org.mule.management.stats;
 import org.mule.management.stats.printers.SimplePrinter;
 
 import java.io.PrintWriter;
-import java.util.concurrent.atomic.AtomicLong;
 @Deprecated
 public class ServiceStatistics extends FlowConstructStatistics implements QueueStatistics
 {
     private static final long serialVersionUID = -2086999226732861675L;
 
-    private final AtomicLong sentEventSync = new AtomicLong(0);
-    private final AtomicLong sentReplyToEvent = new AtomicLong(0);
-    private final AtomicLong sentEventASync = new AtomicLong(0);
-
-    // these can't sensibly converted to AtomicLong as they are processed together
-    // in incQueuedEvent
-    private long queuedEvent = 0;
-    private long maxQueuedEvent = 0;
-    private long averageQueueSize = 0;
-    private long totalQueuedEvent = 0;
+    private final StripedCounter sentEventSync = new StripedCounter();
+    private final StripedCounter sentReplyToEvent = new StripedCounter();
+    private final StripedCounter sentEventASync = new StripedCounter();
 
     private RouterStatistics inboundRouterStat = null;
     private ComponentStatistics componentStat = null;
@@ -69,33 +61,17 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
 
     public void incSentEventSync()
     {
-        sentEventSync.addAndGet(1);
+        sentEventSync.increment();
     }
 
     public void incSentEventASync()
     {
-        sentEventASync.addAndGet(1);
+        sentEventASync.increment();
     }
 
     public void incSentReplyToEvent()
     {
-        sentReplyToEvent.addAndGet(1);
-    }
-
-    public synchronized void incQueuedEvent()
-    {
-        queuedEvent++;
-        totalQueuedEvent++;
-        if (queuedEvent > maxQueuedEvent)
-        {
-            maxQueuedEvent = queuedEvent;
-        }
-        averageQueueSize = receivedEventASync.get() / totalQueuedEvent;
-    }
-
-    public synchronized void decQueuedEvent()
-    {
-        queuedEvent--;
+        sentReplyToEvent.increment();
     }
 
     public long getAverageExecutionTime()
@@ -103,16 +79,6 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
         return componentStat.getAverageExecutionTime();
     }
 
-    public synchronized long getAverageQueueSize()
-    {
-        return averageQueueSize;
-    }
-
-    public synchronized long getMaxQueueSize()
-    {
-        return maxQueuedEvent;
-    }
-
     /**
      * @deprecated
      */
@@ -140,24 +106,19 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
         return componentStat.getTotalExecutionTime();
     }
 
-    public synchronized long getQueuedEvents()
-    {
-        return queuedEvent;
-    }
-
     public long getReplyToEventsSent()
     {
-        return sentReplyToEvent.get();
+        return sentReplyToEvent.sum();
     }
 
     public long getSyncEventsSent()
     {
-        return sentEventSync.get();
+        return sentEventSync.sum();
     }
 
     public long getAsyncEventsSent()
     {
-        return sentEventASync.get();
+        return sentEventASync.sum();
     }
 
     public long getTotalEventsSent()
@@ -170,6 +131,21 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
         return componentStat.getExecutedEvents();
     }
 
+    public long getExecutionTimeP50()
+    {
+        return componentStat.getExecutionTimeP50();
+    }
+
+    public long getExecutionTimeP99()
+    {
+        return componentStat.getExecutionTimeP99();
+    }
+
+    public long getExecutionTimeP999()
+    {
+        return componentStat.getExecutionTimeP999();
+    }
+
     public void logSummary()
     {
         logSummary(new SimplePrinter(System.out));
@@ -184,14 +160,10 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
     public synchronized void clear()
     {
         super.clear();
-        queuedEvent = 0;
-        maxQueuedEvent = 0;
-        totalQueuedEvent = 0;
-        averageQueueSize = 0;
-
-        sentEventSync.set(0);
-        sentEventASync.set(0);
-        sentReplyToEvent.set(0);
+
+        sentEventSync.reset();
+        sentEventASync.reset();
+        sentReplyToEvent.reset();
 
         if (getComponentStat() != null)
         {
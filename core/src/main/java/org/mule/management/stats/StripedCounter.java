@@ -0,0 +1,97 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.management.stats;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is updated by many threads and read seldom. Updates are spread over a
+ * number of cells chosen by the updating thread, so that threads processing events
+ * concurrently do not contend on a single value. Reading the counter sums all the cells,
+ * so the value is not an atomic snapshot while updates are in progress.
+ */
+public class StripedCounter implements Serializable
+{
+
+    private static final long serialVersionUID = -3328569720471634412L;
+
+    /**
+     * Cells are this many longs apart so that two of them never share a cache line
+     */
+    private static final int PADDING = 8;
+
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    private static int stripes(int processors)
+    {
+        int stripes = 1;
+        while (stripes < processors * 2 && stripes < 64)
+        {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    public void increment()
+    {
+        add(1);
+    }
+
+    public void decrement()
+    {
+        add(-1);
+    }
+
+    public void add(long delta)
+    {
+        cells.addAndGet(cellIndex(), delta);
+    }
+
+    public long sum()
+    {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING)
+        {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the counter to zero. Updates made concurrently may be lost.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < cells.length(); i += PADDING)
+        {
+            cells.set(i, 0);
+        }
+    }
+
+    private int cellIndex()
+    {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32));
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return (hash & (cells.length() / PADDING - 1)) * PADDING;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf(sum());
+    }
+}
@@ -11,6 +11,7 @@
 package org.mule.management.stats.printers;
 
 import org.mule.management.stats.FlowConstructStatistics;
+import org.mule.management.stats.LatencyHistogram;
 import org.mule.management.stats.RouterStatistics;
 import org.mule.management.stats.SedaServiceStatistics;
 import org.mule.management.stats.ServiceStatistics;
@@ -42,7 +43,7 @@ public class AbstractTablePrinter extends PrintWriter
 
     public String[] getHeaders()
     {
-        String[] column = new String[41];
+        String[] column = new String[48];
         column[0] = "Name";
         column[1] = "Service Pool Max Size";
         column[2] = "Service Pool Size";
@@ -84,6 +85,13 @@ public class AbstractTablePrinter extends PrintWriter
         column[38] = "By Provider";
         column[39] = "";
         column[40] = "Sample Period";
+        column[41] = "Execution Time p50";
+        column[42] = "Execution Time p99";
+        column[43] = "Execution Time p99.9";
+        column[44] = "Processing Time p50";
+        column[45] = "Processing Time p99";
+        column[46] = "Processing Time p99.9";
+        column[47] = "Outbound Endpoint Time p50/p99/p99.9";
         return column;
     }
 
@@ -156,6 +164,38 @@ public class AbstractTablePrinter extends PrintWriter
         }
 
         col[40] = String.valueOf(stats.getSamplePeriod());
+
+        if (serviceStats != null)
+        {
+            col[41] = String.valueOf(serviceStats.getExecutionTimeP50());
+            col[42] = String.valueOf(serviceStats.getExecutionTimeP99());
+            col[43] = String.valueOf(serviceStats.getExecutionTimeP999());
+        }
+        col[44] = String.valueOf(stats.getProcessingTimeP50());
+        col[45] = String.valueOf(stats.getProcessingTimeP99());
+        col[46] = String.valueOf(stats.getProcessingTimeP999());
+        col[47] = getOutboundEndpointInfo(stats);
+    }
+
+    protected String getOutboundEndpointInfo(FlowConstructStatistics stats)
+    {
+        Map<String, LatencyHistogram> times = stats.getOutboundEndpointTimes();
+        if (times.isEmpty())
+        {
+            return "";
+        }
+
+        StringBuffer buf = new StringBuffer(40);
+        for (Iterator<Map.Entry<String, LatencyHistogram>> it = times.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<String, LatencyHistogram> e = it.next();
+            buf.append(e.getKey()).append('=').append(e.getValue());
+            if (it.hasNext())
+            {
+                buf.append(';');
+            }
+        }
+        return buf.toString();
     }
 
     protected int getRouterInfo(RouterStatistics stats, String[] col, int index)
@@ -44,7 +44,7 @@ public class XMLPrinter extends AbstractTablePrinter
 
     public String[] getHeaders()
     {
-        String[] column = new String[42];
+        String[] column = new String[48];
         column[0] = "Service Name";
         column[1] = "Service Pool Max Size";
         column[2] = "Service Pool Size";
@@ -86,7 +86,13 @@ public class XMLPrinter extends AbstractTablePrinter
         column[38] = "";
         column[39] = "Providers";
         column[40] = "Router";
-        column[41] = "Sample Period";
+        column[41] = "Execution Time p50";
+        column[42] = "Execution Time p99";
+        column[43] = "Execution Time p99.9";
+        column[44] = "Processing Time p50";
+        column[45] = "Processing Time p99";
+        column[46] = "Processing Time p99.9";
+        column[47] = "Outbound Endpoint Time p50/p99/p99.9";
         return column;
     }
     
@@ -157,7 +157,8 @@ public class AsyncInterceptingMessageProcessor extends AbstractInterceptingMessa
 
     protected void fireAsyncScheduledNotification(MuleEvent event)
     {
-        if (event.getFlowConstruct() instanceof Pipeline)
+        if (event.getFlowConstruct() instanceof Pipeline
+            && muleContext.getNotificationManager().isNotificationEnabled(AsyncMessageNotification.class))
         {
             muleContext.getNotificationManager().fireNotification(
                 new AsyncMessageNotification((Pipeline) event.getFlowConstruct(), event, next,
@@ -222,7 +223,8 @@ public class AsyncInterceptingMessageProcessor extends AbstractInterceptingMessa
 
     protected void firePipelineNotification(MuleEvent event, MessagingException exception)
     {
-        if (event.getFlowConstruct() instanceof Pipeline)
+        if (event.getFlowConstruct() instanceof Pipeline
+            && muleContext.getNotificationManager().isNotificationEnabled(AsyncMessageNotification.class))
         {
             muleContext.getNotificationManager().fireNotification(
                 new AsyncMessageNotification((Pipeline) event.getFlowConstruct(), event,
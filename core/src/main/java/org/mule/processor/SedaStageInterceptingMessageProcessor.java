@@ -41,6 +41,9 @@ import org.mule.util.queue.QueueSession;
 import org.mule.work.MuleWorkManager;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.resource.spi.work.Work;
 import javax.resource.spi.work.WorkException;
@@ -48,6 +51,12 @@ import javax.resource.spi.work.WorkException;
 /**
  * Processes {@link MuleEvent}'s asynchronously using a {@link MuleWorkManager} to schedule asynchronous
  * processing of the next {@link MessageProcessor}.
+ * <p/>
+ * When the batch size is greater than one, every time an event is dequeued up to batch size - 1 more
+ * events are taken from the queue, waiting at most the batch timeout for them, and all of them are
+ * processed one after the other by a single worker. Every event is still processed within its own
+ * execution template, so it is handled by the exception strategy of its flow as when it is scheduled
+ * on its own.
  */
 public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMessageProcessor
     implements Work, Lifecycle, Pausable, Resumable
@@ -62,6 +71,8 @@ public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMess
     protected QueueConfiguration queueConfiguration;
     private WaitableBoolean running = new WaitableBoolean(false);
     protected SedaStageLifecycleManager lifecycleManager;
+    protected int batchSize = 1;
+    protected int batchTimeout = 0;
 
     public SedaStageInterceptingMessageProcessor(String threadName,
                                                  String queueName,
@@ -143,6 +154,57 @@ public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMess
         return event;
     }
 
+    /**
+     * Takes the rest of a batch from the queue, waiting at most the batch timeout since the first event of
+     * the batch was dequeued. Stops early if the queue is empty once the timeout expires or polling the
+     * queue fails, in which case the events already taken are still processed. If the stage is paused
+     * while the batch is being taken, all of its events are put back at the front of the queue.
+     *
+     * @param first the event that starts the batch
+     * @return the events of the batch, starting with <code>first</code>, or an empty list if they were put
+     *         back on the queue
+     */
+    protected List<MuleEvent> dequeueBatch(MuleEvent first)
+    {
+        List<MuleEvent> batch = new ArrayList<MuleEvent>(batchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTimeout);
+        try
+        {
+            while (batch.size() < batchSize && !lifecycleManager.isPhaseComplete(Pausable.PHASE_NAME))
+            {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                MuleEvent event = (MuleEvent) queue.poll(Math.max(remaining, 0));
+                if (event == null)
+                {
+                    break;
+                }
+                batch.add(event);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // process what was already dequeued, the next poll will stop the stage
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception e)
+        {
+            // the events already dequeued would be lost if the batch was discarded
+            muleContext.getExceptionListener().handleException(e);
+        }
+
+        if (lifecycleManager.isPhaseComplete(Pausable.PHASE_NAME))
+        {
+            // untake in reverse order so the events keep their position at the front of the queue
+            for (int i = batch.size() - 1; i >= 0; i--)
+            {
+                rollbackDequeue(batch.get(i));
+            }
+            batch.clear();
+        }
+        return batch;
+    }
+
     /**
      * Roll back the previous dequeue(), i.e., put the event at the front of the queue, not at the back which
      * is what enqueue() does.
@@ -170,6 +232,7 @@ public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMess
     public void run()
     {
         DefaultMuleEvent event = null;
+        List<MuleEvent> batch = null;
         QueueSession queueSession = muleContext.getQueueManager().getQueueSession();
 
         running.set(true);
@@ -207,6 +270,7 @@ public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMess
                 }
 
                 event = (DefaultMuleEvent)dequeue();
+                batch = event != null && batchSize > 1 ? dequeueBatch(event) : null;
             }
             catch (InterruptedException ie)
             {
@@ -217,7 +281,16 @@ public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMess
                 muleContext.getExceptionListener().handleException(e);
             }
 
-            if (event != null)
+            if (batch != null)
+            {
+                if (!batch.isEmpty())
+                {
+                    processBatch(batch);
+                }
+                batch = null;
+                event = null;
+            }
+            else if (event != null)
             {
                 final MuleEvent eventToProcess = event;
                 TransactionalErrorHandlingExecutionTemplate executionTemplate = TransactionalErrorHandlingExecutionTemplate.createMainExecutionTemplate(muleContext, event.getFlowConstruct().getExceptionListener());
@@ -273,6 +346,85 @@ public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMess
         running.set(false);
     }
 
+    /**
+     * Schedules a single work that processes all the events of a batch in order.
+     */
+    protected void processBatch(List<MuleEvent> batch)
+    {
+        final List<AsyncMessageProcessorWorker> workers = new ArrayList<AsyncMessageProcessorWorker>(batch.size());
+        for (MuleEvent batchEvent : batch)
+        {
+            if (isStatsEnabled())
+            {
+                queueStatistics.decQueuedEvent();
+            }
+            workers.add(new AsyncMessageProcessorWorker(batchEvent));
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(MessageFormat.format("{0}: Dequeued batch of {1} events from {2}",
+                getStageDescription(), workers.size(), getQueueName()));
+        }
+
+        Work work = new Work()
+        {
+            @Override
+            public void run()
+            {
+                for (AsyncMessageProcessorWorker worker : workers)
+                {
+                    worker.run();
+                }
+            }
+
+            @Override
+            public void release()
+            {
+                // no-op
+            }
+        };
+
+        try
+        {
+            workManagerSource.getWorkManager().scheduleWork(work, WorkManager.INDEFINITE, null,
+                new AsyncWorkListener(next));
+        }
+        catch (Exception e)
+        {
+            for (AsyncMessageProcessorWorker worker : workers)
+            {
+                handleSchedulingFailure(worker, e);
+            }
+        }
+    }
+
+    private void handleSchedulingFailure(final AsyncMessageProcessorWorker work, final Exception cause)
+    {
+        MuleEvent workEvent = work.getEvent();
+        TransactionalErrorHandlingExecutionTemplate executionTemplate = TransactionalErrorHandlingExecutionTemplate.createMainExecutionTemplate(
+            muleContext, workEvent.getFlowConstruct().getExceptionListener());
+        try
+        {
+            executionTemplate.execute(new ExecutionCallback<MuleEvent>()
+            {
+                @Override
+                public MuleEvent process() throws Exception
+                {
+                    OptimizedRequestContext.unsafeSetEvent(work.getEvent());
+                    throw new MessagingException(work.getEvent(), cause, SedaStageInterceptingMessageProcessor.this);
+                }
+            });
+        }
+        catch (MessagingException e)
+        {
+            //Already handled by processing template
+        }
+        catch (Exception e)
+        {
+            muleContext.getExceptionListener().handleException(e);
+        }
+    }
+
     /** Are the events in the SEDA queue persistent? */
     protected boolean isQueuePersistent()
     {
@@ -328,6 +480,38 @@ public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMess
         running.set(false);
     }
 
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize the maximum number of events processed by a single worker, 1 to schedule every
+     *            event on its own
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("Batch size must be greater than zero");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchTimeout()
+    {
+        return batchTimeout;
+    }
+
+    /**
+     * @param batchTimeout the maximum time in milliseconds to wait for a batch to fill after its first event
+     *            was dequeued, 0 to only take the events that are already queued
+     */
+    public void setBatchTimeout(int batchTimeout)
+    {
+        this.batchTimeout = batchTimeout;
+    }
+
     public void initialise() throws InitialisationException
     {
         lifecycleManager.fireInitialisePhase(new LifecycleCallback<SedaStageInterceptingMessageProcessor>()
@@ -30,6 +30,9 @@ import javax.resource.spi.work.WorkManager;
  * This strategy uses a {@link QueueManager} to decouple receipt and processing of messages. The queue is
  * polled and a {@link WorkManager} is used to schedule processing of the pipeline of message processors in a
  * single worker thread.
+ * <p/>
+ * When a batch size greater than one is set, several queued events are taken at once and processed one after
+ * the other by the same worker, amortizing the cost of the queue access and thread hand-off between them.
  */
 public class QueuedAsynchronousProcessingStrategy extends AsynchronousProcessingStrategy
     implements QueueStatisticsAware
@@ -39,6 +42,8 @@ public class QueuedAsynchronousProcessingStrategy extends AsynchronousProcessing
     protected Integer maxQueueSize = 0;
     protected QueueStore<Serializable> queueStore = null;
     protected QueueStatistics queueStatistics;
+    protected Integer batchSize;
+    protected Integer batchTimeout;
 
     @Override
     protected AsyncInterceptingMessageProcessor createAsyncMessageProcessor(StageNameSource nameSource,
@@ -52,8 +57,18 @@ public class QueuedAsynchronousProcessingStrategy extends AsynchronousProcessing
         QueueProfile queueProfile = new QueueProfile(maxQueueSize, queueStore);
         ThreadingProfile threadingProfile = createThreadingProfile(muleContext);
         String stageName = nameSource.getName();
-        return new SedaStageInterceptingMessageProcessor(ThreadNameHelper.flow(muleContext, stageName),
-            stageName, queueProfile, timeout, threadingProfile, queueStatistics, muleContext);
+        SedaStageInterceptingMessageProcessor processor = new SedaStageInterceptingMessageProcessor(
+            ThreadNameHelper.flow(muleContext, stageName), stageName, queueProfile, timeout, threadingProfile,
+            queueStatistics, muleContext);
+        if (batchSize != null)
+        {
+            processor.setBatchSize(batchSize);
+        }
+        if (batchTimeout != null)
+        {
+            processor.setBatchTimeout(batchTimeout);
+        }
+        return processor;
     }
 
     protected void initQueueStore(MuleContext muleContext)
@@ -91,6 +106,26 @@ public class QueuedAsynchronousProcessingStrategy extends AsynchronousProcessing
         this.queueStore = queueStore;
     }
 
+    public Integer getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public Integer getBatchTimeout()
+    {
+        return batchTimeout;
+    }
+
+    public void setBatchTimeout(Integer batchTimeout)
+    {
+        this.batchTimeout = batchTimeout;
+    }
+
     public QueueStatistics getQueueStatistics()
     {
         return queueStatistics;
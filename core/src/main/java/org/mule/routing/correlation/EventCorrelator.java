@@ -76,9 +76,22 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
      */
     protected ListableObjectStore<EventGroup> eventGroups;
 
+    /**
+     * Number of locks used to serialize the processing of events of the same group. Events of
+     * different groups only contend when their ids hash to the same lock.
+     */
+    public static final int GROUP_LOCK_STRIPES = 1024;
+
+    private final Object[] groupLocks = new Object[GROUP_LOCK_STRIPES];
+
+    /**
+     * @deprecated events are no longer correlated under a single lock, each group is guarded by
+     *             the monitor returned by {@link #getGroupLock(Object)}. Kept for subclasses
+     *             only, it is not used by this class anymore.
+     */
+    @Deprecated
     protected final Object groupsLock = new Object();
 
-    // @GuardedBy groupsLock
     protected ObjectStore<Long> processedGroups = null;
 
     private long timeout = -1; // undefined
@@ -133,6 +146,10 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         this.storePrefix = storePrefix;
         name = String.format("%s%s.event.correlator", ThreadNameHelper.getPrefix(muleContext),
             flowConstructName);
+        for (int i = 0; i < groupLocks.length; i++)
+        {
+            groupLocks[i] = new Object();
+        }
         ObjectStoreManager objectStoreManager = muleContext.getRegistry().get(
             MuleProperties.OBJECT_STORE_MANAGER);
         expiredAndDispatchedGroups = (ListableObjectStore<Long>) objectStoreManager.getObjectStore(
@@ -147,21 +164,32 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
     public void forceGroupExpiry(String groupId) throws MessagingException
     {
-        try
+        EventGroup group = null;
+        synchronized (getGroupLock(groupId))
         {
-            if (eventGroups.retrieve(groupId) != null)
+            try
             {
-                handleGroupExpiry(getEventGroup(groupId));
+                if (eventGroups.retrieve(groupId) != null)
+                {
+                    group = getEventGroup(groupId);
+                    removeEventGroup(group);
+                }
+                else
+                {
+                    addProcessedGroup(groupId);
+                }
             }
-            else
+            catch (ObjectStoreException e)
             {
-                addProcessedGroup(groupId);
+                // TODO improve this
+                throw new MessagingException(null, e);
             }
         }
-        catch (ObjectStoreException e)
+
+        // the group can no longer receive events, so it is dispatched without holding its lock
+        if (group != null)
         {
-            // TODO improve this
-            throw new MessagingException(null, e);
+            handleExpiredGroup(group);
         }
     }
 
@@ -189,106 +217,98 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             throw new RoutingException(CoreMessages.noCorrelationId(), event, timeoutMessageProcessor);
         }
 
-        // spinloop for the EventGroup lookup
-        while (true)
+        boolean alreadyProcessed;
+        MuleEvent returnEvent = null;
+
+        // ensure that only one thread at a time evaluates the EventGroup of this correlation id,
+        // while events of other groups are processed concurrently
+        synchronized (getGroupLock(groupId))
         {
             try
             {
-                if (isGroupAlreadyProcessed(groupId))
+                alreadyProcessed = isGroupAlreadyProcessed(groupId);
+                if (!alreadyProcessed)
                 {
-                    if (logger.isDebugEnabled())
-                    {
-                        logger.debug("An event was received for an event group that has already been processed, "
-                                     + "this is probably because the async-reply timed out. Correlation Id is: "
-                                     + groupId + ". Dropping event");
-                    }
-                    // Fire a notification to say we received this message
-                    muleContext.fireNotification(new RoutingNotification(event.getMessage(),
-                        event.getMessageSourceURI().toString(),
-                        RoutingNotification.MISSED_AGGREGATION_GROUP_EVENT));
-                    return null;
+                    returnEvent = addEventToGroup(groupId, event);
                 }
             }
             catch (ObjectStoreException e)
             {
                 throw new RoutingException(event, timeoutMessageProcessor, e);
             }
+        }
 
-            // check for an existing group first
-            EventGroup group;
-            try
-            {
-                group = this.getEventGroup(groupId);
-            }
-            catch (ObjectStoreException e)
-            {
-                throw new RoutingException(event, timeoutMessageProcessor, e);
-            }
-
-            // does the group exist?
-            if (group == null)
+        if (alreadyProcessed)
+        {
+            if (logger.isDebugEnabled())
             {
-                // ..apparently not, so create a new one & add it
-                try
-                {
-                    group = this.addEventGroup(callback.createEventGroup(event, groupId));
-                }
-                catch (ObjectStoreException e)
-                {
-                    throw new RoutingException(event, timeoutMessageProcessor, e);
-                }
+                logger.debug("An event was received for an event group that has already been processed, "
+                             + "this is probably because the async-reply timed out. Correlation Id is: "
+                             + groupId + ". Dropping event");
             }
+            // Fire a notification to say we received this message
+            muleContext.fireNotification(new RoutingNotification(event.getMessage(),
+                event.getMessageSourceURI().toString(),
+                RoutingNotification.MISSED_AGGREGATION_GROUP_EVENT));
+        }
+        return returnEvent;
+    }
 
-            // ensure that only one thread at a time evaluates this EventGroup
-            synchronized (groupsLock)
-            {
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug("Adding event to aggregator group: " + groupId);
-                }
+    /**
+     * Adds an event to its group, creating the group if this is its first event, and
+     * aggregates the group when it is complete. Must be called holding the lock of the group.
+     *
+     * @return the aggregated event, or null if the group is not complete yet
+     */
+    private MuleEvent addEventToGroup(String groupId, MuleEvent event) throws ObjectStoreException, RoutingException
+    {
+        EventGroup group = this.getEventGroup(groupId);
+        if (group == null)
+        {
+            group = this.addEventGroup(callback.createEventGroup(event, groupId));
+        }
 
-                // add the incoming event to the group
-                try
-                {
-                    group.addEvent(event);
-                }
-                catch (ObjectStoreException e)
-                {
-                    throw new RoutingException(event, timeoutMessageProcessor, e);
-                }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Adding event to aggregator group: " + groupId);
+        }
 
-                // check to see if the event group is ready to be aggregated
-                if (callback.shouldAggregateEvents(group))
-                {
-                    // create the response event
-                    MuleEvent returnEvent = callback.aggregateEvents(group);
-                    returnEvent.getMessage().setCorrelationId(groupId);
-                    String rootId = group.getCommonRootId();
-                    if (rootId != null)
-                    {
-                        returnEvent.getMessage().setMessageRootId(rootId);
-                    }
+        // add the incoming event to the group
+        group.addEvent(event);
 
-                    // remove the eventGroup as no further message will be received
-                    // for this group once we aggregate
-                    try
-                    {
-                        this.removeEventGroup(group);
-                        group.clear();
-                    }
-                    catch (ObjectStoreException e)
-                    {
-                        throw new RoutingException(event, timeoutMessageProcessor, e);
-                    }
+        // check to see if the event group is ready to be aggregated
+        if (!callback.shouldAggregateEvents(group))
+        {
+            return null;
+        }
 
-                    return returnEvent;
-                }
-                else
-                {
-                    return null;
-                }
-            }
+        // create the response event
+        MuleEvent returnEvent = callback.aggregateEvents(group);
+        returnEvent.getMessage().setCorrelationId(groupId);
+        String rootId = group.getCommonRootId();
+        if (rootId != null)
+        {
+            returnEvent.getMessage().setMessageRootId(rootId);
         }
+
+        // remove the eventGroup as no further message will be received
+        // for this group once we aggregate
+        this.removeEventGroup(group);
+        group.clear();
+
+        return returnEvent;
+    }
+
+    /**
+     * @return the monitor that guards the processing of the events of a group
+     */
+    protected Object getGroupLock(Object groupId)
+    {
+        int hash = groupId.hashCode();
+        // spread the hash so ids that only differ in their high bits use different locks
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return groupLocks[hash & (groupLocks.length - 1)];
     }
 
     protected EventGroup getEventGroup(Serializable groupId) throws ObjectStoreException
@@ -337,18 +357,12 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
     protected void addProcessedGroup(Object id) throws ObjectStoreException
     {
-        synchronized (groupsLock)
-        {
-            processedGroups.store((Serializable) id, System.nanoTime());
-        }
+        processedGroups.store((Serializable) id, System.nanoTime());
     }
 
     protected boolean isGroupAlreadyProcessed(Object id) throws ObjectStoreException
     {
-        synchronized (groupsLock)
-        {
-            return processedGroups.contains((Serializable) id);
-        }
+        return processedGroups.contains((Serializable) id);
     }
 
     public boolean isFailOnTimeout()
@@ -382,6 +396,16 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             throw new MessagingException(group.getMessageCollectionEvent(), e);
         }
 
+        handleExpiredGroup(group);
+    }
+
+    /**
+     * Fails or forwards a group that has already been removed from the event groups. It is
+     * called without holding the lock of the group, as forwarding it runs the timeout
+     * processor or the rest of the flow.
+     */
+    protected void handleExpiredGroup(EventGroup group) throws MessagingException
+    {
         if (isFailOnTimeout())
         {
             MuleMessageCollection messageCollection;
@@ -534,8 +558,10 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             {
                 for (Serializable o : eventGroups.allKeys())
                 {
-                    EventGroup group = getEventGroup(o) ;
-                    if ((group.getCreated() + getTimeout() * MILLI_TO_NANO_MULTIPLIER) < System.nanoTime())
+                    EventGroup group = getEventGroup(o);
+                    // the group may have been completed since the keys were listed
+                    if (group != null
+                        && (group.getCreated() + getTimeout() * MILLI_TO_NANO_MULTIPLIER) < System.nanoTime())
                     {
                         expired.add(group);
                     }
@@ -558,7 +584,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                             @Override
                             public MuleEvent process() throws Exception
                             {
-                                handleGroupExpiry(group);
+                                expireGroup(group.getGroupId());
                                 return null;
                             }
                         });
@@ -576,6 +602,34 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         }
     }
 
+    /**
+     * Expires a group unless it was completed or expired since it was found to be expired. The
+     * group is removed holding its lock, so no more events are added to it, and then handled
+     * after releasing the lock so that processing it downstream does not block the other groups
+     * sharing the lock, nor deadlock if that processing correlates events again.
+     */
+    private void expireGroup(Object groupId) throws MessagingException, ObjectStoreException
+    {
+        EventGroup group;
+        synchronized (getGroupLock(groupId))
+        {
+            group = getEventGroup((Serializable) groupId);
+            if (group == null)
+            {
+                return;
+            }
+            try
+            {
+                removeEventGroup(group);
+            }
+            catch (ObjectStoreException e)
+            {
+                throw new MessagingException(group.getMessageCollectionEvent(), e);
+            }
+        }
+        handleExpiredGroup(group);
+    }
+
     public void dispose()
     {
         disposeIfDisposable(expiredAndDispatchedGroups);
@@ -0,0 +1,146 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.serialization;
+
+import org.mule.api.MuleContext;
+import org.mule.api.context.MuleContextAware;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.util.IOUtils;
+import org.mule.util.store.DeserializationPostInitialisable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.lang.SerializationException;
+
+/**
+ * Base class for {@link ObjectSerializer} implementations. Checks the arguments, closes the
+ * streams, wraps failures in {@link SerializationException} and initialises the deserialized
+ * {@link DeserializationPostInitialisable} objects, so that subclasses only have to write and
+ * read the objects.
+ */
+public abstract class AbstractObjectSerializer implements ObjectSerializer, MuleContextAware
+{
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    protected MuleContext muleContext;
+
+    public AbstractObjectSerializer()
+    {
+        super();
+    }
+
+    public AbstractObjectSerializer(MuleContext muleContext)
+    {
+        this.muleContext = muleContext;
+    }
+
+    public void setMuleContext(MuleContext context)
+    {
+        this.muleContext = context;
+    }
+
+    public byte[] serialize(Object object) throws SerializationException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        serialize(object, out);
+        return out.toByteArray();
+    }
+
+    public void serialize(Object object, OutputStream out) throws SerializationException
+    {
+        if (out == null)
+        {
+            throw new IllegalArgumentException("The OutputStream must not be null");
+        }
+        try
+        {
+            doSerialize(object, out);
+        }
+        catch (SerializationException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new SerializationException(e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    public <T> T deserialize(byte[] bytes) throws SerializationException
+    {
+        if (bytes == null)
+        {
+            throw new IllegalArgumentException("The byte[] must not be null");
+        }
+        return this.<T>deserialize(new ByteArrayInputStream(bytes));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(InputStream in) throws SerializationException
+    {
+        if (in == null)
+        {
+            throw new IllegalArgumentException("The InputStream must not be null");
+        }
+        try
+        {
+            Object object = doDeserialize(in, getClassLoader());
+            if (object instanceof DeserializationPostInitialisable)
+            {
+                DeserializationPostInitialisable.Implementation.init(object, muleContext);
+            }
+            return (T) object;
+        }
+        catch (SerializationException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new SerializationException(e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * @return the class loader of the application, which can load the classes of its objects
+     */
+    protected ClassLoader getClassLoader()
+    {
+        if (muleContext != null)
+        {
+            return muleContext.getExecutionClassLoader();
+        }
+        return Thread.currentThread().getContextClassLoader();
+    }
+
+    /**
+     * Writes an object to a stream. The stream is closed by the caller.
+     */
+    protected abstract void doSerialize(Object object, OutputStream out) throws Exception;
+
+    /**
+     * Reads an object from a stream, loading its classes with the given class loader. The
+     * stream is closed by the caller.
+     */
+    protected abstract Object doDeserialize(InputStream in, ClassLoader classLoader) throws Exception;
+}
@@ -0,0 +1,131 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the objects written by {@link CompactObjectOutputStream}. The descriptor of a
+ * registered class is the local one, looked up from its id, once its serialVersionUID and field
+ * layout have been checked against the stream. Any other class is read from its full
+ * descriptor, as Java serialization does. Classes are loaded with the given class loader.
+ */
+class CompactObjectInputStream extends ObjectInputStream
+{
+
+    private static final Map<String, Class<?>> PRIMITIVE_CLASSES = new HashMap<String, Class<?>>();
+
+    static
+    {
+        for (Class<?> primitive : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class,
+            long.class, float.class, double.class, void.class})
+        {
+            PRIMITIVE_CLASSES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private final ClassLoader classLoader;
+
+    CompactObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException
+    {
+        super(in);
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    protected void readStreamHeader() throws IOException
+    {
+        short magic = readShort();
+        byte version = readByte();
+        if (magic != CompactObjectSerializer.MAGIC)
+        {
+            throw new StreamCorruptedException(String.format("Invalid stream header: %04X", magic));
+        }
+        if (version != CompactObjectSerializer.VERSION)
+        {
+            throw new StreamCorruptedException("Unsupported stream version: " + version);
+        }
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException
+    {
+        int id = readUnsignedByte();
+        if (id == CompactObjectOutputStream.UNREGISTERED_CLASS)
+        {
+            return super.readClassDescriptor();
+        }
+        if (id > CompactObjectSerializer.REGISTERED_CLASSES.length)
+        {
+            throw new StreamCorruptedException("Unknown class id: " + id);
+        }
+
+        Class<?> clazz = CompactObjectSerializer.REGISTERED_CLASSES[id - 1];
+        long serialVersionUID = readLong();
+        int fieldLayout = readInt();
+        ObjectStreamClass desc = ObjectStreamClass.lookupAny(clazz);
+        if (desc.getSerialVersionUID() != serialVersionUID)
+        {
+            throw new InvalidClassException(clazz.getName(), String.format(
+                "local class incompatible: stream serialVersionUID = %d, local class serialVersionUID = %d",
+                serialVersionUID, desc.getSerialVersionUID()));
+        }
+        if (CompactObjectSerializer.FIELD_LAYOUTS[id - 1] != fieldLayout)
+        {
+            throw new InvalidClassException(clazz.getName(),
+                "local class incompatible: the serialized fields differ from the stream");
+        }
+        return desc;
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+    {
+        Class<?> clazz = desc.forClass();
+        return clazz != null ? clazz : loadClass(desc.getName());
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException
+    {
+        Class<?>[] interfaceClasses = new Class<?>[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++)
+        {
+            interfaceClasses[i] = loadClass(interfaces[i]);
+        }
+        try
+        {
+            return Proxy.getProxyClass(classLoader, interfaceClasses);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ClassNotFoundException(null, e);
+        }
+    }
+
+    private Class<?> loadClass(String name) throws ClassNotFoundException
+    {
+        Class<?> primitive = PRIMITIVE_CLASSES.get(name);
+        if (primitive != null)
+        {
+            return primitive;
+        }
+        return Class.forName(name, false, classLoader);
+    }
+}
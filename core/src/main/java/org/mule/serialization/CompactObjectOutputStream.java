@@ -0,0 +1,57 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.serialization;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+
+/**
+ * Writes the format read by {@link CompactObjectInputStream}: a {@link ObjectOutputStream}
+ * whose class descriptors are replaced by the id, serialVersionUID and field layout hash of the
+ * class when it is registered in {@link CompactObjectSerializer#REGISTERED_CLASSES}. Any other
+ * class keeps its full descriptor.
+ */
+class CompactObjectOutputStream extends ObjectOutputStream
+{
+
+    static final int UNREGISTERED_CLASS = 0;
+
+    CompactObjectOutputStream(OutputStream out) throws IOException
+    {
+        super(out);
+    }
+
+    @Override
+    protected void writeStreamHeader() throws IOException
+    {
+        writeShort(CompactObjectSerializer.MAGIC);
+        writeByte(CompactObjectSerializer.VERSION);
+    }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException
+    {
+        Integer id = CompactObjectSerializer.CLASS_IDS.get(desc.forClass());
+        if (id != null)
+        {
+            writeByte(id);
+            writeLong(desc.getSerialVersionUID());
+            writeInt(CompactObjectSerializer.FIELD_LAYOUTS[id - 1]);
+        }
+        else
+        {
+            writeByte(UNREGISTERED_CLASS);
+            super.writeClassDescriptor(desc);
+        }
+    }
+}
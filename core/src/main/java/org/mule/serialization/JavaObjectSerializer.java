@@ -0,0 +1,51 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.serialization;
+
+import org.mule.api.MuleContext;
+
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * The default {@link org.mule.api.serialization.ObjectSerializer}, which uses plain Java
+ * serialization as Mule did before serializers were pluggable, so that the serialized objects
+ * are still readable by earlier Mule versions. Objects written by the
+ * {@link CompactObjectSerializer} are recognised by their header and read as well.
+ */
+public class JavaObjectSerializer extends AbstractObjectSerializer
+{
+
+    public JavaObjectSerializer()
+    {
+        super();
+    }
+
+    public JavaObjectSerializer(MuleContext muleContext)
+    {
+        super(muleContext);
+    }
+
+    @Override
+    protected void doSerialize(Object object, OutputStream out) throws Exception
+    {
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(out);
+        objectOutputStream.writeObject(object);
+        objectOutputStream.flush();
+    }
+
+    @Override
+    protected Object doDeserialize(InputStream in, ClassLoader classLoader) throws Exception
+    {
+        return CompactObjectSerializer.readObject(in, classLoader);
+    }
+}
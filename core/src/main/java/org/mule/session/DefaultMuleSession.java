@@ -77,6 +77,13 @@ public final class DefaultMuleSession implements MuleSession
         this.securityContext = session.getSecurityContext();
         this.valid = session.isValid();
 
+        if (session instanceof DefaultMuleSession
+            && ((DefaultMuleSession) session).properties instanceof ReceivedSessionProperties)
+        {
+            // Keeps the received properties serialized until they are read
+            this.properties = ((ReceivedSessionProperties) ((DefaultMuleSession) session).properties).copy();
+            return;
+        }
         this.properties = Collections.synchronizedMap(new CaseInsensitiveHashMap/* <String, Object> */());
         for (String key : session.getPropertyNamesAsSet())
         {
@@ -84,6 +91,15 @@ public final class DefaultMuleSession implements MuleSession
         }
     }
 
+    /**
+     * Creates a session with the given properties, as read by a session handler
+     */
+    DefaultMuleSession(String id, Map<String, Object> properties)
+    {
+        this.id = id;
+        this.properties = properties;
+    }
+
     // Deprecated constructor
 
     @Deprecated
@@ -221,6 +237,19 @@ public final class DefaultMuleSession implements MuleSession
         {
             return;
         }
+        if (updatedSession instanceof DefaultMuleSession
+            && ((DefaultMuleSession) updatedSession).properties instanceof ReceivedSessionProperties
+            && ((ReceivedSessionProperties) ((DefaultMuleSession) updatedSession).properties).isChanges())
+        {
+            // The updated session only holds the properties changed by the remote party
+            ReceivedSessionProperties changes = (ReceivedSessionProperties) ((DefaultMuleSession) updatedSession).properties;
+            changes.applyTo(this.properties);
+            if (changes.getReceivedSecurityContext() != null)
+            {
+                setSecurityContext(changes.getReceivedSecurityContext());
+            }
+            return;
+        }
         Map<String, Object> oldProperties = this.properties;
         this.properties = Collections.synchronizedMap(new CaseInsensitiveHashMap/* <String, Object> */());
         for (String propertyKey : updatedSession.getPropertyNamesAsSet())
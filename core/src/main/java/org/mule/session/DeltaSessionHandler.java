@@ -0,0 +1,291 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.session;
+
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleSession;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.model.SessionException;
+import org.mule.api.security.SecurityContext;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.api.transport.SessionChangesHandler;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.config.i18n.MessageFactory;
+import org.mule.util.Base64;
+import org.mule.util.CaseInsensitiveHashMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A session handler that stores the session in the "MULE_SESSION" property as a Base64
+ * encoded list of individually serialized properties, so that it does not have to process the
+ * whole session on every hop:
+ * <ul>
+ * <li>the properties of a received session are only deserialized when they are first read</li>
+ * <li>a received session that is sent on unchanged is sent as it was received, and the
+ * properties of a changed session that were never read are sent without being serialized
+ * again</li>
+ * <li>the session of a response sent back to the sender of the request only contains the
+ * properties that were read or changed since the request was received, and the security
+ * context if it was replaced. It is not sent at all if nothing was read or changed. The
+ * changes are applied to the session of the sender when the response is received.</li>
+ * </ul>
+ * Sessions stored by a {@link SerializeAndEncodeSessionHandler} are also read, but since the
+ * responses only contain the changes, both ends of a request-response exchange must use this
+ * handler.
+ */
+public class DeltaSessionHandler extends SerializeAndEncodeSessionHandler implements SessionChangesHandler
+{
+
+    static final byte SESSION = 1;
+    static final byte SESSION_CHANGES = 2;
+
+    private static final int NO_VALUE = -1;
+
+    @Override
+    public MuleSession retrieveSessionInfoFromMessage(MuleMessage message) throws MuleException
+    {
+        String encodedSession = message.getInboundProperty(MuleProperties.MULE_SESSION_PROPERTY);
+        if (encodedSession == null)
+        {
+            return null;
+        }
+        byte[] bytes = Base64.decode(encodedSession);
+        if (bytes == null || bytes.length == 0 || (bytes[0] != SESSION && bytes[0] != SESSION_CHANGES))
+        {
+            // stored by a SerializeAndEncodeSessionHandler
+            return super.retrieveSessionInfoFromMessage(message);
+        }
+        try
+        {
+            return decode(bytes, encodedSession, message.getMuleContext().getObjectSerializer());
+        }
+        catch (IOException e)
+        {
+            throw new SessionException(MessageFactory.createStaticMessage("Unable to deserialize MuleSession"), e);
+        }
+    }
+
+    @Override
+    public void storeSessionInfoToMessage(MuleSession session, MuleMessage message) throws MuleException
+    {
+        ReceivedSessionProperties received = getReceivedProperties(session);
+        String encodedSession;
+        if (received != null && !received.isChanges() && !received.isChanged()
+            && session.getSecurityContext() == received.getReceivedSecurityContext()
+            && session.isValid() == received.isReceivedValid())
+        {
+            encodedSession = received.getEncodedSession();
+        }
+        else
+        {
+            encodedSession = encode(session, SESSION, received, message.getMuleContext().getObjectSerializer());
+        }
+        message.setOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY, encodedSession);
+    }
+
+    /**
+     * Stores the properties of a session that were read or changed since it was received into
+     * the response sent back to the sender of the session, since a property that was read may
+     * have been changed in place. Nothing is stored if no property was read or changed and the
+     * security context was not replaced. Sessions that were not received by this handler are
+     * stored whole.
+     */
+    public void storeSessionChangesToMessage(MuleSession session, MuleMessage message) throws MuleException
+    {
+        ReceivedSessionProperties received = getReceivedProperties(session);
+        if (received == null || received.isChanges())
+        {
+            storeSessionInfoToMessage(session, message);
+        }
+        else if (received.isChanged() || isSecurityContextReplaced(session, received))
+        {
+            message.setOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY,
+                encode(session, SESSION_CHANGES, received, message.getMuleContext().getObjectSerializer()));
+        }
+        else if (logger.isDebugEnabled())
+        {
+            logger.debug("Session " + session.getId() + " did not change, not adding it to the response");
+        }
+    }
+
+    /**
+     * A security context that was removed is not sent back, like the security context of any
+     * response
+     */
+    private boolean isSecurityContextReplaced(MuleSession session, ReceivedSessionProperties received)
+    {
+        return session.getSecurityContext() != null
+               && session.getSecurityContext() != received.getReceivedSecurityContext();
+    }
+
+    private ReceivedSessionProperties getReceivedProperties(MuleSession session)
+    {
+        if (session instanceof DefaultMuleSession
+            && ((DefaultMuleSession) session).getProperties() instanceof ReceivedSessionProperties)
+        {
+            return (ReceivedSessionProperties) ((DefaultMuleSession) session).getProperties();
+        }
+        return null;
+    }
+
+    private String encode(MuleSession session, byte type, ReceivedSessionProperties received,
+                          ObjectSerializer serializer) throws MuleException
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeUTF(session.getId());
+            out.writeBoolean(session.isValid());
+
+            SecurityContext securityContext = session.getSecurityContext();
+            if (securityContext instanceof Serializable
+                && (type == SESSION || isSecurityContextReplaced(session, received)))
+            {
+                writeValue(out, serializer.serialize(securityContext));
+            }
+            else
+            {
+                writeValue(out, null);
+            }
+
+            List<String> removedKeys = new ArrayList<String>();
+            Iterable<String> keys = type == SESSION ? session.getPropertyNamesAsSet() : received.getChangedKeys();
+            ByteArrayOutputStream properties = new ByteArrayOutputStream(256);
+            DataOutputStream propertiesOut = new DataOutputStream(properties);
+            int count = 0;
+            for (String key : keys)
+            {
+                byte[] value = received != null ? received.getReceivedValue(key) : null;
+                if (value == null)
+                {
+                    if (type == SESSION_CHANGES && !received.containsKey(key))
+                    {
+                        removedKeys.add(key);
+                        continue;
+                    }
+                    Object property = session.getProperty(key);
+                    if (property != null && !(property instanceof Serializable))
+                    {
+                        logger.warn(CoreMessages.propertyNotSerializableWasDropped(key));
+                        continue;
+                    }
+                    value = serializer.serialize(property);
+                }
+                propertiesOut.writeUTF(key);
+                writeValue(propertiesOut, value);
+                count++;
+            }
+            propertiesOut.flush();
+
+            out.writeInt(count);
+            properties.writeTo(out);
+            out.writeInt(removedKeys.size());
+            for (String key : removedKeys)
+            {
+                out.writeUTF(key);
+            }
+            out.flush();
+
+            String encodedSession = Base64.encodeBytes(bytes.toByteArray(), Base64.DONT_BREAK_LINES);
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(String.format("Adding session header with %d properties and %d removed properties to message: %s",
+                    count, removedKeys.size(), encodedSession));
+            }
+            return encodedSession;
+        }
+        catch (IOException e)
+        {
+            throw new SessionException(MessageFactory.createStaticMessage("Unable to serialize MuleSession"), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private MuleSession decode(byte[] bytes, String encodedSession, ObjectSerializer serializer) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte type = in.readByte();
+        String id = in.readUTF();
+        boolean valid = in.readBoolean();
+        byte[] securityContextBytes = readValue(in);
+        SecurityContext securityContext = securityContextBytes != null
+                                          ? serializer.<SecurityContext> deserialize(securityContextBytes)
+                                          : null;
+
+        int count = in.readInt();
+        Map<String, byte[]> values = new CaseInsensitiveHashMap/* <String, byte[]> */(Math.max(count, 1));
+        for (int i = 0; i < count; i++)
+        {
+            values.put(in.readUTF(), readValue(in));
+        }
+
+        ReceivedSessionProperties properties;
+        if (type == SESSION)
+        {
+            properties = ReceivedSessionProperties.session(serializer, values, encodedSession, securityContext, valid);
+        }
+        else
+        {
+            int removedCount = in.readInt();
+            List<String> removedKeys = removedCount == 0
+                                       ? Collections.<String> emptyList()
+                                       : new ArrayList<String>(removedCount);
+            for (int i = 0; i < removedCount; i++)
+            {
+                removedKeys.add(in.readUTF());
+            }
+            properties = ReceivedSessionProperties.changes(serializer, values, removedKeys, securityContext);
+        }
+
+        DefaultMuleSession session = new DefaultMuleSession(id, properties);
+        session.setValid(valid);
+        session.setSecurityContext(securityContext);
+        return session;
+    }
+
+    private void writeValue(DataOutputStream out, byte[] value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeInt(NO_VALUE);
+        }
+        else
+        {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    private byte[] readValue(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length == NO_VALUE)
+        {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.session;
+
+import org.mule.api.security.SecurityContext;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.util.CaseInsensitiveHashMap;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The properties of a session read by a {@link DeltaSessionHandler}. Every property is kept
+ * as it was received and only deserialized the first time it is read. The properties read or
+ * changed since the session was received are tracked, so that the handler can send on the
+ * other ones without serializing them again, or send back only the ones read or changed. A
+ * property that was read counts as changed, since its value may have been changed in place.
+ * <p/>
+ * The properties may also be the changes made to a session by the remote party, in which case
+ * they are applied to the local session by {@link DefaultMuleSession#merge}.
+ * <p/>
+ * When serialized, these properties are replaced by a synchronized map of their values, like
+ * the properties of any other {@link DefaultMuleSession}.
+ */
+class ReceivedSessionProperties extends AbstractMap<String, Object> implements Serializable
+{
+
+    private static final long serialVersionUID = 6386137441870209283L;
+
+    private final transient ObjectSerializer serializer;
+
+    /**
+     * The properties as received, which are never modified and are shared by the copies
+     */
+    private final Map<String, byte[]> receivedValues;
+    private final Collection<String> removedKeys;
+    private final boolean changes;
+    private final String encodedSession;
+    private final SecurityContext receivedSecurityContext;
+    private final boolean receivedValid;
+
+    /**
+     * The properties that were deserialized or set since the session was received
+     */
+    private final Map<String, Object> values;
+
+    /**
+     * The keys of the properties that were read, set or removed since the session was received
+     */
+    private final Map<String, Boolean> changedKeys;
+
+    @SuppressWarnings("unchecked")
+    private ReceivedSessionProperties(ObjectSerializer serializer, Map<String, byte[]> receivedValues,
+                                      Collection<String> removedKeys, boolean changes, String encodedSession,
+                                      SecurityContext receivedSecurityContext, boolean receivedValid)
+    {
+        this.serializer = serializer;
+        this.receivedValues = receivedValues;
+        this.removedKeys = removedKeys;
+        this.changes = changes;
+        this.encodedSession = encodedSession;
+        this.receivedSecurityContext = receivedSecurityContext;
+        this.receivedValid = receivedValid;
+        this.values = new CaseInsensitiveHashMap/* <String, Object> */();
+        this.changedKeys = new CaseInsensitiveHashMap/* <String, Boolean> */();
+    }
+
+    /**
+     * @param encodedSession the session property the session was read from
+     */
+    static ReceivedSessionProperties session(ObjectSerializer serializer, Map<String, byte[]> receivedValues,
+                                             String encodedSession, SecurityContext securityContext,
+                                             boolean valid)
+    {
+        return new ReceivedSessionProperties(serializer, receivedValues, Collections.<String> emptyList(),
+            false, encodedSession, securityContext, valid);
+    }
+
+    /**
+     * @param securityContext the security context that replaced the one of the session, or null
+     *            if it was not replaced
+     */
+    static ReceivedSessionProperties changes(ObjectSerializer serializer, Map<String, byte[]> changedValues,
+                                             Collection<String> removedKeys, SecurityContext securityContext)
+    {
+        return new ReceivedSessionProperties(serializer, changedValues, removedKeys, true, null, securityContext,
+            true);
+    }
+
+    /**
+     * @return a copy of these properties that tracks its changes separately
+     */
+    @SuppressWarnings("unchecked")
+    synchronized ReceivedSessionProperties copy()
+    {
+        ReceivedSessionProperties copy = new ReceivedSessionProperties(serializer, receivedValues, removedKeys,
+            changes, encodedSession, receivedSecurityContext, receivedValid);
+        copy.values.putAll(values);
+        copy.changedKeys.putAll(changedKeys);
+        return copy;
+    }
+
+    /**
+     * @return whether these properties are the changes made to a session by the remote party
+     */
+    boolean isChanges()
+    {
+        return changes;
+    }
+
+    /**
+     * @return the session property these properties were read from, or null if they are changes
+     */
+    String getEncodedSession()
+    {
+        return encodedSession;
+    }
+
+    SecurityContext getReceivedSecurityContext()
+    {
+        return receivedSecurityContext;
+    }
+
+    boolean isReceivedValid()
+    {
+        return receivedValid;
+    }
+
+    synchronized boolean isChanged()
+    {
+        return !changedKeys.isEmpty();
+    }
+
+    synchronized Set<String> getChangedKeys()
+    {
+        return new KeySnapshot(changedKeys.keySet());
+    }
+
+    /**
+     * @return the property as it was received, or null if it was not received or was read or
+     *         changed since
+     */
+    synchronized byte[] getReceivedValue(String key)
+    {
+        return changedKeys.containsKey(key) ? null : receivedValues.get(key);
+    }
+
+    /**
+     * Applies the changes made to a session by the remote party to the properties of the local
+     * session.
+     */
+    void applyTo(Map<String, Object> properties)
+    {
+        for (String key : receivedValues.keySet())
+        {
+            properties.put(key, get(key));
+        }
+        for (String key : removedKeys)
+        {
+            properties.remove(key);
+        }
+    }
+
+    @Override
+    public synchronized Object get(Object key)
+    {
+        if (values.containsKey(key))
+        {
+            return values.get(key);
+        }
+        byte[] receivedValue = changedKeys.containsKey(key) ? null : receivedValues.get(key);
+        if (receivedValue == null)
+        {
+            return null;
+        }
+        Object value = serializer.deserialize(receivedValue);
+        values.put((String) key, value);
+        // the caller may change the value in place, so the received bytes are stale from now on
+        changedKeys.put((String) key, Boolean.TRUE);
+        return value;
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key)
+    {
+        return values.containsKey(key) || (!changedKeys.containsKey(key) && receivedValues.containsKey(key));
+    }
+
+    /**
+     * Unlike other maps this does not return the previous value unless it was already read, so
+     * that it is not deserialized only to be replaced.
+     */
+    @Override
+    public synchronized Object put(String key, Object value)
+    {
+        changedKeys.put(key, Boolean.TRUE);
+        return values.put(key, value);
+    }
+
+    @Override
+    public synchronized Object remove(Object key)
+    {
+        Object previous = get(key);
+        values.remove(key);
+        changedKeys.put((String) key, Boolean.TRUE);
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        for (String key : keySet())
+        {
+            changedKeys.put(key, Boolean.TRUE);
+        }
+        values.clear();
+    }
+
+    @Override
+    public synchronized int size()
+    {
+        return keySet().size();
+    }
+
+    /**
+     * @return the keys of the properties, without deserializing them
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized Set<String> keySet()
+    {
+        Map<String, Boolean> keys = new CaseInsensitiveHashMap/* <String, Boolean> */();
+        for (String key : values.keySet())
+        {
+            keys.put(key, Boolean.TRUE);
+        }
+        for (String key : receivedValues.keySet())
+        {
+            if (!changedKeys.containsKey(key) && !keys.containsKey(key))
+            {
+                keys.put(key, Boolean.TRUE);
+            }
+        }
+        return new KeySnapshot(keys.keySet());
+    }
+
+    /**
+     * Deserializes all the properties. Removing entries through the returned set removes the
+     * properties.
+     */
+    @Override
+    public synchronized Set<Entry<String, Object>> entrySet()
+    {
+        final List<Entry<String, Object>> entries = new ArrayList<Entry<String, Object>>();
+        for (String key : keySet())
+        {
+            entries.add(new SimpleImmutableEntry<String, Object>(key, get(key)));
+        }
+        return new AbstractSet<Entry<String, Object>>()
+        {
+            @Override
+            public Iterator<Entry<String, Object>> iterator()
+            {
+                final Iterator<Entry<String, Object>> iterator = entries.iterator();
+                return new Iterator<Entry<String, Object>>()
+                {
+                    private Entry<String, Object> current;
+
+                    public boolean hasNext()
+                    {
+                        return iterator.hasNext();
+                    }
+
+                    public Entry<String, Object> next()
+                    {
+                        current = iterator.next();
+                        return current;
+                    }
+
+                    public void remove()
+                    {
+                        iterator.remove();
+                        ReceivedSessionProperties.this.remove(current.getKey());
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return entries.size();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object writeReplace()
+    {
+        Map<String, Object> properties = new CaseInsensitiveHashMap/* <String, Object> */();
+        properties.putAll(this);
+        return Collections.synchronizedMap(properties);
+    }
+
+    /**
+     * An unmodifiable snapshot of a set of keys.
+     */
+    private static class KeySnapshot extends AbstractSet<String>
+    {
+
+        private final List<String> keys;
+
+        KeySnapshot(Collection<String> keys)
+        {
+            this.keys = new ArrayList<String>(keys);
+        }
+
+        @Override
+        public Iterator<String> iterator()
+        {
+            return Collections.unmodifiableList(keys).iterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return keys.size();
+        }
+    }
+}
@@ -17,7 +17,6 @@ import org.mule.api.config.MuleProperties;
 import org.mule.api.model.SessionException;
 import org.mule.config.i18n.MessageFactory;
 import org.mule.util.Base64;
-import org.mule.util.SerializationUtils;
 
 import java.io.IOException;
 
@@ -41,7 +40,7 @@ public class SerializeAndEncodeSessionHandler extends SerializeOnlySessionHandle
             byte[] serializedSession = Base64.decode(serializedEncodedSession);            
             if (serializedSession != null)
             {
-                session = (MuleSession) SerializationUtils.deserialize(serializedSession, message.getMuleContext());
+                session = message.getMuleContext().getObjectSerializer().deserialize(serializedSession);
             }
         }
         return session;
@@ -50,7 +49,8 @@ public class SerializeAndEncodeSessionHandler extends SerializeOnlySessionHandle
     @Override
     public void storeSessionInfoToMessage(MuleSession session, MuleMessage message) throws MuleException
     {        
-        byte[] serializedSession = SerializationUtils.serialize(removeNonSerializableProperties(session,message.getMuleContext()));
+        byte[] serializedSession = message.getMuleContext().getObjectSerializer().serialize(
+            removeNonSerializableProperties(session, message.getMuleContext()));
         String serializedEncodedSession;
         try
         {
@@ -14,6 +14,7 @@ import org.mule.api.MuleContext;
 import org.mule.api.transaction.Transaction;
 import org.mule.api.transaction.TransactionException;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.context.notification.ServerNotificationManager;
 import org.mule.context.notification.TransactionNotification;
 import org.mule.util.UUID;
 
@@ -65,7 +66,7 @@ public abstract class AbstractTransaction implements Transaction
         logger.debug("Beginning transaction");
         doBegin();
         TransactionCoordination.getInstance().bindTransaction(this);
-        fireNotification(new TransactionNotification(this, TransactionNotification.TRANSACTION_BEGAN));
+        fireNotification(TransactionNotification.TRANSACTION_BEGAN);
     }
 
     public void commit() throws TransactionException
@@ -80,7 +81,7 @@ public abstract class AbstractTransaction implements Transaction
             }
 
             doCommit();
-            fireNotification(new TransactionNotification(this, TransactionNotification.TRANSACTION_COMMITTED));
+            fireNotification(TransactionNotification.TRANSACTION_COMMITTED);
         }
         finally
         {
@@ -95,7 +96,7 @@ public abstract class AbstractTransaction implements Transaction
             logger.debug("Rolling back transaction");
             setRollbackOnly();
             doRollback();
-            fireNotification(new TransactionNotification(this, TransactionNotification.TRANSACTION_ROLLEDBACK));
+            fireNotification(TransactionNotification.TRANSACTION_ROLLEDBACK);
         }
         finally
         {
@@ -140,10 +141,22 @@ public abstract class AbstractTransaction implements Transaction
      */
     protected void fireNotification(TransactionNotification notification)
     {
-        // TODO profile this piece of code
         muleContext.fireNotification(notification);
     }
 
+    /**
+     * Fires a {@link TransactionNotification} with the given action, unless no listener is
+     * interested in them, in which case it is not even created.
+     */
+    private void fireNotification(int action)
+    {
+        ServerNotificationManager notificationManager = muleContext.getNotificationManager();
+        if (notificationManager == null || notificationManager.isNotificationEnabled(TransactionNotification.class))
+        {
+            fireNotification(new TransactionNotification(this, action));
+        }
+    }
+
     public boolean isXA()
     {
         return false;
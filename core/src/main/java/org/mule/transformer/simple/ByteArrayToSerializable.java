@@ -15,13 +15,13 @@ import org.mule.api.transformer.TransformerException;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.transformer.AbstractTransformer;
 import org.mule.transformer.types.DataTypeFactory;
-import org.mule.util.SerializationUtils;
 
 import java.io.InputStream;
 
 /**
  * <code>ByteArrayToSerializable</code> converts a serialized object to its object
- * representation
+ * representation. Objects serialized with plain Java serialization and with the
+ * {@link org.mule.api.serialization.ObjectSerializer} of the application are both read.
  */
 public class ByteArrayToSerializable extends AbstractTransformer implements DiscoverableTransformer
 {
@@ -45,11 +45,11 @@ public class ByteArrayToSerializable extends AbstractTransformer implements Disc
             final Object result;
             if (src instanceof byte[])
             {
-                result = SerializationUtils.deserialize((byte[]) src, muleContext);
+                result = muleContext.getObjectSerializer().deserialize((byte[]) src);
             }
             else
             {
-                result = SerializationUtils.deserialize((InputStream) src, muleContext);
+                result = muleContext.getObjectSerializer().deserialize((InputStream) src);
             }
             return result;
         }
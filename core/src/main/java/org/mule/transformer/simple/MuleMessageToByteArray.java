@@ -12,9 +12,11 @@ package org.mule.transformer.simple;
 import org.mule.api.MuleMessage;
 import org.mule.transformer.AbstractMessageTransformer;
 import org.mule.transformer.types.DataTypeFactory;
-import org.mule.util.SerializationUtils;
 
-/** TODO */
+/**
+ * Serializes a {@link MuleMessage} with the {@link org.mule.api.serialization.ObjectSerializer}
+ * of the application.
+ */
 public class MuleMessageToByteArray extends AbstractMessageTransformer
 {
     public MuleMessageToByteArray()
@@ -26,6 +28,6 @@ public class MuleMessageToByteArray extends AbstractMessageTransformer
     @Override
     public Object transformMessage(MuleMessage message, String outputEncoding)
     {
-        return SerializationUtils.serialize(message);
+        return muleContext.getObjectSerializer().serialize(message);
     }
 }
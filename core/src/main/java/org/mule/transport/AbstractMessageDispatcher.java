@@ -18,6 +18,7 @@ import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.MuleSession;
 import org.mule.api.config.MuleProperties;
+import org.mule.api.construct.FlowConstruct;
 import org.mule.api.context.WorkManager;
 import org.mule.api.endpoint.OutboundEndpoint;
 import org.mule.api.service.Service;
@@ -78,7 +79,9 @@ public abstract class AbstractMessageDispatcher extends AbstractTransportMessage
 
             if (hasResponse)
             {
+                long startTime = System.currentTimeMillis();
                 MuleMessage resultMessage = doSend(event);
+                addOutboundEndpointTime(event, startTime);
                 if (resultMessage != null)
                 {
                     resultMessage.setMessageRootId(event.getMessage().getMessageRootId());
@@ -96,7 +99,9 @@ public abstract class AbstractMessageDispatcher extends AbstractTransportMessage
             }
             else
             {
+                long startTime = System.currentTimeMillis();
                 doDispatch(event);
+                addOutboundEndpointTime(event, startTime);
                 return VoidMuleEvent.getInstance();
             }
         }
@@ -110,6 +115,17 @@ public abstract class AbstractMessageDispatcher extends AbstractTransportMessage
         }
     }
 
+    private void addOutboundEndpointTime(MuleEvent event, long startTime)
+    {
+        FlowConstruct flowConstruct = event.getFlowConstruct();
+        if (flowConstruct != null && flowConstruct.getStatistics() != null
+            && flowConstruct.getStatistics().isEnabled())
+        {
+            flowConstruct.getStatistics().addOutboundEndpointTime(endpoint.getName(),
+                System.currentTimeMillis() - startTime);
+        }
+    }
+
     /**
      * @deprecated
      */
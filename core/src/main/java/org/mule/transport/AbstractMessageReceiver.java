@@ -36,6 +36,8 @@ import org.mule.api.transport.Connector;
 import org.mule.api.transport.MessageReceiver;
 import org.mule.api.transport.PropertyScope;
 import org.mule.api.transport.ReplyToHandler;
+import org.mule.api.transport.SessionChangesHandler;
+import org.mule.api.transport.SessionHandler;
 import org.mule.context.notification.EndpointMessageNotification;
 import org.mule.execution.TransactionalErrorHandlingExecutionTemplate;
 import org.mule.lifecycle.PrimaryNodeLifecycleNotificationListener;
@@ -522,7 +524,16 @@ public abstract class AbstractMessageReceiver extends AbstractTransportMessageHa
             // Do not propagate security context back to caller
             MuleSession resultSession = new DefaultMuleSession(resultEvent.getSession());
             resultSession.setSecurityContext(null);
-            connector.getSessionHandler().storeSessionInfoToMessage(resultSession, resultEvent.getMessage());
+            SessionHandler sessionHandler = connector.getSessionHandler();
+            if (sessionHandler instanceof SessionChangesHandler)
+            {
+                // Only send back what the caller does not already have
+                ((SessionChangesHandler) sessionHandler).storeSessionChangesToMessage(resultSession, resultEvent.getMessage());
+            }
+            else
+            {
+                sessionHandler.storeSessionInfoToMessage(resultSession, resultEvent.getMessage());
+            }
 
             if (resultEvent.getMessage() != null && !endpoint.isDisableTransportTransformer())
             {
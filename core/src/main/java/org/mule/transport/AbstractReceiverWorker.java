@@ -57,13 +57,20 @@ public abstract class AbstractReceiverWorker implements Work
     }
 
     /**
-     * This will run the receiver logic and call {@link #release()} once {@link #doRun()} completes.
+     * This will run the receiver logic and call {@link #release()} once {@link #doRun()} completes,
+     * even if it fails.
     *
     */
     public final void run()
     {
-        doRun();
-        release();
+        try
+        {
+            doRun();
+        }
+        finally
+        {
+            release();
+        }
     }
 
     protected void doRun()
@@ -12,6 +12,7 @@ package org.mule.util;
 
 import org.mule.api.MuleMessage;
 import org.mule.api.expression.ExpressionManager;
+import org.mule.api.expression.ExpressionPrecompiler;
 
 import java.util.regex.Pattern;
 
@@ -41,6 +42,10 @@ public class AttributeEvaluator
     {
         this.expressionManager = expressionManager;
         resolveAttributeType();
+        if (expressionManager instanceof ExpressionPrecompiler)
+        {
+            ((ExpressionPrecompiler) expressionManager).precompile(attributeValue);
+        }
     }
 
     private void resolveAttributeType()
@@ -0,0 +1,214 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Groups the items handed over by concurrent callers into batches that are flushed at once,
+ * instead of flushing every item on its own.
+ * <p/>
+ * Items are added to the current batch, which is flushed once it holds the batch size or once
+ * its first item has waited for the batch interval. No thread is dedicated to the batcher:
+ * the caller that fills the batch, or the first one to time out, flushes it. Every caller
+ * blocks in {@link #add(Collection)} until its batch has been flushed, and fails if flushing
+ * the batch failed.
+ */
+// @ThreadSafe
+public abstract class Batcher<T>
+{
+
+    private final int batchSize;
+    private final long batchInterval;
+
+    /**
+     * Guards {@link #current}.
+     */
+    private final Object batchLock = new Object();
+    private Batch<T> current;
+
+    /**
+     * @param batchSize the number of items flushing a batch as soon as it holds them
+     * @param batchInterval the milliseconds the first item of a batch waits for more items
+     */
+    protected Batcher(int batchSize, long batchInterval)
+    {
+        this.batchSize = batchSize;
+        this.batchInterval = batchInterval;
+    }
+
+    /**
+     * Adds an item to the current batch and waits until the batch has been flushed.
+     */
+    public void add(T item) throws Exception
+    {
+        add(Collections.singletonList(item));
+    }
+
+    /**
+     * Adds items to the current batch and waits until the batch has been flushed.
+     *
+     * @throws Exception the exception created by {@link #batchFailed(int, Exception)} if the
+     *             batch could not be flushed
+     */
+    public void add(Collection<? extends T> items) throws Exception
+    {
+        if (items.isEmpty())
+        {
+            return;
+        }
+
+        Batch<T> batch;
+        boolean full;
+        synchronized (batchLock)
+        {
+            if (current == null)
+            {
+                current = new Batch<T>(System.currentTimeMillis() + batchInterval);
+            }
+            batch = current;
+            batch.items.addAll(items);
+            full = batch.items.size() >= batchSize;
+            if (full)
+            {
+                current = null;
+            }
+        }
+
+        if (full && batch.claim())
+        {
+            flush(batch);
+        }
+        else if (batch.awaitDeadline() && claim(batch))
+        {
+            flush(batch);
+        }
+        batch.awaitCompletion();
+
+        if (batch.failure != null)
+        {
+            throw batchFailed(batch.items.size(), batch.failure);
+        }
+    }
+
+    /**
+     * Flushes the current batch on the calling thread, without waiting for it to fill up or
+     * for its interval, so that its callers are released before the resources it is flushed
+     * to go away. Items added afterwards start a new batch.
+     */
+    public void flushPending()
+    {
+        Batch<T> batch;
+        synchronized (batchLock)
+        {
+            batch = current;
+            current = null;
+        }
+        if (batch != null && batch.claim())
+        {
+            flush(batch);
+        }
+    }
+
+    private boolean claim(Batch<T> batch)
+    {
+        synchronized (batchLock)
+        {
+            if (current == batch)
+            {
+                current = null;
+            }
+        }
+        return batch.claim();
+    }
+
+    private void flush(Batch<T> batch)
+    {
+        try
+        {
+            flush(batch.items);
+            batch.completed(null);
+        }
+        catch (Exception e)
+        {
+            batch.completed(e);
+        }
+    }
+
+    /**
+     * Flushes the items of a batch, on the thread of one of the callers that added them.
+     */
+    protected abstract void flush(List<T> items) throws Exception;
+
+    /**
+     * @param size the number of items of the batch
+     * @param cause the exception thrown by {@link #flush(List)}
+     * @return the exception thrown to every caller whose items were in the batch
+     */
+    protected abstract Exception batchFailed(int size, Exception cause);
+
+    /**
+     * Items flushed together. The items are only modified while the batch is the current one
+     * of the batcher, and only read once it has been claimed by the thread flushing it.
+     */
+    private static class Batch<T>
+    {
+
+        private final List<T> items = new ArrayList<T>();
+        private final long deadline;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private boolean done;
+        private Exception failure;
+
+        Batch(long deadline)
+        {
+            this.deadline = deadline;
+        }
+
+        boolean claim()
+        {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Waits until the batch has been flushed or its deadline has passed.
+         *
+         * @return true if the batch has not been flushed yet
+         */
+        synchronized boolean awaitDeadline() throws InterruptedException
+        {
+            long remaining;
+            while (!done && (remaining = deadline - System.currentTimeMillis()) > 0)
+            {
+                wait(remaining);
+            }
+            return !done;
+        }
+
+        synchronized void awaitCompletion() throws InterruptedException
+        {
+            while (!done)
+            {
+                wait();
+            }
+        }
+
+        synchronized void completed(Exception e)
+        {
+            failure = e;
+            done = true;
+            notifyAll();
+        }
+    }
+}
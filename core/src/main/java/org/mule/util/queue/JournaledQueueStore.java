@@ -0,0 +1,37 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.QueueStore;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A {@link QueueStore} that can write all the changes of a queue transaction as a single
+ * atomic journal entry. {@link QueueTransactionContext} uses it on commit instead of storing
+ * and removing every item on its own.
+ */
+public interface JournaledQueueStore<T extends Serializable> extends QueueStore<T>
+{
+
+    /**
+     * Stores and removes the given entries atomically. The method returns once the changes
+     * are durable; concurrent commits may share the same sync to disk.
+     *
+     * @param stored items added by the transaction, by key
+     * @param removed keys of the items taken by the transaction
+     * @throws ObjectStoreException if the changes could not be written, in which case none of
+     *             them is applied
+     */
+    void commit(Map<Serializable, T> stored, Collection<Serializable> removed) throws ObjectStoreException;
+}
@@ -62,12 +62,16 @@ public class QueueInfo
         }
         if (delegate == null || (config != null && !hadConfig))
         {
-            QueueInfoDelegate newDelegate = factory != null ? factory.createDelegate(this, muleContext) : new DefaultQueueInfoDelegate(capacity);
+            QueueInfoDelegate newDelegate = factory != null ? factory.createDelegate(this, muleContext) : new TwoLockQueueInfoDelegate(capacity);
             delegateCanTake = newDelegate instanceof TakingQueueInfoDelegate;
             if (delegate != null && delegate instanceof DefaultQueueInfoDelegate)
             {
                 newDelegate.addAll(((DefaultQueueInfoDelegate) delegate).list);
             }
+            else if (delegate != null && delegate instanceof TwoLockQueueInfoDelegate)
+            {
+                newDelegate.addAll(((TwoLockQueueInfoDelegate) delegate).getContents());
+            }
             delegate = newDelegate;
         }
     }
@@ -16,9 +16,12 @@ import org.mule.util.xa.ResourceManagerException;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class QueueTransactionContext extends AbstractTransactionContext
 {
@@ -164,6 +167,10 @@ public class QueueTransactionContext extends AbstractTransactionContext
     {
         try
         {
+            // changes to queues backed by a journal are written as a single entry per journal
+            Map<JournaledQueueStore<Serializable>, Map<QueueInfo, List<Serializable>>> journaledAdded = null;
+            Map<JournaledQueueStore<Serializable>, Map<QueueInfo, List<Serializable>>> journaledRemoved = null;
+
             if (added != null)
             {
                 for (Map.Entry<QueueInfo, List<Serializable>> entry : added.entrySet())
@@ -172,6 +179,11 @@ public class QueueTransactionContext extends AbstractTransactionContext
                     List<Serializable> queueAdded = entry.getValue();
                     if (queueAdded != null && queueAdded.size() > 0)
                     {
+                        if (queue.getStore() instanceof JournaledQueueStore)
+                        {
+                            journaledAdded = addJournaledChanges(journaledAdded, queue, queueAdded);
+                            continue;
+                        }
                         for (Serializable object : queueAdded)
                         {
                             Serializable id = transactionalQueueManager.doStore(queue, object);
@@ -188,6 +200,11 @@ public class QueueTransactionContext extends AbstractTransactionContext
                     List<Serializable> queueRemoved = entry.getValue();
                     if (queueRemoved != null && queueRemoved.size() > 0)
                     {
+                        if (queue.getStore() instanceof JournaledQueueStore)
+                        {
+                            journaledRemoved = addJournaledChanges(journaledRemoved, queue, queueRemoved);
+                            continue;
+                        }
                         for (Serializable id : queueRemoved)
                         {
                             transactionalQueueManager.doRemove(queue, id);
@@ -195,6 +212,10 @@ public class QueueTransactionContext extends AbstractTransactionContext
                     }
                 }
             }
+            if (journaledAdded != null || journaledRemoved != null)
+            {
+                commitJournaledChanges(journaledAdded, journaledRemoved);
+            }
         }
         catch (Exception e)
         {
@@ -208,6 +229,58 @@ public class QueueTransactionContext extends AbstractTransactionContext
 
     }
 
+    @SuppressWarnings("unchecked")
+    private Map<JournaledQueueStore<Serializable>, Map<QueueInfo, List<Serializable>>> addJournaledChanges(
+        Map<JournaledQueueStore<Serializable>, Map<QueueInfo, List<Serializable>>> changes, QueueInfo queue, List<Serializable> items)
+    {
+        if (changes == null)
+        {
+            changes = new HashMap<JournaledQueueStore<Serializable>, Map<QueueInfo, List<Serializable>>>();
+        }
+        JournaledQueueStore<Serializable> store = (JournaledQueueStore<Serializable>) queue.getStore();
+        Map<QueueInfo, List<Serializable>> storeChanges = changes.get(store);
+        if (storeChanges == null)
+        {
+            storeChanges = new HashMap<QueueInfo, List<Serializable>>();
+            changes.put(store, storeChanges);
+        }
+        storeChanges.put(queue, items);
+        return changes;
+    }
+
+    private void commitJournaledChanges(Map<JournaledQueueStore<Serializable>, Map<QueueInfo, List<Serializable>>> journaledAdded,
+                                        Map<JournaledQueueStore<Serializable>, Map<QueueInfo, List<Serializable>>> journaledRemoved)
+        throws ObjectStoreException
+    {
+        Set<JournaledQueueStore<Serializable>> stores = new HashSet<JournaledQueueStore<Serializable>>();
+        if (journaledAdded != null)
+        {
+            stores.addAll(journaledAdded.keySet());
+        }
+        if (journaledRemoved != null)
+        {
+            stores.addAll(journaledRemoved.keySet());
+        }
+
+        Map<QueueInfo, List<Serializable>> noChanges = Collections.emptyMap();
+        for (JournaledQueueStore<Serializable> store : stores)
+        {
+            Map<QueueInfo, List<Serializable>> storeAdded = journaledAdded == null ? null : journaledAdded.get(store);
+            Map<QueueInfo, List<Serializable>> storeRemoved = journaledRemoved == null ? null : journaledRemoved.get(store);
+            Map<QueueInfo, List<Serializable>> addedIds = transactionalQueueManager.doCommit(store,
+                storeAdded == null ? noChanges : storeAdded, storeRemoved == null ? noChanges : storeRemoved);
+
+            // only make the new items visible once they are durable
+            for (Map.Entry<QueueInfo, List<Serializable>> entry : addedIds.entrySet())
+            {
+                for (Serializable id : entry.getValue())
+                {
+                    entry.getKey().putNow(id);
+                }
+            }
+        }
+    }
+
     @Override
     public void doRollback() throws ResourceManagerException
     {
@@ -23,11 +23,15 @@ import org.mule.util.xa.ResourceManagerException;
 import org.mule.util.xa.ResourceManagerSystemException;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.transaction.xa.XAResource;
 
@@ -39,15 +43,15 @@ import javax.transaction.xa.XAResource;
  */
 public class TransactionalQueueManager extends AbstractXAResourceManager implements QueueManager, MuleContextAware
 {
-    private Map<String, QueueInfo> queues = new HashMap<String, QueueInfo>();
+    private ConcurrentMap<String, QueueInfo> queues = new ConcurrentHashMap<String, QueueInfo>();
 
-    private QueueConfiguration defaultQueueConfiguration;
+    private volatile QueueConfiguration defaultQueueConfiguration;
     private MuleContext muleContext;
     private Set<QueueStore> queueObjectStores = new HashSet<QueueStore>();
     private Set<ListableObjectStore> listableObjectStores = new HashSet<ListableObjectStore>();
 
     @Override
-    public synchronized QueueSession getQueueSession()
+    public QueueSession getQueueSession()
     {
         return new TransactionalQueueSession(this, this);
     }
@@ -66,23 +70,27 @@ public class TransactionalQueueManager extends AbstractXAResourceManager impleme
         addStore(config.objectStore);
     }
 
-    protected synchronized QueueInfo getQueue(String name)
+    protected QueueInfo getQueue(String name)
     {
         return getQueue(name, defaultQueueConfiguration);
     }
 
-    protected synchronized QueueInfo getQueue(String name, QueueConfiguration config)
+    protected QueueInfo getQueue(String name, QueueConfiguration config)
     {
         QueueInfo q = queues.get(name);
         if (q == null)
         {
-            q = new QueueInfo(name, muleContext, config);
-            queues.put(name, q);
+            QueueInfo newQueue = new QueueInfo(name, muleContext, config);
+            q = queues.putIfAbsent(name, newQueue);
+            if (q == null)
+            {
+                q = newQueue;
+            }
         }
         return q;
     }
 
-    public synchronized QueueInfo getQueueInfo(String name)
+    public QueueInfo getQueueInfo(String name)
     {
         QueueInfo q = queues.get(name);
         return q == null ? q : new QueueInfo(q);
@@ -179,12 +187,55 @@ public class TransactionalQueueManager extends AbstractXAResourceManager impleme
     {
         ObjectStore<Serializable> store = queue.getStore();
 
-        String id = muleContext == null ? UUID.getUUID() : muleContext.getUniqueIdString();
+        String id = createItemId();
         Serializable key = new QueueKey(queue.getName(), id);
         store.store(key, object);
         return id;
     }
 
+    /**
+     * Writes all the items added to and taken from queues backed by the given journal in a
+     * transaction as a single journal entry.
+     *
+     * @return the ids of the added items, in the same order as the added items of each queue
+     */
+    protected Map<QueueInfo, List<Serializable>> doCommit(JournaledQueueStore<Serializable> store,
+                                                          Map<QueueInfo, List<Serializable>> added,
+                                                          Map<QueueInfo, List<Serializable>> removed)
+        throws ObjectStoreException
+    {
+        Map<Serializable, Serializable> stored = new LinkedHashMap<Serializable, Serializable>();
+        Map<QueueInfo, List<Serializable>> addedIds = new HashMap<QueueInfo, List<Serializable>>();
+        for (Map.Entry<QueueInfo, List<Serializable>> entry : added.entrySet())
+        {
+            List<Serializable> ids = new ArrayList<Serializable>(entry.getValue().size());
+            for (Serializable object : entry.getValue())
+            {
+                String id = createItemId();
+                stored.put(new QueueKey(entry.getKey().getName(), id), object);
+                ids.add(id);
+            }
+            addedIds.put(entry.getKey(), ids);
+        }
+
+        List<Serializable> removedKeys = new ArrayList<Serializable>();
+        for (Map.Entry<QueueInfo, List<Serializable>> entry : removed.entrySet())
+        {
+            for (Serializable id : entry.getValue())
+            {
+                removedKeys.add(new QueueKey(entry.getKey().getName(), id));
+            }
+        }
+
+        store.commit(stored, removedKeys);
+        return addedIds;
+    }
+
+    protected String createItemId()
+    {
+        return muleContext == null ? UUID.getUUID() : muleContext.getUniqueIdString();
+    }
+
     protected void doRemove(QueueInfo queue, Serializable id) throws ObjectStoreException
     {
         ObjectStore<Serializable> store = queue.getStore();
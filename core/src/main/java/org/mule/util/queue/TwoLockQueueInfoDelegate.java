@@ -0,0 +1,354 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The default transient queue delegate. Producers and consumers work on opposite ends of a
+ * linked list guarded by separate locks, so offers and polls do not contend with each other
+ * and waiting producers are only woken up when room becomes available and somebody is
+ * actually blocked on it (and consumers only when an item arrives), instead of everybody
+ * being notified on every change.
+ * <p/>
+ * {@link #untake(Serializable)} restores an item at the head of the queue and therefore takes
+ * both locks, which is fine as it only happens when a transaction is rolled back.
+ */
+public class TwoLockQueueInfoDelegate implements TransientQueueInfoDelegate
+{
+
+    protected final int capacity;
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Number of producers blocked waiting for room, so consumers only have to take the put lock
+     * to wake them up when somebody is actually waiting.
+     */
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    /**
+     * Head of the list, its item is always null. Guarded by takeLock.
+     */
+    private Node head;
+
+    /**
+     * Tail of the list. Guarded by putLock.
+     */
+    private Node last;
+
+    private final ReentrantLock takeLock = new ReentrantLock();
+    private final Condition notEmpty = takeLock.newCondition();
+    private final ReentrantLock putLock = new ReentrantLock();
+    private final Condition notFull = putLock.newCondition();
+
+    public TwoLockQueueInfoDelegate(int capacity)
+    {
+        this.capacity = capacity;
+        last = head = new Node(null);
+    }
+
+    @Override
+    public void putNow(Serializable o)
+    {
+        int c;
+        putLock.lock();
+        try
+        {
+            enqueue(o);
+            c = count.getAndIncrement();
+        }
+        finally
+        {
+            putLock.unlock();
+        }
+        if (c == 0)
+        {
+            signalNotEmpty();
+        }
+    }
+
+    @Override
+    public boolean offer(Serializable o, int room, long timeout) throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+        if (capacity > 0 && capacity <= room)
+        {
+            throw new IllegalStateException("Can not add more objects than the capacity in one time");
+        }
+
+        int c = -1;
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        putLock.lockInterruptibly();
+        try
+        {
+            if (capacity > 0)
+            {
+                while (count.get() >= capacity - room)
+                {
+                    if (nanos <= 0L)
+                    {
+                        return false;
+                    }
+                    waitingProducers.incrementAndGet();
+                    try
+                    {
+                        // check again once registered as waiting, a consumer that took an item
+                        // before seeing the registration would not signal us
+                        if (count.get() >= capacity - room)
+                        {
+                            nanos = notFull.awaitNanos(nanos);
+                        }
+                    }
+                    finally
+                    {
+                        waitingProducers.decrementAndGet();
+                    }
+                }
+            }
+            if (o != null)
+            {
+                enqueue(o);
+                c = count.getAndIncrement();
+            }
+        }
+        finally
+        {
+            putLock.unlock();
+        }
+        if (c == 0)
+        {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    @Override
+    public Serializable poll(long timeout) throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+
+        Serializable o;
+        int c;
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        takeLock.lockInterruptibly();
+        try
+        {
+            while (count.get() == 0)
+            {
+                if (nanos <= 0L)
+                {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            o = dequeue();
+            c = count.getAndDecrement();
+            if (c > 1)
+            {
+                // let other waiting consumers know there is more to take
+                notEmpty.signal();
+            }
+        }
+        finally
+        {
+            takeLock.unlock();
+        }
+        if (capacity > 0 && waitingProducers.get() > 0)
+        {
+            signalNotFull();
+        }
+        return o;
+    }
+
+    @Override
+    public Serializable peek() throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+        // reading the count first makes the last node linked under the put lock visible
+        if (count.get() == 0)
+        {
+            return null;
+        }
+        takeLock.lock();
+        try
+        {
+            Node first = head.next;
+            return first == null ? null : first.item;
+        }
+        finally
+        {
+            takeLock.unlock();
+        }
+    }
+
+    @Override
+    public void untake(Serializable item) throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+        fullyLock();
+        try
+        {
+            Node node = new Node(item);
+            node.next = head.next;
+            head.next = node;
+            if (last == head)
+            {
+                last = node;
+            }
+            count.getAndIncrement();
+            notEmpty.signal();
+        }
+        finally
+        {
+            fullyUnlock();
+        }
+    }
+
+    @Override
+    public int getSize()
+    {
+        return count.get();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Serializable> items)
+    {
+        if (items.isEmpty())
+        {
+            return false;
+        }
+        int c;
+        putLock.lock();
+        try
+        {
+            for (Serializable item : items)
+            {
+                enqueue(item);
+            }
+            c = count.getAndAdd(items.size());
+        }
+        finally
+        {
+            putLock.unlock();
+        }
+        if (c == 0)
+        {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * @return a copy of the current contents of the queue, in order
+     */
+    List<Serializable> getContents()
+    {
+        fullyLock();
+        try
+        {
+            List<Serializable> contents = new ArrayList<Serializable>(count.get());
+            for (Node node = head.next; node != null; node = node.next)
+            {
+                contents.add(node.item);
+            }
+            return contents;
+        }
+        finally
+        {
+            fullyUnlock();
+        }
+    }
+
+    private void enqueue(Serializable o)
+    {
+        last = last.next = new Node(o);
+    }
+
+    private Serializable dequeue()
+    {
+        Node first = head.next;
+        // unlink the old head to help GC
+        head.next = head;
+        head = first;
+        Serializable o = first.item;
+        first.item = null;
+        return o;
+    }
+
+    private void signalNotEmpty()
+    {
+        takeLock.lock();
+        try
+        {
+            notEmpty.signal();
+        }
+        finally
+        {
+            takeLock.unlock();
+        }
+    }
+
+    private void signalNotFull()
+    {
+        putLock.lock();
+        try
+        {
+            // producers may be waiting for different amounts of room, so wake them all
+            notFull.signalAll();
+        }
+        finally
+        {
+            putLock.unlock();
+        }
+    }
+
+    private void fullyLock()
+    {
+        putLock.lock();
+        takeLock.lock();
+    }
+
+    private void fullyUnlock()
+    {
+        takeLock.unlock();
+        putLock.unlock();
+    }
+
+    private static class Node
+    {
+        Serializable item;
+        Node next;
+
+        Node(Serializable item)
+        {
+            this.item = item;
+        }
+    }
+}
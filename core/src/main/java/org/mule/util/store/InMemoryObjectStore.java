@@ -15,10 +15,12 @@ import org.mule.api.store.ObjectStoreException;
 import org.mule.config.i18n.CoreMessages;
 
 import java.io.Serializable;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <code>InMemoryObjectStore</code> implements an optionally bounded
@@ -26,14 +28,29 @@ import java.util.concurrent.TimeUnit;
  * is a <i>soft</i> limit and only enforced periodically by the expiry process; this
  * means that the store may temporarily exceed its maximum size between expiry runs, but
  * will eventually shrink to its configured size.
+ * <p/>
+ * Entries are kept in insertion order (used for size and TTL based expiry) and are
+ * additionally indexed by their key so <code>contains</code>, <code>retrieve</code> and
+ * <code>remove</code> run in constant time without any global lock.
  */
 public class InMemoryObjectStore<T extends Serializable> extends AbstractMonitoredObjectStore<T>
 {
+    /**
+     * Stored entries ordered by their (unique) insertion timestamp in nanoseconds.
+     */
     protected ConcurrentSkipListMap<Long, StoredObject<T>> store;
 
+    /**
+     * Maps each key to the insertion timestamp of its entry in {@link #store}.
+     */
+    protected ConcurrentMap<Serializable, Long> index;
+
+    private final AtomicLong lastTimestamp = new AtomicLong(Long.MIN_VALUE);
+
     public InMemoryObjectStore()
     {
         this.store = new ConcurrentSkipListMap<Long, StoredObject<T>>();
+        this.index = new ConcurrentHashMap<Serializable, Long>();
     }
 
     @Override
@@ -50,10 +67,7 @@ public class InMemoryObjectStore<T extends Serializable> extends AbstractMonitor
             throw new ObjectStoreException(CoreMessages.objectIsNull("id"));
         }
 
-        synchronized (store)
-        {
-            return store.values().contains(new StoredObject<T>(key, null));
-        }
+        return index.containsKey(key);
     }
 
     @Override
@@ -64,69 +78,55 @@ public class InMemoryObjectStore<T extends Serializable> extends AbstractMonitor
             throw new ObjectStoreException(CoreMessages.objectIsNull("id"));
         }
 
-        // this block is unfortunately necessary to counter a possible race condition
-        // between multiple nonatomic calls to containsObject/storeObject
-        StoredObject<T> obj = new StoredObject<T>(id, value);
-        synchronized (store)
+        // the value is written before the key is published in the index, so a key that is
+        // visible through contains() can always be retrieved or removed. Concurrent stores
+        // of the same id still fail atomically on the index putIfAbsent.
+        Long timestamp = Long.valueOf(nextTimestamp());
+        store.put(timestamp, new StoredObject<T>(id, value));
+        if (index.putIfAbsent(id, timestamp) != null)
         {
-            if (store.values().contains(obj))
-            {
-                throw new ObjectAlreadyExistsException();
-            }
-
-            boolean written = false;
-            while (!written)
-            {
-                Long key = Long.valueOf(System.nanoTime());
-                written = (store.put(key, obj) == null);
-            }
+            store.remove(timestamp);
+            throw new ObjectAlreadyExistsException();
+        }
+        if (!store.containsKey(timestamp))
+        {
+            // expired before it was indexed, don't leave a dangling index entry behind
+            index.remove(id, timestamp);
         }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public T retrieve(Serializable key) throws ObjectStoreException
     {
-        synchronized (store)
+        if (key != null)
         {
-            Map.Entry<?, ?> entry = findEntry(key);
-            if (entry != null)
+            Long timestamp = index.get(key);
+            if (timestamp != null)
             {
-                StoredObject<T> object = (StoredObject<T>) entry.getValue();
-                return object.getItem();
+                StoredObject<T> object = store.get(timestamp);
+                if (object != null)
+                {
+                    return object.getItem();
+                }
             }
         }
 
         throw new ObjectDoesNotExistException(CoreMessages.objectNotFound(key));
     }
 
-    @SuppressWarnings("unchecked")
-    private Map.Entry<?, ?> findEntry(Serializable key)
-    {
-        Iterator<?> entryIterator = store.entrySet().iterator();
-        while (entryIterator.hasNext())
-        {
-            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) entryIterator.next();
-
-            StoredObject<T> object = (StoredObject<T>) entry.getValue();
-            if (object.getId().equals(key))
-            {
-                return entry;
-            }
-        }
-        return null;
-    }
-
     @Override
     public T remove(Serializable key) throws ObjectStoreException
     {
-        synchronized (store)
+        if (key != null)
         {
-            Map.Entry<?, ?> entry = findEntry(key);
-            if (entry != null)
+            Long timestamp = index.remove(key);
+            if (timestamp != null)
             {
-                StoredObject<T> removedObject = store.remove(entry.getKey());
-                return removedObject.getItem();
+                StoredObject<T> removedObject = store.remove(timestamp);
+                if (removedObject != null)
+                {
+                    return removedObject.getItem();
+                }
             }
         }
 
@@ -147,18 +147,21 @@ public class InMemoryObjectStore<T extends Serializable> extends AbstractMonitor
         {
             final long now = System.nanoTime();
             int expiredEntries = 0;
-            Map.Entry<?, ?> oldestEntry;
+            Map.Entry<Long, StoredObject<T>> oldestEntry;
 
             purge:
             while ((oldestEntry = store.firstEntry()) != null)
             {
-                Long oldestKey = (Long) oldestEntry.getKey();
+                Long oldestKey = oldestEntry.getKey();
                 long oldestKeyValue = oldestKey.longValue();
 
                 if (TimeUnit.NANOSECONDS.toMillis(now - oldestKeyValue) >= entryTTL)
                 {
-                    store.remove(oldestKey);
-                    expiredEntries++;
+                    if (store.remove(oldestKey, oldestEntry.getValue()))
+                    {
+                        removeFromIndex(oldestEntry);
+                        expiredEntries++;
+                    }
                 }
                 else
                 {
@@ -185,7 +188,12 @@ public class InMemoryObjectStore<T extends Serializable> extends AbstractMonitor
         {
             while (currentSize > maxEntries)
             {
-                store.pollFirstEntry();
+                Map.Entry<Long, StoredObject<T>> oldestEntry = store.pollFirstEntry();
+                if (oldestEntry == null)
+                {
+                    break;
+                }
+                removeFromIndex(oldestEntry);
                 currentSize--;
             }
 
@@ -197,6 +205,32 @@ public class InMemoryObjectStore<T extends Serializable> extends AbstractMonitor
         return currentSize;
     }
 
+    /**
+     * Removes the index entry pointing to the given store entry, unless the key has been
+     * stored again in the meantime.
+     */
+    private void removeFromIndex(Map.Entry<Long, StoredObject<T>> entry)
+    {
+        index.remove(entry.getValue().getId(), entry.getKey());
+    }
+
+    /**
+     * @return a strictly increasing timestamp based on {@link System#nanoTime()} so no two
+     *         entries ever share the same position in the store
+     */
+    private long nextTimestamp()
+    {
+        while (true)
+        {
+            long last = lastTimestamp.get();
+            long next = Math.max(System.nanoTime(), last + 1);
+            if (lastTimestamp.compareAndSet(last, next))
+            {
+                return next;
+            }
+        }
+    }
+
     @Override
     public String toString()
     {
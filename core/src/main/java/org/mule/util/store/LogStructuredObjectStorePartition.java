@@ -0,0 +1,1021 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.store;
+
+import org.mule.api.MuleContext;
+import org.mule.api.store.ObjectAlreadyExistsException;
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreNotAvaliableException;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.util.FileUtils;
+import org.mule.util.queue.QueueKey;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link PersistentPartition} that appends every store and remove operation to a small
+ * number of segment files instead of writing one file per entry.
+ * <p/>
+ * The location of the latest record for each key is kept in an in-memory index, so reads
+ * are a single positional read and reopening the partition only needs to scan the record
+ * headers and keys, never the values. Concurrent writers are coalesced into a single
+ * <code>fsync</code> (group commit) and sealed segments whose records have mostly been
+ * removed are rewritten in the background by {@link #compact()}.
+ * <p/>
+ * Each record has the layout
+ * <code>[length:int][crc32:int][type:byte][sequence:long][timestamp:long][keyEncoding:byte][keyLength:int][key][value]</code>.
+ * A torn record at the end of a segment is detected through its checksum and truncated
+ * when the partition is opened.
+ */
+public class LogStructuredObjectStorePartition<T extends Serializable> implements PersistentPartition<T>
+{
+
+    static final String SEGMENT_FILE_EXTENSION = ".log";
+
+    private static final byte PUT_RECORD = 1;
+    private static final byte REMOVE_RECORD = 2;
+    private static final byte STRING_KEY = 0;
+    private static final byte SERIALIZED_KEY = 1;
+    private static final byte QUEUE_KEY = 2;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int RECORD_FIXED_PAYLOAD_SIZE = 1 + 8 + 8 + 1 + 4;
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    protected final Log logger = LogFactory.getLog(this.getClass());
+    private final MuleContext muleContext;
+
+    private File partitionDirectory;
+    private String partitionName;
+
+    private final ConcurrentMap<Serializable, Location> index = new ConcurrentHashMap<Serializable, Location>();
+    private final ConcurrentSkipListMap<Long, Serializable> insertionOrder = new ConcurrentSkipListMap<Long, Serializable>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<Long, Segment>();
+
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private Segment activeSegment;
+    private long sequence;
+    private long writtenPosition;
+    private long syncedPosition;
+
+    private ScheduledExecutorService compactionScheduler;
+    private ScheduledFuture<?> compactionTask;
+
+    private long maxSegmentSize = 64 * 1024 * 1024;
+    private double compactionThreshold = 0.5;
+    private int compactionInterval = 30000;
+    private boolean synchronousWrites = true;
+
+    LogStructuredObjectStorePartition(MuleContext muleContext, String partitionName, File partitionDirectory)
+    {
+        this.muleContext = muleContext;
+        this.partitionName = partitionName;
+        this.partitionDirectory = partitionDirectory;
+    }
+
+    LogStructuredObjectStorePartition(MuleContext muleContext, File partitionDirectory) throws ObjectStoreNotAvaliableException
+    {
+        this.muleContext = muleContext;
+        this.partitionDirectory = partitionDirectory;
+        this.partitionName = readPartitionName(partitionDirectory);
+    }
+
+    /**
+     * @return true if the given directory holds a partition written by this class
+     */
+    static boolean isLogStructuredPartition(File partitionDirectory)
+    {
+        return listSegmentFiles(partitionDirectory).length > 0;
+    }
+
+    @Override
+    public synchronized void open() throws ObjectStoreException
+    {
+        if (activeSegment != null)
+        {
+            return;
+        }
+        if (!partitionDirectory.exists() && !partitionDirectory.mkdirs())
+        {
+            throw new ObjectStoreException(CoreMessages.failedToCreate("object store directory "
+                                                                      + partitionDirectory.getAbsolutePath()));
+        }
+        writePartitionDescriptor();
+        try
+        {
+            replaySegments();
+            synchronized (writeLock)
+            {
+                if (segments.isEmpty() || segments.lastEntry().getValue().size >= maxSegmentSize)
+                {
+                    activeSegment = createSegment(segments.isEmpty() ? 0 : segments.lastKey() + 1);
+                }
+                else
+                {
+                    activeSegment = segments.lastEntry().getValue();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            closeSegments();
+            String message = String.format("Could not restore object store data from %1s", partitionDirectory.getAbsolutePath());
+            throw new ObjectStoreException(CoreMessages.createStaticMessage(message), e);
+        }
+        if (compactionScheduler != null)
+        {
+            compactionTask = compactionScheduler.scheduleWithFixedDelay(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        compact();
+                    }
+                    catch (Exception e)
+                    {
+                        logger.warn("Could not compact object store partition " + partitionName, e);
+                    }
+                }
+            }, compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws ObjectStoreException
+    {
+        if (compactionTask != null)
+        {
+            compactionTask.cancel(false);
+            compactionTask = null;
+        }
+        synchronized (syncLock)
+        {
+            synchronized (writeLock)
+            {
+                if (activeSegment != null)
+                {
+                    try
+                    {
+                        activeSegment.channel.force(false);
+                    }
+                    catch (IOException e)
+                    {
+                        logger.warn("Could not flush object store segment " + activeSegment.file.getAbsolutePath(), e);
+                    }
+                }
+                closeSegments();
+                activeSegment = null;
+                index.clear();
+                insertionOrder.clear();
+            }
+        }
+    }
+
+    @Override
+    public List<Serializable> allKeys() throws ObjectStoreException
+    {
+        // keys are returned in the order they were stored so queues can be restored in order
+        return new ArrayList<Serializable>(insertionOrder.values());
+    }
+
+    @Override
+    public boolean contains(Serializable key) throws ObjectStoreException
+    {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public void store(Serializable key, T value) throws ObjectStoreException
+    {
+        if (index.containsKey(key))
+        {
+            throw new ObjectAlreadyExistsException();
+        }
+
+        byte[] keyBytes = encodeKey(key);
+        byte[] valueBytes = muleContext.getObjectSerializer().serialize(value);
+        long position;
+        synchronized (writeLock)
+        {
+            if (index.containsKey(key))
+            {
+                throw new ObjectAlreadyExistsException();
+            }
+            storeLocked(key, keyBytes, valueBytes);
+            position = writtenPosition;
+        }
+        awaitDurable(position);
+    }
+
+    /**
+     * Atomically stores and removes the given entries, waiting for a single sync to disk for
+     * all of them. Either all keys to store are absent and all keys to remove are present, or
+     * nothing is written at all.
+     */
+    public void storeAndRemove(Map<Serializable, T> toStore, Collection<Serializable> toRemove) throws ObjectStoreException
+    {
+        List<byte[]> keyBytes = new ArrayList<byte[]>(toStore.size());
+        List<byte[]> valueBytes = new ArrayList<byte[]>(toStore.size());
+        for (Map.Entry<Serializable, T> entry : toStore.entrySet())
+        {
+            keyBytes.add(encodeKey(entry.getKey()));
+            valueBytes.add(muleContext.getObjectSerializer().serialize(entry.getValue()));
+        }
+
+        long position;
+        synchronized (writeLock)
+        {
+            for (Serializable key : toStore.keySet())
+            {
+                if (index.containsKey(key))
+                {
+                    throw new ObjectAlreadyExistsException();
+                }
+            }
+            for (Serializable key : toRemove)
+            {
+                if (!index.containsKey(key))
+                {
+                    throw new ObjectDoesNotExistException(CoreMessages.objectNotFound(key));
+                }
+            }
+
+            int i = 0;
+            for (Serializable key : toStore.keySet())
+            {
+                storeLocked(key, keyBytes.get(i), valueBytes.get(i));
+                i++;
+            }
+            for (Serializable key : toRemove)
+            {
+                removeLocked(key, index.get(key));
+            }
+            position = writtenPosition;
+        }
+        awaitDurable(position);
+    }
+
+    @Override
+    public T retrieve(Serializable key) throws ObjectStoreException
+    {
+        return muleContext.getObjectSerializer().<T>deserialize(readValue(key, index.get(key)));
+    }
+
+    @Override
+    public T remove(Serializable key) throws ObjectStoreException
+    {
+        while (true)
+        {
+            Location location = index.get(key);
+            byte[] valueBytes = readValue(key, location);
+            long position;
+            synchronized (writeLock)
+            {
+                if (index.get(key) != location)
+                {
+                    // removed or moved by compaction in the meantime, look it up again
+                    continue;
+                }
+                removeLocked(key, location);
+                position = writtenPosition;
+            }
+            awaitDurable(position);
+            return muleContext.getObjectSerializer().<T>deserialize(valueBytes);
+        }
+    }
+
+    @Override
+    public boolean isPersistent()
+    {
+        return true;
+    }
+
+    @Override
+    public void expire(int entryTTL, int maxEntries) throws ObjectStoreException
+    {
+        long position;
+        synchronized (writeLock)
+        {
+            if (maxEntries >= 0)
+            {
+                int excess = index.size() - maxEntries;
+                for (int i = 0; i < excess && !insertionOrder.isEmpty(); i++)
+                {
+                    Serializable key = insertionOrder.firstEntry().getValue();
+                    removeLocked(key, index.get(key));
+                }
+            }
+
+            final long now = System.currentTimeMillis();
+            Map.Entry<Long, Serializable> oldestEntry;
+            while ((oldestEntry = insertionOrder.firstEntry()) != null)
+            {
+                Location location = index.get(oldestEntry.getValue());
+                if (now - location.timestamp >= entryTTL)
+                {
+                    removeLocked(oldestEntry.getValue(), location);
+                }
+                else
+                {
+                    break;
+                }
+            }
+            position = writtenPosition;
+        }
+        awaitDurable(position);
+    }
+
+    public String getPartitionName()
+    {
+        return partitionName;
+    }
+
+    /**
+     * Rewrites the live records of every sealed segment whose share of removed records reached
+     * the compaction threshold into the active segment and deletes the old segment file.
+     */
+    public void compact() throws ObjectStoreException
+    {
+        for (Segment segment : new ArrayList<Segment>(segments.values()))
+        {
+            Map.Entry<Long, Segment> oldest = segments.firstEntry();
+            if (oldest == null)
+            {
+                return;
+            }
+            if (segment != activeSegment && segment.needsCompaction(segment == oldest.getValue()))
+            {
+                try
+                {
+                    compact(segment);
+                }
+                catch (ClosedChannelException e)
+                {
+                    // partition has been closed
+                    return;
+                }
+                catch (IOException e)
+                {
+                    throw new ObjectStoreException(e);
+                }
+            }
+        }
+    }
+
+    private void compact(Segment segment) throws IOException, ObjectStoreException
+    {
+        boolean olderSegmentsExist = segments.headMap(segment.id).size() > 0;
+        int moved = 0;
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file)));
+        try
+        {
+            long position = 0;
+            Record record;
+            while (position < segment.size && (record = readRecord(input, position)) != null)
+            {
+                synchronized (writeLock)
+                {
+                    if (record.type == PUT_RECORD)
+                    {
+                        Location current = index.get(record.key);
+                        if (current != null && current.segmentId == segment.id && current.position == position)
+                        {
+                            index.put(record.key, append(record.bytes, record.sequence, record.timestamp));
+                            moved++;
+                        }
+                    }
+                    else if (olderSegmentsExist)
+                    {
+                        // the entry this tombstone removes may still be present in an older segment
+                        append(record.bytes, record.sequence, record.timestamp);
+                        activeSegment.tombstoneBytes.addAndGet(record.bytes.length);
+                    }
+                }
+                position += record.bytes.length;
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+
+        long position;
+        synchronized (writeLock)
+        {
+            position = writtenPosition;
+        }
+        awaitDurable(position);
+
+        synchronized (writeLock)
+        {
+            segments.remove(segment.id);
+        }
+        segment.close();
+        if (!segment.file.delete())
+        {
+            logger.warn("Could not delete compacted object store segment " + segment.file.getAbsolutePath());
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Compacted segment " + segment.file.getName() + " of partition " + partitionName
+                         + ", moved " + moved + " live entries");
+        }
+    }
+
+    private void storeLocked(Serializable key, byte[] keyBytes, byte[] valueBytes) throws ObjectStoreException
+    {
+        long recordSequence = ++sequence;
+        long timestamp = System.currentTimeMillis();
+        byte[] record = encodeRecord(PUT_RECORD, recordSequence, timestamp, keyEncoding(key), keyBytes, valueBytes);
+        Location location = append(record, recordSequence, timestamp);
+        index.put(key, location);
+        insertionOrder.put(recordSequence, key);
+    }
+
+    private void removeLocked(Serializable key, Location location) throws ObjectStoreException
+    {
+        long recordSequence = ++sequence;
+        byte[] record = encodeRecord(REMOVE_RECORD, recordSequence, System.currentTimeMillis(),
+                                     keyEncoding(key), encodeKey(key), new byte[0]);
+        append(record, recordSequence, location.timestamp);
+        activeSegment.tombstoneBytes.addAndGet(record.length);
+        index.remove(key);
+        insertionOrder.remove(location.sequence);
+        markDead(location);
+    }
+
+    private void markDead(Location location)
+    {
+        Segment segment = segments.get(location.segmentId);
+        if (segment != null)
+        {
+            segment.deadBytes.addAndGet(location.length);
+        }
+    }
+
+    /**
+     * Appends the given record to the active segment, rolling over to a new segment if the
+     * active one is full. Must be called while holding the write lock.
+     */
+    private Location append(byte[] record, long recordSequence, long timestamp) throws ObjectStoreException
+    {
+        if (activeSegment == null)
+        {
+            throw new ObjectStoreNotAvaliableException(CoreMessages.createStaticMessage("Object store partition "
+                                                                                        + partitionName + " is closed"));
+        }
+        try
+        {
+            if (activeSegment.size > 0 && activeSegment.size + record.length > maxSegmentSize)
+            {
+                // everything in a sealed segment is durable, so awaitDurable only has to sync the active one
+                activeSegment.channel.force(false);
+                activeSegment = createSegment(activeSegment.id + 1);
+            }
+            long position = activeSegment.size;
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining())
+            {
+                activeSegment.channel.write(buffer, position + buffer.position());
+            }
+            activeSegment.size += record.length;
+            writtenPosition += record.length;
+            return new Location(activeSegment.id, position, record.length, recordSequence, timestamp);
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    /**
+     * Blocks until everything written up to the given position has been synced to disk. A single
+     * <code>fsync</code> covers all writers that appended before it was issued.
+     */
+    private void awaitDurable(long position) throws ObjectStoreException
+    {
+        if (!synchronousWrites)
+        {
+            return;
+        }
+        synchronized (syncLock)
+        {
+            if (syncedPosition >= position)
+            {
+                return;
+            }
+            Segment segment;
+            long target;
+            synchronized (writeLock)
+            {
+                segment = activeSegment;
+                target = writtenPosition;
+            }
+            if (segment == null)
+            {
+                return;
+            }
+            try
+            {
+                segment.channel.force(false);
+            }
+            catch (IOException e)
+            {
+                throw new ObjectStoreException(e);
+            }
+            syncedPosition = target;
+        }
+    }
+
+    private byte[] readValue(Serializable key, Location location) throws ObjectStoreException
+    {
+        for (int attempt = 0; location != null; attempt++)
+        {
+            Segment segment = segments.get(location.segmentId);
+            try
+            {
+                if (segment != null)
+                {
+                    ByteBuffer buffer = ByteBuffer.allocate(location.length);
+                    while (buffer.hasRemaining())
+                    {
+                        if (segment.channel.read(buffer, location.position + buffer.position()) < 0)
+                        {
+                            throw new EOFException();
+                        }
+                    }
+                    byte[] bytes = buffer.array();
+                    checkRecord(bytes, location.segmentId, location.position);
+                    int keyLength = ByteBuffer.wrap(bytes, RECORD_HEADER_SIZE + RECORD_FIXED_PAYLOAD_SIZE - 4, 4).getInt();
+                    int valueOffset = RECORD_HEADER_SIZE + RECORD_FIXED_PAYLOAD_SIZE + keyLength;
+                    return Arrays.copyOfRange(bytes, valueOffset, bytes.length);
+                }
+            }
+            catch (ClosedChannelException e)
+            {
+                // segment has been compacted away while reading
+                if (attempt >= MAX_READ_ATTEMPTS)
+                {
+                    throw new ObjectStoreException(e);
+                }
+            }
+            catch (IOException e)
+            {
+                throw new ObjectStoreException(e);
+            }
+            Location current = index.get(key);
+            if (current == location && attempt >= MAX_READ_ATTEMPTS)
+            {
+                break;
+            }
+            location = current;
+        }
+        throw new ObjectDoesNotExistException(CoreMessages.objectNotFound(key));
+    }
+
+    private void replaySegments() throws IOException, ObjectStoreException
+    {
+        Map<Serializable, Location> latest = new HashMap<Serializable, Location>();
+        File[] files = listSegmentFiles(partitionDirectory);
+        for (File file : files)
+        {
+            Segment segment = openSegment(file);
+            segments.put(segment.id, segment);
+
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            long position = 0;
+            try
+            {
+                Record record;
+                while ((record = readRecord(input, position)) != null)
+                {
+                    Location location = new Location(segment.id, position, record.bytes.length, record.sequence, record.timestamp);
+                    location.tombstone = record.type == REMOVE_RECORD;
+                    if (location.tombstone)
+                    {
+                        segment.tombstoneBytes.addAndGet(location.length);
+                    }
+
+                    Location previous = latest.get(record.key);
+                    if (previous == null || previous.sequence < location.sequence)
+                    {
+                        latest.put(record.key, location);
+                        if (previous != null && !previous.tombstone)
+                        {
+                            markDead(previous);
+                        }
+                    }
+                    else if (!location.tombstone)
+                    {
+                        markDead(location);
+                    }
+                    sequence = Math.max(sequence, record.sequence);
+                    position += location.length;
+                }
+            }
+            finally
+            {
+                input.close();
+            }
+
+            if (position < segment.channel.size())
+            {
+                logger.warn("Truncating incomplete record at offset " + position + " of object store segment "
+                            + file.getAbsolutePath());
+                segment.channel.truncate(position);
+            }
+            segment.size = position;
+            writtenPosition += position;
+        }
+        syncedPosition = writtenPosition;
+
+        Map<Long, Serializable> keysBySequence = new HashMap<Long, Serializable>();
+        for (Map.Entry<Serializable, Location> entry : latest.entrySet())
+        {
+            if (!entry.getValue().tombstone)
+            {
+                index.put(entry.getKey(), entry.getValue());
+                keysBySequence.put(entry.getValue().sequence, entry.getKey());
+            }
+        }
+        insertionOrder.putAll(keysBySequence);
+    }
+
+    /**
+     * Reads the record starting at the current position of the input, or returns null if
+     * the end of the segment or an incomplete or corrupt record has been reached.
+     */
+    private Record readRecord(DataInputStream input, long position) throws ObjectStoreException
+    {
+        try
+        {
+            int length = input.readInt();
+            if (length < RECORD_FIXED_PAYLOAD_SIZE)
+            {
+                return null;
+            }
+            byte[] bytes = new byte[RECORD_HEADER_SIZE + length];
+            ByteBuffer.wrap(bytes).putInt(length);
+            input.readFully(bytes, 4, bytes.length - 4);
+            if (!isValid(bytes))
+            {
+                return null;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, RECORD_HEADER_SIZE, length);
+            Record record = new Record();
+            record.bytes = bytes;
+            record.type = buffer.get();
+            record.sequence = buffer.getLong();
+            record.timestamp = buffer.getLong();
+            byte keyEncoding = buffer.get();
+            int keyLength = buffer.getInt();
+            record.key = decodeKey(keyEncoding, bytes, buffer.position(), keyLength);
+            return record;
+        }
+        catch (EOFException e)
+        {
+            return null;
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    private void checkRecord(byte[] bytes, long segmentId, long position) throws ObjectStoreException
+    {
+        if (!isValid(bytes))
+        {
+            throw new ObjectStoreException(CoreMessages.createStaticMessage("Corrupt record at offset " + position
+                                                                            + " of segment " + segmentId
+                                                                            + " in partition " + partitionName));
+        }
+    }
+
+    private static boolean isValid(byte[] bytes)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length != bytes.length - RECORD_HEADER_SIZE)
+        {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, RECORD_HEADER_SIZE, length);
+        return (int) crc.getValue() == checksum;
+    }
+
+    private static byte[] encodeRecord(byte type, long recordSequence, long timestamp, byte keyEncoding, byte[] key, byte[] value)
+    {
+        int length = RECORD_FIXED_PAYLOAD_SIZE + key.length + value.length;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        buffer.putInt(length);
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.putLong(recordSequence);
+        buffer.putLong(timestamp);
+        buffer.put(keyEncoding);
+        buffer.putInt(key.length);
+        buffer.put(key);
+        buffer.put(value);
+
+        byte[] bytes = buffer.array();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, RECORD_HEADER_SIZE, length);
+        buffer.putInt(4, (int) crc.getValue());
+        return bytes;
+    }
+
+    private static byte keyEncoding(Serializable key)
+    {
+        if (key instanceof String)
+        {
+            return STRING_KEY;
+        }
+        else if (key instanceof QueueKey && ((QueueKey) key).queueName != null && ((QueueKey) key).id instanceof String)
+        {
+            return QUEUE_KEY;
+        }
+        return SERIALIZED_KEY;
+    }
+
+    private byte[] encodeKey(Serializable key) throws ObjectStoreException
+    {
+        if (key == null)
+        {
+            throw new ObjectStoreException(CoreMessages.objectIsNull("key"));
+        }
+        try
+        {
+            switch (keyEncoding(key))
+            {
+                case STRING_KEY:
+                    return ((String) key).getBytes("UTF-8");
+                case QUEUE_KEY:
+                    // queue keys are stored as two strings instead of a serialized object to keep
+                    // queue journal records small
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+                    DataOutputStream output = new DataOutputStream(bytes);
+                    output.writeUTF(((QueueKey) key).queueName);
+                    output.writeUTF((String) ((QueueKey) key).id);
+                    output.flush();
+                    return bytes.toByteArray();
+                default:
+                    return muleContext.getObjectSerializer().serialize(key);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    private Serializable decodeKey(byte encoding, byte[] bytes, int offset, int length) throws IOException
+    {
+        switch (encoding)
+        {
+            case STRING_KEY:
+                return new String(bytes, offset, length, "UTF-8");
+            case QUEUE_KEY:
+                DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+                return new QueueKey(input.readUTF(), input.readUTF());
+            default:
+                return muleContext.getObjectSerializer().<Serializable>deserialize(new ByteArrayInputStream(bytes, offset, length));
+        }
+    }
+
+    private Segment createSegment(long id) throws IOException
+    {
+        Segment segment = openSegment(new File(partitionDirectory, String.format("%016d", id) + SEGMENT_FILE_EXTENSION));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment openSegment(File file) throws IOException
+    {
+        String name = file.getName();
+        long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_EXTENSION.length()));
+        return new Segment(id, file, new RandomAccessFile(file, "rw").getChannel());
+    }
+
+    private void closeSegments()
+    {
+        for (Segment segment : segments.values())
+        {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private static File[] listSegmentFiles(File partitionDirectory)
+    {
+        File[] files = partitionDirectory.listFiles(new FileFilter()
+        {
+            @Override
+            public boolean accept(File file)
+            {
+                return file.isFile() && file.getName().endsWith(SEGMENT_FILE_EXTENSION);
+            }
+        });
+        if (files == null)
+        {
+            return new File[0];
+        }
+        // segment names are zero padded ids so this restores the order they were written in
+        Arrays.sort(files);
+        return files;
+    }
+
+    private String readPartitionName(File partitionDirectory) throws ObjectStoreNotAvaliableException
+    {
+        try
+        {
+            return FileUtils.readFileToString(new File(partitionDirectory, PersistentObjectStorePartition.PARTITION_DESCRIPTOR_FILE));
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreNotAvaliableException(e);
+        }
+    }
+
+    private void writePartitionDescriptor() throws ObjectStoreException
+    {
+        File descriptor = new File(partitionDirectory, PersistentObjectStorePartition.PARTITION_DESCRIPTOR_FILE);
+        try
+        {
+            if (descriptor.exists())
+            {
+                partitionName = readPartitionName(partitionDirectory);
+            }
+            else
+            {
+                FileUtils.writeStringToFile(descriptor, partitionName);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    public void setCompactionScheduler(ScheduledExecutorService compactionScheduler)
+    {
+        this.compactionScheduler = compactionScheduler;
+    }
+
+    public long getMaxSegmentSize()
+    {
+        return maxSegmentSize;
+    }
+
+    public void setMaxSegmentSize(long maxSegmentSize)
+    {
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    public double getCompactionThreshold()
+    {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold)
+    {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public int getCompactionInterval()
+    {
+        return compactionInterval;
+    }
+
+    public void setCompactionInterval(int compactionInterval)
+    {
+        this.compactionInterval = compactionInterval;
+    }
+
+    public boolean isSynchronousWrites()
+    {
+        return synchronousWrites;
+    }
+
+    /**
+     * @param synchronousWrites whether store and remove wait for their record to be synced to
+     *            disk before returning. Defaults to <code>true</code>.
+     */
+    public void setSynchronousWrites(boolean synchronousWrites)
+    {
+        this.synchronousWrites = synchronousWrites;
+    }
+
+    /**
+     * Position of a record in the log.
+     */
+    private static class Location
+    {
+        final long segmentId;
+        final long position;
+        final int length;
+        final long sequence;
+        final long timestamp;
+        boolean tombstone;
+
+        Location(long segmentId, long position, int length, long sequence, long timestamp)
+        {
+            this.segmentId = segmentId;
+            this.position = position;
+            this.length = length;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class Record
+    {
+        byte type;
+        long sequence;
+        long timestamp;
+        Serializable key;
+        byte[] bytes;
+    }
+
+    private class Segment
+    {
+        final long id;
+        final File file;
+        final FileChannel channel;
+        final AtomicLong deadBytes = new AtomicLong();
+        final AtomicLong tombstoneBytes = new AtomicLong();
+        volatile long size;
+
+        Segment(long id, File file, FileChannel channel)
+        {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+
+        /**
+         * Tombstones only become garbage once no older segment can hold the entries they remove.
+         */
+        boolean needsCompaction(boolean oldest)
+        {
+            long garbage = deadBytes.get() + (oldest ? tombstoneBytes.get() : 0);
+            return size > 0 && garbage >= size * compactionThreshold;
+        }
+
+        void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Could not close object store segment " + file.getAbsolutePath(), e);
+            }
+        }
+    }
+}
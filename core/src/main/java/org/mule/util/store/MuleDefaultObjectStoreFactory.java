@@ -39,6 +39,10 @@ public class MuleDefaultObjectStoreFactory implements DefaultObjectStoreFactory
     @Override
     public QueueStore<Serializable> createDefaultPersistentQueueStore()
     {
+        if (Boolean.getBoolean(QueueJournalObjectStore.QUEUE_JOURNAL_PROPERTY))
+        {
+            return new QueueJournalObjectStore<Serializable>();
+        }
         return new QueueStoreAdapter<Serializable>(new QueuePersistenceObjectStore<Serializable>());
     }
 
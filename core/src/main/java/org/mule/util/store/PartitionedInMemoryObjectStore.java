@@ -17,7 +17,6 @@ import org.mule.api.store.PartitionableExpirableObjectStore;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -25,12 +24,15 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PartitionedInMemoryObjectStore<T extends Serializable> extends AbstractPartitionedObjectStore<T>
     implements PartitionableExpirableObjectStore<T>
 {
     private ConcurrentMap<String, ConcurrentMap<Serializable, T>> partitions = new ConcurrentHashMap<String, ConcurrentMap<Serializable, T>>();
     private ConcurrentMap<String, ConcurrentSkipListMap<Long, Serializable>> expiryInfoPartition = new ConcurrentHashMap<String, ConcurrentSkipListMap<Long, Serializable>>();
+    private ConcurrentMap<String, ConcurrentMap<Serializable, Long>> timestampPartitions = new ConcurrentHashMap<String, ConcurrentMap<Serializable, Long>>();
+    private final AtomicLong lastTimestamp = new AtomicLong(Long.MIN_VALUE);
 
     @Override
     public boolean isPersistent()
@@ -59,7 +61,9 @@ public class PartitionedInMemoryObjectStore<T extends Serializable> extends Abst
         {
             throw new ObjectAlreadyExistsException();
         }
-        getExpirtyInfoPartition(partitionName).put(Long.valueOf(System.nanoTime()), key);
+        Long timestamp = Long.valueOf(nextTimestamp());
+        getTimestampPartition(partitionName).put(key, timestamp);
+        getExpirtyInfoPartition(partitionName).put(timestamp, key);
     }
 
     @Override
@@ -82,21 +86,11 @@ public class PartitionedInMemoryObjectStore<T extends Serializable> extends Abst
             throw new ObjectDoesNotExistException();
         }
 
-        // TODO possibly have a reverse map to make this more efficient
-        Iterator<Map.Entry<Long, Serializable>> localIterator = getExpirtyInfoPartition(partitionName).entrySet()
-            .iterator();
-        Map.Entry<Long, Serializable> localEntry;
-        Long timestamp = null;
-        while (localIterator.hasNext())
+        Long timestamp = getTimestampPartition(partitionName).remove(key);
+        if (timestamp != null)
         {
-            localEntry = localIterator.next();
-            if (key.equals(localEntry.getValue()))
-            {
-                timestamp = localEntry.getKey();
-                break;
-            }
+            getExpirtyInfoPartition(partitionName).remove(timestamp);
         }
-        getExpirtyInfoPartition(partitionName).remove(timestamp);
         return removedValue;
     }
 
@@ -127,6 +121,39 @@ public class PartitionedInMemoryObjectStore<T extends Serializable> extends Abst
         return partition;
     }
 
+    private ConcurrentMap<Serializable, Long> getTimestampPartition(String partitionName)
+    {
+        ConcurrentMap<Serializable, Long> partition = timestampPartitions.get(partitionName);
+        if (partition == null)
+        {
+            partition = new ConcurrentHashMap<Serializable, Long>();
+            ConcurrentMap<Serializable, Long> previous = timestampPartitions.putIfAbsent(partitionName,
+                partition);
+            if (previous != null)
+            {
+                partition = previous;
+            }
+        }
+        return partition;
+    }
+
+    /**
+     * @return a strictly increasing timestamp based on {@link System#nanoTime()} so entries
+     *         stored at the same instant never overwrite each other's expiry information
+     */
+    private long nextTimestamp()
+    {
+        while (true)
+        {
+            long last = lastTimestamp.get();
+            long next = Math.max(System.nanoTime(), last + 1);
+            if (lastTimestamp.compareAndSet(last, next))
+            {
+                return next;
+            }
+        }
+    }
+
     private ConcurrentSkipListMap<Long, Serializable> getExpirtyInfoPartition(String partitionName)
     {
         ConcurrentSkipListMap<Long, Serializable> partition = expiryInfoPartition.get(partitionName);
@@ -169,8 +196,9 @@ public class PartitionedInMemoryObjectStore<T extends Serializable> extends Abst
         Map.Entry<Long, Serializable> oldestEntry;
         ConcurrentSkipListMap<Long, Serializable> store = getExpirtyInfoPartition(partitionName);
         ConcurrentMap<Serializable, T> partition = getPartition(partitionName);
+        ConcurrentMap<Serializable, Long> timestamps = getTimestampPartition(partitionName);
 
-        trimToMaxSize(store, maxEntries, partition);
+        trimToMaxSize(store, maxEntries, partition, timestamps);
 
         while ((oldestEntry = store.firstEntry()) != null)
         {
@@ -180,6 +208,7 @@ public class PartitionedInMemoryObjectStore<T extends Serializable> extends Abst
             if (TimeUnit.NANOSECONDS.toMillis(now - oldestKeyValue) >= entryTTL)
             {
                 partition.remove(oldestEntry.getValue());
+                timestamps.remove(oldestEntry.getValue(), oldestKey);
                 store.remove(oldestKey);
                 expiredEntries++;
             }
@@ -197,7 +226,8 @@ public class PartitionedInMemoryObjectStore<T extends Serializable> extends Abst
 
     private void trimToMaxSize(ConcurrentSkipListMap<Long, Serializable> store,
                                int maxEntries,
-                               ConcurrentMap<Serializable, T> partition)
+                               ConcurrentMap<Serializable, T> partition,
+                               ConcurrentMap<Serializable, Long> timestamps)
     {
         if (maxEntries < 0)
         {
@@ -211,6 +241,7 @@ public class PartitionedInMemoryObjectStore<T extends Serializable> extends Abst
             {
                 Entry<Long, Serializable> toRemove = store.pollFirstEntry();
                 partition.remove(toRemove.getValue());
+                timestamps.remove(toRemove.getValue(), toRemove.getKey());
                 currentSize--;
             }
 
@@ -226,6 +257,7 @@ public class PartitionedInMemoryObjectStore<T extends Serializable> extends Abst
     {
         partitions.remove(partitionName);
         expiryInfoPartition.remove(partitionName);
+        timestampPartitions.remove(partitionName);
     }
 
 }
@@ -12,13 +12,16 @@ package org.mule.util.store;
 
 import org.mule.api.MuleContext;
 import org.mule.api.MuleRuntimeException;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.context.MuleContextAware;
+import org.mule.api.lifecycle.Disposable;
 import org.mule.api.store.ObjectStoreException;
 import org.mule.api.store.PartitionableExpirableObjectStore;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.config.i18n.Message;
 import org.mule.util.FileUtils;
 import org.mule.util.UUID;
+import org.mule.util.concurrent.DaemonThreadFactory;
 
 import java.io.File;
 import java.io.FileFilter;
@@ -28,17 +31,31 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Persistent object store that keeps each partition in its own directory under the
+ * <code>objectstore</code> folder of the working directory.
+ * <p/>
+ * By default every entry is written to a file of its own. When {@link #setLogStructured(boolean)}
+ * is enabled (or the <code>mule.objectstore.logStructured</code> system property is set) new
+ * partitions are written as append-only segment logs by {@link LogStructuredObjectStorePartition}
+ * instead. Partitions already on disk are always reopened with the format they were written in.
+ */
 public class PartitionedPersistentObjectStore<T extends Serializable> extends
-        AbstractPartitionedObjectStore<T> implements MuleContextAware, PartitionableExpirableObjectStore<T>
+        AbstractPartitionedObjectStore<T> implements MuleContextAware, PartitionableExpirableObjectStore<T>, Disposable
 {
 
     public static final String OBJECT_STORE_DIR = "objectstore";
+    public static final String LOG_STRUCTURED_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "objectstore.logStructured";
 
     private MuleContext muleContext;
     private File storeDirectory;
-    private Map<String, PersistentObjectStorePartition> partitionsByName = new HashMap<String, PersistentObjectStorePartition>();
+    private Map<String, PersistentPartition<T>> partitionsByName = new HashMap<String, PersistentPartition<T>>();
     private boolean initialized = false;
+    private boolean logStructured = Boolean.getBoolean(LOG_STRUCTURED_PROPERTY);
+    private boolean synchronousWrites = true;
+    private ScheduledThreadPoolExecutor compactionScheduler;
 
     public PartitionedPersistentObjectStore()
     {
@@ -87,11 +104,31 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
 
     private void createPartition(String partitionName) throws ObjectStoreException
     {
-        PersistentObjectStorePartition persistentObjectStorePartition = new PersistentObjectStorePartition(muleContext, partitionName, getNewPartitionDirectory());
+        PersistentPartition<T> persistentObjectStorePartition;
+        if (logStructured)
+        {
+            persistentObjectStorePartition = configure(new LogStructuredObjectStorePartition<T>(muleContext, partitionName, getNewPartitionDirectory()));
+        }
+        else
+        {
+            persistentObjectStorePartition = new PersistentObjectStorePartition<T>(muleContext, partitionName, getNewPartitionDirectory());
+        }
         persistentObjectStorePartition.open();
         partitionsByName.put(partitionName, persistentObjectStorePartition);
     }
 
+    private LogStructuredObjectStorePartition<T> configure(LogStructuredObjectStorePartition<T> partition)
+    {
+        if (compactionScheduler == null)
+        {
+            compactionScheduler = new ScheduledThreadPoolExecutor(1);
+            compactionScheduler.setThreadFactory(new DaemonThreadFactory("ObjectStore-Compaction", getClass().getClassLoader()));
+        }
+        partition.setCompactionScheduler(compactionScheduler);
+        partition.setSynchronousWrites(synchronousWrites);
+        return partition;
+    }
+
     private File getNewPartitionDirectory()
     {
         return new File(storeDirectory, UUID.getUUID());
@@ -133,7 +170,7 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
         return getPartitionObjectStore(partitionName).allKeys();
     }
 
-    private PersistentObjectStorePartition<T> getPartitionObjectStore(String partitionName) throws ObjectStoreException
+    private PersistentPartition<T> getPartitionObjectStore(String partitionName) throws ObjectStoreException
     {
         if (!partitionsByName.containsKey(partitionName))
         {
@@ -211,7 +248,15 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
         {
             try
             {
-                PersistentObjectStorePartition persistentObjectStorePartition = new PersistentObjectStorePartition(muleContext, partitionDirectory);
+                PersistentPartition<T> persistentObjectStorePartition;
+                if (LogStructuredObjectStorePartition.isLogStructuredPartition(partitionDirectory))
+                {
+                    persistentObjectStorePartition = configure(new LogStructuredObjectStorePartition<T>(muleContext, partitionDirectory));
+                }
+                else
+                {
+                    persistentObjectStorePartition = new PersistentObjectStorePartition<T>(muleContext, partitionDirectory);
+                }
                 persistentObjectStorePartition.open();
                 partitionsByName.put(persistentObjectStorePartition.getPartitionName(), persistentObjectStorePartition);
             }
@@ -246,4 +291,52 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
     {
         getPartitionObjectStore(partitionName).expire(entryTTL, maxEntries);
     }
+
+    @Override
+    public synchronized void dispose()
+    {
+        for (PersistentPartition<T> partition : partitionsByName.values())
+        {
+            try
+            {
+                partition.close();
+            }
+            catch (ObjectStoreException e)
+            {
+                logger.warn("Could not close partition " + partition.getPartitionName(), e);
+            }
+        }
+        if (compactionScheduler != null)
+        {
+            compactionScheduler.shutdown();
+        }
+    }
+
+    public boolean isLogStructured()
+    {
+        return logStructured;
+    }
+
+    /**
+     * @param logStructured whether new partitions are stored as append-only segment logs
+     *            instead of one file per entry
+     */
+    public void setLogStructured(boolean logStructured)
+    {
+        this.logStructured = logStructured;
+    }
+
+    public boolean isSynchronousWrites()
+    {
+        return synchronousWrites;
+    }
+
+    /**
+     * @param synchronousWrites whether writes to log structured partitions are synced to disk
+     *            before returning
+     */
+    public void setSynchronousWrites(boolean synchronousWrites)
+    {
+        this.synchronousWrites = synchronousWrites;
+    }
 }
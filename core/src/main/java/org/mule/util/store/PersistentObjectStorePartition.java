@@ -11,8 +11,6 @@ package org.mule.util.store;
 
 import org.mule.api.MuleContext;
 import org.mule.api.MuleRuntimeException;
-import org.mule.api.store.ExpirableObjectStore;
-import org.mule.api.store.ListableObjectStore;
 import org.mule.api.store.ObjectAlreadyExistsException;
 import org.mule.api.store.ObjectDoesNotExistException;
 import org.mule.api.store.ObjectStoreException;
@@ -20,8 +18,8 @@ import org.mule.api.store.ObjectStoreNotAvaliableException;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.config.i18n.Message;
 import org.mule.util.FileUtils;
-import org.mule.util.SerializationUtils;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
@@ -29,8 +27,9 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -43,11 +42,11 @@ import org.apache.commons.collections.bidimap.TreeBidiMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-public class PersistentObjectStorePartition<T extends Serializable> implements ListableObjectStore<T>, ExpirableObjectStore<T>
+public class PersistentObjectStorePartition<T extends Serializable> implements PersistentPartition<T>
 {
 
     private static final String OBJECT_FILE_EXTENSION = ".obj";
-    private static final String PARTITION_DESCRIPTOR_FILE = "partition-descriptor";
+    static final String PARTITION_DESCRIPTOR_FILE = "partition-descriptor";
     protected final Log logger = LogFactory.getLog(this.getClass());
     private final MuleContext muleContext;
 
@@ -284,8 +283,7 @@ public class PersistentObjectStorePartition<T extends Serializable> implements L
         try
         {
             out = new FileOutputStream(outputFile);
-            ObjectOutputStream objectOutputStream = new ObjectOutputStream(out);
-            SerializationUtils.serialize(storeValue, objectOutputStream);
+            muleContext.getObjectSerializer().serialize(storeValue, out);
         }
         catch (Exception se)
         {
@@ -307,14 +305,18 @@ public class PersistentObjectStorePartition<T extends Serializable> implements L
         }
     }
 
-    @SuppressWarnings("unchecked")
     protected StoreValue<T> deserialize(File file) throws ObjectStoreException
     {
-        ObjectInputStream objectInputStream = null;
+        InputStream objectInputStream = null;
         try
         {
-            objectInputStream = new ObjectInputStream(new FileInputStream(file));
-            StoreValue<T> storedValue = (StoreValue<T>) SerializationUtils.deserialize(objectInputStream, muleContext);
+            objectInputStream = new BufferedInputStream(new FileInputStream(file));
+            if (isNestedObjectStream(objectInputStream))
+            {
+                // Written by an earlier version, which serialized the value into another object stream
+                objectInputStream = new ObjectInputStream(objectInputStream);
+            }
+            StoreValue<T> storedValue = muleContext.getObjectSerializer().deserialize(objectInputStream);
             if (storedValue.getValue() instanceof DeserializationPostInitialisable)
             {
                 DeserializationPostInitialisable.Implementation.init(storedValue.getValue(),muleContext);
@@ -345,6 +347,26 @@ public class PersistentObjectStorePartition<T extends Serializable> implements L
         }
     }
 
+    /**
+     * @return whether the stream is an object stream whose content is a block of data, the
+     *         other object stream that earlier versions wrote the value into
+     */
+    private boolean isNestedObjectStream(InputStream in) throws IOException
+    {
+        byte[] header = new byte[5];
+        in.mark(header.length);
+        int read = 0;
+        int count;
+        while (read < header.length && (count = in.read(header, read, header.length - read)) != -1)
+        {
+            read += count;
+        }
+        in.reset();
+        return read == header.length
+               && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) == (ObjectStreamConstants.STREAM_MAGIC & 0xFFFF)
+               && (header[4] == ObjectStreamConstants.TC_BLOCKDATA || header[4] == ObjectStreamConstants.TC_BLOCKDATALONG);
+    }
+
     protected void deleteStoreFile(File file) throws ObjectStoreException
     {
         if (file.exists())
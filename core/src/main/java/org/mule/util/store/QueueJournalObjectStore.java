@@ -0,0 +1,206 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.store;
+
+import org.mule.api.MuleContext;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.context.MuleContextAware;
+import org.mule.api.lifecycle.Disposable;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.util.FileUtils;
+import org.mule.util.concurrent.DaemonThreadFactory;
+import org.mule.util.queue.JournaledQueueStore;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Persistent queue store that records queue items as put and remove entries of a single
+ * write-ahead journal instead of one file per item. The journal is kept in the
+ * <code>queuejournal</code> folder of the working directory and is replayed when the store
+ * is opened, so {@link #allKeys()} returns the pending items in the order they were queued.
+ * <p/>
+ * All the changes of a queue transaction are written through {@link #commit(Map, Collection)}
+ * and concurrent commits are coalesced into a single <code>fsync</code>. Journal segments that
+ * only contain consumed items are reclaimed in the background.
+ * <p/>
+ * This store is used as the default persistent queue store when the
+ * <code>mule.queue.journal</code> system property is set to <code>true</code>.
+ */
+public class QueueJournalObjectStore<T extends Serializable> implements JournaledQueueStore<T>, MuleContextAware, Disposable
+{
+
+    public static final String DEFAULT_QUEUE_JOURNAL = "queuejournal";
+    public static final String QUEUE_JOURNAL_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "queue.journal";
+
+    protected final Log logger = LogFactory.getLog(this.getClass());
+
+    private MuleContext muleContext;
+    private String name = DEFAULT_QUEUE_JOURNAL;
+    private volatile LogStructuredObjectStorePartition<T> journal;
+    private ScheduledThreadPoolExecutor compactionScheduler;
+    private long maxSegmentSize = 16 * 1024 * 1024;
+
+    public QueueJournalObjectStore()
+    {
+        super();
+    }
+
+    public QueueJournalObjectStore(MuleContext context)
+    {
+        super();
+        muleContext = context;
+    }
+
+    @Override
+    public boolean isPersistent()
+    {
+        return true;
+    }
+
+    @Override
+    public synchronized void open() throws ObjectStoreException
+    {
+        if (journal != null)
+        {
+            return;
+        }
+        File directory = FileUtils.newFile(muleContext.getConfiguration().getWorkingDirectory(), name);
+        compactionScheduler = new ScheduledThreadPoolExecutor(1);
+        compactionScheduler.setThreadFactory(new DaemonThreadFactory(name + "-Compaction", getClass().getClassLoader()));
+
+        LogStructuredObjectStorePartition<T> newJournal = new LogStructuredObjectStorePartition<T>(muleContext, name, directory);
+        newJournal.setMaxSegmentSize(maxSegmentSize);
+        newJournal.setCompactionScheduler(compactionScheduler);
+        try
+        {
+            newJournal.open();
+        }
+        catch (ObjectStoreException e)
+        {
+            compactionScheduler.shutdown();
+            throw e;
+        }
+        journal = newJournal;
+    }
+
+    @Override
+    public synchronized void close() throws ObjectStoreException
+    {
+        if (journal != null)
+        {
+            try
+            {
+                journal.close();
+            }
+            finally
+            {
+                journal = null;
+                compactionScheduler.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        try
+        {
+            close();
+        }
+        catch (ObjectStoreException e)
+        {
+            logger.warn("Could not close queue journal " + name, e);
+        }
+    }
+
+    @Override
+    public List<Serializable> allKeys() throws ObjectStoreException
+    {
+        return getJournal().allKeys();
+    }
+
+    @Override
+    public boolean contains(Serializable key) throws ObjectStoreException
+    {
+        return getJournal().contains(key);
+    }
+
+    @Override
+    public void store(Serializable key, T value) throws ObjectStoreException
+    {
+        getJournal().store(key, value);
+    }
+
+    @Override
+    public T retrieve(Serializable key) throws ObjectStoreException
+    {
+        return getJournal().retrieve(key);
+    }
+
+    @Override
+    public T remove(Serializable key) throws ObjectStoreException
+    {
+        return getJournal().remove(key);
+    }
+
+    @Override
+    public void commit(Map<Serializable, T> stored, Collection<Serializable> removed) throws ObjectStoreException
+    {
+        getJournal().storeAndRemove(stored, removed);
+    }
+
+    protected LogStructuredObjectStorePartition<T> getJournal() throws ObjectStoreException
+    {
+        LogStructuredObjectStorePartition<T> current = journal;
+        if (current == null)
+        {
+            open();
+            current = journal;
+        }
+        return current;
+    }
+
+    @Override
+    public void setMuleContext(MuleContext context)
+    {
+        this.muleContext = context;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @param name the name of the folder under the working directory holding the journal
+     */
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public long getMaxSegmentSize()
+    {
+        return maxSegmentSize;
+    }
+
+    public void setMaxSegmentSize(long maxSegmentSize)
+    {
+        this.maxSegmentSize = maxSegmentSize;
+    }
+}
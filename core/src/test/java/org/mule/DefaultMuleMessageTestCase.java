@@ -213,6 +213,26 @@ public class DefaultMuleMessageTestCase extends AbstractMuleContextTestCase
         assertInboundAndOutboundMessageProperties(copy);
     }
 
+    @Test
+    public void testCopyAndOriginalPropertiesAreIndependent() throws Exception
+    {
+        DefaultMuleMessage original = (DefaultMuleMessage) createMuleMessage();
+        original.addInboundProperties(createMessageProperties());
+
+        MuleMessage copy = new DefaultMuleMessage(original);
+        copy.setOutboundProperty("copyOnly", "copy");
+        copy.removeProperty("MuleMessage", PropertyScope.OUTBOUND);
+        original.setOutboundProperty("originalOnly", "original");
+
+        assertNull(original.getOutboundProperty("copyOnly"));
+        assertOutboundMessageProperty("MuleMessage", original);
+        assertEquals("original", original.getOutboundProperty("originalOnly"));
+        assertEquals("copy", copy.getOutboundProperty("copyOnly"));
+        assertNull(copy.getOutboundProperty("MuleMessage"));
+        assertNull(copy.getOutboundProperty("originalOnly"));
+        assertEquals("MessageProperties", copy.getInboundProperty("MessageProperties"));
+    }
+
     private void assertInboundAndOutboundMessageProperties(MuleMessage original)
     {
         assertOutboundMessageProperty("MuleMessage", original);
@@ -304,6 +324,22 @@ public class DefaultMuleMessageTestCase extends AbstractMuleContextTestCase
         assertEquals(handler, message.getOutboundAttachment("attachment"));
     }
 
+    @Test
+    public void testCopyAndOriginalAttachmentsAreIndependent() throws Exception
+    {
+        MuleMessage previous = createMuleMessage();
+        DataHandler handler = new DataHandler("this is the attachment", "text/plain");
+        previous.addOutboundAttachment("attachment", handler);
+
+        MuleMessage message = new DefaultMuleMessage(TEST_MESSAGE, previous, muleContext);
+        message.addOutboundAttachment("other", handler);
+        previous.removeOutboundAttachment("attachment");
+
+        assertEquals(0, previous.getOutboundAttachmentNames().size());
+        assertEquals(2, message.getOutboundAttachmentNames().size());
+        assertEquals(handler, message.getOutboundAttachment("attachment"));
+    }
+
     @Test
     public void testFindPropertiesInAnyScope() throws Exception
     {
@@ -0,0 +1,209 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.cache;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.util.store.SimpleMemoryObjectStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ObjectStoreCachingStrategyTestCase extends AbstractMuleContextTestCase
+{
+
+    private ObjectStoreCachingStrategy cachingStrategy;
+    private CountingMessageProcessor messageProcessor = new CountingMessageProcessor();
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        super.doSetUp();
+        cachingStrategy = new ObjectStoreCachingStrategy();
+        cachingStrategy.setMuleContext(muleContext);
+        cachingStrategy.setStore(new SimpleMemoryObjectStore<MuleMessage>());
+        cachingStrategy.initialise();
+    }
+
+    @Test
+    public void answersRepeatedRequestFromCache() throws Exception
+    {
+        assertThat(cachingStrategy.process(getTestEvent("test"), messageProcessor).getMessageAsString(), is("test processed"));
+        assertThat(cachingStrategy.process(getTestEvent("test"), messageProcessor).getMessageAsString(), is("test processed"));
+
+        assertThat(messageProcessor.invocations.get(), is(1));
+        assertThat(cachingStrategy.getStatistics().getMisses(), is(1L));
+        assertThat(cachingStrategy.getStatistics().getHits(), is(1L));
+        assertThat(cachingStrategy.getEntryCount(), is(1));
+    }
+
+    @Test
+    public void processesRequestAgainAfterInvalidation() throws Exception
+    {
+        cachingStrategy.process(getTestEvent("test"), messageProcessor);
+        cachingStrategy.invalidate();
+        cachingStrategy.process(getTestEvent("test"), messageProcessor);
+
+        assertThat(messageProcessor.invocations.get(), is(2));
+        assertThat(cachingStrategy.getStatistics().getInvalidatedEntries(), is(1L));
+        assertThat(cachingStrategy.getEvictions(), is(0L));
+    }
+
+    @Test
+    public void doesNotCacheConsumableRequests() throws Exception
+    {
+        cachingStrategy.process(getTestEvent(new ByteArrayInputStream("test".getBytes())), messageProcessor);
+        cachingStrategy.process(getTestEvent(new ByteArrayInputStream("test".getBytes())), messageProcessor);
+
+        assertThat(messageProcessor.invocations.get(), is(2));
+        assertThat(cachingStrategy.getEntryCount(), is(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void answersEveryHitWithItsOwnPayload() throws Exception
+    {
+        MessageProcessor listProcessor = new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                List<String> payload = new ArrayList<String>();
+                payload.add("processed");
+                return new DefaultMuleEvent(new DefaultMuleMessage(payload, muleContext), event);
+            }
+        };
+        cachingStrategy.process(getTestEvent("test"), listProcessor);
+
+        List<String> first = (List<String>) cachingStrategy.process(getTestEvent("test"), listProcessor).getMessage().getPayload();
+        first.add("changed");
+        List<String> second = (List<String>) cachingStrategy.process(getTestEvent("test"), listProcessor).getMessage().getPayload();
+
+        assertThat(second.size(), is(1));
+        assertThat(cachingStrategy.getStatistics().getHits(), is(2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void returnsResponseWhenStoreFails() throws Exception
+    {
+        ObjectStore<MuleMessage> failingStore = mock(ObjectStore.class);
+        doThrow(new ObjectStoreException()).when(failingStore).store(any(Serializable.class), any(MuleMessage.class));
+        cachingStrategy.setStore(failingStore);
+
+        assertThat(cachingStrategy.process(getTestEvent("test"), messageProcessor).getMessageAsString(), is("test processed"));
+        assertThat(cachingStrategy.getStatistics().getStoredEntries(), is(0L));
+    }
+
+    @Test
+    public void coalescesConcurrentMisses() throws Exception
+    {
+        final CountDownLatch processing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MessageProcessor blockingMessageProcessor = new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                processing.countDown();
+                try
+                {
+                    release.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return messageProcessor.process(event);
+            }
+        };
+
+        final MuleEvent[] responses = new MuleEvent[1];
+        Thread first = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    responses[0] = cachingStrategy.process(getTestEvent("test"), blockingMessageProcessor);
+                }
+                catch (Exception e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        first.start();
+        assertThat(processing.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS), is(true));
+
+        Thread second = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    cachingStrategy.process(getTestEvent("test"), blockingMessageProcessor);
+                }
+                catch (Exception e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        second.start();
+        // give the second request time to find the pending response
+        Thread.sleep(200);
+        release.countDown();
+        first.join(RECEIVE_TIMEOUT);
+        second.join(RECEIVE_TIMEOUT);
+
+        assertThat(responses[0].getMessageAsString(), is("test processed"));
+        assertThat(messageProcessor.invocations.get(), is(1));
+        assertThat(cachingStrategy.getStatistics().getHits() + cachingStrategy.getStatistics().getCoalescedRequests(), is(1L));
+    }
+
+    private class CountingMessageProcessor implements MessageProcessor
+    {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            invocations.incrementAndGet();
+            String payload = event.getMessage().getPayload() instanceof String
+                             ? (String) event.getMessage().getPayload() : "stream";
+            return new DefaultMuleEvent(new DefaultMuleMessage(payload + " processed", muleContext), event);
+        }
+    }
+}
@@ -13,6 +13,7 @@ package org.mule.construct.processor;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -76,6 +77,7 @@ public class PipelineMessageNotificationTestCase extends AbstractMuleTestCase
             new MuleRegistryHelper(new DefaultRegistryBroker(muleContext), muleContext));
         when(muleContext.getDefaultThreadingProfile()).thenReturn(new ChainedThreadingProfile());
         notificationManager = mock(ServerNotificationManager.class);
+        when(notificationManager.isNotificationEnabled(any(Class.class))).thenReturn(true);
         when(muleContext.getNotificationManager()).thenReturn(notificationManager);
         pipeline = new TestPipeline(pipelineName, muleContext);
 
@@ -105,6 +107,22 @@ public class PipelineMessageNotificationTestCase extends AbstractMuleTestCase
         verify(notificationManager, times(3)).fireNotification(any(PipelineMessageNotification.class));
     }
 
+    @Test
+    public void notificationsNotCreatedWithoutListeners() throws MuleException
+    {
+        when(notificationManager.isNotificationEnabled(PipelineMessageNotification.class)).thenReturn(false);
+        TriggerableMessageSource source = new TriggerableMessageSource();
+        pipeline.setMessageSource(source);
+        pipeline.initialise();
+
+        event = new DefaultMuleEvent(new DefaultMuleMessage("request", muleContext),
+            MessageExchangePattern.REQUEST_RESPONSE, pipeline);
+
+        source.trigger(event);
+
+        verify(notificationManager, never()).fireNotification(any(PipelineMessageNotification.class));
+    }
+
     @Test
     public void oneWay() throws MuleException, InterruptedException
     {
@@ -0,0 +1,251 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.context.notification;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.MuleContext;
+import org.mule.api.context.WorkManager;
+import org.mule.api.context.notification.ServerNotification;
+import org.mule.config.DefaultMuleConfiguration;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.resource.spi.work.ExecutionContext;
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+@SmallTest
+public class NotificationDispatcherTestCase extends AbstractMuleTestCase
+{
+
+    private static final int NOTIFICATIONS = 100;
+
+    private ServerNotificationManager manager;
+    private RecordingListener listener;
+
+    @Before
+    public void setUpManager() throws ClassNotFoundException
+    {
+        MuleContext muleContext = mock(MuleContext.class);
+        when(muleContext.getConfiguration()).thenReturn(new DefaultMuleConfiguration());
+        manager = new ServerNotificationManager();
+        manager.setMuleContext(muleContext);
+        manager.addInterfaceToType(Listener2.class, Event2.class);
+        listener = new RecordingListener(NOTIFICATIONS);
+        manager.addListener(listener);
+    }
+
+    @After
+    public void disposeManager()
+    {
+        manager.dispose();
+    }
+
+    @Test
+    public void notificationsWithoutListenersAreQueuedBeforeStart()
+    {
+        manager.fireNotification(new Event1());
+        manager.fireNotification(new Event2());
+
+        assertThat(manager.getEventQueue().size(), is(2));
+    }
+
+    @Test
+    public void notificationsWithoutListenersAreNotQueuedOnceStarted() throws Exception
+    {
+        // the dispatcher threads are not run, so the queue is not drained
+        manager.start(mock(WorkManager.class), null);
+
+        manager.fireNotification(new Event1());
+        manager.fireNotification(new Event3());
+        assertThat(manager.getEventQueue().size(), is(0));
+
+        manager.fireNotification(new Event2());
+        assertThat(manager.getEventQueue().size(), is(1));
+    }
+
+    @Test
+    public void dropsNotificationsWhenQueueIsFull()
+    {
+        manager.setQueueSize(1);
+        manager.setOverflowPolicy(NotificationOverflowPolicy.DROP);
+
+        manager.fireNotification(new Event2());
+        manager.fireNotification(new Event2());
+        manager.fireNotification(new Event2());
+
+        assertThat(manager.getEventQueue().size(), is(1));
+        assertThat(manager.getDroppedNotifications(), is(2L));
+        assertThat(listener.getNotifications().size(), is(0));
+    }
+
+    @Test
+    public void deliversQueuedNotificationsInFiringThreadWhenQueueIsFull()
+    {
+        manager.setQueueSize(2);
+
+        manager.fireNotification(new Event2("0"));
+        manager.fireNotification(new Event2("1"));
+        manager.fireNotification(new Event2("2"));
+        manager.fireNotification(new Event2("3"));
+
+        assertThat(manager.getOverflowPolicy(), is(NotificationOverflowPolicy.DELIVER));
+        assertThat(listener.getNotifications(), is(Arrays.asList("0", "1")));
+        assertThat(eventQueueIds(), is(Arrays.asList("2", "3")));
+        assertThat(manager.getDroppedNotifications(), is(0L));
+    }
+
+    @Test
+    public void blockingDeliversQueuedNotificationsInFiringThreadBeforeStart()
+    {
+        manager.setQueueSize(1);
+        manager.setOverflowPolicy(NotificationOverflowPolicy.BLOCK);
+
+        manager.fireNotification(new Event2("queued"));
+        manager.fireNotification(new Event2("fired"));
+
+        assertThat(listener.getNotifications(), is(Collections.singletonList("queued")));
+        assertThat(eventQueueIds(), is(Collections.singletonList("fired")));
+    }
+
+    @Test
+    public void keepsQueuedNotificationsWhenReconfigured()
+    {
+        manager.fireNotification(new Event2());
+        manager.setDispatcherThreads(3);
+        manager.setBatchSize(8);
+
+        assertThat(manager.getEventQueue().size(), is(1));
+    }
+
+    @Test
+    public void deliversInFiringOrderWhenQueueOverflows() throws Exception
+    {
+        manager.setDispatcherThreads(1);
+        manager.setQueueSize(2);
+        manager.setBatchSize(1);
+        start(1);
+
+        for (int i = 0; i < NOTIFICATIONS; i++)
+        {
+            manager.fireNotification(new Event2(String.valueOf(i)));
+        }
+
+        assertTrue(listener.await());
+        assertThat(listener.getNotifications(), is(expectedNotifications()));
+    }
+
+    @Test
+    public void deliversInFiringOrder() throws Exception
+    {
+        manager.setDispatcherThreads(2);
+        manager.setQueueSize(10);
+        manager.setBatchSize(4);
+        manager.fireNotification(new Event2("0"));
+        start(2);
+
+        for (int i = 1; i < NOTIFICATIONS; i++)
+        {
+            manager.fireNotification(new Event2(String.valueOf(i)));
+        }
+
+        assertTrue(listener.await());
+        assertThat(listener.getNotifications(), is(expectedNotifications()));
+    }
+
+    private List<String> expectedNotifications()
+    {
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < NOTIFICATIONS; i++)
+        {
+            expected.add(String.valueOf(i));
+        }
+        return expected;
+    }
+
+    private List<String> eventQueueIds()
+    {
+        List<String> ids = new ArrayList<String>();
+        for (ServerNotification notification : manager.getEventQueue())
+        {
+            ids.add(notification.getResourceIdentifier());
+        }
+        return ids;
+    }
+
+    private void start(int dispatcherThreads) throws Exception
+    {
+        WorkManager workManager = mock(WorkManager.class);
+        manager.start(workManager, null);
+
+        ArgumentCaptor<Work> works = ArgumentCaptor.forClass(Work.class);
+        verify(workManager, atLeastOnce()).scheduleWork(works.capture(), anyLong(), any(ExecutionContext.class),
+            any(WorkListener.class));
+        assertThat(works.getAllValues().size(), is(dispatcherThreads));
+        for (Work work : works.getAllValues())
+        {
+            Thread thread = new Thread(work);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private static class RecordingListener extends Listener2
+    {
+
+        private final List<String> notifications = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch latch;
+
+        RecordingListener(int expected)
+        {
+            latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onNotification(ServerNotification notification)
+        {
+            notifications.add(notification.getResourceIdentifier());
+            latch.countDown();
+        }
+
+        boolean await() throws InterruptedException
+        {
+            return latch.await(AbstractMuleContextTestCase.RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        List<String> getNotifications()
+        {
+            return new ArrayList<String>(notifications);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.el.mvel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.el.mvel.CompiledExpressionCache.CompiledExpression;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+import org.mvel2.ParserContext;
+
+@SmallTest
+public class CompiledExpressionCacheTestCase extends AbstractMuleTestCase
+{
+
+    @Test
+    public void countsHitsAndMisses()
+    {
+        CompiledExpressionCache cache = new CompiledExpressionCache(new ParserContext(), 10);
+        CompiledExpression compiled = cache.get("2*2");
+        assertSame(compiled, cache.get("2*2"));
+        cache.get("3*3");
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void evictsUnusedExpressionsFirst()
+    {
+        CompiledExpressionCache cache = new CompiledExpressionCache(new ParserContext(), 2);
+        CompiledExpression used = cache.get("1+1");
+        cache.get("2+2");
+        cache.get("1+1");
+        cache.get("3+3");
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        assertSame(used, cache.get("1+1"));
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void clearDiscardsCompiledExpressions()
+    {
+        CompiledExpressionCache cache = new CompiledExpressionCache(new ParserContext(), 10);
+        CompiledExpression compiled = cache.get("2*2");
+        cache.clear();
+
+        assertEquals(0, cache.getSize());
+        assertFalse(compiled == cache.get("2*2"));
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void singleAccessorExpressionsAreOptimizable()
+    {
+        CompiledExpressionCache cache = new CompiledExpressionCache(new ParserContext(), 10);
+        assertTrue(cache.get("'hi'").isOptimizable());
+        assertTrue(cache.get("message.payload").isOptimizable());
+        assertFalse(cache.get("a = 1; a + 1").isOptimizable());
+        assertFalse(cache.get("if (a) { 1 } else { 2 }").isOptimizable());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sizeMustBePositive()
+    {
+        new CompiledExpressionCache(new ParserContext(), 0);
+    }
+}
@@ -70,6 +70,24 @@ public class MVELExpressionExecutorTestCase extends AbstractMuleTestCase
         mvel.validate("var a = 2");
     }
 
+    @Test
+    public void compiledExpressionsAreCached()
+    {
+        mvel.validate("2*2");
+        assertEquals(4, mvel.execute("2*2", null));
+        assertEquals(1, mvel.getCompiledExpressionsCache().getSize());
+        assertEquals(1, mvel.getCompiledExpressionsCache().getHits());
+    }
+
+    @Test
+    public void optimizeThreadSafeExpressions()
+    {
+        mvel = new MVELExpressionExecutor(new ParserContext(), 10, true);
+        assertEquals("hi", mvel.execute("'hi'.toString()", null));
+        assertEquals("hi", mvel.execute("'hi'.toString()", null));
+        assertEquals(4, mvel.execute("a = 2; a * 2", null));
+    }
+
     @Test
     public void useContextClassLoader() throws ClassNotFoundException
     {
@@ -13,7 +13,9 @@ package org.mule.expression;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -121,6 +123,76 @@ public class ExpressionManagerTestCase extends AbstractMuleContextTestCase
                 "-#[string:1]-#[process:proc2:#[string:a#[process:proc1]d]]-#[string:2]-", event));
     }
 
+    @Test
+    public void testParsingMixedTemplate() throws Exception
+    {
+        MuleEvent event = getTestEvent("test");
+        event.getMessage().setOutboundProperty("host", "example.com");
+
+        String template = "#[header:host] #[message.payload]-#[message.payload] #[null] $1 done";
+        assertEquals("example.com test-test null $1 done", muleContext.getExpressionManager().parse(template,
+            event));
+        assertEquals("example.com test-test null $1 done", muleContext.getExpressionManager().parse(template,
+            event.getMessage()));
+        assertEquals("no expressions", muleContext.getExpressionManager().parse("no expressions", event));
+    }
+
+    @Test
+    public void testParsingAfterEvaluatorRegistration() throws Exception
+    {
+        MuleMessage msg = new DefaultMuleMessage("test", muleContext);
+        assertEquals("constant:value", muleContext.getExpressionManager().parse("#['constant:value']", msg));
+
+        muleContext.getExpressionManager().registerEvaluator(new StringExpressionEvaluator()
+        {
+            @Override
+            public String getName()
+            {
+                return "constant";
+            }
+
+            @Override
+            public Object evaluate(String expression, MuleMessage message)
+            {
+                return "evaluated " + expression;
+            }
+        });
+        assertEquals("evaluated value", muleContext.getExpressionManager().parse("#[constant:value]", msg));
+        assertEquals("constant:value", muleContext.getExpressionManager().parse("#['constant:value']", msg));
+    }
+
+    @Test
+    public void testCompiledTemplatesAreEvictedWhenNotRecentlyUsed() throws Exception
+    {
+        DefaultExpressionManager expressionManager = (DefaultExpressionManager) muleContext.getExpressionManager();
+        CompiledTemplate hot = expressionManager.getCompiledTemplate("#[message.payload] hot");
+        CompiledTemplate cold = expressionManager.getCompiledTemplate("#[message.payload] cold");
+
+        for (int i = 0; i < 2000; i++)
+        {
+            assertSame(hot, expressionManager.getCompiledTemplate("#[message.payload] hot"));
+            expressionManager.getCompiledTemplate("#[message.payload] " + i);
+        }
+
+        // templates seen after the cache filled up are cached too
+        CompiledTemplate recent = expressionManager.getCompiledTemplate("#[message.payload] 1999");
+        assertSame(recent, expressionManager.getCompiledTemplate("#[message.payload] 1999"));
+        assertNotSame(cold, expressionManager.getCompiledTemplate("#[message.payload] cold"));
+    }
+
+    @Test
+    public void testPrecompileDoesNotCachePlainValues() throws Exception
+    {
+        DefaultExpressionManager expressionManager = (DefaultExpressionManager) muleContext.getExpressionManager();
+        int size = expressionManager.getCompiledTemplatesSize();
+
+        expressionManager.precompile("plain value");
+        assertEquals(size, expressionManager.getCompiledTemplatesSize());
+
+        expressionManager.precompile("#[message.payload] precompiled");
+        assertEquals(size + 1, expressionManager.getCompiledTemplatesSize());
+    }
+
     @Test
     public void testBooleanEvaluation()
     {
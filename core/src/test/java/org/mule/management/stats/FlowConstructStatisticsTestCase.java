@@ -0,0 +1,52 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+@SmallTest
+public class FlowConstructStatisticsTestCase extends AbstractMuleTestCase
+{
+
+    private FlowConstructStatistics statistics = new FlowConstructStatistics("Flow", "test");
+
+    @Test
+    public void clearKeepsQueuedEvents()
+    {
+        statistics.incQueuedEvent();
+        statistics.incQueuedEvent();
+
+        statistics.clear();
+        statistics.decQueuedEvent();
+
+        assertThat(statistics.getQueuedEvents(), is(1L));
+        assertThat(statistics.getMaxQueueSize(), is(0L));
+    }
+
+    @Test
+    public void boundsOutboundEndpointTimes()
+    {
+        for (int i = 0; i < FlowConstructStatistics.MAX_OUTBOUND_ENDPOINTS + 10; i++)
+        {
+            statistics.addOutboundEndpointTime("endpoint" + i, 10);
+        }
+        statistics.addOutboundEndpointTime("endpoint0", 10);
+
+        assertThat(statistics.getOutboundEndpointTimes().size(), is(FlowConstructStatistics.MAX_OUTBOUND_ENDPOINTS + 1));
+        assertThat(statistics.getOutboundEndpointTimes().get("endpoint0").getCount(), is(2L));
+        assertThat(statistics.getOutboundEndpointTimes().get(FlowConstructStatistics.OTHER_OUTBOUND_ENDPOINTS).getCount(), is(10L));
+    }
+}
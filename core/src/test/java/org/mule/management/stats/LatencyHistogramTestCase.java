@@ -0,0 +1,137 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.management.stats;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+@SmallTest
+public class LatencyHistogramTestCase extends AbstractMuleTestCase
+{
+
+    private LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void reportsZeroWhenEmpty()
+    {
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getP50(), is(0L));
+        assertThat(histogram.getP999(), is(0L));
+    }
+
+    @Test
+    public void countsSmallValuesExactly()
+    {
+        for (long value = 1; value <= 100; value++)
+        {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.getCount(), is(100L));
+        assertThat(histogram.getP50(), is(50L));
+        assertThat(histogram.getP99(), is(99L));
+        assertThat(histogram.getValueAtPercentile(100), is(100L));
+    }
+
+    @Test
+    public void reportsTailLatency()
+    {
+        for (int i = 0; i < 990; i++)
+        {
+            histogram.record(10);
+        }
+        for (int i = 0; i < 10; i++)
+        {
+            histogram.record(5000);
+        }
+
+        assertThat(histogram.getP50(), is(10L));
+        assertThat(histogram.getValueAtPercentile(99), is(10L));
+        assertThat(histogram.getP999(), is(5000L));
+    }
+
+    @Test
+    public void boundsErrorOfLargeValues()
+    {
+        for (long value = 128; value < 1L << 30; value = value * 3 + 1)
+        {
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestValueOf(index);
+            assertTrue(value <= highest);
+            assertTrue(highest - value <= value / 64);
+            assertTrue(LatencyHistogram.highestValueOf(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void addsHistograms()
+    {
+        LatencyHistogram other = new LatencyHistogram();
+        histogram.record(1);
+        other.record(3);
+        other.record(1000);
+
+        histogram.add(other);
+
+        assertThat(histogram.getCount(), is(3L));
+        assertThat(histogram.getP50(), is(3L));
+        assertThat(histogram.getMax(), is(1000L));
+    }
+
+    @Test
+    public void clears()
+    {
+        histogram.record(42);
+
+        histogram.clear();
+
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMax(), is(0L));
+        assertThat(histogram.getP50(), is(0L));
+    }
+
+    @Test
+    public void countsConcurrentUpdates() throws Exception
+    {
+        final StripedCounter counter = new StripedCounter();
+        final int threads = 8;
+        final int updates = 10000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++)
+        {
+            new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (int j = 0; j < updates; j++)
+                    {
+                        counter.increment();
+                        histogram.record(j % 200);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+
+        assertThat(counter.sum(), is((long) threads * updates));
+        assertThat(histogram.getCount(), is((long) threads * updates));
+    }
+}
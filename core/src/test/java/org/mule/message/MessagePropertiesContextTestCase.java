@@ -20,6 +20,8 @@ import org.mule.api.MuleMessage;
 import org.mule.api.transport.PropertyScope;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 
 import org.apache.commons.lang.SerializationUtils;
@@ -91,6 +93,47 @@ public class MessagePropertiesContextTestCase extends AbstractMuleContextTestCas
         doTest(mpc);
     }
 
+    @Test
+    public void testCopiedPropertiesAreIndependent() throws Exception
+    {
+        MessagePropertiesContext mpc = new MessagePropertiesContext();
+        mpc.setProperty("FOO", "BAR", PropertyScope.OUTBOUND);
+        mpc.setProperty("ABC", "abc", PropertyScope.OUTBOUND);
+        mpc.setProperty("IN", "in", PropertyScope.INBOUND);
+
+        MessagePropertiesContext copy = new MessagePropertiesContext(mpc);
+        assertEquals("BAR", copy.getProperty("foo", PropertyScope.OUTBOUND));
+        assertEquals("in", copy.getProperty("in", PropertyScope.INBOUND));
+
+        copy.setProperty("FOO", "COPY", PropertyScope.OUTBOUND);
+        copy.removeProperty("ABC", PropertyScope.OUTBOUND);
+        mpc.clearProperties(PropertyScope.INBOUND);
+
+        assertEquals("BAR", mpc.getProperty("foo", PropertyScope.OUTBOUND));
+        assertEquals("abc", mpc.getProperty("abc", PropertyScope.OUTBOUND));
+        assertNull(mpc.getProperty("in", PropertyScope.INBOUND));
+        assertEquals("COPY", copy.getProperty("foo", PropertyScope.OUTBOUND));
+        assertNull(copy.getProperty("abc", PropertyScope.OUTBOUND));
+        assertEquals("in", copy.getProperty("in", PropertyScope.INBOUND));
+    }
+
+    @Test
+    public void testCopyPropertyNames() throws Exception
+    {
+        MessagePropertiesContext mpc = new MessagePropertiesContext();
+        mpc.setProperty("FOO", "BAR", PropertyScope.OUTBOUND);
+        mpc.setProperty("IN", "in", PropertyScope.INBOUND);
+        mpc.setProperty("DOO", "DAR", PropertyScope.INVOCATION);
+
+        MessagePropertiesContext copy = new MessagePropertiesContext(mpc);
+        assertEquals(new HashSet<String>(Arrays.asList("FOO", "IN")), copy.getPropertyNames());
+
+        copy.setProperty("ABC", "abc", PropertyScope.INVOCATION);
+        copy = (MessagePropertiesContext) SerializationUtils.deserialize(SerializationUtils.serialize(copy));
+        assertEquals(new HashSet<String>(Arrays.asList("FOO", "IN", "ABC")), copy.getPropertyNames());
+        assertEquals(new HashSet<String>(Arrays.asList("FOO", "IN", "DOO")), mpc.getPropertyNames());
+    }
+
     /*@Test
     public void testInboundScopeIsImmutable() throws Exception
     {        
@@ -14,7 +14,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
@@ -41,10 +43,13 @@ import org.mule.management.stats.QueueStatistics;
 import org.mule.processor.strategy.AsynchronousProcessingStrategy;
 import org.mule.service.Pausable;
 import org.mule.util.concurrent.Latch;
+import org.mule.util.queue.Queue;
 
 import java.beans.ExceptionListener;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.resource.spi.work.Work;
 import javax.resource.spi.work.WorkEvent;
@@ -53,6 +58,7 @@ import javax.resource.spi.work.WorkException;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -205,6 +211,106 @@ public class SedaStageInterceptingMessageProcessorTestCase extends AsyncIntercep
 
     }
 
+    @Test
+    public void testProcessOneWayInBatches() throws Exception
+    {
+        final int events = 10;
+        final Latch latch = new Latch();
+        final AtomicInteger processed = new AtomicInteger();
+        ThreadingProfile threadingProfile = new ChainedThreadingProfile(
+            muleContext.getDefaultThreadingProfile());
+        threadingProfile.setMuleContext(muleContext);
+
+        MessageProcessor mockListener = mock(MessageProcessor.class);
+        when(mockListener.process((MuleEvent)any())).thenAnswer(new Answer<MuleEvent>()
+        {
+            public MuleEvent answer(InvocationOnMock invocation) throws Throwable
+            {
+                // block the first batch until all the events are queued
+                latch.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (processed.incrementAndGet() == 2)
+                {
+                    throw new RuntimeException();
+                }
+                return (MuleEvent)invocation.getArguments()[0];
+            }
+        });
+
+        SedaStageInterceptingMessageProcessor sedaStageInterceptingMessageProcessor = new SedaStageInterceptingMessageProcessor(
+            "testProcessOneWayInBatches", "testProcessOneWayInBatches", queueProfile, queueTimeout,
+            threadingProfile, queueStatistics, muleContext);
+        sedaStageInterceptingMessageProcessor.setBatchSize(4);
+        sedaStageInterceptingMessageProcessor.setBatchTimeout(10);
+        sedaStageInterceptingMessageProcessor.setListener(mockListener);
+        sedaStageInterceptingMessageProcessor.initialise();
+        sedaStageInterceptingMessageProcessor.start();
+
+        MessagingExceptionHandler exceptionHandler = mock(MessagingExceptionHandler.class);
+        Flow flow = mock(Flow.class);
+        when(flow.getExceptionListener()).thenReturn(exceptionHandler);
+        when(flow.getProcessingStrategy()).thenReturn(new AsynchronousProcessingStrategy());
+        final MuleEvent event = getTestEvent(TEST_MESSAGE, flow, MessageExchangePattern.ONE_WAY);
+
+        for (int i = 0; i < events; i++)
+        {
+            sedaStageInterceptingMessageProcessor.process(event);
+        }
+        latch.countDown();
+
+        // the failure of one event does not stop the rest of its batch
+        verify(mockListener, timeout(RECEIVE_TIMEOUT).times(events)).process((MuleEvent)any());
+        verify(exceptionHandler, timeout(RECEIVE_TIMEOUT).times(1)).handleException((Exception)any(),
+            (MuleEvent)any());
+        assertEquals(events, ((TestQueueStatistics)queueStatistics).decCount);
+
+        sedaStageInterceptingMessageProcessor.stop();
+    }
+
+    @Test
+    public void testBatchKeepsDequeuedEventsWhenPollFails() throws Exception
+    {
+        MuleEvent first = getTestEvent("first");
+        MuleEvent second = getTestEvent("second");
+        SedaStageInterceptingMessageProcessor sedaStageInterceptingMessageProcessor = createBatchingStage(
+            "testBatchKeepsDequeuedEventsWhenPollFails");
+        Queue queue = mock(Queue.class);
+        when(queue.poll(anyLong())).thenReturn(second).thenThrow(new IllegalStateException());
+        sedaStageInterceptingMessageProcessor.queue = queue;
+
+        assertEquals(Arrays.asList(first, second), sedaStageInterceptingMessageProcessor.dequeueBatch(first));
+    }
+
+    @Test
+    public void testBatchIsPutBackWhenPausedWhileDequeuing() throws Exception
+    {
+        MuleEvent first = getTestEvent("first");
+        MuleEvent second = getTestEvent("second");
+        SedaStageInterceptingMessageProcessor sedaStageInterceptingMessageProcessor = createBatchingStage(
+            "testBatchIsPutBackWhenPausedWhileDequeuing");
+        Queue queue = mock(Queue.class);
+        when(queue.poll(anyLong())).thenReturn(second);
+        sedaStageInterceptingMessageProcessor.queue = queue;
+        SedaStageLifecycleManager lifecycleManager = mock(SedaStageLifecycleManager.class);
+        when(lifecycleManager.isPhaseComplete(Pausable.PHASE_NAME)).thenReturn(false, true);
+        sedaStageInterceptingMessageProcessor.lifecycleManager = lifecycleManager;
+
+        assertTrue(sedaStageInterceptingMessageProcessor.dequeueBatch(first).isEmpty());
+        InOrder untakes = inOrder(queue);
+        untakes.verify(queue).untake(second);
+        untakes.verify(queue).untake(first);
+    }
+
+    private SedaStageInterceptingMessageProcessor createBatchingStage(String name)
+    {
+        ThreadingProfile threadingProfile = new ChainedThreadingProfile(
+            muleContext.getDefaultThreadingProfile());
+        threadingProfile.setMuleContext(muleContext);
+        SedaStageInterceptingMessageProcessor sedaStageInterceptingMessageProcessor = new SedaStageInterceptingMessageProcessor(
+            name, name, queueProfile, queueTimeout, threadingProfile, queueStatistics, muleContext);
+        sedaStageInterceptingMessageProcessor.setBatchSize(4);
+        return sedaStageInterceptingMessageProcessor;
+    }
+
     @Test(expected = MessagingException.class)
     public void testProcessOneWayNoThreadingWithException() throws Exception
     {
@@ -9,6 +9,7 @@
  */
 package org.mule.routing.correlation;
 
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.isA;
@@ -31,11 +32,15 @@ import org.mule.api.store.ObjectStoreManager;
 import org.mule.routing.EventGroup;
 import org.mule.tck.size.SmallTest;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Answers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 @SmallTest
 @RunWith(MockitoJUnitRunner.class)
@@ -106,6 +111,29 @@ public class EventCorrelatorTestCase
         verify(mockEventGroup, times(1)).initAfterDeserialisation(mockMuleContext);
     }
 
+    @Test
+    public void forwardsExpiredGroupWithoutHoldingItsLock() throws Exception
+    {
+        final EventCorrelator eventCorrelator = createEventCorrelator();
+        eventCorrelator.setFailOnTimeout(false);
+        when(mockEventGroup.getCreated()).thenReturn(System.currentTimeMillis());
+        final AtomicBoolean lockHeld = new AtomicBoolean(true);
+        when(mockTimeoutMessageProcessor.process(isA(MuleEvent.class))).thenAnswer(new Answer<MuleEvent>()
+        {
+            @Override
+            public MuleEvent answer(InvocationOnMock invocation) throws Throwable
+            {
+                lockHeld.set(Thread.holdsLock(eventCorrelator.getGroupLock(TEST_GROUP_ID)));
+                return null;
+            }
+        });
+
+        eventCorrelator.forceGroupExpiry(TEST_GROUP_ID);
+
+        verify(mockTimeoutMessageProcessor, times(1)).process(isA(MuleEvent.class));
+        assertFalse(lockHeld.get());
+    }
+
     @Test
     public void disposeObjectStoresIfDisposable() throws Exception
     {
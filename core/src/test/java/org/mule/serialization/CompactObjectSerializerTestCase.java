@@ -0,0 +1,192 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.serialization;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.MessageExchangePattern;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.api.transport.PropertyScope;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.util.SerializationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.SerializationException;
+import org.junit.Test;
+
+public class CompactObjectSerializerTestCase extends AbstractMuleContextTestCase
+{
+
+    private CompactObjectSerializer serializer;
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        super.doSetUp();
+        serializer = new CompactObjectSerializer(muleContext);
+    }
+
+    @Test
+    public void isNotDefaultSerializer()
+    {
+        assertThat(muleContext.getObjectSerializer(), instanceOf(JavaObjectSerializer.class));
+    }
+
+    @Test
+    public void roundTripsEvent() throws Exception
+    {
+        MuleEvent event = createEvent();
+
+        MuleEvent copy = serializer.deserialize(serializer.serialize(event));
+
+        assertThat(copy.getId(), is(event.getId()));
+        assertThat(copy.getMessage().getPayloadAsString(), is("payload"));
+        assertThat(copy.getMessage().<String>getOutboundProperty("outbound"), is("value"));
+        assertThat(copy.getMessage().<String>getInboundProperty("inbound"), is("value"));
+        assertThat(copy.<Integer>getFlowVariable("count"), is(3));
+        assertThat(copy.getSession().<String>getProperty("session"), is("value"));
+        assertThat(copy.getMessage().getMuleContext(), is(muleContext));
+    }
+
+    @Test
+    public void roundTripsObjectsOfUnregisteredClasses() throws Exception
+    {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("list", new ArrayList<String>(Arrays.asList("a", "b")));
+        map.put("type", int.class);
+        map.put("scope", PropertyScope.SESSION);
+        map.put("array", new long[] {1, 2});
+
+        Map<String, Object> copy = serializer.deserialize(serializer.serialize(map));
+
+        assertThat(copy.get("list"), is((Object) Arrays.asList("a", "b")));
+        assertThat(copy.get("type"), is((Object) int.class));
+        assertThat(copy.get("scope"), is((Object) PropertyScope.SESSION));
+        assertThat(((long[]) copy.get("array"))[1], is(2L));
+    }
+
+    @Test
+    public void preservesSharedReferences() throws Exception
+    {
+        MuleMessage message = new DefaultMuleMessage("payload", muleContext);
+        List<MuleMessage> messages = Arrays.asList(message, message);
+
+        List<MuleMessage> copy = serializer.deserialize(serializer.serialize(messages));
+
+        assertThat(copy.get(0) == copy.get(1), is(true));
+    }
+
+    @Test
+    public void readsJavaSerializedObjects() throws Exception
+    {
+        MuleEvent event = createEvent();
+
+        MuleEvent fromBytes = serializer.deserialize(SerializationUtils.serialize(event));
+        MuleEvent fromStream = serializer.deserialize(new ByteArrayInputStream(SerializationUtils.serialize(event)));
+
+        assertThat(fromBytes.getMessage().getPayloadAsString(), is("payload"));
+        assertThat(fromStream.getSession().<String>getProperty("session"), is("value"));
+    }
+
+    @Test
+    public void isSmallerThanJavaSerialization() throws Exception
+    {
+        MuleEvent event = createEvent();
+
+        assertTrue(serializer.serialize(event).length < SerializationUtils.serialize(event).length);
+    }
+
+    @Test
+    public void readsObjectsOfJavaSerializer() throws Exception
+    {
+        ObjectSerializer javaSerializer = new JavaObjectSerializer(muleContext);
+
+        assertThat(serializer.<String>deserialize(javaSerializer.serialize("value")), is("value"));
+    }
+
+    @Test
+    public void isReadByJavaSerializer() throws Exception
+    {
+        ObjectSerializer javaSerializer = new JavaObjectSerializer(muleContext);
+
+        MuleEvent copy = javaSerializer.deserialize(serializer.serialize(createEvent()));
+
+        assertThat(copy.getMessage().getPayloadAsString(), is("payload"));
+    }
+
+    @Test
+    public void keepsDescriptorOfUnregisteredClasses() throws Exception
+    {
+        byte[] bytes = serializer.serialize(new UnregisteredValue());
+
+        assertThat(new String(bytes, "ISO-8859-1").contains("amount"), is(true));
+    }
+
+    @Test
+    public void rejectsRegisteredClassOfOtherSerialVersionUID() throws Exception
+    {
+        byte[] bytes = serializer.serialize(Integer.valueOf(1));
+        // header, TC_OBJECT, TC_CLASSDESC and class id precede the serialVersionUID
+        bytes[13] ^= 1;
+
+        try
+        {
+            serializer.deserialize(bytes);
+            fail("the class was read with another serialVersionUID");
+        }
+        catch (SerializationException e)
+        {
+            assertThat(e.getCause(), instanceOf(InvalidClassException.class));
+        }
+    }
+
+    @Test(expected = SerializationException.class)
+    public void failsOnUnknownFormat() throws Exception
+    {
+        serializer.deserialize(new byte[] {1, 2, 3, 4});
+    }
+
+    private MuleEvent createEvent() throws Exception
+    {
+        MuleMessage message = new DefaultMuleMessage("payload", muleContext);
+        message.setOutboundProperty("inbound", "value");
+        message = message.createInboundMessage();
+        message.setOutboundProperty("outbound", "value");
+        MuleEvent event = new DefaultMuleEvent(message, MessageExchangePattern.ONE_WAY, getTestService());
+        event.setFlowVariable("count", 3);
+        event.getSession().setProperty("session", "value");
+        return event;
+    }
+
+    private static class UnregisteredValue implements Serializable
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private int amount;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.session;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleSession;
+import org.mule.api.config.MuleProperties;
+import org.mule.security.DefaultSecurityContext;
+import org.mule.serialization.JavaObjectSerializer;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class DeltaSessionHandlerTestCase extends AbstractMuleTestCase
+{
+
+    private MuleContext muleContext;
+    private DeltaSessionHandler handler = new DeltaSessionHandler();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        muleContext = mock(MuleContext.class);
+        when(muleContext.getExecutionClassLoader()).thenReturn(Thread.currentThread().getContextClassLoader());
+        when(muleContext.getObjectSerializer()).thenReturn(new JavaObjectSerializer(muleContext));
+        CountingValue.reads = 0;
+    }
+
+    @Test
+    public void deserializesPropertiesWhenRead() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("read", new CountingValue("read"));
+        session.setProperty("notRead", new CountingValue("notRead"));
+
+        MuleSession received = send(session);
+
+        assertThat(received.getId(), is(session.getId()));
+        assertThat(received.getPropertyNamesAsSet().size(), is(2));
+        assertThat(CountingValue.reads, is(0));
+        assertThat(received.<CountingValue> getProperty("read").value, is("read"));
+        assertThat(received.<CountingValue> getProperty("READ").value, is("read"));
+        assertThat(CountingValue.reads, is(1));
+    }
+
+    @Test
+    public void sendsUnchangedSessionAsReceived() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("key", "value");
+        MuleMessage message = createMessage();
+        handler.storeSessionInfoToMessage(session, message);
+        String encodedSession = message.getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY);
+
+        MuleSession received = new DefaultMuleSession(receive(encodedSession));
+        received.getPropertyNamesAsSet();
+        MuleMessage forwarded = createMessage();
+        handler.storeSessionInfoToMessage(received, forwarded);
+
+        assertThat(forwarded.<String> getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY), is(encodedSession));
+    }
+
+    @Test
+    public void sendsChangedSessionWhole() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("kept", new CountingValue("kept"));
+        session.setProperty("changed", "value");
+
+        MuleSession received = send(session);
+        received.setProperty("changed", "newValue");
+        received.setProperty("added", "value");
+        MuleSession forwarded = send(received);
+
+        assertThat(forwarded.getPropertyNamesAsSet().size(), is(3));
+        assertThat(forwarded.<String> getProperty("changed"), is("newValue"));
+        assertThat(forwarded.<String> getProperty("added"), is("value"));
+        assertThat(forwarded.<CountingValue> getProperty("kept").value, is("kept"));
+        assertThat(CountingValue.reads, is(1));
+    }
+
+    @Test
+    public void sendsOnValuesChangedInPlace() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("list", new ArrayList<String>(Arrays.asList("a")));
+
+        MuleSession received = send(session);
+        received.<List<String>> getProperty("list").add("b");
+        MuleSession forwarded = send(received);
+
+        assertThat(forwarded.<List<String>> getProperty("list"), is(Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void doesNotDeserializeReplacedValues() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("key", new CountingValue("value"));
+
+        MuleSession received = send(session);
+        received.setProperty("key", new CountingValue("newValue"));
+
+        assertThat(CountingValue.reads, is(0));
+    }
+
+    @Test
+    public void sendsBackOnlyChanges() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("kept", "value");
+        session.setProperty("changed", "value");
+        session.setProperty("removed", "value");
+        session.setProperty("local", new Object());
+
+        MuleSession received = new DefaultMuleSession(send(session));
+        received.setProperty("changed", "newValue");
+        received.removeProperty("removed");
+        MuleMessage response = createMessage();
+        handler.storeSessionChangesToMessage(received, response);
+        MuleSession changes = receive(response.<String> getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY));
+
+        assertThat(changes.getPropertyNamesAsSet().size(), is(1));
+
+        session.merge(changes);
+
+        assertThat(session.getPropertyNamesAsSet().size(), is(3));
+        assertThat(session.<String> getProperty("kept"), is("value"));
+        assertThat(session.<String> getProperty("changed"), is("newValue"));
+        assertThat(session.getProperty("removed"), is(nullValue()));
+        assertThat(session.getProperty("local") != null, is(true));
+    }
+
+    @Test
+    public void sendsBackValuesChangedInPlace() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("list", new ArrayList<String>(Arrays.asList("a")));
+        session.setProperty("kept", "value");
+
+        MuleSession received = new DefaultMuleSession(send(session));
+        received.<List<String>> getProperty("list").add("b");
+        MuleMessage response = createMessage();
+        handler.storeSessionChangesToMessage(received, response);
+        session.merge(receive(response.<String> getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY)));
+
+        assertThat(session.<List<String>> getProperty("list"), is(Arrays.asList("a", "b")));
+        assertThat(session.<String> getProperty("kept"), is("value"));
+    }
+
+    @Test
+    public void sendsBackReplacedSecurityContext() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("key", "value");
+
+        MuleSession received = new DefaultMuleSession(send(session));
+        received.setSecurityContext(new DefaultSecurityContext(null));
+        MuleMessage response = createMessage();
+        handler.storeSessionChangesToMessage(received, response);
+        session.merge(receive(response.<String> getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY)));
+
+        assertThat(session.getSecurityContext(), instanceOf(DefaultSecurityContext.class));
+        assertThat(session.<String> getProperty("key"), is("value"));
+    }
+
+    @Test
+    public void sendsBackNothingWhenUnchanged() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("key", "value");
+
+        MuleSession received = new DefaultMuleSession(send(session));
+        received.getPropertyNamesAsSet();
+        MuleMessage response = createMessage();
+        handler.storeSessionChangesToMessage(received, response);
+
+        assertThat(response.getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY), is(nullValue()));
+    }
+
+    @Test
+    public void readsSessionsOfSerializeAndEncodeSessionHandler() throws Exception
+    {
+        MuleSession session = new DefaultMuleSession();
+        session.setProperty("key", "value");
+        MuleMessage message = createMessage();
+        new SerializeAndEncodeSessionHandler().storeSessionInfoToMessage(session, message);
+
+        MuleSession received = receive(message.<String> getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY));
+
+        assertThat(received.getId(), is(session.getId()));
+        assertThat(received.<String> getProperty("key"), is("value"));
+    }
+
+    private MuleSession send(MuleSession session) throws Exception
+    {
+        MuleMessage message = createMessage();
+        handler.storeSessionInfoToMessage(session, message);
+        return receive(message.<String> getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY));
+    }
+
+    private MuleSession receive(String encodedSession) throws Exception
+    {
+        MuleMessage message = createMessage();
+        message.setInboundProperty(MuleProperties.MULE_SESSION_PROPERTY, encodedSession);
+        return handler.retrieveSessionInfoFromMessage(message);
+    }
+
+    private MuleMessage createMessage()
+    {
+        return new DefaultMuleMessage("Test Message", muleContext);
+    }
+
+    private static class CountingValue implements Serializable
+    {
+
+        static int reads;
+
+        private final String value;
+
+        CountingValue(String value)
+        {
+            this.value = value;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+        {
+            in.defaultReadObject();
+            reads++;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BatcherTestCase extends AbstractMuleTestCase
+{
+
+    private static final int TIMEOUT = 5000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void stopExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void flushesItemsOfConcurrentCallersInOneBatch() throws Exception
+    {
+        RecordingBatcher batcher = new RecordingBatcher(3, 60000);
+        Future<Void> first = executor.submit(add(batcher, 1, 2));
+        Future<Void> second = executor.submit(add(batcher, 3));
+        first.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        second.get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, batcher.batches.size());
+        List<Integer> items = new ArrayList<Integer>(batcher.batches.get(0));
+        Collections.sort(items);
+        assertEquals(Arrays.asList(1, 2, 3), items);
+    }
+
+    @Test
+    public void flushesIncompleteBatchAfterInterval() throws Exception
+    {
+        RecordingBatcher batcher = new RecordingBatcher(10, 20);
+        batcher.add(1);
+
+        assertEquals(Collections.singletonList(Arrays.asList(1)), batcher.batches);
+    }
+
+    @Test
+    public void flushesPendingBatchOnDemand() throws Exception
+    {
+        RecordingBatcher batcher = new RecordingBatcher(10, 60000);
+        Future<Void> result = executor.submit(add(batcher, 1, 2));
+        // the items may not have been added yet
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!result.isDone() && System.currentTimeMillis() < deadline)
+        {
+            batcher.flushPending();
+            Thread.sleep(10);
+        }
+        result.get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), batcher.batches);
+    }
+
+    @Test
+    public void failsEveryCallerOfFailedBatch() throws Exception
+    {
+        RecordingBatcher batcher = new RecordingBatcher(2, 60000);
+        batcher.failure = new Exception();
+        Future<Void> first = executor.submit(add(batcher, 1));
+        Future<Void> second = executor.submit(add(batcher, 2));
+        for (Future<Void> result : Arrays.asList(first, second))
+        {
+            try
+            {
+                result.get(TIMEOUT, TimeUnit.MILLISECONDS);
+                fail("the batch was flushed");
+            }
+            catch (ExecutionException e)
+            {
+                assertSame(batcher.failure, e.getCause().getCause());
+            }
+        }
+    }
+
+    private Callable<Void> add(final Batcher<Integer> batcher, final Integer... items)
+    {
+        return new Callable<Void>()
+        {
+            public Void call() throws Exception
+            {
+                batcher.add(Arrays.asList(items));
+                return null;
+            }
+        };
+    }
+
+    private static class RecordingBatcher extends Batcher<Integer>
+    {
+
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        private volatile Exception failure;
+
+        RecordingBatcher(int batchSize, long batchInterval)
+        {
+            super(batchSize, batchInterval);
+        }
+
+        @Override
+        protected void flush(List<Integer> items) throws Exception
+        {
+            if (failure != null)
+            {
+                throw failure;
+            }
+            batches.add(new ArrayList<Integer>(items));
+        }
+
+        @Override
+        protected Exception batchFailed(int size, Exception cause)
+        {
+            return new Exception("Failed to flush " + size + " items", cause);
+        }
+    }
+}
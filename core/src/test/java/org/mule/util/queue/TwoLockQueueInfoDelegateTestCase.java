@@ -0,0 +1,176 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class TwoLockQueueInfoDelegateTestCase extends AbstractMuleTestCase
+{
+
+    private static final int RECEIVE_TIMEOUT = 5000;
+
+    @Test
+    public void keepsFifoOrderAndUntakesToTheFront() throws Exception
+    {
+        TwoLockQueueInfoDelegate queue = new TwoLockQueueInfoDelegate(0);
+        queue.putNow("1");
+        queue.offer("2", 0, 0);
+        queue.addAll(Arrays.asList("3", "4"));
+        assertEquals(4, queue.getSize());
+
+        assertEquals("1", queue.poll(0));
+        queue.untake("1");
+        assertEquals("1", queue.peek());
+        assertEquals(Arrays.<Serializable>asList("1", "2", "3", "4"), queue.getContents());
+
+        assertEquals("1", queue.poll(0));
+        assertEquals("2", queue.poll(0));
+        assertEquals("3", queue.poll(0));
+        assertEquals("4", queue.poll(0));
+        assertNull(queue.poll(0));
+        assertNull(queue.peek());
+    }
+
+    @Test
+    public void untakeIntoEmptyQueue() throws Exception
+    {
+        TwoLockQueueInfoDelegate queue = new TwoLockQueueInfoDelegate(0);
+        queue.untake("1");
+        queue.putNow("2");
+        assertEquals("1", queue.poll(0));
+        assertEquals("2", queue.poll(0));
+        assertEquals(0, queue.getSize());
+    }
+
+    @Test
+    public void offerRespectsCapacityAndRoom() throws Exception
+    {
+        TwoLockQueueInfoDelegate queue = new TwoLockQueueInfoDelegate(2);
+        assertTrue(queue.offer("1", 0, 0));
+        assertFalse(queue.offer("2", 1, 10));
+        assertTrue(queue.offer("2", 0, 0));
+        assertFalse(queue.offer("3", 0, 10));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void offerWithRoomBeyondCapacityFails() throws Exception
+    {
+        new TwoLockQueueInfoDelegate(2).offer("1", 2, 0);
+    }
+
+    @Test
+    public void blockedProducerIsReleasedByConsumer() throws Exception
+    {
+        final TwoLockQueueInfoDelegate queue = new TwoLockQueueInfoDelegate(1);
+        queue.putNow("1");
+
+        final CountDownLatch offered = new CountDownLatch(1);
+        Thread producer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    if (queue.offer("2", 0, RECEIVE_TIMEOUT))
+                    {
+                        offered.countDown();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // test fails on the latch
+                }
+            }
+        };
+        producer.start();
+
+        assertEquals("1", queue.poll(0));
+        assertTrue(offered.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("2", queue.poll(0));
+    }
+
+    @Test
+    public void producerWaitingForRoomIsReleasedOnceEnoughItemsAreTaken() throws Exception
+    {
+        final TwoLockQueueInfoDelegate queue = new TwoLockQueueInfoDelegate(3);
+        queue.addAll(Arrays.asList("1", "2", "3"));
+
+        final CountDownLatch offered = new CountDownLatch(1);
+        Thread producer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    // needs room for itself plus one more item
+                    if (queue.offer("4", 1, RECEIVE_TIMEOUT))
+                    {
+                        offered.countDown();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // test fails on the latch
+                }
+            }
+        };
+        producer.start();
+
+        assertEquals("1", queue.poll(0));
+        assertFalse(offered.await(100, TimeUnit.MILLISECONDS));
+        assertEquals("2", queue.poll(0));
+        assertTrue(offered.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.<Serializable>asList("3", "4"), queue.getContents());
+    }
+
+    @Test
+    public void blockedConsumerIsReleasedByProducer() throws Exception
+    {
+        final TwoLockQueueInfoDelegate queue = new TwoLockQueueInfoDelegate(0);
+        final AtomicReference<Serializable> taken = new AtomicReference<Serializable>();
+        final CountDownLatch polled = new CountDownLatch(1);
+        Thread consumer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    taken.set(queue.poll(RECEIVE_TIMEOUT));
+                    polled.countDown();
+                }
+                catch (InterruptedException e)
+                {
+                    // test fails on the latch
+                }
+            }
+        };
+        consumer.start();
+
+        queue.putNow("1");
+        assertTrue(polled.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("1", taken.get());
+    }
+}
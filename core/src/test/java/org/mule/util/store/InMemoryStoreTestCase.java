@@ -11,6 +11,7 @@
 package org.mule.util.store;
 
 import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.store.ObjectAlreadyExistsException;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 
 import java.util.concurrent.CountDownLatch;
@@ -21,6 +22,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class InMemoryStoreTestCase extends AbstractMuleTestCase
 {
@@ -138,6 +140,53 @@ public class InMemoryStoreTestCase extends AbstractMuleTestCase
         assertObjectsExpired("3", "4", "5", "6");
     }
 
+    @Test(expected = ObjectAlreadyExistsException.class)
+    public void testStoreDuplicateKey() throws Exception
+    {
+        createUnboundedObjectStore();
+
+        storeObjects("1");
+        storeObjects("1");
+    }
+
+    @Test
+    public void testFailedDuplicateStoreKeepsOriginalEntry() throws Exception
+    {
+        createBoundedObjectStore(1);
+
+        storeObjects("1");
+        try
+        {
+            store.store("1", "duplicate");
+            fail("duplicate key must be rejected");
+        }
+        catch (ObjectAlreadyExistsException e)
+        {
+            // expected
+        }
+
+        // the rejected value must not linger in the store and push out the original
+        store.expire();
+        assertEquals("1", store.retrieve("1"));
+    }
+
+    @Test
+    public void testStoreAgainAfterRemove() throws Exception
+    {
+        createBoundedObjectStore(2);
+
+        storeObjects("1", "2");
+        store.remove("1");
+        store.store("1", "again");
+        storeObjects("3");
+
+        // "2" is now the oldest entry and must be the one trimmed away
+        store.expire();
+        assertObjectsExpired("2");
+        assertObjectsInStore("1", "3");
+        assertEquals("again", store.retrieve("1"));
+    }
+
     private void storeObjects(String... objects) throws Exception
     {
         for (String entry : objects)
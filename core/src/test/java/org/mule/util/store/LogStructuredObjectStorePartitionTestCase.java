@@ -0,0 +1,195 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.store;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.MuleContext;
+import org.mule.api.store.ObjectAlreadyExistsException;
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.serialization.CompactObjectSerializer;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogStructuredObjectStorePartitionTestCase extends AbstractMuleTestCase
+{
+
+    private static final String PARTITION_NAME = "partition";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MuleContext mockMuleContext;
+    private File partitionDirectory;
+    private LogStructuredObjectStorePartition<Serializable> partition;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        mockMuleContext = mock(MuleContext.class);
+        when(mockMuleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        when(mockMuleContext.getObjectSerializer()).thenReturn(new CompactObjectSerializer(mockMuleContext));
+        partitionDirectory = new File(tempFolder.getRoot(), "log-partition");
+        partition = openPartition();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        partition.close();
+    }
+
+    @Test
+    public void storeRetrieveAndRemove() throws Exception
+    {
+        partition.store("key", "value");
+        assertThat(partition.contains("key"), is(true));
+        assertThat((String) partition.retrieve("key"), is("value"));
+        assertThat((String) partition.remove("key"), is("value"));
+        assertThat(partition.contains("key"), is(false));
+        assertThat(partition.allKeys().size(), is(0));
+    }
+
+    @Test(expected = ObjectAlreadyExistsException.class)
+    public void storeSameKeyThrowsException() throws Exception
+    {
+        partition.store("key", "value");
+        partition.store("key", "value");
+    }
+
+    @Test(expected = ObjectDoesNotExistException.class)
+    public void removeUnknownKeyThrowsException() throws Exception
+    {
+        partition.remove("key");
+    }
+
+    @Test
+    public void entriesSurviveReopen() throws Exception
+    {
+        partition.store("removed", "value");
+        partition.store("kept", "value");
+        partition.store(Integer.valueOf(1), "non string key");
+        partition.remove("removed");
+
+        partition.close();
+        partition = new LogStructuredObjectStorePartition<Serializable>(mockMuleContext, partitionDirectory);
+        partition.open();
+
+        assertThat(partition.getPartitionName(), is(PARTITION_NAME));
+        assertThat(partition.contains("removed"), is(false));
+        assertThat((String) partition.retrieve("kept"), is("value"));
+        assertThat((String) partition.retrieve(Integer.valueOf(1)), is("non string key"));
+    }
+
+    @Test
+    public void tornRecordIsDiscardedOnReopen() throws Exception
+    {
+        partition.store("key", "value");
+        partition.close();
+
+        File[] segments = partitionDirectory.listFiles();
+        for (File segment : segments)
+        {
+            if (segment.getName().endsWith(LogStructuredObjectStorePartition.SEGMENT_FILE_EXTENSION))
+            {
+                appendGarbage(segment);
+            }
+        }
+
+        partition = openPartition();
+        assertThat((String) partition.retrieve("key"), is("value"));
+        partition.store("other", "value");
+        assertThat(partition.allKeys().size(), is(2));
+    }
+
+    @Test
+    public void compactionKeepsLiveEntries() throws Exception
+    {
+        partition.close();
+        partition = new LogStructuredObjectStorePartition<Serializable>(mockMuleContext, PARTITION_NAME, partitionDirectory);
+        partition.setMaxSegmentSize(512);
+        partition.open();
+
+        for (int i = 0; i < 50; i++)
+        {
+            partition.store("key" + i, "value" + i);
+        }
+        for (int i = 0; i < 50; i++)
+        {
+            if (i % 5 != 0)
+            {
+                partition.remove("key" + i);
+            }
+        }
+        int segmentsBefore = partitionDirectory.list().length;
+        partition.compact();
+        assertThat(partitionDirectory.list().length < segmentsBefore, is(true));
+
+        partition.close();
+        partition = openPartition();
+        assertThat(partition.allKeys().size(), is(10));
+        for (int i = 0; i < 50; i += 5)
+        {
+            assertThat((String) partition.retrieve("key" + i), is("value" + i));
+        }
+        assertThat(partition.contains("key1"), is(false));
+    }
+
+    @Test
+    public void expireTrimsOldestEntries() throws Exception
+    {
+        partition.store("1", "value");
+        partition.store("2", "value");
+        partition.store("3", "value");
+
+        partition.expire(Integer.MAX_VALUE, 2);
+        assertThat(partition.contains("1"), is(false));
+        assertThat(partition.contains("2"), is(true));
+        assertThat(partition.contains("3"), is(true));
+
+        partition.expire(0, -1);
+        assertThat(partition.allKeys().size(), is(0));
+    }
+
+    private LogStructuredObjectStorePartition<Serializable> openPartition() throws ObjectStoreException
+    {
+        LogStructuredObjectStorePartition<Serializable> newPartition = new LogStructuredObjectStorePartition<Serializable>(
+            mockMuleContext, PARTITION_NAME, partitionDirectory);
+        newPartition.open();
+        return newPartition;
+    }
+
+    private void appendGarbage(File file) throws IOException
+    {
+        FileOutputStream out = new FileOutputStream(file, true);
+        try
+        {
+            out.write(new byte[] {0, 0, 0, 40, 1, 2, 3});
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import static org.mockito.Mockito.when;
 import org.mule.api.MuleContext;
 import org.mule.api.store.ObjectAlreadyExistsException;
 import org.mule.api.store.ObjectStoreException;
+import org.mule.serialization.CompactObjectSerializer;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 
 import java.io.File;
@@ -46,6 +47,7 @@ public class PartitionedPersistentObjectStoreTestCase extends AbstractMuleTestCa
         numberOfPartitions = 3;
         when(mockMuleContext.getConfiguration().getWorkingDirectory()).thenReturn(".");
         when(mockMuleContext.getExecutionClassLoader()).thenReturn(Thread.currentThread().getContextClassLoader());
+        when(mockMuleContext.getObjectSerializer()).thenReturn(new CompactObjectSerializer(mockMuleContext));
         os = new PartitionedPersistentObjectStore<Serializable>(mockMuleContext);
         File objectStorePersistDir = new File(PartitionedPersistentObjectStore.OBJECT_STORE_DIR);
         if (objectStorePersistDir.exists())
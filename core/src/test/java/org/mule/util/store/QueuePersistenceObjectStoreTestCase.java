@@ -30,6 +30,7 @@ import org.mule.api.construct.FlowConstruct;
 import org.mule.api.store.ListableObjectStore;
 import org.mule.api.store.ObjectStoreException;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.serialization.CompactObjectSerializer;
 import org.mule.util.FileUtils;
 import org.mule.util.SerializationUtils;
 import org.mule.util.UUID;
@@ -73,6 +74,7 @@ public class QueuePersistenceObjectStoreTestCase extends AbstractObjectStoreCont
         when(mockMuleContext.getConfiguration()).thenReturn(mockConfig);
         when(mockMuleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
         when(mockMuleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        when(mockMuleContext.getObjectSerializer()).thenReturn(new CompactObjectSerializer(mockMuleContext));
     }
 
     @Override
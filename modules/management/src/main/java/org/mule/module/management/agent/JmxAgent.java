@@ -18,17 +18,24 @@ import org.mule.api.model.Model;
 import org.mule.api.service.Service;
 import org.mule.api.transport.Connector;
 import org.mule.api.transport.MessageReceiver;
+import org.mule.cache.ObjectStoreCachingStrategy;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.construct.AbstractFlowConstruct;
 import org.mule.context.notification.MuleContextNotification;
 import org.mule.context.notification.NotificationException;
+import org.mule.el.mvel.MVELExpressionLanguage;
+import org.mule.management.stats.ConnectorStatisticsProvider;
 import org.mule.management.stats.FlowConstructStatistics;
 import org.mule.module.management.i18n.ManagementMessages;
 import org.mule.module.management.mbean.ApplicationService;
+import org.mule.module.management.mbean.CachingStrategyService;
+import org.mule.module.management.mbean.CachingStrategyServiceMBean;
 import org.mule.module.management.mbean.ConnectorService;
 import org.mule.module.management.mbean.ConnectorServiceMBean;
 import org.mule.module.management.mbean.EndpointService;
 import org.mule.module.management.mbean.EndpointServiceMBean;
+import org.mule.module.management.mbean.ExpressionLanguageService;
+import org.mule.module.management.mbean.ExpressionLanguageServiceMBean;
 import org.mule.module.management.mbean.FlowConstructService;
 import org.mule.module.management.mbean.FlowConstructServiceMBean;
 import org.mule.module.management.mbean.ModelService;
@@ -92,6 +99,12 @@ public class JmxAgent extends AbstractAgent
      */
     public static final String DEFAULT_JMX_AUTHENTICATOR = SimplePasswordJmxAuthenticator.class.getName();
 
+    /**
+     * Prefix of the names the statistics of {@link ConnectorStatisticsProvider}s are
+     * published under.
+     */
+    public static final String CONNECTOR_STATISTICS_JMX_NAME_PREFIX = "type=ConnectorStatistics,name=";
+
     /**
      * Logger used by this class
      */
@@ -364,6 +377,20 @@ public class JmxAgent extends AbstractAgent
         mBeanServer.registerMBean(mBean, on);
     }
 
+    protected void registerExpressionLanguageService() throws NotCompliantMBeanException, MBeanRegistrationException,
+        InstanceAlreadyExistsException, MalformedObjectNameException
+    {
+        if (!(muleContext.getExpressionLanguage() instanceof MVELExpressionLanguage))
+        {
+            return;
+        }
+        ObjectName on = jmxSupport.getObjectName(String.format("%s:%s", jmxSupport.getDomainName(muleContext, !containerMode), ExpressionLanguageServiceMBean.DEFAULT_JMX_NAME));
+        ExpressionLanguageServiceMBean service = new ExpressionLanguageService((MVELExpressionLanguage) muleContext.getExpressionLanguage());
+        ClassloaderSwitchingMBeanWrapper mBean = new ClassloaderSwitchingMBeanWrapper(service, ExpressionLanguageServiceMBean.class, muleContext.getExecutionClassLoader());
+        logger.debug("Registering expression language with name: " + on);
+        mBeanServer.registerMBean(mBean, on);
+    }
+
     protected void registerModelServices() throws NotCompliantMBeanException, MBeanRegistrationException,
             InstanceAlreadyExistsException, MalformedObjectNameException
     {
@@ -524,6 +551,44 @@ public class JmxAgent extends AbstractAgent
             ClassloaderSwitchingMBeanWrapper mBean = new ClassloaderSwitchingMBeanWrapper(service, ConnectorServiceMBean.class, muleContext.getExecutionClassLoader());
             mBeanServer.registerMBean(mBean, oName);
             logger.info("Registered Connector Service with name " + oName);
+
+            if (connector instanceof ConnectorStatisticsProvider)
+            {
+                registerConnectorStatistics((ConnectorStatisticsProvider) connector, name);
+            }
+        }
+    }
+
+    protected void registerConnectorStatistics(ConnectorStatisticsProvider provider, String name) throws MalformedObjectNameException,
+        NotCompliantMBeanException, MBeanRegistrationException, InstanceAlreadyExistsException
+    {
+        Object statistics = provider.getStatisticsMBean();
+        if (statistics == null)
+        {
+            return;
+        }
+        final String jmxName = String.format("%s:%s%s", jmxSupport.getDomainName(muleContext, !containerMode), CONNECTOR_STATISTICS_JMX_NAME_PREFIX, name);
+        ObjectName oName = jmxSupport.getObjectName(jmxName);
+        mBeanServer.registerMBean(statistics, oName);
+        logger.info("Registered Connector Statistics with name " + oName);
+    }
+
+    protected void registerCachingStrategyServices() throws MalformedObjectNameException,
+        NotCompliantMBeanException, MBeanRegistrationException, InstanceAlreadyExistsException
+    {
+        for (ObjectStoreCachingStrategy cachingStrategy : muleContext.getRegistry().lookupObjects(ObjectStoreCachingStrategy.class))
+        {
+            if (cachingStrategy.getName() == null)
+            {
+                continue;
+            }
+            CachingStrategyServiceMBean service = new CachingStrategyService(cachingStrategy);
+            final String name = jmxSupport.escape(cachingStrategy.getName());
+            final String jmxName = String.format("%s:%s%s", jmxSupport.getDomainName(muleContext, !containerMode), CachingStrategyServiceMBean.DEFAULT_JMX_NAME_PREFIX, name);
+            ObjectName oName = jmxSupport.getObjectName(jmxName);
+            ClassloaderSwitchingMBeanWrapper mBean = new ClassloaderSwitchingMBeanWrapper(service, CachingStrategyServiceMBean.class, muleContext.getExecutionClassLoader());
+            mBeanServer.registerMBean(mBean, oName);
+            logger.info("Registered Caching Strategy Service with name " + oName);
         }
     }
 
@@ -707,12 +772,14 @@ public class JmxAgent extends AbstractAgent
                     registerStatisticsService();
                     registerMuleService();
                     registerConfigurationService();
+                    registerExpressionLanguageService();
                     registerModelServices();
                     registerServiceServices();
                     registerFlowConstructServices();
                     registerEndpointServices();
                     registerConnectorServices();
                     registerApplicationServices();
+                    registerCachingStrategyServices();
                 }
                 catch (Exception e)
                 {
@@ -0,0 +1,72 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.management.mbean;
+
+import org.mule.cache.ObjectStoreCachingStrategy;
+
+/**
+ * Publishes the statistics of an {@link ObjectStoreCachingStrategy}.
+ */
+public class CachingStrategyService implements CachingStrategyServiceMBean
+{
+
+    private final ObjectStoreCachingStrategy cachingStrategy;
+
+    public CachingStrategyService(ObjectStoreCachingStrategy cachingStrategy)
+    {
+        this.cachingStrategy = cachingStrategy;
+    }
+
+    public String getName()
+    {
+        return cachingStrategy.getName();
+    }
+
+    public long getHits()
+    {
+        return cachingStrategy.getStatistics().getHits();
+    }
+
+    public long getMisses()
+    {
+        return cachingStrategy.getStatistics().getMisses();
+    }
+
+    public long getCoalescedRequests()
+    {
+        return cachingStrategy.getStatistics().getCoalescedRequests();
+    }
+
+    public long getEvictions()
+    {
+        return cachingStrategy.getEvictions();
+    }
+
+    public long getInvalidatedEntries()
+    {
+        return cachingStrategy.getStatistics().getInvalidatedEntries();
+    }
+
+    public int getEntryCount()
+    {
+        return cachingStrategy.getEntryCount();
+    }
+
+    public void clearStatistics()
+    {
+        cachingStrategy.getStatistics().clear();
+    }
+
+    public void invalidate()
+    {
+        cachingStrategy.invalidate();
+    }
+}
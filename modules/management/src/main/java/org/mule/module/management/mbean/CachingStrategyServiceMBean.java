@@ -0,0 +1,38 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.management.mbean;
+
+/**
+ * <code>CachingStrategyServiceMBean</code> defines the management interface of an
+ * {@link org.mule.cache.ObjectStoreCachingStrategy}.
+ */
+public interface CachingStrategyServiceMBean
+{
+    String DEFAULT_JMX_NAME_PREFIX = "type=CachingStrategy,name=";
+
+    String getName();
+
+    long getHits();
+
+    long getMisses();
+
+    long getCoalescedRequests();
+
+    long getEvictions();
+
+    long getInvalidatedEntries();
+
+    int getEntryCount();
+
+    void clearStatistics();
+
+    void invalidate();
+}
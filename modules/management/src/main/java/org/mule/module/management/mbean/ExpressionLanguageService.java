@@ -0,0 +1,72 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.management.mbean;
+
+import org.mule.el.mvel.CompiledExpressionCache;
+import org.mule.el.mvel.MVELExpressionLanguage;
+
+/**
+ * <code>ExpressionLanguageService</code> exposes the compiled expression cache
+ * statistics of the Mule expression language as a management service.
+ */
+public class ExpressionLanguageService implements ExpressionLanguageServiceMBean
+{
+    private final MVELExpressionLanguage expressionLanguage;
+
+    public ExpressionLanguageService(MVELExpressionLanguage expressionLanguage)
+    {
+        this.expressionLanguage = expressionLanguage;
+    }
+
+    public int getCompiledExpressionCacheSize()
+    {
+        CompiledExpressionCache cache = expressionLanguage.getCompiledExpressionCache();
+        return cache == null ? 0 : cache.getSize();
+    }
+
+    public int getCompiledExpressionCacheMaxSize()
+    {
+        CompiledExpressionCache cache = expressionLanguage.getCompiledExpressionCache();
+        return cache == null ? 0 : cache.getMaxSize();
+    }
+
+    public long getCompiledExpressionCacheHits()
+    {
+        CompiledExpressionCache cache = expressionLanguage.getCompiledExpressionCache();
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    public long getCompiledExpressionCacheMisses()
+    {
+        CompiledExpressionCache cache = expressionLanguage.getCompiledExpressionCache();
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    public long getCompiledExpressionCacheEvictions()
+    {
+        CompiledExpressionCache cache = expressionLanguage.getCompiledExpressionCache();
+        return cache == null ? 0 : cache.getEvictions();
+    }
+
+    public boolean isOptimizeThreadSafeExpressions()
+    {
+        return expressionLanguage.isOptimizeThreadSafeExpressions();
+    }
+
+    public void clearCompiledExpressionCache()
+    {
+        CompiledExpressionCache cache = expressionLanguage.getCompiledExpressionCache();
+        if (cache != null)
+        {
+            cache.clear();
+        }
+    }
+}
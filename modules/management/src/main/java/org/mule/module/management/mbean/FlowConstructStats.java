@@ -12,6 +12,11 @@ package org.mule.module.management.mbean;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.mule.management.stats.FlowConstructStatistics;
+import org.mule.management.stats.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import javax.management.MBeanRegistration;
 import javax.management.MBeanServer;
@@ -64,6 +69,36 @@ public class FlowConstructStats implements FlowConstructStatsMBean, MBeanRegistr
         return statistics.getTotalProcessingTime();
     }
 
+    public long getProcessingTimeP50()
+    {
+        return statistics.getProcessingTimeP50();
+    }
+
+    public long getProcessingTimeP99()
+    {
+        return statistics.getProcessingTimeP99();
+    }
+
+    public long getProcessingTimeP999()
+    {
+        return statistics.getProcessingTimeP999();
+    }
+
+    public String[] getOutboundEndpointTimes()
+    {
+        return getOutboundEndpointTimes(statistics);
+    }
+
+    static String[] getOutboundEndpointTimes(FlowConstructStatistics statistics)
+    {
+        List<String> times = new ArrayList<String>();
+        for (Map.Entry<String, LatencyHistogram> entry : statistics.getOutboundEndpointTimes().entrySet())
+        {
+            times.add(entry.getKey() + "=" + entry.getValue());
+        }
+        return times.toArray(new String[times.size()]);
+    }
+
     public void clearStatistics()
     {
         statistics.clear();
@@ -34,6 +34,18 @@ public interface FlowConstructStatsMBean
 
     long getTotalProcessingTime();
 
+    long getProcessingTimeP50();
+
+    long getProcessingTimeP99();
+
+    long getProcessingTimeP999();
+
+    /**
+     * @return the median, 99th and 99.9th percentile of the times taken to send or dispatch
+     *         to each outbound endpoint, as "endpoint=p50/p99/p999"
+     */
+    String[] getOutboundEndpointTimes();
+
     long getFatalErrors();
 
     long getExecutionErrors();
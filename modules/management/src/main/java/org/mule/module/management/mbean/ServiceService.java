@@ -258,4 +258,19 @@ public class ServiceService extends FlowConstructService implements ServiceServi
     {
         return statistics.getTotalExecutionTime();
     }
+
+    public long getExecutionTimeP50()
+    {
+        return statistics.getExecutionTimeP50();
+    }
+
+    public long getExecutionTimeP99()
+    {
+        return statistics.getExecutionTimeP99();
+    }
+
+    public long getExecutionTimeP999()
+    {
+        return statistics.getExecutionTimeP999();
+    }
 }
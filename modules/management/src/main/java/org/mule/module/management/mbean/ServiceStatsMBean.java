@@ -29,6 +29,12 @@ public interface ServiceStatsMBean extends FlowConstructStatsMBean
 
     long getTotalExecutionTime();
 
+    long getExecutionTimeP50();
+
+    long getExecutionTimeP99();
+
+    long getExecutionTimeP999();
+
     long getQueuedEvents();
 
     long getReplyToEventsSent();
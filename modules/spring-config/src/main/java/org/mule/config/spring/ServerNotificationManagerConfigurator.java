@@ -14,6 +14,7 @@ import org.mule.api.MuleContext;
 import org.mule.api.context.MuleContextAware;
 import org.mule.api.context.notification.ServerNotificationListener;
 import org.mule.context.notification.ListenerSubscriptionPair;
+import org.mule.context.notification.NotificationOverflowPolicy;
 import org.mule.context.notification.ServerNotificationManager;
 
 import java.util.Collection;
@@ -34,6 +35,10 @@ public class ServerNotificationManagerConfigurator
     private ApplicationContext applicationContext;
 
     private Boolean dynamic;
+    private Integer dispatcherThreads;
+    private Integer queueSize;
+    private Integer batchSize;
+    private NotificationOverflowPolicy overflowPolicy;
     private Map interfaceToEvents;
     private Collection interfaces;
     private Collection<ListenerSubscriptionPair> pairs;
@@ -58,6 +63,22 @@ public class ServerNotificationManagerConfigurator
         {
             notificationManager.setDisabledInterfaces(interfaces);
         }
+        if (dispatcherThreads != null)
+        {
+            notificationManager.setDispatcherThreads(dispatcherThreads.intValue());
+        }
+        if (queueSize != null)
+        {
+            notificationManager.setQueueSize(queueSize.intValue());
+        }
+        if (batchSize != null)
+        {
+            notificationManager.setBatchSize(batchSize.intValue());
+        }
+        if (overflowPolicy != null)
+        {
+            notificationManager.setOverflowPolicy(overflowPolicy);
+        }
 
         // Merge:
         // i) explicitly configured notification listeners,
@@ -133,6 +154,26 @@ public class ServerNotificationManagerConfigurator
         this.dynamic = new Boolean(dynamic);
     }
 
+    public void setDispatcherThreads(int dispatcherThreads)
+    {
+        this.dispatcherThreads = Integer.valueOf(dispatcherThreads);
+    }
+
+    public void setQueueSize(int queueSize)
+    {
+        this.queueSize = Integer.valueOf(queueSize);
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = Integer.valueOf(batchSize);
+    }
+
+    public void setOverflowPolicy(NotificationOverflowPolicy overflowPolicy)
+    {
+        this.overflowPolicy = overflowPolicy;
+    }
+
     public void setInterfaceToTypes(Map interfaceToEvents) throws ClassNotFoundException
     {
         this.interfaceToEvents = interfaceToEvents;
@@ -14,6 +14,8 @@ import org.mule.api.config.MuleProperties;
 import org.mule.api.config.ThreadingProfile;
 import org.mule.api.processor.LoggerMessageProcessor;
 import org.mule.api.source.MessageSource;
+import org.mule.cache.CachingMessageProcessor;
+import org.mule.cache.ObjectStoreCachingStrategy;
 import org.mule.component.DefaultInterfaceBinding;
 import org.mule.component.DefaultJavaComponent;
 import org.mule.component.PooledJavaComponent;
@@ -563,6 +565,9 @@ public class MuleNamespaceHandler extends AbstractMuleNamespaceHandler
         registerBeanDefinitionParser("message-chunk-splitter", new SplitterDefinitionParser(MessageChunkSplitter.class));
         registerBeanDefinitionParser("custom-splitter", new SplitterDefinitionParser());
         registerMuleBeanDefinitionParser("foreach", new ChildDefinitionParser("messageProcessor", Foreach.class)).addAlias("collection", "collectionExpression");
+        registerBeanDefinitionParser("cache", new ChildDefinitionParser("messageProcessor", CachingMessageProcessor.class));
+        registerMuleBeanDefinitionParser("object-store-caching-strategy", new MuleOrphanDefinitionParser(ObjectStoreCachingStrategy.class, true))
+            .addAlias("objectStore", "store");
 
         // Routing: Routing Message Processors
 
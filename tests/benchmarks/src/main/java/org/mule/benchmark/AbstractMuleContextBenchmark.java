@@ -0,0 +1,83 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.MessageExchangePattern;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.config.ConfigurationBuilder;
+import org.mule.config.builders.DefaultsConfigurationBuilder;
+import org.mule.construct.Flow;
+import org.mule.context.DefaultMuleContextFactory;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base class for the benchmarks that need a running {@link MuleContext}. The context is
+ * created and started once per trial, before any of the benchmark methods run, and disposed
+ * when the trial ends.
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractMuleContextBenchmark
+{
+
+    protected MuleContext muleContext;
+    protected Flow flow;
+
+    @Setup
+    public void setUpMuleContext() throws Exception
+    {
+        muleContext = new DefaultMuleContextFactory().createMuleContext(getConfigurationBuilder());
+        muleContext.start();
+        flow = new Flow("benchmark", muleContext);
+        muleContext.getRegistry().registerFlowConstruct(flow);
+    }
+
+    @TearDown
+    public void tearDownMuleContext()
+    {
+        if (muleContext != null)
+        {
+            muleContext.dispose();
+            muleContext = null;
+        }
+    }
+
+    /**
+     * @return the builder used to configure the context, by default one that only registers
+     *         the default Mule objects
+     */
+    protected ConfigurationBuilder getConfigurationBuilder() throws Exception
+    {
+        return new DefaultsConfigurationBuilder();
+    }
+
+    protected MuleMessage createMessage(Object payload)
+    {
+        return new DefaultMuleMessage(payload, muleContext);
+    }
+
+    protected MuleEvent createEvent(Object payload)
+    {
+        return createEvent(createMessage(payload));
+    }
+
+    protected MuleEvent createEvent(MuleMessage message)
+    {
+        return new DefaultMuleEvent(message, MessageExchangePattern.REQUEST_RESPONSE, flow);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.routing.MuleMessageInfoMapping;
+import org.mule.routing.correlation.CollectionCorrelatorCallback;
+import org.mule.routing.correlation.EventCorrelator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Correlation of events by several threads at once. The parts of <code>openGroups</code>
+ * groups arrive interleaved with each other, so threads keep adding events to different
+ * groups at the same time, as they do behind a splitter or a scatter-gather.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(8)
+public class EventCorrelatorBenchmark extends AbstractMuleContextBenchmark
+{
+
+    @Param({"500"})
+    public int openGroups;
+
+    @Param({"10"})
+    public int parts;
+
+    private EventCorrelator correlator;
+    private final AtomicLong nextEvent = new AtomicLong();
+
+    @Setup
+    public void setUpCorrelator()
+    {
+        correlator = new EventCorrelator(new CollectionCorrelatorCallback(muleContext, false, "benchmark"),
+            null, new MuleMessageInfoMapping(), muleContext, "benchmark", false, "benchmark");
+    }
+
+    @TearDown
+    public void tearDownCorrelator()
+    {
+        correlator.dispose();
+    }
+
+    @Benchmark
+    public MuleEvent correlate() throws Exception
+    {
+        long index = nextEvent.getAndIncrement();
+        long window = (long) openGroups * parts;
+        long offset = index % window;
+
+        MuleMessage message = createMessage("payload");
+        message.setCorrelationId("group" + ((index / window) * openGroups + offset % openGroups));
+        message.setCorrelationGroupSize(parts);
+        message.setCorrelationSequence((int) (offset / openGroups) + 1);
+        return correlator.process(createEvent(message));
+    }
+}
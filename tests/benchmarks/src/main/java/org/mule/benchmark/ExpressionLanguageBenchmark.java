@@ -0,0 +1,80 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.expression.ExpressionManager;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation of MEL expressions, expressions handled by the legacy evaluators and templates
+ * mixing both through the {@link ExpressionManager}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ExpressionLanguageBenchmark extends AbstractMuleContextBenchmark
+{
+
+    private ExpressionManager expressionManager;
+    private MuleEvent event;
+
+    @Setup
+    public void setUpEvent() throws Exception
+    {
+        expressionManager = muleContext.getExpressionManager();
+        event = createEvent("payload");
+        event.getMessage().setOutboundProperty("header", "value");
+        event.setFlowVariable("variable", 10);
+    }
+
+    @Benchmark
+    public Object evaluatePayload()
+    {
+        return expressionManager.evaluate("#[message.payload]", event);
+    }
+
+    @Benchmark
+    public Object evaluateFlowVariable()
+    {
+        return expressionManager.evaluate("#[flowVars.variable]", event);
+    }
+
+    @Benchmark
+    public boolean evaluateBoolean()
+    {
+        return expressionManager.evaluateBoolean("#[flowVars.variable > 5 && payload == 'payload']", event);
+    }
+
+    @Benchmark
+    public Object evaluateLegacyEvaluator()
+    {
+        return expressionManager.evaluate("#[header:OUTBOUND:header]", event);
+    }
+
+    @Benchmark
+    public String parseTemplate()
+    {
+        return expressionManager.parse("Payload #[message.payload] with header #[header:OUTBOUND:header] and variable #[flowVars.variable]", event);
+    }
+}
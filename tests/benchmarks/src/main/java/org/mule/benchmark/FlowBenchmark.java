@@ -0,0 +1,112 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.MessageExchangePattern;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.client.LocalMuleClient;
+import org.mule.api.config.ConfigurationBuilder;
+import org.mule.config.spring.SpringXmlConfigurationBuilder;
+import org.mule.construct.Flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end processing of messages by the flows in <code>benchmark-flows.xml</code>: a
+ * synchronous flow invoked directly, a queued asynchronous flow, a request-response round
+ * trip over the VM transport and the aggregation of a split collection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FlowBenchmark extends AbstractMuleContextBenchmark
+{
+
+    private static final long RECEIVE_TIMEOUT = 10000;
+
+    @Param({"10"})
+    public int parts;
+
+    private Flow syncFlow;
+    private LocalMuleClient client;
+    private List<String> collection;
+
+    @Override
+    protected ConfigurationBuilder getConfigurationBuilder() throws Exception
+    {
+        return new SpringXmlConfigurationBuilder("benchmark-flows.xml");
+    }
+
+    @Setup
+    public void setUpFlows()
+    {
+        syncFlow = (Flow) muleContext.getRegistry().lookupFlowConstruct("sync");
+        client = muleContext.getClient();
+        collection = new ArrayList<String>(parts);
+        for (int i = 0; i < parts; i++)
+        {
+            collection.add("part" + i);
+        }
+    }
+
+    @Benchmark
+    public MuleEvent syncFlow() throws MuleException
+    {
+        return syncFlow.process(new DefaultMuleEvent(createMessage("payload"), MessageExchangePattern.REQUEST_RESPONSE, syncFlow));
+    }
+
+    @Benchmark
+    public MuleMessage queuedAsyncFlow() throws MuleException
+    {
+        client.dispatch("vm://queuedAsync.in", "payload", null);
+        return receive("vm://queuedAsync.out");
+    }
+
+    @Benchmark
+    public MuleMessage vmRoundTrip() throws MuleException
+    {
+        return client.send("vm://vmRoundTrip.in", "payload", null);
+    }
+
+    @Benchmark
+    public MuleMessage aggregation() throws MuleException
+    {
+        client.dispatch("vm://aggregation.in", collection, null);
+        return receive("vm://aggregation.out");
+    }
+
+    private MuleMessage receive(String url) throws MuleException
+    {
+        MuleMessage message = client.request(url, RECEIVE_TIMEOUT);
+        if (message == null)
+        {
+            throw new IllegalStateException("No message received from " + url + " in " + RECEIVE_TIMEOUT + " ms");
+        }
+        return message;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.api.processor.MessageProcessorChain;
+import org.mule.processor.chain.DefaultMessageProcessorChain;
+import org.mule.processor.chain.DefaultMessageProcessorChainBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dispatch of an event through a {@link DefaultMessageProcessorChain} of trivial processors,
+ * so the measured time is the overhead of the chain itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MessageProcessorChainBenchmark extends AbstractMuleContextBenchmark
+{
+
+    private static final MessageProcessor PASS_THROUGH = new MessageProcessor()
+    {
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            return event;
+        }
+    };
+
+    @Param({"1", "10", "50"})
+    public int processors;
+
+    private MessageProcessorChain chain;
+    private MessageProcessorChain nestedChain;
+    private MuleEvent event;
+
+    @Setup
+    public void setUpChains() throws Exception
+    {
+        List<MessageProcessor> list = new ArrayList<MessageProcessor>(processors);
+        for (int i = 0; i < processors; i++)
+        {
+            list.add(PASS_THROUGH);
+        }
+        chain = DefaultMessageProcessorChain.from(list);
+
+        // every processor in its own chain, as built for nested elements of the configuration
+        DefaultMessageProcessorChainBuilder builder = new DefaultMessageProcessorChainBuilder(flow);
+        for (int i = 0; i < processors; i++)
+        {
+            builder.chain(DefaultMessageProcessorChain.from(PASS_THROUGH));
+        }
+        nestedChain = builder.build();
+
+        event = createEvent("payload");
+    }
+
+    @Benchmark
+    public MuleEvent processChain() throws MuleException
+    {
+        return chain.process(event);
+    }
+
+    @Benchmark
+    public MuleEvent processNestedChain() throws MuleException
+    {
+        return nestedChain.process(event);
+    }
+}
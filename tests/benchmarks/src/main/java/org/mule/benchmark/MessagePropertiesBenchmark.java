@@ -0,0 +1,118 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.MessagePropertiesContext;
+import org.mule.api.MuleMessage;
+import org.mule.api.transport.PropertyScope;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Property lookups and updates, both directly on a {@link MessagePropertiesContext} and
+ * through the scoped accessors of {@link MuleMessage}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MessagePropertiesBenchmark extends AbstractMuleContextBenchmark
+{
+
+    @Param({"5", "50"})
+    public int properties;
+
+    private MessagePropertiesContext propertiesContext;
+    private MuleMessage message;
+    private String existingKey;
+    private String existingKeyOtherCase;
+
+    @Setup
+    public void setUpProperties() throws Exception
+    {
+        propertiesContext = new MessagePropertiesContext();
+        message = createMessage("payload");
+        for (int i = 0; i < properties; i++)
+        {
+            propertiesContext.setProperty("property" + i, "value" + i, PropertyScope.OUTBOUND);
+            message.setOutboundProperty("outbound" + i, "value" + i);
+        }
+        message = message.createInboundMessage();
+        for (int i = 0; i < properties; i++)
+        {
+            message.setInvocationProperty("invocation" + i, "value" + i);
+        }
+        existingKey = "property" + (properties / 2);
+        existingKeyOtherCase = existingKey.toUpperCase();
+    }
+
+    @Benchmark
+    public Object contextGetProperty()
+    {
+        return propertiesContext.getProperty(existingKey, PropertyScope.OUTBOUND);
+    }
+
+    @Benchmark
+    public Object contextGetPropertyIgnoringCase()
+    {
+        return propertiesContext.getProperty(existingKeyOtherCase, PropertyScope.OUTBOUND);
+    }
+
+    @Benchmark
+    public Object contextGetMissingProperty()
+    {
+        return propertiesContext.getProperty("missing", PropertyScope.OUTBOUND);
+    }
+
+    @Benchmark
+    public Object contextSetProperty()
+    {
+        propertiesContext.setProperty(existingKey, "updated", PropertyScope.OUTBOUND);
+        return propertiesContext;
+    }
+
+    @Benchmark
+    public Set<String> contextGetPropertyNames()
+    {
+        return propertiesContext.getPropertyNames(PropertyScope.OUTBOUND);
+    }
+
+    @Benchmark
+    public Object messageGetInboundProperty()
+    {
+        return message.getInboundProperty("outbound0");
+    }
+
+    @Benchmark
+    public Object messageGetInvocationProperty()
+    {
+        return message.getInvocationProperty("invocation0");
+    }
+
+    @Benchmark
+    public Object messageSetOutboundProperty()
+    {
+        message.setOutboundProperty("outbound0", "updated");
+        return message;
+    }
+}
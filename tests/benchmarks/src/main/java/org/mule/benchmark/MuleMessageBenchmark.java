@@ -0,0 +1,98 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copies of {@link DefaultMuleMessage} and {@link DefaultMuleEvent}, as done by transformers,
+ * routers and asynchronous processing, for messages with a varying number of properties in
+ * every scope. Run with <code>-prof gc</code> to compare the memory allocated by every copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MuleMessageBenchmark extends AbstractMuleContextBenchmark
+{
+
+    @Param({"0", "10", "50"})
+    public int properties;
+
+    private MuleMessage message;
+    private MuleEvent event;
+
+    @Setup
+    public void setUpMessage() throws Exception
+    {
+        message = createMessage("payload");
+        for (int i = 0; i < properties; i++)
+        {
+            message.setOutboundProperty("outbound" + i, "value" + i);
+            message.setInvocationProperty("invocation" + i, "value" + i);
+        }
+        message = message.createInboundMessage();
+        for (int i = 0; i < properties; i++)
+        {
+            message.setOutboundProperty("outbound" + i, "value" + i);
+            message.setInvocationProperty("invocation" + i, "value" + i);
+        }
+        event = createEvent(message);
+    }
+
+    @Benchmark
+    public MuleMessage copyMessage()
+    {
+        return new DefaultMuleMessage(message);
+    }
+
+    @Benchmark
+    public MuleMessage copyMessageWithNewPayload()
+    {
+        return new DefaultMuleMessage("new payload", message, muleContext);
+    }
+
+    @Benchmark
+    public MuleMessage copyMessageAndSetProperty()
+    {
+        MuleMessage copy = new DefaultMuleMessage(message);
+        copy.setOutboundProperty("outbound0", "updated");
+        return copy;
+    }
+
+    @Benchmark
+    public MuleMessage createInboundMessage() throws Exception
+    {
+        return message.createInboundMessage();
+    }
+
+    @Benchmark
+    public MuleEvent copyEvent()
+    {
+        return DefaultMuleEvent.copy(event);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.api.config.MuleProperties;
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreManager;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operations on the in memory and persistent object stores returned by the
+ * {@link org.mule.api.store.ObjectStoreManager}, run by several threads at once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class ObjectStoreBenchmark extends AbstractMuleContextBenchmark
+{
+
+    private static final int STORED_KEYS = 1000;
+
+    @Param({"false", "true"})
+    public boolean persistent;
+
+    private ObjectStore<Serializable> objectStore;
+    private final AtomicLong nextKey = new AtomicLong();
+
+    @Setup
+    public void setUpObjectStore() throws ObjectStoreException
+    {
+        ObjectStoreManager objectStoreManager = muleContext.getRegistry().get(
+            MuleProperties.OBJECT_STORE_MANAGER);
+        objectStore = objectStoreManager.getObjectStore("benchmark", persistent);
+        for (int i = 0; i < STORED_KEYS; i++)
+        {
+            // persistent entries survive from previous runs
+            if (!objectStore.contains("stored" + i))
+            {
+                objectStore.store("stored" + i, "value" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public Serializable storeAndRemove() throws ObjectStoreException
+    {
+        String key = "key" + nextKey.getAndIncrement();
+        objectStore.store(key, "value");
+        return objectStore.remove(key);
+    }
+
+    @Benchmark
+    public Serializable retrieve() throws ObjectStoreException
+    {
+        return objectStore.retrieve("stored" + (nextKey.getAndIncrement() % STORED_KEYS));
+    }
+
+    @Benchmark
+    public boolean contains() throws ObjectStoreException
+    {
+        return objectStore.contains("stored" + (nextKey.getAndIncrement() % STORED_KEYS));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.serialization.CompactObjectSerializer;
+import org.mule.serialization.JavaObjectSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of a {@link MuleEvent}, as done by persistent queues, persistent object stores
+ * and the serialized wire formats, with plain Java serialization and with the compact format.
+ * The size of the serialized event is logged when the trial starts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SerializationBenchmark extends AbstractMuleContextBenchmark
+{
+
+    private static final Log logger = LogFactory.getLog(SerializationBenchmark.class);
+
+    @Param({"java", "compact"})
+    public String format;
+
+    @Param({"0", "10", "50"})
+    public int properties;
+
+    private ObjectSerializer serializer;
+    private MuleEvent event;
+    private byte[] serializedEvent;
+
+    @Setup
+    public void setUpEvent() throws Exception
+    {
+        serializer = "java".equals(format)
+                     ? new JavaObjectSerializer(muleContext)
+                     : new CompactObjectSerializer(muleContext);
+
+        MuleMessage message = createMessage("payload");
+        for (int i = 0; i < properties; i++)
+        {
+            message.setOutboundProperty("inbound" + i, "value" + i);
+        }
+        message = message.createInboundMessage();
+        for (int i = 0; i < properties; i++)
+        {
+            message.setOutboundProperty("outbound" + i, "value" + i);
+        }
+        event = createEvent(message);
+        for (int i = 0; i < properties; i++)
+        {
+            event.setFlowVariable("variable" + i, i);
+            event.getSession().setProperty("session" + i, "value" + i);
+        }
+
+        serializedEvent = serializer.serialize(event);
+        logger.info(String.format("%s serialization of an event with %d properties per scope: %d bytes",
+            format, properties, serializedEvent.length));
+    }
+
+    @Benchmark
+    public byte[] serializeEvent()
+    {
+        return serializer.serialize(event);
+    }
+
+    @Benchmark
+    public MuleEvent deserializeEvent()
+    {
+        return serializer.deserialize(serializedEvent);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.benchmark;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.registry.MuleRegistry;
+import org.mule.api.transformer.DataType;
+import org.mule.api.transformer.Transformer;
+import org.mule.api.transformer.TransformerException;
+import org.mule.transformer.types.DataTypeFactory;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transformer resolution by source and result data types in
+ * {@link org.mule.registry.MuleRegistryHelper}, as done every time a payload is requested as
+ * a type it does not have.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TransformerResolutionBenchmark extends AbstractMuleContextBenchmark
+{
+
+    private static final DataType<String> STRING = DataTypeFactory.create(String.class);
+    private static final DataType<byte[]> BYTE_ARRAY = DataTypeFactory.create(byte[].class);
+    private static final DataType<InputStream> INPUT_STREAM = DataTypeFactory.create(InputStream.class);
+
+    private MuleRegistry registry;
+    private MuleMessage message;
+
+    @Setup
+    public void setUpRegistry()
+    {
+        registry = muleContext.getRegistry();
+        message = createMessage("payload");
+    }
+
+    @Benchmark
+    public Transformer lookupTransformer() throws TransformerException
+    {
+        return registry.lookupTransformer(STRING, BYTE_ARRAY);
+    }
+
+    @Benchmark
+    public Transformer lookupTransformerChain() throws TransformerException
+    {
+        return registry.lookupTransformer(INPUT_STREAM, STRING);
+    }
+
+    @Benchmark
+    public List<Transformer> lookupTransformers()
+    {
+        return registry.lookupTransformers(STRING, BYTE_ARRAY);
+    }
+
+    @Benchmark
+    public Object getPayloadAsType() throws TransformerException
+    {
+        return message.getPayload(BYTE_ARRAY);
+    }
+}
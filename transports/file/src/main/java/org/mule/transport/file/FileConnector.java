@@ -114,6 +114,19 @@ public class FileConnector extends AbstractConnector
 
     private boolean recursive = false;
 
+    /**
+     * The maximum number of files processed by a poll, 0 to process all the files listed.
+     * When set, the files of a listing are handed out over several polls before the
+     * directory is listed again.
+     */
+    private int maxFilesPerPoll = 0;
+
+    /**
+     * Whether the files of a poll are processed concurrently by the receiver threads
+     * instead of one after the other by the polling thread.
+     */
+    private boolean processFilesInParallel = false;
+
     public FileConnector(MuleContext context)
     {
         super(context);
@@ -631,4 +644,24 @@ public class FileConnector extends AbstractConnector
     {
         this.recursive = recursive;
     }
+
+    public int getMaxFilesPerPoll()
+    {
+        return maxFilesPerPoll;
+    }
+
+    public void setMaxFilesPerPoll(int maxFilesPerPoll)
+    {
+        this.maxFilesPerPoll = maxFilesPerPoll;
+    }
+
+    public boolean isProcessFilesInParallel()
+    {
+        return processFilesInParallel;
+    }
+
+    public void setProcessFilesInParallel(boolean processFilesInParallel)
+    {
+        this.processFilesInParallel = processFilesInParallel;
+    }
 }
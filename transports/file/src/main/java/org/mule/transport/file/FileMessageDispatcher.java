@@ -27,9 +27,12 @@ import org.mule.util.StringUtils;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * <code>FileMessageDispatcher</code> is used to read/write files to the filesystem
@@ -78,6 +81,31 @@ public class FileMessageDispatcher extends AbstractMessageDispatcher
             {
                 ((OutputHandler) data).write(event, fos);
             }
+            else if (data instanceof FileInputStream)
+            {
+                // closing the stream moves or deletes the file it was received from
+                FileInputStream fis = (FileInputStream) data;
+                try
+                {
+                    transfer(fis.getChannel(), fos.getChannel());
+                }
+                finally
+                {
+                    fis.close();
+                }
+            }
+            else if (data instanceof File && ((File) data).isFile())
+            {
+                FileInputStream fis = new FileInputStream((File) data);
+                try
+                {
+                    transfer(fis.getChannel(), fos.getChannel());
+                }
+                finally
+                {
+                    fis.close();
+                }
+            }
             else
             {
                 InputStream is = event.transformMessage(DataTypeFactory.create(InputStream.class));
@@ -92,6 +120,26 @@ public class FileMessageDispatcher extends AbstractMessageDispatcher
         }
     }
 
+    /**
+     * Copies the rest of <code>source</code>, from its current position, to
+     * <code>target</code>. The bytes are transferred by the operating system where
+     * possible instead of being copied through the heap.
+     *
+     * @return the number of bytes copied
+     */
+    static long transfer(FileChannel source, FileChannel target) throws IOException
+    {
+        long start = source.position();
+        long position = start;
+        long count;
+        while ((count = source.transferTo(position, source.size() - position, target)) > 0)
+        {
+            position += count;
+        }
+        source.position(position);
+        return position - start;
+    }
+
     /**
      * There is no associated session for a file connector
      *
@@ -35,6 +35,8 @@ import org.mule.transport.AbstractPollingMessageReceiver;
 import org.mule.transport.ConnectException;
 import org.mule.transport.file.i18n.FileMessages;
 import org.mule.util.FileUtils;
+import org.mule.util.concurrent.NamedThreadFactory;
+import org.mule.util.concurrent.ThreadNameHelper;
 import org.mule.util.lock.LockFactory;
 
 import java.io.File;
@@ -48,7 +50,15 @@ import java.nio.channels.FileLock;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 
@@ -66,6 +76,7 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
     public static final String MULE_TRANSPORT_FILE_SINGLEPOLLINSTANCE = "mule.transport.file.singlepollinstance";
 
     private static final List<File> NO_FILES = new ArrayList<File>();
+    private static final long PARALLEL_THREADS_KEEP_ALIVE = 30000;
 
     private FileConnector fileConnector = null;
     private String readDir = null;
@@ -81,6 +92,8 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
     private LockFactory lockFactory;
     private boolean poolOnPrimaryInstanceOnly;
     private ObjectStore<String> filesBeingProcessingObjectStore;
+    private final Queue<File> pendingFiles = new LinkedList<File>();
+    private ExecutorService parallelExecutor;
 
     public FileMessageReceiver(Connector connector,
                                FlowConstruct flowConstruct,
@@ -178,13 +191,17 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
     @Override
     protected void doDisconnect() throws Exception
     {
-        // template method
+        synchronized (pendingFiles)
+        {
+            pendingFiles.clear();
+        }
+        shutdownParallelExecutor();
     }
 
     @Override
     protected void doDispose()
     {
-        // nothing to do
+        shutdownParallelExecutor();
     }
 
     @Override
@@ -192,58 +209,24 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
     {
         try
         {
-            List<File> files = this.listFiles();
+            List<File> files = nextFiles();
             if (logger.isDebugEnabled())
             {
                 logger.debug("Files: " + files.toString());
             }
-            Comparator<File> comparator = getComparator();
-            if (comparator != null)
+            if (fileConnector.isProcessFilesInParallel() && files.size() > 1)
             {
-                Collections.sort(files, comparator);
+                processInParallel(files);
             }
-            for (File file : files)
+            else
             {
-                if (getLifecycleState().isStopping())
-                {
-                    break;
-                }
-                // don't process directories
-                if (file.isFile())
+                for (File file : files)
                 {
-                    Lock fileLock = lockFactory.createLock(file.getName());
-                    if (fileLock.tryLock())
+                    if (getLifecycleState().isStopping())
                     {
-                        try
-                        {
-                            String fileAbsolutePath = file.getAbsolutePath();
-                            try
-                            {
-                                filesBeingProcessingObjectStore.store(fileAbsolutePath, fileAbsolutePath);
-
-                                if (logger.isDebugEnabled())
-                                {
-                                    logger.debug(String.format("Flag for '%s' stored successfully.", fileAbsolutePath));
-                                }
-                            }
-                            catch (ObjectAlreadyExistsException e)
-                            {
-                                if (logger.isDebugEnabled())
-                                {
-                                    logger.debug(String.format("Flag for '%s' being processed is on. Skipping file.", fileAbsolutePath));
-                                }
-                                continue;
-                            }
-                            if (file.exists())
-                            {
-                                processFile(file);
-                            }
-                        }
-                        finally
-                        {
-                            fileLock.unlock();
-                        }
+                        break;
                     }
+                    pollFile(file);
                 }
             }
         }
@@ -253,6 +236,146 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
         }
     }
 
+    /**
+     * Returns the files to process in this poll. Unless the connector limits the number
+     * of files per poll, these are all the files of the directory. Otherwise the files of
+     * a listing are handed out <code>maxFilesPerPoll</code> at a time, and the directory is
+     * only listed again once they have all been handed out.
+     */
+    protected List<File> nextFiles() throws Exception
+    {
+        int maxFiles = fileConnector.getMaxFilesPerPoll();
+        if (maxFiles <= 0)
+        {
+            return sortedFiles();
+        }
+
+        synchronized (pendingFiles)
+        {
+            if (pendingFiles.isEmpty())
+            {
+                pendingFiles.addAll(sortedFiles());
+            }
+            List<File> files = new ArrayList<File>(Math.min(maxFiles, pendingFiles.size()));
+            while (files.size() < maxFiles && !pendingFiles.isEmpty())
+            {
+                files.add(pendingFiles.poll());
+            }
+            return files;
+        }
+    }
+
+    private List<File> sortedFiles() throws Exception
+    {
+        List<File> files = this.listFiles();
+        Comparator<File> comparator = getComparator();
+        if (comparator != null && files.size() > 1)
+        {
+            Collections.sort(files, comparator);
+        }
+        return files;
+    }
+
+    /**
+     * Processes the files on this thread and on up to as many helper threads as the receiver
+     * threading profile allows, and waits for all of them to be processed so that the next poll
+     * does not list files still being processed.
+     * <p/>
+     * The helpers run on an executor of their own rather than on the work manager of the
+     * receiver, whose thread this poll is holding, so they can never starve the poll. Every
+     * thread takes the files from a shared queue, so a helper that does not get a thread or only
+     * starts once all the files were taken just has nothing to do: this thread processes any
+     * file left, and only waits for the files helpers are actually processing.
+     */
+    protected void processInParallel(List<File> files) throws Exception
+    {
+        ParallelFiles parallelFiles = new ParallelFiles(files);
+        ExecutorService executor = getParallelExecutor();
+        try
+        {
+            for (int i = 1; i < files.size(); i++)
+            {
+                executor.execute(new FileWorker(parallelFiles));
+            }
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the receiver is being disconnected, the remaining files are processed below
+        }
+        parallelFiles.process();
+        parallelFiles.awaitWorkers();
+    }
+
+    private synchronized ExecutorService getParallelExecutor()
+    {
+        if (parallelExecutor == null)
+        {
+            int maxThreads = Math.max(1, connector.getReceiverThreadingProfile().getMaxThreadsActive());
+            String name = ThreadNameHelper.receiver(connector.getMuleContext(), connector.getName()) + ".files";
+            // threads beyond the maximum are not needed, as this thread processes the files they
+            // would have taken
+            parallelExecutor = new ThreadPoolExecutor(0, maxThreads, PARALLEL_THREADS_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<Runnable>(),
+                new NamedThreadFactory(name, connector.getMuleContext().getExecutionClassLoader()),
+                new ThreadPoolExecutor.DiscardPolicy());
+        }
+        return parallelExecutor;
+    }
+
+    private synchronized void shutdownParallelExecutor()
+    {
+        if (parallelExecutor != null)
+        {
+            parallelExecutor.shutdown();
+            parallelExecutor = null;
+        }
+    }
+
+    /**
+     * Processes a file unless another thread or cluster node is already processing it.
+     */
+    protected void pollFile(File file) throws MuleException
+    {
+        // don't process directories
+        if (!file.isFile())
+        {
+            return;
+        }
+        Lock fileLock = lockFactory.createLock(file.getName());
+        if (fileLock.tryLock())
+        {
+            try
+            {
+                String fileAbsolutePath = file.getAbsolutePath();
+                try
+                {
+                    filesBeingProcessingObjectStore.store(fileAbsolutePath, fileAbsolutePath);
+
+                    if (logger.isDebugEnabled())
+                    {
+                        logger.debug(String.format("Flag for '%s' stored successfully.", fileAbsolutePath));
+                    }
+                }
+                catch (ObjectAlreadyExistsException e)
+                {
+                    if (logger.isDebugEnabled())
+                    {
+                        logger.debug(String.format("Flag for '%s' being processed is on. Skipping file.", fileAbsolutePath));
+                    }
+                    return;
+                }
+                if (file.exists())
+                {
+                    processFile(file);
+                }
+            }
+            finally
+            {
+                fileLock.unlock();
+            }
+        }
+    }
+
     @Override
     protected boolean pollOnPrimaryInstanceOnly()
     {
@@ -754,4 +877,82 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
         }
         return null;
     }
+
+    /**
+     * The files found by a poll that processes them in parallel, taken one at a time by the
+     * threads processing them.
+     */
+    private class ParallelFiles
+    {
+
+        private final Queue<File> files;
+
+        /**
+         * The number of threads processing files. Guarded by this.
+         */
+        private int active;
+
+        ParallelFiles(List<File> files)
+        {
+            this.files = new ConcurrentLinkedQueue<File>(files);
+        }
+
+        void process()
+        {
+            synchronized (this)
+            {
+                active++;
+            }
+            try
+            {
+                File file;
+                while (!getLifecycleState().isStopping() && (file = files.poll()) != null)
+                {
+                    try
+                    {
+                        pollFile(file);
+                    }
+                    catch (Exception e)
+                    {
+                        getConnector().getMuleContext().getExceptionListener().handleException(e);
+                    }
+                }
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    active--;
+                    notifyAll();
+                }
+            }
+        }
+
+        synchronized void awaitWorkers() throws InterruptedException
+        {
+            while (active > 0)
+            {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * Helps a poll processing its files in parallel.
+     */
+    private static class FileWorker implements Runnable
+    {
+
+        private final ParallelFiles files;
+
+        FileWorker(ParallelFiles files)
+        {
+            this.files = files;
+        }
+
+        public void run()
+        {
+            files.process();
+        }
+    }
 }
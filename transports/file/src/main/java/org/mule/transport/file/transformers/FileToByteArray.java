@@ -15,6 +15,7 @@ import org.mule.transformer.simple.ObjectToByteArray;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.ArrayUtils;
 
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -69,17 +70,21 @@ public class FileToByteArray extends ObjectToByteArray
                 return ArrayUtils.EMPTY_BYTE_ARRAY;
             }
 
+            if (file.length() > Integer.MAX_VALUE)
+            {
+                throw new TransformerException(this, new IOException("File is too large to be read in memory, consider streaming it instead: "
+                                                                     + file.getAbsolutePath()));
+            }
+
             FileInputStream fis = null;
             byte[] bytes = null;
 
             try
             {
                 fis = new FileInputStream(file);
-                // TODO Attention: arbitrary 4GB limit & also a great way to reap
-                // OOMs
-                int length = new Long(file.length()).intValue();
-                bytes = new byte[length];
-                fis.read(bytes);
+                bytes = new byte[(int) file.length()];
+                // a single read may return fewer bytes than requested
+                new DataInputStream(fis).readFully(bytes);
                 return bytes;
             }
             // at least try..
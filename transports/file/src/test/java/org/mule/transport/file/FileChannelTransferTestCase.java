@@ -0,0 +1,78 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.file;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class FileChannelTransferTestCase extends AbstractMuleTestCase
+{
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void transfersRestOfSourceFromCurrentPosition() throws Exception
+    {
+        File source = folder.newFile("source.txt");
+        FileUtils.writeStringToFile(source, "skip:hello world");
+        File target = folder.newFile("target.txt");
+
+        FileInputStream in = new FileInputStream(source);
+        FileOutputStream out = new FileOutputStream(target);
+        try
+        {
+            assertThat(in.skip(5), is(5L));
+            assertThat(FileMessageDispatcher.transfer(in.getChannel(), out.getChannel()), is(11L));
+            assertThat(in.read(), is(-1));
+        }
+        finally
+        {
+            in.close();
+            out.close();
+        }
+        assertThat(FileUtils.readFileToString(target), is("hello world"));
+    }
+
+    @Test
+    public void appendsToTarget() throws Exception
+    {
+        File source = folder.newFile("source.txt");
+        FileUtils.writeStringToFile(source, " world");
+        File target = folder.newFile("target.txt");
+        FileUtils.writeStringToFile(target, "hello");
+
+        FileInputStream in = new FileInputStream(source);
+        FileOutputStream out = new FileOutputStream(target, true);
+        try
+        {
+            FileMessageDispatcher.transfer(in.getChannel(), out.getChannel());
+        }
+        finally
+        {
+            in.close();
+            out.close();
+        }
+        assertThat(FileUtils.readFileToString(target), is("hello world"));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.file;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.MuleException;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class FileMessageReceiverPollingTestCase extends AbstractMuleTestCase
+{
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private FileConnector mockFileConnector;
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private FlowConstruct mockFlowConstruct;
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private InboundEndpoint mockInboundEndpoint;
+
+    private List<File> directory = new ArrayList<File>();
+    private int listings;
+    private List<File> polled = Collections.synchronizedList(new ArrayList<File>());
+
+    @Before
+    public void setUpMocks() throws Exception
+    {
+        when(mockInboundEndpoint.getConnector()).thenReturn(mockFileConnector);
+        when(mockInboundEndpoint.getFilter()).thenReturn(null);
+        when(mockInboundEndpoint.getProperty(anyString())).thenReturn(null);
+        for (int i = 0; i < 5; i++)
+        {
+            directory.add(new File("file" + i));
+        }
+    }
+
+    @Test
+    public void handsOutListedFilesOverSeveralPolls() throws Exception
+    {
+        when(mockFileConnector.getMaxFilesPerPoll()).thenReturn(2);
+        FileMessageReceiver receiver = createFileMessageReceiver();
+
+        assertThat(receiver.nextFiles(), is(directory.subList(0, 2)));
+        assertThat(receiver.nextFiles(), is(directory.subList(2, 4)));
+        assertThat(receiver.nextFiles(), is(directory.subList(4, 5)));
+        assertThat(listings, is(1));
+
+        receiver.nextFiles();
+        assertThat(listings, is(2));
+    }
+
+    @Test
+    public void listsDirectoryOnEveryPollWithoutLimit() throws Exception
+    {
+        FileMessageReceiver receiver = createFileMessageReceiver();
+
+        assertThat(receiver.nextFiles(), is(directory));
+        assertThat(receiver.nextFiles(), is(directory));
+        assertThat(listings, is(2));
+    }
+
+    @Test
+    public void processesFilesInParallel() throws Exception
+    {
+        when(mockFileConnector.isProcessFilesInParallel()).thenReturn(true);
+        FileMessageReceiver receiver = createFileMessageReceiver();
+
+        receiver.poll();
+
+        assertThat(polled.size(), is(directory.size()));
+        assertThat(polled.containsAll(directory), is(true));
+    }
+
+    @Test
+    public void processesFilesOfDiscardedHelpersInPollingThread() throws Exception
+    {
+        when(mockFileConnector.isProcessFilesInParallel()).thenReturn(true);
+        // a single helper thread, so the other helpers are discarded
+        when(mockFileConnector.getReceiverThreadingProfile().getMaxThreadsActive()).thenReturn(1);
+        FileMessageReceiver receiver = createFileMessageReceiver();
+
+        receiver.poll();
+
+        assertThat(polled.size(), is(directory.size()));
+        assertThat(polled.containsAll(directory), is(true));
+    }
+
+    private FileMessageReceiver createFileMessageReceiver() throws Exception
+    {
+        return new FileMessageReceiver(mockFileConnector, mockFlowConstruct, mockInboundEndpoint, "temp", null, null, 100)
+        {
+            @Override
+            List<File> listFiles() throws MuleException
+            {
+                listings++;
+                return new ArrayList<File>(directory);
+            }
+
+            @Override
+            protected void pollFile(File file) throws MuleException
+            {
+                polled.add(file);
+            }
+        };
+    }
+}
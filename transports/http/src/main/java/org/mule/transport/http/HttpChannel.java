@@ -0,0 +1,377 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.security.cert.Certificate;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A connection accepted by a {@link NonBlockingHttpRequestDispatcher} or opened by a
+ * {@link NonBlockingHttpClient}.
+ * <p/>
+ * While waiting for a request the channel is in non-blocking mode and registered with an
+ * {@link HttpChannelSelector}, which reads the request head with {@link #readRequestHead()}.
+ * The request is then processed with the channel switched to blocking mode, reading the body
+ * and writing the response through the streams returned by {@link #getInputStream()} and
+ * {@link #getOutputStream()}.
+ * <p/>
+ * Bytes read from the channel and not consumed yet, such as the start of the body or the
+ * requests pipelined by the client, are kept in a buffer that outlives every request.
+ */
+class HttpChannel
+{
+
+    protected static final int INITIAL_BUFFER_SIZE = 4096;
+
+    protected final Log logger = LogFactory.getLog(getClass());
+
+    protected final SocketChannel channel;
+    protected final Socket socket;
+    /**
+     * Application bytes read from the channel and not consumed yet, in write mode.
+     */
+    protected ByteBuffer inbound;
+    /**
+     * Number of bytes at the start of {@link #inbound} already consumed through the input
+     * stream. They are only discarded once the buffer is drained or before it is used for
+     * anything else, so reading a byte at a time does not compact the buffer on every byte.
+     */
+    private int consumed;
+    private final HttpRequestHeadParser headParser;
+    private InputStream socketInputStream;
+    private InputStream in;
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    HttpChannel(SocketChannel channel, int maxHeadSize)
+    {
+        this.channel = channel;
+        this.socket = channel.socket();
+        this.headParser = new HttpRequestHeadParser(maxHeadSize);
+        this.inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    }
+
+    Socket getSocket()
+    {
+        return socket;
+    }
+
+    boolean isSecure()
+    {
+        return false;
+    }
+
+    Certificate[] getLocalCertificates()
+    {
+        return null;
+    }
+
+    Certificate[] getPeerCertificates()
+    {
+        return null;
+    }
+
+    SelectionKey register(Selector selector) throws IOException
+    {
+        lastActivity = System.currentTimeMillis();
+        return channel.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    void configureBlocking(boolean block) throws IOException
+    {
+        channel.configureBlocking(block);
+    }
+
+    boolean isOpen()
+    {
+        return channel.isOpen();
+    }
+
+    boolean isIdle(long now, long timeout)
+    {
+        return now - lastActivity > timeout;
+    }
+
+    /**
+     * Reads the bytes available in the channel without blocking.
+     *
+     * @return the head of the next request, or null if it has not been completely received yet
+     * @throws EOFException if the client closed the connection
+     */
+    byte[] readRequestHead() throws IOException
+    {
+        discardConsumed();
+        byte[] head = headParser.parse(inbound);
+        while (head == null)
+        {
+            int read = fill();
+            if (read < 0)
+            {
+                throw new EOFException();
+            }
+            if (read == 0)
+            {
+                return null;
+            }
+            head = headParser.parse(inbound);
+        }
+        return head;
+    }
+
+    /**
+     * Reads the bytes of a response available in the channel without blocking.
+     *
+     * @return true once the response has been completely read
+     * @throws EOFException if the server closed the connection before the end of the response
+     */
+    boolean readResponse(HttpResponseParser parser) throws IOException
+    {
+        discardConsumed();
+        while (!parser.parse(inbound))
+        {
+            int read = fill();
+            if (read < 0)
+            {
+                return parser.endOfStream();
+            }
+            if (read == 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if bytes read from the channel are still waiting to be consumed
+     */
+    boolean hasInbound()
+    {
+        return inbound.position() > consumed;
+    }
+
+    /**
+     * Writes to the channel without blocking.
+     *
+     * @return true once all the bytes of <code>source</code> have been written
+     */
+    boolean write(ByteBuffer source) throws IOException
+    {
+        if (channel.write(source) > 0)
+        {
+            lastActivity = System.currentTimeMillis();
+        }
+        return !source.hasRemaining();
+    }
+
+    /**
+     * Makes progress on the handshake of a secure channel without blocking.
+     *
+     * @return true once the handshake has completed, which is always the case for plain
+     *         channels
+     */
+    boolean handshake() throws IOException
+    {
+        return true;
+    }
+
+    /**
+     * @return true if there are bytes to write that the channel could not accept without
+     *         blocking, in which case the selector must wait for the channel to be writable
+     */
+    boolean hasPendingOutput()
+    {
+        return false;
+    }
+
+    /**
+     * Reads more bytes into the inbound buffer.
+     *
+     * @return the number of bytes added to the buffer, 0 if none are available and the channel
+     *         is in non-blocking mode or -1 at the end of the stream
+     */
+    protected int fill() throws IOException
+    {
+        if (!inbound.hasRemaining())
+        {
+            inbound = enlarge(inbound, inbound.capacity() * 2);
+        }
+        int read = readNetwork(inbound);
+        if (read > 0)
+        {
+            lastActivity = System.currentTimeMillis();
+        }
+        return read;
+    }
+
+    /**
+     * Reads from the channel into <code>buffer</code>. In blocking mode the socket stream is
+     * used instead of the channel so the read honours the socket timeout.
+     */
+    protected int readNetwork(ByteBuffer buffer) throws IOException
+    {
+        if (!channel.isBlocking())
+        {
+            return channel.read(buffer);
+        }
+        if (socketInputStream == null)
+        {
+            socketInputStream = socket.getInputStream();
+        }
+        int read = socketInputStream.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (read > 0)
+        {
+            buffer.position(buffer.position() + read);
+        }
+        return read;
+    }
+
+    /**
+     * Removes the bytes consumed through the input stream from the inbound buffer.
+     */
+    private void discardConsumed()
+    {
+        if (consumed > 0)
+        {
+            inbound.flip();
+            inbound.position(consumed);
+            inbound.compact();
+            consumed = 0;
+        }
+    }
+
+    protected static ByteBuffer enlarge(ByteBuffer buffer, int capacity)
+    {
+        ByteBuffer enlarged = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        enlarged.put(buffer);
+        return enlarged;
+    }
+
+    /**
+     * @return a stream reading the bytes left in the inbound buffer and then the channel. The
+     *         channel must be in blocking mode.
+     */
+    InputStream getInputStream()
+    {
+        if (in == null)
+        {
+            in = new ChannelInputStream();
+        }
+        return in;
+    }
+
+    /**
+     * @return a stream writing to the channel. The channel must be in blocking mode.
+     */
+    OutputStream getOutputStream() throws IOException
+    {
+        return socket.getOutputStream();
+    }
+
+    void close()
+    {
+        try
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Closing: " + socket);
+            }
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("(Ignored) Error closing the channel: " + e.getMessage());
+            }
+        }
+    }
+
+    private class ChannelInputStream extends InputStream
+    {
+
+        @Override
+        public int read() throws IOException
+        {
+            if (!awaitInbound())
+            {
+                return -1;
+            }
+            int b = inbound.get(consumed++) & 0xff;
+            releaseIfDrained();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!awaitInbound())
+            {
+                return -1;
+            }
+            int read = Math.min(len, inbound.position() - consumed);
+            System.arraycopy(inbound.array(), inbound.arrayOffset() + consumed, b, off, read);
+            consumed += read;
+            releaseIfDrained();
+            return read;
+        }
+
+        private boolean awaitInbound() throws IOException
+        {
+            while (inbound.position() == consumed)
+            {
+                // drained buffers are always released, this only compacts if somebody else
+                // consumed part of the buffer in the meantime
+                discardConsumed();
+                if (fill() < 0)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void releaseIfDrained()
+        {
+            if (consumed == inbound.position())
+            {
+                inbound.clear();
+                consumed = 0;
+            }
+        }
+
+        @Override
+        public int available()
+        {
+            return inbound.position() - consumed;
+        }
+
+        @Override
+        public void close()
+        {
+            // the channel is closed by its HttpServerConnection or kept open for the next request
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Waits for the heads of the requests sent through a set of idle {@link HttpChannel}s.
+ * <p/>
+ * Once the head of a request has been completely read its channel is deregistered and handed
+ * off to the request executor, so a thread is only used while a request is being processed.
+ * Channels kept alive after the response are registered again with
+ * {@link #register(HttpChannel)}. Channels idle for longer than the idle timeout are closed.
+ */
+class HttpChannelSelector implements Runnable
+{
+
+    private static final long SELECT_TIMEOUT = 1000;
+
+    private static Log logger = LogFactory.getLog(HttpChannelSelector.class);
+
+    private final HttpConnector httpConnector;
+    private final Executor requestHandOffExecutor;
+    private final long idleTimeout;
+    private final Selector selector;
+    private final Queue<HttpChannel> registrations = new ConcurrentLinkedQueue<HttpChannel>();
+    private final List<HttpChannel> pendingHandOffs = new ArrayList<HttpChannel>();
+    private final List<byte[]> pendingHeads = new ArrayList<byte[]>();
+    private volatile boolean running = true;
+    private long lastIdleCheck = System.currentTimeMillis();
+
+    HttpChannelSelector(HttpConnector httpConnector, Executor requestHandOffExecutor, long idleTimeout) throws IOException
+    {
+        this.httpConnector = httpConnector;
+        this.requestHandOffExecutor = requestHandOffExecutor;
+        this.idleTimeout = idleTimeout;
+        this.selector = Selector.open();
+    }
+
+    void register(HttpChannel channel)
+    {
+        registrations.add(channel);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run()
+    {
+        while (running)
+        {
+            try
+            {
+                selector.select(SELECT_TIMEOUT);
+                registerPendingChannels();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid())
+                    {
+                        readRequestHead((HttpChannel) key.attachment(), key);
+                    }
+                }
+                closeIdleChannels();
+                handOff();
+            }
+            catch (Exception e)
+            {
+                if (running)
+                {
+                    logger.warn("Failed to select HTTP channels: " + e.getMessage(), e);
+                }
+            }
+        }
+        closeAll();
+    }
+
+    private void registerPendingChannels()
+    {
+        HttpChannel channel;
+        while ((channel = registrations.poll()) != null)
+        {
+            try
+            {
+                SelectionKey key = channel.register(selector);
+                // requests pipelined by the client may already be in the inbound buffer
+                readRequestHead(channel, key);
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to register HTTP channel: " + e.getMessage());
+                channel.close();
+            }
+        }
+    }
+
+    private void readRequestHead(HttpChannel channel, SelectionKey key)
+    {
+        try
+        {
+            byte[] head = channel.readRequestHead();
+            if (head != null)
+            {
+                key.cancel();
+                pendingHandOffs.add(channel);
+                pendingHeads.add(head);
+            }
+            else
+            {
+                key.interestOps(channel.hasPendingOutput() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+        catch (EOFException e)
+        {
+            logger.debug("HTTP connection closed by the client");
+            key.cancel();
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("Closing HTTP connection after read failure: " + e.getMessage());
+            key.cancel();
+            channel.close();
+        }
+    }
+
+    private void closeIdleChannels()
+    {
+        long now = System.currentTimeMillis();
+        if (idleTimeout <= 0 || now - lastIdleCheck < SELECT_TIMEOUT)
+        {
+            return;
+        }
+        lastIdleCheck = now;
+        for (SelectionKey key : selector.keys())
+        {
+            HttpChannel channel = (HttpChannel) key.attachment();
+            if (key.isValid() && channel.isIdle(now, idleTimeout))
+            {
+                logger.debug("Closing idle HTTP connection");
+                key.cancel();
+                channel.close();
+            }
+        }
+    }
+
+    private void handOff() throws IOException
+    {
+        if (pendingHandOffs.isEmpty())
+        {
+            return;
+        }
+        // cancelled keys are only deregistered by the next selection operation, and the
+        // channels can not be switched to blocking mode until then
+        selector.selectNow();
+        for (int i = 0; i < pendingHandOffs.size(); i++)
+        {
+            HttpChannel channel = pendingHandOffs.get(i);
+            try
+            {
+                requestHandOffExecutor.execute(new NonBlockingHttpRequestDispatcherWork(httpConnector, channel, pendingHeads.get(i), this));
+            }
+            catch (RuntimeException e)
+            {
+                logger.warn("Failed to dispatch HTTP request: " + e.getMessage());
+                channel.close();
+            }
+        }
+        pendingHandOffs.clear();
+        pendingHeads.clear();
+    }
+
+    void stop()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void closeAll()
+    {
+        for (SelectionKey key : selector.keys())
+        {
+            ((HttpChannel) key.attachment()).close();
+        }
+        HttpChannel channel;
+        while ((channel = registrations.poll()) != null)
+        {
+            channel.close();
+        }
+        try
+        {
+            selector.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("(Ignored) Error closing the selector: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.StatusLine;
+
+/**
+ * A request sent by a {@link NonBlockingHttpClient} and, once received, its response.
+ * <p/>
+ * The exchange completes exactly once, either with a response or with a failure. Callers
+ * either wait for it with {@link #await(long)} or are notified through a {@link Callback}.
+ */
+class HttpClientExchange
+{
+
+    /**
+     * Notified when an exchange completes. Callbacks are invoked by the selector thread of the
+     * client, or by the thread that cancelled the exchange, and must not block.
+     */
+    interface Callback
+    {
+
+        void completed(HttpClientExchange exchange);
+
+        void failed(HttpClientExchange exchange, Exception e);
+    }
+
+    private final String method;
+    private final String uri;
+    private final InetSocketAddress address;
+    private final boolean secure;
+    private final ByteBuffer request;
+    private final boolean keepAlive;
+    private final long deadline;
+    private final Callback callback;
+    private final AtomicBoolean done = new AtomicBoolean();
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile HttpResponseParser response;
+    private volatile Exception failure;
+    private boolean retried;
+
+    /**
+     * @param request the serialized request
+     * @param keepAlive false if the request asks the server to close the connection
+     * @param timeout milliseconds to wait for the response, 0 to wait forever
+     * @param callback notified on completion, may be null
+     */
+    HttpClientExchange(String method, String uri, InetSocketAddress address, boolean secure,
+                       ByteBuffer request, boolean keepAlive, long timeout, Callback callback)
+    {
+        this.method = method;
+        this.uri = uri;
+        this.address = address;
+        this.secure = secure;
+        this.request = request;
+        this.keepAlive = keepAlive;
+        this.deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        this.callback = callback;
+    }
+
+    String getMethod()
+    {
+        return method;
+    }
+
+    String getUri()
+    {
+        return uri;
+    }
+
+    InetSocketAddress getAddress()
+    {
+        return address;
+    }
+
+    boolean isSecure()
+    {
+        return secure;
+    }
+
+    boolean isKeepAlive()
+    {
+        return keepAlive;
+    }
+
+    /**
+     * @return the bytes of the request, positioned at the start so the request can be sent
+     *         again on another connection
+     */
+    ByteBuffer getRequest()
+    {
+        return request.duplicate();
+    }
+
+    boolean isHeadRequest()
+    {
+        return HttpConstants.METHOD_HEAD.equalsIgnoreCase(method);
+    }
+
+    /**
+     * @return true if sending the request more than once has the same effect as sending it
+     *         once. Only the methods RFC 2616 defines as safe are considered: PUT and DELETE
+     *         are idempotent in theory, but too many services do not implement them that way
+     *         to send them twice behind the back of the flow.
+     */
+    boolean isIdempotent()
+    {
+        return HttpConstants.METHOD_GET.equalsIgnoreCase(method)
+               || HttpConstants.METHOD_HEAD.equalsIgnoreCase(method)
+               || HttpConstants.METHOD_OPTIONS.equalsIgnoreCase(method)
+               || HttpConstants.METHOD_TRACE.equalsIgnoreCase(method);
+    }
+
+    /**
+     * @return true if the request may be sent on a connection before the responses of the
+     *         requests already sent on it have been received
+     */
+    boolean isPipelinable()
+    {
+        return keepAlive && isIdempotent();
+    }
+
+    boolean isExpired(long now)
+    {
+        return deadline > 0 && now > deadline;
+    }
+
+    /**
+     * Marks the exchange as sent again after its first connection turned out to be closed by
+     * the server.
+     *
+     * @return false if it had already been retried
+     */
+    boolean retry()
+    {
+        if (retried)
+        {
+            return false;
+        }
+        retried = true;
+        return true;
+    }
+
+    void completed(HttpResponseParser response)
+    {
+        if (done.compareAndSet(false, true))
+        {
+            this.response = response;
+            latch.countDown();
+            if (callback != null)
+            {
+                callback.completed(this);
+            }
+        }
+    }
+
+    void failed(Exception e)
+    {
+        if (done.compareAndSet(false, true))
+        {
+            this.failure = e;
+            latch.countDown();
+            if (callback != null)
+            {
+                callback.failed(this, e);
+            }
+        }
+    }
+
+    boolean isDone()
+    {
+        return done.get();
+    }
+
+    /**
+     * Waits for the exchange to complete, failing it with a {@link SocketTimeoutException} if
+     * it does not complete in time.
+     *
+     * @param timeout milliseconds to wait, 0 to wait forever
+     */
+    void await(long timeout) throws InterruptedException
+    {
+        if (timeout > 0 && !latch.await(timeout, TimeUnit.MILLISECONDS))
+        {
+            failed(new SocketTimeoutException("Timed out after " + timeout + " ms waiting for the HTTP response"));
+        }
+        // the exchange may have completed concurrently with the timeout
+        latch.await();
+    }
+
+    /**
+     * @return the exception the exchange failed with, or null
+     */
+    Exception getFailure()
+    {
+        return failure;
+    }
+
+    StatusLine getStatusLine()
+    {
+        return response.getStatusLine();
+    }
+
+    int getStatusCode()
+    {
+        return response.getStatusLine().getStatusCode();
+    }
+
+    Header[] getResponseHeaders()
+    {
+        return response.getHeaders();
+    }
+
+    Header getResponseHeader(String name)
+    {
+        for (Header header : response.getHeaders())
+        {
+            if (header.getName().equalsIgnoreCase(name))
+            {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the body of the response, or null if it has none
+     */
+    byte[] getResponseBody()
+    {
+        return response.getBody();
+    }
+}
@@ -102,6 +102,11 @@ public class HttpClientMessageDispatcher extends AbstractMessageDispatcher
         client = null;
     }
 
+    protected HttpClient getClient()
+    {
+        return client;
+    }
+
     @Override
     protected void doDispatch(MuleEvent event) throws Exception
     {
@@ -161,7 +166,7 @@ public class HttpClientMessageDispatcher extends AbstractMessageDispatcher
 
     }
 
-    private void processMuleSession(MuleEvent event, HttpMethod httpMethod)
+    protected void processMuleSession(MuleEvent event, HttpMethod httpMethod)
     {
         httpMethod.setRequestHeader(new Header(HttpConstants.HEADER_MULE_SESSION, event.getMessage().<String>getOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY)));
     }
@@ -327,7 +332,15 @@ public class HttpClientMessageDispatcher extends AbstractMessageDispatcher
         {
             throw new HttpResponseException(method.getStatusText(), method.getStatusCode());
         }
-        OutboundEndpoint out = new EndpointURIEndpointBuilder(locationHeader.getValue(),
+        return followRedirect(locationHeader.getValue(), event);
+    }
+
+    /**
+     * Sends <code>event</code> to the location a redirect response points to.
+     */
+    protected MuleMessage followRedirect(String location, MuleEvent event) throws MuleException
+    {
+        OutboundEndpoint out = new EndpointURIEndpointBuilder(location,
             httpConnector.getMuleContext()).buildOutboundEndpoint();
         MuleEvent result = out.process(event);
         if (result != null && !VoidMuleEvent.getInstance().equals(result))
@@ -355,13 +368,18 @@ public class HttpClientMessageDispatcher extends AbstractMessageDispatcher
     }
 
     protected boolean returnException(MuleEvent event, HttpMethod httpMethod)
+    {
+        return returnException(event, httpMethod.getStatusCode());
+    }
+
+    protected boolean returnException(MuleEvent event, int statusCode)
     {
         String disableCheck = event.getMessage().getInvocationProperty(HttpConnector.HTTP_DISABLE_STATUS_CODE_EXCEPTION_CHECK);
         if (disableCheck == null)
         {
             disableCheck = event.getMessage().getOutboundProperty(HttpConnector.HTTP_DISABLE_STATUS_CODE_EXCEPTION_CHECK);
         }
-        return httpMethod.getStatusCode() >= ERROR_STATUS_CODE_RANGE_START
+        return statusCode >= ERROR_STATUS_CODE_RANGE_START
                 && !BooleanUtils.toBoolean(disableCheck);
     }
 
@@ -23,6 +23,10 @@ public class HttpClientMessageDispatcherFactory extends AbstractMessageDispatche
     /** {@inheritDoc} */
     public MessageDispatcher create(OutboundEndpoint endpoint) throws MuleException
     {
+        if (((HttpConnector) endpoint.getConnector()).isNonBlockingClientEnabled())
+        {
+            return new NonBlockingHttpClientMessageDispatcher(endpoint);
+        }
         return new HttpClientMessageDispatcher(endpoint);
     }
 }
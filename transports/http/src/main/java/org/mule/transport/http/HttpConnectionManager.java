@@ -62,7 +62,15 @@ class HttpConnectionManager
             else
             {
                 ServerSocket serverSocket = connector.getServerSocket(endpointURI.getUri());
-                HttpRequestDispatcher httpRequestDispatcher = new HttpRequestDispatcher(connector, connector.getRetryPolicyTemplate(), serverSocket, workManager);
+                HttpRequestDispatcher httpRequestDispatcher;
+                if (connector.isNonBlockingReceiver())
+                {
+                    httpRequestDispatcher = new NonBlockingHttpRequestDispatcher(connector, connector.getRetryPolicyTemplate(), serverSocket, workManager);
+                }
+                else
+                {
+                    httpRequestDispatcher = new HttpRequestDispatcher(connector, connector.getRetryPolicyTemplate(), serverSocket, workManager);
+                }
                 socketDispatchers.put(endpointKey, httpRequestDispatcher);
                 socketDispatcherCount.put(endpointKey, new Integer(1));
                 workManager.scheduleWork(httpRequestDispatcher, WorkManager.INDEFINITE, null, connector);
@@ -28,18 +28,22 @@ import org.mule.transport.http.i18n.HttpMessages;
 import org.mule.transport.http.ntlm.NTLMScheme;
 import org.mule.transport.tcp.TcpConnector;
 import org.mule.util.MapUtils;
+import org.mule.util.StringUtils;
+import org.mule.util.concurrent.NamedThreadFactory;
+import org.mule.util.concurrent.ThreadNameHelper;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
 import java.net.Socket;
-import java.net.URI;
+import java.nio.channels.SocketChannel;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.httpclient.Credentials;
@@ -176,6 +180,17 @@ public class HttpConnector extends TcpConnector
     public static final String COOKIE_SPEC_RFC2109 = "rfc2109";
     public static final String ROOT_PATH = "/";
 
+    /**
+     * Maximum size of the request line and headers of a request read by a non-blocking receiver.
+     */
+    static final int MAX_REQUEST_HEAD_SIZE = 16 * 1024;
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 100;
+
+    public static final int DEFAULT_CLIENT_IDLE_TIMEOUT = 3000;
+
+    public static final int DEFAULT_MAX_PIPELINED_REQUESTS = 1;
+
     private String proxyHostname = null;
 
     private int proxyPort = HttpConstants.DEFAULT_HTTP_PORT;
@@ -198,6 +213,18 @@ public class HttpConnector extends TcpConnector
 
     private org.mule.transport.http.HttpConnectionManager connectionManager;
 
+    private boolean nonBlockingClient = false;
+
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+    private int clientIdleTimeout = DEFAULT_CLIENT_IDLE_TIMEOUT;
+
+    private int maxPipelinedRequests = DEFAULT_MAX_PIPELINED_REQUESTS;
+
+    private NonBlockingHttpClient nonBlockingHttpClient;
+
+    private ExecutorService nonBlockingHttpClientExecutor;
+
     public HttpConnector(MuleContext context)
     {
         super(context);
@@ -275,6 +302,7 @@ public class HttpConnector extends TcpConnector
             connectionManager.dispose();
             connectionManager = null;
         }
+        stopNonBlockingHttpClient();
         super.doDispose();
     }
 
@@ -283,6 +311,7 @@ public class HttpConnector extends TcpConnector
     {
         this.connectionManager.dispose();
         this.connectionManager = null;
+        stopNonBlockingHttpClient();
     }
 
     @Override
@@ -425,6 +454,111 @@ public class HttpConnector extends TcpConnector
     }
 
 
+    /**
+     * @return true if outbound requests are sent by a {@link NonBlockingHttpClient}, which does
+     *         not hold a thread per connection. One-way dispatches do not hold a thread while
+     *         waiting for the response, request-response sends still wait for it on the
+     *         calling thread
+     */
+    public boolean isNonBlockingClient()
+    {
+        return nonBlockingClient;
+    }
+
+    public void setNonBlockingClient(boolean nonBlockingClient)
+    {
+        this.nonBlockingClient = nonBlockingClient;
+    }
+
+    /**
+     * @return true if the dispatchers of this connector use the non-blocking client, which
+     *         does not support proxies
+     */
+    boolean isNonBlockingClientEnabled()
+    {
+        return nonBlockingClient && StringUtils.isBlank(proxyHostname);
+    }
+
+    /**
+     * @return the maximum number of connections open to the same host and port when
+     *         {@link #isNonBlockingClient()} is true
+     */
+    public int getMaxConnectionsPerRoute()
+    {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute)
+    {
+        if (maxConnectionsPerRoute < 1)
+        {
+            throw new IllegalArgumentException(
+                    CoreMessages.propertyHasInvalidValue("maxConnectionsPerRoute", maxConnectionsPerRoute).toString());
+        }
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * @return the milliseconds a pooled connection of the non-blocking client is kept open
+     *         while unused, 0 to keep it until the server closes it
+     */
+    public int getClientIdleTimeout()
+    {
+        return clientIdleTimeout;
+    }
+
+    public void setClientIdleTimeout(int clientIdleTimeout)
+    {
+        this.clientIdleTimeout = clientIdleTimeout;
+    }
+
+    /**
+     * @return the maximum number of idempotent requests in flight on the same connection of
+     *         the non-blocking client, 1 to disable pipelining
+     */
+    public int getMaxPipelinedRequests()
+    {
+        return maxPipelinedRequests;
+    }
+
+    public void setMaxPipelinedRequests(int maxPipelinedRequests)
+    {
+        if (maxPipelinedRequests < 1)
+        {
+            throw new IllegalArgumentException(
+                    CoreMessages.propertyHasInvalidValue("maxPipelinedRequests", maxPipelinedRequests).toString());
+        }
+        this.maxPipelinedRequests = maxPipelinedRequests;
+    }
+
+    /**
+     * @return the client shared by the dispatchers of this connector when
+     *         {@link #isNonBlockingClient()} is true, started on first use
+     */
+    synchronized NonBlockingHttpClient getNonBlockingHttpClient() throws IOException
+    {
+        if (nonBlockingHttpClient == null)
+        {
+            nonBlockingHttpClient = new NonBlockingHttpClient(this, maxConnectionsPerRoute, maxPipelinedRequests,
+                clientIdleTimeout);
+            String threadName = ThreadNameHelper.getPrefix(muleContext) + "http.client." + getName();
+            nonBlockingHttpClientExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory(threadName));
+            nonBlockingHttpClientExecutor.execute(nonBlockingHttpClient);
+        }
+        return nonBlockingHttpClient;
+    }
+
+    private synchronized void stopNonBlockingHttpClient()
+    {
+        if (nonBlockingHttpClient != null)
+        {
+            nonBlockingHttpClient.stop();
+            nonBlockingHttpClientExecutor.shutdown();
+            nonBlockingHttpClient = null;
+            nonBlockingHttpClientExecutor = null;
+        }
+    }
+
     public HttpConnectionManager getClientConnectionManager()
     {
         return clientConnectionManager;
@@ -641,10 +775,24 @@ public class HttpConnector extends TcpConnector
         return receiver;
     }
 
-    @Override
-    protected ServerSocket getServerSocket(URI uri) throws IOException
+    /**
+     * Wraps a connection accepted by a {@link NonBlockingHttpRequestDispatcher}.
+     */
+    HttpChannel createHttpChannel(SocketChannel socketChannel) throws IOException
     {
-        return super.getServerSocket(uri);
+        return new HttpChannel(socketChannel, MAX_REQUEST_HEAD_SIZE);
+    }
+
+    /**
+     * Wraps a connection opened by a {@link NonBlockingHttpClient}.
+     */
+    HttpChannel createClientHttpChannel(SocketChannel socketChannel, String host, int port, boolean secure) throws IOException
+    {
+        if (secure)
+        {
+            throw new IOException("HTTPS requests can only be sent through an HTTPS connector");
+        }
+        return new HttpChannel(socketChannel, MAX_REQUEST_HEAD_SIZE);
     }
 
 }
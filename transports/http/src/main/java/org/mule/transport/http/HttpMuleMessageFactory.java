@@ -21,6 +21,7 @@ import org.mule.util.IOUtils;
 import org.mule.util.PropertiesUtils;
 import org.mule.util.StringUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -60,7 +61,7 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
     @Override
     protected Class<?>[] getSupportedTransportMessageTypes()
     {
-        return new Class[]{HttpRequest.class, HttpMethod.class};
+        return new Class[]{HttpRequest.class, HttpMethod.class, HttpClientExchange.class};
     }
 
     @Override
@@ -74,6 +75,10 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
         {
             return extractPayloadFromHttpMethod((HttpMethod) transportMessage);
         }
+        else if (transportMessage instanceof HttpClientExchange)
+        {
+            return extractPayloadFromHttpClientExchange((HttpClientExchange) transportMessage);
+        }
         else
         {
             // This should never happen because of the supported type checking
@@ -119,6 +124,19 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
         }
     }
 
+    Object extractPayloadFromHttpClientExchange(HttpClientExchange exchange)
+    {
+        byte[] body = exchange.getResponseBody();
+        if (body != null)
+        {
+            return new ByteArrayInputStream(body);
+        }
+        else
+        {
+            return StringUtils.EMPTY;
+        }
+    }
+
     @Override
     protected void addProperties(DefaultMuleMessage message, Object transportMessage) throws Exception
     {
@@ -148,6 +166,15 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
             statusCode = String.valueOf(httpMethod.getStatusCode());
             headers = convertHeadersToMap(httpMethod.getResponseHeaders(), uri);
         }
+        else if (transportMessage instanceof HttpClientExchange)
+        {
+            HttpClientExchange exchange = (HttpClientExchange) transportMessage;
+            method = exchange.getMethod();
+            httpVersion = HttpVersion.parse(exchange.getStatusLine().getHttpVersion());
+            uri = exchange.getUri();
+            statusCode = String.valueOf(exchange.getStatusCode());
+            headers = convertHeadersToMap(exchange.getResponseHeaders(), uri);
+        }
         else
         {
             // This should never happen because of the supported type checking in our superclass
@@ -111,9 +111,7 @@ class HttpRequestDispatcher implements Work
 
                             if (socket != null)
                             {
-                                final Runnable httpRequestDispatcherWork = new HttpRequestDispatcherWork(httpConnector, socket);
-                                // Process each connection in a different thread so we can continue accepting connection right away.
-                                requestHandOffExecutor.execute(httpRequestDispatcherWork);
+                                processSocket(socket);
                             }
                         }
 
@@ -133,6 +131,16 @@ class HttpRequestDispatcher implements Work
         }
     }
 
+    /**
+     * Handles a connection accepted by the server socket.
+     */
+    protected void processSocket(Socket socket) throws Exception
+    {
+        final Runnable httpRequestDispatcherWork = new HttpRequestDispatcherWork(httpConnector, socket);
+        // Process each connection in a different thread so we can continue accepting connection right away.
+        requestHandOffExecutor.execute(httpRequestDispatcherWork);
+    }
+
     @Override
     public void release()
     {
@@ -0,0 +1,104 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Finds the head (request line and headers) of an HTTP request in the bytes read so far
+ * from a non-blocking channel.
+ * <p/>
+ * Bytes already scanned are remembered between calls so every byte is only looked at once
+ * however the head is fragmented. Empty lines before the request line are skipped, as done
+ * by {@link HttpServerConnection#getRequestLine()}.
+ */
+class HttpRequestHeadParser
+{
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final int maxHeadSize;
+    private int start;
+    private int scanned;
+    private int lineFeeds;
+    private boolean headStarted;
+
+    HttpRequestHeadParser(int maxHeadSize)
+    {
+        this.maxHeadSize = maxHeadSize;
+    }
+
+    /**
+     * Scans the bytes added to <code>buffer</code> since the previous call.
+     *
+     * @param buffer buffer in write mode with the bytes read from the channel starting at
+     *            position 0
+     * @return the head of the request, up to and including the empty line that ends it, or null if
+     *         it has not been completely read yet. Once returned, the head and any preceding
+     *         empty lines are removed from the buffer, which is left with the bytes of the body
+     *         or of pipelined requests.
+     * @throws IOException if the head is larger than the maximum allowed size
+     */
+    byte[] parse(ByteBuffer buffer) throws IOException
+    {
+        int end = buffer.position();
+        for (int i = scanned; i < end; i++)
+        {
+            byte b = buffer.get(i);
+            if (!headStarted)
+            {
+                if (b == CR || b == LF)
+                {
+                    start = i + 1;
+                    continue;
+                }
+                headStarted = true;
+            }
+            if (b == LF)
+            {
+                if (++lineFeeds == 2)
+                {
+                    return extractHead(buffer, i + 1);
+                }
+            }
+            else if (b != CR)
+            {
+                lineFeeds = 0;
+            }
+        }
+        scanned = end;
+        if (end - start > maxHeadSize)
+        {
+            throw new IOException("HTTP request head is larger than " + maxHeadSize + " bytes");
+        }
+        return null;
+    }
+
+    private byte[] extractHead(ByteBuffer buffer, int headEnd)
+    {
+        byte[] head = new byte[headEnd - start];
+        buffer.flip();
+        buffer.position(start);
+        buffer.get(head);
+        buffer.compact();
+        reset();
+        return head;
+    }
+
+    void reset()
+    {
+        start = 0;
+        scanned = 0;
+        lineFeeds = 0;
+        headStarted = false;
+    }
+}
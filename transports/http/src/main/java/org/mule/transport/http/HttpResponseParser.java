@@ -0,0 +1,343 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpParser;
+import org.apache.commons.httpclient.HttpVersion;
+import org.apache.commons.httpclient.StatusLine;
+
+/**
+ * Reads an HTTP response from the bytes received so far by a non-blocking channel.
+ * <p/>
+ * The body is delimited by its content length, its chunked encoding or, when neither is
+ * present, by the end of the stream, and is kept in memory. Informational (1xx) responses
+ * are skipped.
+ */
+class HttpResponseParser
+{
+
+    private static final String HEAD_ENCODING = "US-ASCII";
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    private enum State
+    {
+        HEAD, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER, DONE
+    }
+
+    private final HttpRequestHeadParser headParser;
+    private final boolean headRequest;
+    private State state = State.HEAD;
+    private boolean started;
+    private StatusLine statusLine;
+    private Header[] headers;
+    private boolean keepAlive;
+    private ByteArrayOutputStream body;
+    /**
+     * Bytes of the body or of the current chunk still to be read, or -1 if the body ends with
+     * the stream.
+     */
+    private long remaining;
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * @param headRequest true if the response is to a HEAD request, so it has no body whatever
+     *            its headers say
+     */
+    HttpResponseParser(int maxHeadSize, boolean headRequest)
+    {
+        this.headParser = new HttpRequestHeadParser(maxHeadSize);
+        this.headRequest = headRequest;
+    }
+
+    /**
+     * Consumes the bytes added to <code>buffer</code> since the previous call.
+     *
+     * @param buffer buffer in write mode with the bytes read from the channel starting at
+     *            position 0. The bytes of the response are removed from it.
+     * @return true once the response is complete
+     */
+    boolean parse(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.position() > 0)
+        {
+            started = true;
+        }
+        if (state == State.HEAD && !parseHead(buffer))
+        {
+            return false;
+        }
+        if (state != State.DONE)
+        {
+            buffer.flip();
+            try
+            {
+                parseBody(buffer);
+            }
+            finally
+            {
+                buffer.compact();
+            }
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * Called once the server has closed the connection.
+     *
+     * @return true if the response is complete, as is the case when its body ends with the
+     *         stream
+     * @throws EOFException if the response is incomplete
+     */
+    boolean endOfStream() throws EOFException
+    {
+        if (state == State.BODY && remaining < 0)
+        {
+            state = State.DONE;
+        }
+        if (state != State.DONE)
+        {
+            throw new EOFException("Connection closed before the HTTP response was complete");
+        }
+        return true;
+    }
+
+    private boolean parseHead(ByteBuffer buffer) throws IOException
+    {
+        while (true)
+        {
+            byte[] head = headParser.parse(buffer);
+            if (head == null)
+            {
+                return false;
+            }
+            InputStream in = new ByteArrayInputStream(head);
+            statusLine = new StatusLine(HttpParser.readLine(in, HEAD_ENCODING));
+            headers = HttpParser.parseHeaders(in, HEAD_ENCODING);
+            int status = statusLine.getStatusCode();
+            if (status < 100 || status >= 200 || status == 101)
+            {
+                break;
+            }
+        }
+
+        keepAlive = isPersistent();
+        int status = statusLine.getStatusCode();
+        Header transferEncoding = getHeader(HttpConstants.HEADER_TRANSFER_ENCODING);
+        Header contentLength = getHeader(HttpConstants.HEADER_CONTENT_LENGTH);
+        if (headRequest || status < 200 || status == 204 || status == 304)
+        {
+            state = State.DONE;
+        }
+        else if (transferEncoding != null && transferEncoding.getValue().toLowerCase().contains(HttpConstants.TRANSFER_ENCODING_CHUNKED))
+        {
+            body = new ByteArrayOutputStream();
+            state = State.CHUNK_SIZE;
+        }
+        else if (contentLength != null)
+        {
+            remaining = parseLength(contentLength.getValue().trim(), 10);
+            body = new ByteArrayOutputStream((int) Math.min(remaining, HttpChannel.INITIAL_BUFFER_SIZE));
+            state = remaining == 0 ? State.DONE : State.BODY;
+        }
+        else
+        {
+            remaining = -1;
+            keepAlive = false;
+            body = new ByteArrayOutputStream();
+            state = State.BODY;
+        }
+        return true;
+    }
+
+    private boolean isPersistent() throws IOException
+    {
+        Header connection = getHeader(HttpConstants.HEADER_CONNECTION);
+        if (connection != null)
+        {
+            String value = connection.getValue().toLowerCase();
+            if (value.contains("close"))
+            {
+                return false;
+            }
+            if (value.contains("keep-alive"))
+            {
+                return true;
+            }
+        }
+        return HttpVersion.parse(statusLine.getHttpVersion()).greaterEquals(HttpVersion.HTTP_1_1);
+    }
+
+    private void parseBody(ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining() && state != State.DONE)
+        {
+            switch (state)
+            {
+                case BODY:
+                    readContent(buffer);
+                    if (remaining == 0)
+                    {
+                        state = State.DONE;
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    if (readLine(buffer))
+                    {
+                        String size = line.toString();
+                        int extension = size.indexOf(';');
+                        if (extension >= 0)
+                        {
+                            size = size.substring(0, extension);
+                        }
+                        remaining = parseLength(size.trim(), 16);
+                        line.setLength(0);
+                        state = remaining == 0 ? State.TRAILER : State.CHUNK_DATA;
+                    }
+                    break;
+                case CHUNK_DATA:
+                    readContent(buffer);
+                    if (remaining == 0)
+                    {
+                        state = State.CHUNK_END;
+                    }
+                    break;
+                case CHUNK_END:
+                    if (readLine(buffer))
+                    {
+                        line.setLength(0);
+                        state = State.CHUNK_SIZE;
+                    }
+                    break;
+                case TRAILER:
+                    if (readLine(buffer))
+                    {
+                        boolean lastLine = line.length() == 0;
+                        line.setLength(0);
+                        if (lastLine)
+                        {
+                            state = State.DONE;
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(state.toString());
+            }
+        }
+    }
+
+    private void readContent(ByteBuffer buffer)
+    {
+        int length = remaining < 0 ? buffer.remaining() : (int) Math.min(remaining, buffer.remaining());
+        body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        if (remaining > 0)
+        {
+            remaining -= length;
+        }
+    }
+
+    /**
+     * Appends the bytes of the current line to {@link #line}, without the line terminator.
+     *
+     * @return true if the end of the line has been reached
+     */
+    private boolean readLine(ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            byte b = buffer.get();
+            if (b == '\n')
+            {
+                return true;
+            }
+            if (b != '\r')
+            {
+                if (line.length() == MAX_LINE_LENGTH)
+                {
+                    throw new IOException("HTTP chunk line is longer than " + MAX_LINE_LENGTH + " bytes");
+                }
+                line.append((char) b);
+            }
+        }
+        return false;
+    }
+
+    private static long parseLength(String value, int radix) throws IOException
+    {
+        try
+        {
+            long length = Long.parseLong(value, radix);
+            if (length >= 0)
+            {
+                return length;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // fall through
+        }
+        throw new IOException("Invalid HTTP body length: " + value);
+    }
+
+    private Header getHeader(String name)
+    {
+        for (Header header : headers)
+        {
+            if (header.getName().equalsIgnoreCase(name))
+            {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if any byte of the response has been received
+     */
+    boolean hasStarted()
+    {
+        return started;
+    }
+
+    /**
+     * @return true if the connection can be used for another request once the response is
+     *         complete
+     */
+    boolean isKeepAlive()
+    {
+        return keepAlive;
+    }
+
+    StatusLine getStatusLine()
+    {
+        return statusLine;
+    }
+
+    Header[] getHeaders()
+    {
+        return headers;
+    }
+
+    /**
+     * @return the body of the response, or null if it has none
+     */
+    byte[] getBody()
+    {
+        return body == null ? null : body.toByteArray();
+    }
+}
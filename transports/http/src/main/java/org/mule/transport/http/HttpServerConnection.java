@@ -16,6 +16,7 @@ import org.mule.api.transport.OutputHandler;
 import org.mule.util.SystemUtils;
 import org.mule.util.concurrent.Latch;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -52,6 +53,8 @@ public class HttpServerConnection implements HandshakeCompletedListener
     private static final Log logger = LogFactory.getLog(HttpServerConnection.class);
 
     private Socket socket;
+    private final HttpChannel channel;
+    private final boolean secure;
     private final InputStream in;
     private final OutputStream out;
     // this should rather be isKeepSocketOpen as this is the main purpose of this flag
@@ -73,14 +76,59 @@ public class HttpServerConnection implements HandshakeCompletedListener
         }
 
         this.socket = socket;
+        this.channel = null;
+        this.secure = socket instanceof SSLSocket;
 
-        if (this.socket instanceof SSLSocket)
+        if (secure)
         {
             ((SSLSocket) socket).addHandshakeCompletedListener(this);
         }
 
-        setSocketTcpNoDelay(connector.isSendTcpNoDelay());
-        this.socket.setKeepAlive(connector.isKeepAlive());
+        configureSocket(socket, connector);
+
+        this.in = socket.getInputStream();
+        this.out = new DataOutputStream(socket.getOutputStream());
+        this.encoding = encoding;
+    }
+
+    /**
+     * Creates a connection for a request whose head has already been read from a non-blocking
+     * {@link HttpChannel}. The channel must have been switched to blocking mode.
+     *
+     * @param channel channel the rest of the request is read from and the response written to
+     * @param requestHead request line and headers of the request
+     */
+    HttpServerConnection(HttpChannel channel, byte[] requestHead, String encoding, HttpConnector connector) throws IOException
+    {
+        super();
+
+        this.channel = channel;
+        this.socket = channel.getSocket();
+        this.secure = channel.isSecure();
+        this.in = channel.getInputStream();
+        this.out = new DataOutputStream(channel.getOutputStream());
+        this.encoding = encoding;
+
+        if (secure)
+        {
+            // the handshake completes before the request head can be read
+            localCertificateChain = channel.getLocalCertificates();
+            peerCertificateChain = channel.getPeerCertificates();
+            sslSocketHandshakeComplete.release();
+        }
+
+        InputStream head = new ByteArrayInputStream(requestHead);
+        this.requestLine = RequestLine.parseLine(HttpParser.readLine(head, encoding));
+        this.cachedRequest = new HttpRequest(requestLine, HttpParser.parseHeaders(head, encoding), in, encoding);
+    }
+
+    /**
+     * Applies the socket settings of the connector to an accepted socket.
+     */
+    static void configureSocket(Socket socket, HttpConnector connector) throws IOException
+    {
+        setSocketTcpNoDelay(socket, connector.isSendTcpNoDelay());
+        socket.setKeepAlive(connector.isKeepAlive());
 
         if (connector.getReceiveBufferSize() != Connector.INT_VALUE_NOT_SET
             && socket.getReceiveBufferSize() != connector.getReceiveBufferSize())
@@ -92,13 +140,9 @@ public class HttpServerConnection implements HandshakeCompletedListener
         {
             socket.setSoTimeout(connector.getServerSoTimeout());
         }
-
-        this.in = socket.getInputStream();
-        this.out = new DataOutputStream(socket.getOutputStream());
-        this.encoding = encoding;
     }
 
-    private void setSocketTcpNoDelay(boolean tcpNoDelay) throws IOException
+    private static void setSocketTcpNoDelay(Socket socket, boolean tcpNoDelay) throws IOException
     {
         try
         {
@@ -125,6 +169,15 @@ public class HttpServerConnection implements HandshakeCompletedListener
 
     public synchronized void close()
     {
+        if (channel != null)
+        {
+            if (socket != null)
+            {
+                channel.close();
+                socket = null;
+            }
+            return;
+        }
         try
         {
             if (socket != null)
@@ -425,7 +478,7 @@ public class HttpServerConnection implements HandshakeCompletedListener
     public String getFullUri() throws IOException
     {
         String scheme = "http";
-        if (socket instanceof SSLSocket)
+        if (secure)
         {
             scheme = "https";
         }
@@ -484,7 +537,7 @@ public class HttpServerConnection implements HandshakeCompletedListener
 
     public Latch getSslSocketHandshakeCompleteLatch()
     {
-        if (!(socket instanceof SSLSocket))
+        if (!secure)
         {
             throw new IllegalStateException("The socket type is not SSL");
         }
@@ -525,7 +578,7 @@ public class HttpServerConnection implements HandshakeCompletedListener
 
     public Certificate[] getLocalCertificateChain()
     {
-        if (!(socket instanceof SSLSocket))
+        if (!secure)
         {
             throw new IllegalStateException("The socket type is not SSL");
         }
@@ -534,7 +587,7 @@ public class HttpServerConnection implements HandshakeCompletedListener
 
     public Certificate[] getPeerCertificateChain()
     {
-        if (!(socket instanceof SSLSocket))
+        if (!secure)
         {
             throw new IllegalStateException("The socket type is not SSL");
         }
@@ -24,6 +24,10 @@ public class HttpsClientMessageDispatcherFactory extends AbstractMessageDispatch
     @Override
     public MessageDispatcher create(OutboundEndpoint endpoint) throws MuleException
     {
+        if (((HttpConnector) endpoint.getConnector()).isNonBlockingClientEnabled())
+        {
+            return new NonBlockingHttpClientMessageDispatcher(endpoint);
+        }
         return new HttpsClientMessageDispatcher(endpoint);
     }
 
@@ -25,10 +25,13 @@ import org.mule.transport.ssl.SslSocketFactory;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.URI;
+import java.nio.channels.SocketChannel;
 import java.security.GeneralSecurityException;
 import java.security.Provider;
 
 import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLServerSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManagerFactory;
@@ -53,6 +56,8 @@ public class HttpsConnector extends HttpConnector implements TlsDirectKeyStore,
      */
     private long sslHandshakeTimeout = 30000;
 
+    private SSLContext clientSslContext;
+
     public HttpsConnector(MuleContext context)
     {
         super(context);
@@ -65,11 +70,61 @@ public class HttpsConnector extends HttpConnector implements TlsDirectKeyStore,
     @Override
     protected ServerSocket getServerSocket(URI uri) throws IOException
     {
+        if (isNonBlockingReceiver())
+        {
+            // TLS is handled by the SSLEngine of every accepted channel
+            return super.getServerSocket(uri);
+        }
         SSLServerSocket serverSocket = (SSLServerSocket) super.getServerSocket(uri);
         serverSocket.setNeedClientAuth(isRequireClientAuthentication());
         return serverSocket;
     }
 
+    @Override
+    HttpChannel createHttpChannel(SocketChannel socketChannel) throws IOException
+    {
+        SSLEngine engine;
+        try
+        {
+            engine = tls.getSslContext().createSSLEngine();
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw (IOException) new IOException(e.getMessage()).initCause(e);
+        }
+        engine.setUseClientMode(false);
+        engine.setNeedClientAuth(isRequireClientAuthentication());
+        return new SslHttpChannel(socketChannel, MAX_REQUEST_HEAD_SIZE, engine);
+    }
+
+    @Override
+    HttpChannel createClientHttpChannel(SocketChannel socketChannel, String host, int port, boolean secure) throws IOException
+    {
+        if (!secure)
+        {
+            return super.createClientHttpChannel(socketChannel, host, port, secure);
+        }
+        SSLEngine engine = getClientSslContext().createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+        return new SslHttpChannel(socketChannel, MAX_REQUEST_HEAD_SIZE, engine);
+    }
+
+    private synchronized SSLContext getClientSslContext() throws IOException
+    {
+        if (clientSslContext == null)
+        {
+            try
+            {
+                clientSslContext = tls.getSslContext();
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw (IOException) new IOException(e.getMessage()).initCause(e);
+            }
+        }
+        return clientSslContext;
+    }
+
     @Override
     protected void doInitialise() throws InitialisationException
     {
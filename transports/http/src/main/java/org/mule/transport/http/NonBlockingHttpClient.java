@@ -0,0 +1,653 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import org.mule.api.transport.Connector;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Sends HTTP requests over non-blocking channels, all of them served by a single selector
+ * thread, so the number of requests in flight is not bounded by a thread pool.
+ * <p/>
+ * Connections are pooled per route (host, port and scheme). At most
+ * <code>maxConnectionsPerRoute</code> connections are open to the same route; further
+ * requests wait for one of them to be released. Connections kept alive by the server are
+ * reused, most recently used first, and closed once idle for longer than the idle timeout.
+ * <p/>
+ * When <code>maxPipelinedRequests</code> is greater than one and every connection of a route
+ * is busy, idempotent requests are pipelined: they are written on a busy connection without
+ * waiting for the responses of the requests sent before them, which the server answers in
+ * order. Requests are never pipelined behind a non-idempotent request or a request that
+ * closes the connection.
+ * <p/>
+ * A request that finds its connection closed by the server before any byte of its response
+ * has been received is sent again once on a new connection, provided its connection was
+ * reused or it was pipelined, and either its method is idempotent or none of its bytes had
+ * been written.
+ * <p/>
+ * Every pool and connection is only touched by the selector thread. Other threads submit
+ * exchanges through {@link #execute(HttpClientExchange)}.
+ */
+class NonBlockingHttpClient implements Runnable
+{
+
+    private static final long SELECT_TIMEOUT = 1000;
+
+    private static Log logger = LogFactory.getLog(NonBlockingHttpClient.class);
+
+    private final HttpConnector httpConnector;
+    private final int maxConnectionsPerRoute;
+    private final int maxPipelinedRequests;
+    private final long idleTimeout;
+    private final Selector selector;
+    private final Queue<HttpClientExchange> submissions = new ConcurrentLinkedQueue<HttpClientExchange>();
+    private final Map<String, Route> routes = new HashMap<String, Route>();
+    private volatile boolean running = true;
+    private long lastExpiryCheck = System.currentTimeMillis();
+
+    NonBlockingHttpClient(HttpConnector httpConnector, int maxConnectionsPerRoute, int maxPipelinedRequests,
+                          long idleTimeout) throws IOException
+    {
+        this.httpConnector = httpConnector;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        this.idleTimeout = idleTimeout;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Sends the request of <code>exchange</code> as soon as a connection to its route is
+     * available. Returns immediately.
+     */
+    void execute(HttpClientExchange exchange)
+    {
+        if (!running)
+        {
+            exchange.failed(new IOException("HTTP client is stopped"));
+            return;
+        }
+        submissions.add(exchange);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run()
+    {
+        while (running)
+        {
+            try
+            {
+                selector.select(SELECT_TIMEOUT);
+                processSubmissions();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid())
+                    {
+                        ((Connection) key.attachment()).process(key);
+                    }
+                }
+                expire();
+            }
+            catch (Exception e)
+            {
+                if (running)
+                {
+                    logger.warn("Failed to select HTTP client channels: " + e.getMessage(), e);
+                }
+            }
+        }
+        closeAll();
+    }
+
+    private void processSubmissions()
+    {
+        HttpClientExchange exchange;
+        while ((exchange = submissions.poll()) != null)
+        {
+            InetSocketAddress address = exchange.getAddress();
+            String key = (exchange.isSecure() ? "https://" : "http://") + address.getHostName() + ":" + address.getPort();
+            Route route = routes.get(key);
+            if (route == null)
+            {
+                route = new Route(key, exchange.isSecure(), address);
+                routes.put(key, route);
+            }
+            route.pending.add(exchange);
+            dispatch(route);
+        }
+    }
+
+    /**
+     * Assigns the pending exchanges of <code>route</code> to idle connections, to new ones
+     * while the route is below its connection limit and then, if pipelining is enabled, to
+     * the busy connection with the fewest requests in flight.
+     */
+    private void dispatch(Route route)
+    {
+        while (running && !route.pending.isEmpty())
+        {
+            if (route.pending.getFirst().isDone())
+            {
+                route.pending.removeFirst();
+            }
+            else if (!route.idle.isEmpty())
+            {
+                route.idle.removeLast().start(route.pending.removeFirst(), true);
+            }
+            else if (route.connections < maxConnectionsPerRoute)
+            {
+                open(route, route.pending.removeFirst());
+            }
+            else
+            {
+                Connection connection = getPipelineConnection(route, route.pending.getFirst());
+                if (connection == null)
+                {
+                    return;
+                }
+                connection.start(route.pending.removeFirst(), true);
+            }
+        }
+    }
+
+    private Connection getPipelineConnection(Route route, HttpClientExchange exchange)
+    {
+        if (maxPipelinedRequests < 2 || !exchange.isPipelinable())
+        {
+            return null;
+        }
+        Connection selected = null;
+        for (Connection connection : route.active)
+        {
+            if (connection.canPipeline()
+                && (selected == null || connection.exchanges.size() < selected.exchanges.size()))
+            {
+                selected = connection;
+            }
+        }
+        return selected;
+    }
+
+    private void open(Route route, HttpClientExchange exchange)
+    {
+        SocketChannel socketChannel = null;
+        try
+        {
+            socketChannel = SocketChannel.open();
+            configureSocket(socketChannel.socket());
+            socketChannel.configureBlocking(false);
+            boolean connected = socketChannel.connect(route.address);
+            HttpChannel channel = httpConnector.createClientHttpChannel(socketChannel, route.address.getHostName(), route.address.getPort(), route.secure);
+            Connection connection = new Connection(route, channel);
+            connection.key = socketChannel.register(selector, connected ? 0 : SelectionKey.OP_CONNECT, connection);
+            route.connections++;
+            connection.connected = connected;
+            connection.start(exchange, false);
+        }
+        catch (IOException e)
+        {
+            if (socketChannel != null)
+            {
+                closeQuietly(socketChannel);
+            }
+            exchange.failed(e);
+        }
+    }
+
+    private void configureSocket(Socket socket) throws IOException
+    {
+        if (httpConnector.getSendBufferSize() != Connector.INT_VALUE_NOT_SET)
+        {
+            socket.setSendBufferSize(httpConnector.getSendBufferSize());
+        }
+        if (httpConnector.getReceiveBufferSize() != Connector.INT_VALUE_NOT_SET)
+        {
+            socket.setReceiveBufferSize(httpConnector.getReceiveBufferSize());
+        }
+        if (httpConnector.getSocketSoLinger() != Connector.INT_VALUE_NOT_SET)
+        {
+            socket.setSoLinger(true, httpConnector.getSocketSoLinger());
+        }
+        socket.setTcpNoDelay(httpConnector.isSendTcpNoDelay());
+        socket.setKeepAlive(httpConnector.isKeepAlive());
+    }
+
+    private static void closeQuietly(SocketChannel socketChannel)
+    {
+        try
+        {
+            socketChannel.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("(Ignored) Error closing the channel: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fails the exchanges that timed out and closes the connections idle for too long.
+     */
+    private void expire()
+    {
+        long now = System.currentTimeMillis();
+        if (now - lastExpiryCheck < SELECT_TIMEOUT)
+        {
+            return;
+        }
+        lastExpiryCheck = now;
+        for (SelectionKey key : selector.keys())
+        {
+            Connection connection = (Connection) key.attachment();
+            if (!key.isValid())
+            {
+                continue;
+            }
+            if (!connection.exchanges.isEmpty())
+            {
+                for (HttpClientExchange exchange : connection.exchanges)
+                {
+                    if (exchange.isExpired(now))
+                    {
+                        exchange.failed(new SocketTimeoutException("Timed out waiting for the HTTP response"));
+                    }
+                }
+                if (connection.exchanges.getFirst().isDone())
+                {
+                    // the exchange timed out or was cancelled by its caller, its response may
+                    // never arrive so the requests pipelined behind it are sent elsewhere
+                    connection.fail(new SocketTimeoutException("Abandoned HTTP connection of a timed out request"));
+                }
+            }
+            else if (idleTimeout > 0 && connection.channel.isIdle(now, idleTimeout))
+            {
+                logger.debug("Closing idle HTTP client connection");
+                connection.close();
+            }
+        }
+
+        Iterator<Route> iterator = routes.values().iterator();
+        while (iterator.hasNext())
+        {
+            Route route = iterator.next();
+            Iterator<HttpClientExchange> pending = route.pending.iterator();
+            while (pending.hasNext())
+            {
+                HttpClientExchange exchange = pending.next();
+                if (exchange.isExpired(now))
+                {
+                    exchange.failed(new SocketTimeoutException("Timed out waiting for a connection to " + route.key));
+                }
+                if (exchange.isDone())
+                {
+                    pending.remove();
+                }
+            }
+            dispatch(route);
+            if (route.connections == 0 && route.pending.isEmpty())
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+    void stop()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void closeAll()
+    {
+        IOException stopped = new IOException("HTTP client is stopped");
+        for (SelectionKey key : selector.keys())
+        {
+            Connection connection = (Connection) key.attachment();
+            for (HttpClientExchange exchange : connection.exchanges)
+            {
+                exchange.failed(stopped);
+            }
+            connection.channel.close();
+        }
+        for (Route route : routes.values())
+        {
+            for (HttpClientExchange exchange : route.pending)
+            {
+                exchange.failed(stopped);
+            }
+        }
+        routes.clear();
+        HttpClientExchange exchange;
+        while ((exchange = submissions.poll()) != null)
+        {
+            exchange.failed(stopped);
+        }
+        try
+        {
+            selector.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("(Ignored) Error closing the selector: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The connections to a host, and the exchanges waiting for one of them.
+     */
+    private static class Route
+    {
+
+        private final String key;
+        private final boolean secure;
+        private final InetSocketAddress address;
+        private final LinkedList<Connection> idle = new LinkedList<Connection>();
+        /**
+         * Connections with requests in flight.
+         */
+        private final List<Connection> active = new ArrayList<Connection>();
+        private final LinkedList<HttpClientExchange> pending = new LinkedList<HttpClientExchange>();
+        /**
+         * Open connections, either idle or in use.
+         */
+        private int connections;
+
+        Route(String key, boolean secure, InetSocketAddress address)
+        {
+            this.key = key;
+            this.secure = secure;
+            this.address = address;
+        }
+    }
+
+    private class Connection
+    {
+
+        private final Route route;
+        private final HttpChannel channel;
+        private SelectionKey key;
+        private boolean connected;
+        /**
+         * Exchanges assigned to the connection, in the order their responses are expected.
+         */
+        private final LinkedList<HttpClientExchange> exchanges = new LinkedList<HttpClientExchange>();
+        /**
+         * Number of exchanges at the head of {@link #exchanges} whose request has been
+         * completely written.
+         */
+        private int written;
+        /**
+         * The rest of the request being written, null once all of them have been written.
+         */
+        private ByteBuffer request;
+        /**
+         * Parses the response of the first exchange.
+         */
+        private HttpResponseParser parser;
+        /**
+         * Whether the first exchange was not the first request sent on this connection.
+         */
+        private boolean reused;
+
+        Connection(Route route, HttpChannel channel)
+        {
+            this.route = route;
+            this.channel = channel;
+        }
+
+        void start(HttpClientExchange exchange, boolean reused)
+        {
+            if (exchanges.isEmpty())
+            {
+                this.reused = reused;
+                this.parser = new HttpResponseParser(HttpConnector.MAX_REQUEST_HEAD_SIZE, exchange.isHeadRequest());
+                route.active.add(this);
+            }
+            exchanges.addLast(exchange);
+            if (request == null)
+            {
+                request = exchange.getRequest();
+            }
+            if (connected)
+            {
+                progress();
+            }
+        }
+
+        /**
+         * @return true if one more request can be pipelined behind the ones in flight
+         */
+        boolean canPipeline()
+        {
+            if (exchanges.size() >= maxPipelinedRequests)
+            {
+                return false;
+            }
+            for (HttpClientExchange exchange : exchanges)
+            {
+                if (!exchange.isPipelinable())
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void process(SelectionKey key)
+        {
+            if (!connected)
+            {
+                try
+                {
+                    connected = ((SocketChannel) key.channel()).finishConnect();
+                }
+                catch (IOException e)
+                {
+                    fail(e);
+                    return;
+                }
+                if (!connected)
+                {
+                    return;
+                }
+            }
+            if (!exchanges.isEmpty())
+            {
+                progress();
+            }
+            else
+            {
+                checkIdle();
+            }
+        }
+
+        /**
+         * Writes the requests and reads the responses as far as the channel allows without
+         * blocking.
+         */
+        private void progress()
+        {
+            try
+            {
+                boolean handshaken = true;
+                while (request != null)
+                {
+                    handshaken = channel.handshake();
+                    if (!handshaken || !channel.write(request))
+                    {
+                        break;
+                    }
+                    written++;
+                    request = written < exchanges.size() ? exchanges.get(written).getRequest() : null;
+                }
+                while (written > 0 && channel.readResponse(parser))
+                {
+                    if (!complete())
+                    {
+                        return;
+                    }
+                }
+                int ops = SelectionKey.OP_READ;
+                if (channel.hasPendingOutput() || (request != null && handshaken))
+                {
+                    ops |= SelectionKey.OP_WRITE;
+                }
+                key.interestOps(ops);
+            }
+            catch (IOException e)
+            {
+                fail(e);
+            }
+        }
+
+        /**
+         * Completes the first exchange with the response just parsed.
+         *
+         * @return true if the connection carries on with the next pipelined exchange
+         */
+        private boolean complete()
+        {
+            HttpClientExchange completed = exchanges.removeFirst();
+            written--;
+            HttpResponseParser response = parser;
+            parser = null;
+            reused = true;
+
+            if (!running || !response.isKeepAlive() || !completed.isKeepAlive())
+            {
+                completed.completed(response);
+                if (exchanges.isEmpty())
+                {
+                    close();
+                    dispatch(route);
+                }
+                else
+                {
+                    fail(new IOException("HTTP connection closed with pipelined requests in flight"));
+                }
+                return false;
+            }
+            if (exchanges.isEmpty())
+            {
+                route.active.remove(this);
+                if (channel.hasInbound())
+                {
+                    close();
+                }
+                else
+                {
+                    key.interestOps(SelectionKey.OP_READ);
+                    route.idle.addLast(this);
+                }
+                completed.completed(response);
+                dispatch(route);
+                return false;
+            }
+            parser = new HttpResponseParser(HttpConnector.MAX_REQUEST_HEAD_SIZE, exchanges.getFirst().isHeadRequest());
+            completed.completed(response);
+            return true;
+        }
+
+        /**
+         * Closes the connection, sending the exchanges that can safely be retried again and
+         * failing the rest.
+         */
+        private void fail(IOException e)
+        {
+            List<HttpClientExchange> failed = new ArrayList<HttpClientExchange>(exchanges);
+            boolean responseStarted = parser != null && parser.hasStarted();
+            int writtenRequests = written;
+            boolean requestStarted = request != null && request.position() > 0;
+            exchanges.clear();
+            written = 0;
+            request = null;
+            parser = null;
+            close();
+
+            List<HttpClientExchange> retries = new ArrayList<HttpClientExchange>(failed.size());
+            for (int i = 0; i < failed.size(); i++)
+            {
+                HttpClientExchange exchange = failed.get(i);
+                boolean unwritten = i > writtenRequests || (i == writtenRequests && !requestStarted);
+                boolean retryable = (i > 0 || reused) && !(i == 0 && responseStarted)
+                                    && (unwritten || exchange.isIdempotent());
+                if (retryable && exchange.retry())
+                {
+                    logger.debug("HTTP connection closed before the response, sending the request again: " + e.getMessage());
+                    retries.add(exchange);
+                }
+                else
+                {
+                    exchange.failed(e);
+                }
+            }
+            // keep the retried exchanges in their original order, ahead of the ones waiting
+            for (int i = retries.size() - 1; i >= 0; i--)
+            {
+                route.pending.addFirst(retries.get(i));
+            }
+            dispatch(route);
+        }
+
+        /**
+         * An idle connection became readable, which means the server closed it or, against the
+         * protocol, sent unsolicited data. Either way it can not be reused.
+         */
+        private void checkIdle()
+        {
+            try
+            {
+                if (channel.fill() == 0)
+                {
+                    // only TLS records without application data, such as session tickets
+                    return;
+                }
+            }
+            catch (IOException e)
+            {
+                logger.debug("Pooled HTTP connection failed: " + e.getMessage());
+            }
+            close();
+        }
+
+        void close()
+        {
+            if (key.isValid())
+            {
+                key.cancel();
+                route.connections--;
+                route.idle.remove(this);
+                route.active.remove(this);
+            }
+            channel.close();
+        }
+    }
+}
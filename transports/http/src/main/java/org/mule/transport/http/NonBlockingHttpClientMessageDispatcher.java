@@ -0,0 +1,404 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.endpoint.OutboundEndpoint;
+import org.mule.api.transport.DispatchException;
+import org.mule.message.DefaultExceptionPayload;
+import org.mule.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+import javax.resource.spi.work.Work;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.httpclient.Cookie;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpVersion;
+import org.apache.commons.httpclient.cookie.CookiePolicy;
+import org.apache.commons.httpclient.cookie.CookieSpec;
+import org.apache.commons.httpclient.cookie.MalformedCookieException;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+
+/**
+ * Dispatches Mule events over HTTP through the {@link NonBlockingHttpClient} of the
+ * connector instead of a commons-httpclient connection.
+ * <p/>
+ * Requests are built by the same transformers as {@link HttpClientMessageDispatcher}, then
+ * serialized with their body, and responses are read completely before being turned into
+ * messages. Asynchronous dispatches return as soon as the request has been queued; their
+ * responses are handled by the dispatcher work manager, which reports failures to the
+ * exception listener of the Mule context. Synchronous sends wait for the response on the
+ * calling thread, as Mule flows can not be resumed from a callback, but no thread reads from
+ * or writes to the socket in the meantime. Cookies set by responses are kept in the state of
+ * the client, as with commons-httpclient.
+ */
+public class NonBlockingHttpClientMessageDispatcher extends HttpClientMessageDispatcher
+{
+
+    public NonBlockingHttpClientMessageDispatcher(OutboundEndpoint endpoint)
+    {
+        super(endpoint);
+    }
+
+    @Override
+    protected void doDispatch(final MuleEvent event) throws Exception
+    {
+        // callbacks run on the selector thread of the client, which must not block, so the
+        // responses are handled by the work manager of the dispatcher
+        sendRequest(event, new HttpClientExchange.Callback()
+        {
+            @Override
+            public void completed(final HttpClientExchange exchange)
+            {
+                scheduleCompletion(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        handleDispatchResponse(event, exchange);
+                    }
+                });
+            }
+
+            @Override
+            public void failed(HttpClientExchange exchange, final Exception e)
+            {
+                scheduleCompletion(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        handleException(new DispatchException(event, getEndpoint(), e));
+                    }
+                });
+            }
+        });
+    }
+
+    private void handleDispatchResponse(MuleEvent event, HttpClientExchange exchange)
+    {
+        storeResponseCookies(exchange);
+        int statusCode = exchange.getStatusCode();
+        if (returnException(event, statusCode))
+        {
+            logger.error(getResponseBodyAsString(exchange));
+
+            Exception cause = new Exception(String.format("Http call returned a status of: %1d %1s",
+                statusCode, exchange.getStatusLine().getReasonPhrase()));
+            handleException(new DispatchException(event, getEndpoint(), cause));
+        }
+        else if (statusCode >= REDIRECT_STATUS_CODE_RANGE_START)
+        {
+            if (logger.isInfoEnabled())
+            {
+                logger.info("Received a redirect response code: " + statusCode + " " + exchange.getStatusLine().getReasonPhrase());
+            }
+        }
+    }
+
+    private void scheduleCompletion(final Runnable completion)
+    {
+        try
+        {
+            getWorkManager().scheduleWork(new Work()
+            {
+                @Override
+                public void run()
+                {
+                    completion.run();
+                }
+
+                @Override
+                public void release()
+                {
+                    // nothing to release
+                }
+            });
+        }
+        catch (Exception e)
+        {
+            logger.error("Failed to schedule the completion of an HTTP dispatch to " + endpoint.getEndpointURI(), e);
+        }
+    }
+
+    private void handleException(Exception e)
+    {
+        httpConnector.getMuleContext().getExceptionListener().handleException(e);
+    }
+
+    /**
+     * Stores the cookies set by the response in the state of the client, as commons-httpclient
+     * does, so they are sent with the following requests.
+     */
+    private void storeResponseCookies(HttpClientExchange exchange)
+    {
+        InetSocketAddress address = exchange.getAddress();
+        String host = address.getHostName();
+        int port = address.getPort();
+        String path = URI.create(exchange.getUri()).getRawPath();
+        if (StringUtils.isEmpty(path))
+        {
+            path = HttpConnector.ROOT_PATH;
+        }
+        CookieSpec cookieSpec = CookiePolicy.getCookieSpec(getClient().getParams().getCookiePolicy());
+        for (Header header : exchange.getResponseHeaders())
+        {
+            if (!HttpConstants.HEADER_COOKIE_SET.equalsIgnoreCase(header.getName()))
+            {
+                continue;
+            }
+            try
+            {
+                for (Cookie cookie : cookieSpec.parse(host, port, path, exchange.isSecure(), header))
+                {
+                    cookieSpec.validate(host, port, path, exchange.isSecure(), cookie);
+                    getClient().getState().addCookie(cookie);
+                }
+            }
+            catch (MalformedCookieException e)
+            {
+                logger.warn("Invalid cookie header: \"" + header.getValue() + "\". " + e.getMessage());
+            }
+        }
+    }
+
+    private String getResponseBodyAsString(HttpClientExchange exchange)
+    {
+        byte[] body = exchange.getResponseBody();
+        if (body == null)
+        {
+            return "";
+        }
+        try
+        {
+            return new String(body, endpoint.getEncoding());
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            return new String(body);
+        }
+    }
+
+    @Override
+    protected MuleMessage doSend(MuleEvent event) throws Exception
+    {
+        // flows can not be resumed from another thread, so the caller waits for the response,
+        // although no thread reads from or writes to the socket in the meantime
+        HttpClientExchange exchange = sendRequest(event, null);
+        exchange.await(endpoint.getResponseTimeout());
+        if (exchange.getFailure() != null)
+        {
+            throw new DispatchException(event, getEndpoint(), exchange.getFailure());
+        }
+        storeResponseCookies(exchange);
+
+        DefaultExceptionPayload ep = null;
+        int statusCode = exchange.getStatusCode();
+        if (returnException(event, statusCode))
+        {
+            ep = new DefaultExceptionPayload(new DispatchException(event, getEndpoint(),
+                    new HttpResponseException(exchange.getStatusLine().getReasonPhrase(), statusCode)));
+        }
+        else if (statusCode >= REDIRECT_STATUS_CODE_RANGE_START)
+        {
+            try
+            {
+                return handleExchangeRedirect(exchange, event);
+            }
+            catch (Exception e)
+            {
+                ep = new DefaultExceptionPayload(new DispatchException(event, getEndpoint(), e));
+            }
+        }
+        return getResponseFromExchange(exchange, ep);
+    }
+
+    private MuleMessage handleExchangeRedirect(HttpClientExchange exchange, MuleEvent event) throws HttpResponseException, MuleException
+    {
+        String followRedirects = (String) endpoint.getProperty("followRedirects");
+        if (followRedirects == null || "false".equalsIgnoreCase(followRedirects))
+        {
+            if (logger.isInfoEnabled())
+            {
+                logger.info("Received a redirect, but followRedirects=false. Response code: " + exchange.getStatusCode() + " " + exchange.getStatusLine().getReasonPhrase());
+            }
+            return getResponseFromExchange(exchange, null);
+        }
+        Header locationHeader = exchange.getResponseHeader(HttpConstants.HEADER_LOCATION);
+        if (locationHeader == null)
+        {
+            throw new HttpResponseException(exchange.getStatusLine().getReasonPhrase(), exchange.getStatusCode());
+        }
+        return followRedirect(locationHeader.getValue(), event);
+    }
+
+    private MuleMessage getResponseFromExchange(HttpClientExchange exchange, DefaultExceptionPayload ep) throws MuleException
+    {
+        MuleMessage message = createMuleMessage(exchange);
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Http response is: " + message.getOutboundProperty(HttpConnector.HTTP_STATUS_PROPERTY));
+        }
+
+        message.setExceptionPayload(ep);
+        return message;
+    }
+
+    /**
+     * Builds the request for <code>event</code> and queues it in the client of the connector.
+     */
+    private HttpClientExchange sendRequest(MuleEvent event, HttpClientExchange.Callback callback) throws Exception
+    {
+        HttpMethod httpMethod = getMethod(event);
+        httpConnector.setupClientAuthorization(event, httpMethod, getClient(), endpoint);
+
+        URI uri = endpoint.getEndpointURI().getUri();
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : secure ? 443 : HttpConstants.DEFAULT_HTTP_PORT;
+
+        processCookies(event);
+        processMuleSession(event, httpMethod);
+        addStateHeaders(event, httpMethod, uri.getHost(), port, secure);
+
+        StringBuilder requestUri = new StringBuilder();
+        requestUri.append(uri.getScheme()).append("://").append(uri.getHost()).append(':').append(port).append(httpMethod.getPath());
+        if (httpMethod.getQueryString() != null)
+        {
+            requestUri.append('?').append(httpMethod.getQueryString());
+        }
+
+        HttpClientExchange exchange = new HttpClientExchange(httpMethod.getName(), requestUri.toString(),
+            new InetSocketAddress(uri.getHost(), port), secure, formatRequest(httpMethod, uri.getHost(), port, secure),
+            isKeepAlive(httpMethod), endpoint.getResponseTimeout(), callback);
+        httpConnector.getNonBlockingHttpClient().execute(exchange);
+        return exchange;
+    }
+
+    /**
+     * Turns the credentials and cookies that commons-httpclient would have taken from the state
+     * of its client into request headers.
+     */
+    private void addStateHeaders(MuleEvent event, HttpMethod httpMethod, String host, int port, boolean secure) throws UnsupportedEncodingException
+    {
+        if (event.getCredentials() != null && httpMethod.getRequestHeader(HttpConstants.HEADER_AUTHORIZATION) == null)
+        {
+            String credentials = event.getCredentials().getUsername() + ":" + new String(event.getCredentials().getPassword());
+            httpMethod.addRequestHeader(HttpConstants.HEADER_AUTHORIZATION,
+                "Basic " + new String(Base64.encodeBase64(credentials.getBytes(endpoint.getEncoding()))));
+        }
+
+        Cookie[] cookies = getClient().getState().getCookies();
+        if (cookies.length > 0)
+        {
+            CookieSpec cookieSpec = CookiePolicy.getCookieSpec(httpMethod.getParams().getCookiePolicy());
+            Cookie[] matching = cookieSpec.match(host, port, httpMethod.getPath(), secure, cookies);
+            if (matching.length > 0)
+            {
+                httpMethod.setRequestHeader(cookieSpec.formatCookieHeader(matching));
+            }
+        }
+    }
+
+    private static boolean isKeepAlive(HttpMethod httpMethod)
+    {
+        Header connection = httpMethod.getRequestHeader(HttpConstants.HEADER_CONNECTION);
+        if (connection != null)
+        {
+            return !connection.getValue().toLowerCase().contains("close");
+        }
+        return httpMethod.getParams().getVersion().greaterEquals(HttpVersion.HTTP_1_1);
+    }
+
+    /**
+     * Serializes the request line, headers and body of <code>httpMethod</code>. The body is
+     * always sent with its content length.
+     */
+    static ByteBuffer formatRequest(HttpMethod httpMethod, String host, int port, boolean secure) throws IOException
+    {
+        byte[] body = null;
+        String contentType = null;
+        if (httpMethod instanceof EntityEnclosingMethod)
+        {
+            RequestEntity requestEntity = ((EntityEnclosingMethod) httpMethod).getRequestEntity();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (requestEntity != null)
+            {
+                requestEntity.writeRequest(out);
+                contentType = requestEntity.getContentType();
+            }
+            body = out.toByteArray();
+        }
+
+        HttpMethodParams params = httpMethod.getParams();
+        StringBuilder head = new StringBuilder(256);
+        head.append(httpMethod.getName()).append(' ').append(httpMethod.getPath());
+        if (httpMethod.getQueryString() != null)
+        {
+            head.append('?').append(httpMethod.getQueryString());
+        }
+        head.append(' ').append(params.getVersion()).append("\r\n");
+
+        if (httpMethod.getRequestHeader(HttpConstants.HEADER_HOST) == null)
+        {
+            head.append(HttpConstants.HEADER_HOST).append(": ").append(host);
+            if (port != (secure ? 443 : HttpConstants.DEFAULT_HTTP_PORT))
+            {
+                head.append(':').append(port);
+            }
+            head.append("\r\n");
+        }
+        Object userAgent = params.getParameter(HttpMethodParams.USER_AGENT);
+        if (userAgent != null && httpMethod.getRequestHeader(HttpConstants.HEADER_USER_AGENT) == null)
+        {
+            head.append(HttpConstants.HEADER_USER_AGENT).append(": ").append(userAgent).append("\r\n");
+        }
+        for (Header header : httpMethod.getRequestHeaders())
+        {
+            String name = header.getName();
+            if (!name.equalsIgnoreCase(HttpConstants.HEADER_CONTENT_LENGTH)
+                && !name.equalsIgnoreCase(HttpConstants.HEADER_TRANSFER_ENCODING))
+            {
+                head.append(header.toExternalForm());
+            }
+        }
+        if (body != null)
+        {
+            if (contentType != null && httpMethod.getRequestHeader(HttpConstants.HEADER_CONTENT_TYPE) == null)
+            {
+                head.append(HttpConstants.HEADER_CONTENT_TYPE).append(": ").append(contentType).append("\r\n");
+            }
+            head.append(HttpConstants.HEADER_CONTENT_LENGTH).append(": ").append(body.length).append("\r\n");
+        }
+        head.append("\r\n");
+
+        byte[] headBytes = head.toString().getBytes(params.getHttpElementCharset());
+        ByteBuffer request = ByteBuffer.allocate(headBytes.length + (body == null ? 0 : body.length));
+        request.put(headBytes);
+        if (body != null)
+        {
+            request.put(body);
+        }
+        request.flip();
+        return request.asReadOnlyBuffer();
+    }
+}
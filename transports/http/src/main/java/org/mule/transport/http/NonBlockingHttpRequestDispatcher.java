@@ -0,0 +1,112 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import org.mule.api.context.WorkManager;
+import org.mule.api.retry.RetryPolicyTemplate;
+import org.mule.api.transport.Connector;
+import org.mule.util.concurrent.NamedThreadFactory;
+import org.mule.util.concurrent.ThreadNameHelper;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Accepts connections like {@link HttpRequestDispatcher} but, instead of holding a thread
+ * per connection, registers them with a small set of {@link HttpChannelSelector}s that read
+ * the request heads without blocking. Threads of the request hand-off pool are only used
+ * once a complete request head has arrived.
+ * <p/>
+ * The server socket must have been created from a
+ * {@link java.nio.channels.ServerSocketChannel}.
+ */
+class NonBlockingHttpRequestDispatcher extends HttpRequestDispatcher
+{
+
+    private static Log logger = LogFactory.getLog(NonBlockingHttpRequestDispatcher.class);
+
+    private final HttpConnector httpConnector;
+    private final HttpChannelSelector[] selectors;
+    private final ExecutorService selectorExecutor;
+    private final AtomicInteger nextSelector = new AtomicInteger();
+
+    public NonBlockingHttpRequestDispatcher(final HttpConnector httpConnector, final RetryPolicyTemplate retryPolicyTemplate, final ServerSocket serverSocket, final WorkManager workManager) throws IOException
+    {
+        super(httpConnector, retryPolicyTemplate, serverSocket, workManager);
+        if (serverSocket.getChannel() == null)
+        {
+            throw new IllegalArgumentException("ServerSocket must be created from a ServerSocketChannel");
+        }
+        this.httpConnector = httpConnector;
+        long idleTimeout = getIdleTimeout(httpConnector);
+        selectors = new HttpChannelSelector[httpConnector.getSelectorThreads()];
+        String threadNamePrefix = ThreadNameHelper.getPrefix(httpConnector.getMuleContext()) + "http.selector." + serverSocket.getLocalPort();
+        selectorExecutor = Executors.newFixedThreadPool(selectors.length, new NamedThreadFactory(threadNamePrefix));
+        for (int i = 0; i < selectors.length; i++)
+        {
+            selectors[i] = new HttpChannelSelector(httpConnector, requestHandOffExecutor, idleTimeout);
+            selectorExecutor.execute(selectors[i]);
+        }
+    }
+
+    /**
+     * Idle connections are closed after the keep alive timeout or, if not set, the server
+     * socket timeout, as the blocking dispatcher does.
+     */
+    private static long getIdleTimeout(HttpConnector httpConnector)
+    {
+        if (httpConnector.getKeepAliveTimeout() > 0)
+        {
+            return httpConnector.getKeepAliveTimeout();
+        }
+        if (httpConnector.getServerSoTimeout() != Connector.INT_VALUE_NOT_SET)
+        {
+            return httpConnector.getServerSoTimeout();
+        }
+        return 0;
+    }
+
+    @Override
+    protected void processSocket(Socket socket) throws Exception
+    {
+        SocketChannel socketChannel = socket.getChannel();
+        try
+        {
+            HttpServerConnection.configureSocket(socket, httpConnector);
+            socketChannel.configureBlocking(false);
+            HttpChannel channel = httpConnector.createHttpChannel(socketChannel);
+            selectors[(nextSelector.getAndIncrement() & Integer.MAX_VALUE) % selectors.length].register(channel);
+        }
+        catch (IOException e)
+        {
+            logger.debug("Failed to set up HTTP connection: " + e.getMessage());
+            socketChannel.close();
+        }
+    }
+
+    @Override
+    void disconnect()
+    {
+        super.disconnect();
+        for (HttpChannelSelector selector : selectors)
+        {
+            selector.stop();
+        }
+        selectorExecutor.shutdown();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import org.mule.api.transport.NoReceiverForEndpointException;
+import org.mule.transport.http.i18n.HttpMessages;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Dispatches a single HttpRequest, whose head has already been read by an
+ * {@link HttpChannelSelector}, to the appropriate MessageReceiver. If the connection is kept
+ * alive the channel is given back to the selector to wait for the next request.
+ */
+class NonBlockingHttpRequestDispatcherWork implements Runnable
+{
+
+    private static Log logger = LogFactory.getLog(NonBlockingHttpRequestDispatcherWork.class);
+
+    private final HttpConnector httpConnector;
+    private final HttpChannel channel;
+    private final byte[] requestHead;
+    private final HttpChannelSelector selector;
+
+    NonBlockingHttpRequestDispatcherWork(HttpConnector httpConnector, HttpChannel channel, byte[] requestHead, HttpChannelSelector selector)
+    {
+        this.httpConnector = httpConnector;
+        this.channel = channel;
+        this.requestHead = requestHead;
+        this.selector = selector;
+    }
+
+    @Override
+    public void run()
+    {
+        boolean keepAlive = false;
+        try
+        {
+            channel.configureBlocking(true);
+            String encoding = httpConnector.getMuleContext().getConfiguration().getDefaultEncoding();
+            HttpServerConnection httpServerConnection = new HttpServerConnection(channel, requestHead, encoding, httpConnector);
+            try
+            {
+                HttpMessageReceiver httpMessageReceiver = httpConnector.lookupReceiver(channel.getSocket(), httpServerConnection.getRequestLine());
+                httpMessageReceiver.processRequest(httpServerConnection);
+            }
+            catch (NoReceiverForEndpointException e)
+            {
+                httpServerConnection.writeFailureResponse(HttpConstants.SC_NOT_FOUND, HttpMessages.cannotBindToAddress(httpServerConnection.getFullUri()).toString());
+            }
+            keepAlive = httpServerConnection.isKeepAlive() && httpServerConnection.isOpen();
+            if (keepAlive)
+            {
+                skipUnreadBody(httpServerConnection.readRequest().getBody());
+                channel.configureBlocking(false);
+                selector.register(channel);
+            }
+        }
+        catch (HttpMessageReceiver.EmptyRequestException e)
+        {
+            logger.debug("Discarding request since content was empty");
+        }
+        catch (HttpMessageReceiver.FailureProcessingRequestException e)
+        {
+            logger.debug("Closing socket due to failure during request processing");
+        }
+        catch (Exception e)
+        {
+            keepAlive = false;
+            httpConnector.getMuleContext().getExceptionListener().handleException(e);
+        }
+        finally
+        {
+            if (!keepAlive)
+            {
+                logger.debug("Closing HTTP connection.");
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads what the flow left of the request body so the next request starts at the right
+     * position. Closing the content length and chunked streams consumes them.
+     */
+    private void skipUnreadBody(InputStream body) throws IOException
+    {
+        if (body != null)
+        {
+            body.close();
+        }
+    }
+}
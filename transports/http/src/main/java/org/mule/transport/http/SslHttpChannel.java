@@ -0,0 +1,329 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.security.cert.Certificate;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * An {@link HttpChannel} secured by an {@link SSLEngine}.
+ * <p/>
+ * The handshake is driven by the reads done while waiting for the first request head, so
+ * it never holds a thread while waiting for the client. Delegated tasks of the engine are
+ * run by the thread doing the read. Renegotiation requested by the client once the
+ * handshake has completed is not supported.
+ */
+class SslHttpChannel extends HttpChannel
+{
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SSLEngine engine;
+    private final int packetBufferSize;
+    /**
+     * Network bytes read from the channel and not unwrapped yet, in write mode.
+     */
+    private ByteBuffer netIn;
+    /**
+     * Network bytes wrapped and not written to the channel yet, in write mode.
+     */
+    private ByteBuffer netOut;
+    private OutputStream out;
+
+    SslHttpChannel(SocketChannel channel, int maxHeadSize, SSLEngine engine) throws SSLException
+    {
+        super(channel, maxHeadSize);
+        this.engine = engine;
+        SSLSession session = engine.getSession();
+        this.packetBufferSize = session.getPacketBufferSize();
+        this.netIn = ByteBuffer.allocate(packetBufferSize);
+        this.netOut = ByteBuffer.allocate(packetBufferSize);
+        this.inbound = ByteBuffer.allocate(session.getApplicationBufferSize());
+        engine.beginHandshake();
+    }
+
+    @Override
+    boolean isSecure()
+    {
+        return true;
+    }
+
+    @Override
+    Certificate[] getLocalCertificates()
+    {
+        return engine.getSession().getLocalCertificates();
+    }
+
+    @Override
+    Certificate[] getPeerCertificates()
+    {
+        try
+        {
+            return engine.getSession().getPeerCertificates();
+        }
+        catch (SSLPeerUnverifiedException e)
+        {
+            logger.debug("Cannot get peer certificate chain: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    boolean hasPendingOutput()
+    {
+        return netOut.position() > 0;
+    }
+
+    @Override
+    boolean handshake() throws IOException
+    {
+        if (isHandshaking() && fill() < 0)
+        {
+            throw new EOFException("Connection closed during the SSL handshake");
+        }
+        return !isHandshaking();
+    }
+
+    private boolean isHandshaking()
+    {
+        SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+        return status != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+               && status != SSLEngineResult.HandshakeStatus.FINISHED;
+    }
+
+    @Override
+    boolean write(ByteBuffer source) throws IOException
+    {
+        while (source.hasRemaining())
+        {
+            if (!flushOutbound())
+            {
+                return false;
+            }
+            SSLEngineResult result = wrap(source);
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED)
+            {
+                throw new SSLException("SSL engine is closed");
+            }
+            if (result.bytesConsumed() == 0)
+            {
+                // the wrapped bytes of the previous records are still waiting for the channel
+                return false;
+            }
+        }
+        return flushOutbound();
+    }
+
+    @Override
+    protected int fill() throws IOException
+    {
+        while (true)
+        {
+            if (!flushOutbound())
+            {
+                return 0;
+            }
+            switch (engine.getHandshakeStatus())
+            {
+                case NEED_TASK:
+                    runDelegatedTasks();
+                    continue;
+                case NEED_WRAP:
+                    if (wrap(EMPTY).getStatus() == SSLEngineResult.Status.CLOSED)
+                    {
+                        return -1;
+                    }
+                    continue;
+                default:
+                    break;
+            }
+
+            int start = inbound.position();
+            netIn.flip();
+            SSLEngineResult result;
+            try
+            {
+                result = engine.unwrap(netIn, inbound);
+            }
+            finally
+            {
+                netIn.compact();
+            }
+            switch (result.getStatus())
+            {
+                case OK:
+                    if (inbound.position() > start)
+                    {
+                        return inbound.position() - start;
+                    }
+                    break;
+                case BUFFER_OVERFLOW:
+                    inbound = enlarge(inbound, inbound.position() + engine.getSession().getApplicationBufferSize());
+                    break;
+                case BUFFER_UNDERFLOW:
+                    if (!netIn.hasRemaining())
+                    {
+                        netIn = enlarge(netIn, netIn.capacity() + packetBufferSize);
+                    }
+                    int read = readNetwork(netIn);
+                    if (read < 0)
+                    {
+                        closeInbound();
+                        return -1;
+                    }
+                    if (read == 0)
+                    {
+                        return 0;
+                    }
+                    break;
+                case CLOSED:
+                    return -1;
+            }
+        }
+    }
+
+    private void closeInbound()
+    {
+        try
+        {
+            engine.closeInbound();
+        }
+        catch (SSLException e)
+        {
+            logger.debug("Connection closed without close_notify: " + e.getMessage());
+        }
+    }
+
+    private SSLEngineResult wrap(ByteBuffer source) throws IOException
+    {
+        SSLEngineResult result = engine.wrap(source, netOut);
+        while (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW)
+        {
+            if (netOut.position() == 0)
+            {
+                netOut = enlarge(netOut, netOut.capacity() + packetBufferSize);
+            }
+            else if (!flushOutbound())
+            {
+                // non-blocking and the channel is full, wrap again once it is writable
+                return result;
+            }
+            result = engine.wrap(source, netOut);
+        }
+        if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
+        {
+            runDelegatedTasks();
+        }
+        return result;
+    }
+
+    private void runDelegatedTasks()
+    {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null)
+        {
+            task.run();
+        }
+    }
+
+    /**
+     * Writes the wrapped bytes to the channel.
+     *
+     * @return false if some bytes are still pending because the channel is in non-blocking
+     *         mode and could not accept them
+     */
+    private boolean flushOutbound() throws IOException
+    {
+        if (netOut.position() == 0)
+        {
+            return true;
+        }
+        netOut.flip();
+        try
+        {
+            while (netOut.hasRemaining())
+            {
+                if (channel.write(netOut) == 0 && !channel.isBlocking())
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        finally
+        {
+            netOut.compact();
+        }
+    }
+
+    @Override
+    OutputStream getOutputStream()
+    {
+        if (out == null)
+        {
+            out = new BufferedOutputStream(new SslOutputStream(), engine.getSession().getApplicationBufferSize());
+        }
+        return out;
+    }
+
+    @Override
+    void close()
+    {
+        if (channel.isOpen())
+        {
+            engine.closeOutbound();
+            try
+            {
+                wrap(EMPTY);
+                flushOutbound();
+            }
+            catch (IOException e)
+            {
+                logger.debug("(Ignored) Error sending close_notify: " + e.getMessage());
+            }
+        }
+        super.close();
+    }
+
+    private class SslOutputStream extends OutputStream
+    {
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            ByteBuffer source = ByteBuffer.wrap(b, off, len);
+            while (source.hasRemaining())
+            {
+                if (wrap(source).getStatus() == SSLEngineResult.Status.CLOSED)
+                {
+                    throw new SSLException("SSL engine is closed");
+                }
+                flushOutbound();
+            }
+        }
+    }
+}
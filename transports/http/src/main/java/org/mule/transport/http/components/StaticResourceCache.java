@@ -0,0 +1,151 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http.components;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the contents of small files served by a
+ * {@link StaticResourceMessageProcessor}.
+ * <p/>
+ * Contents are kept either in the heap or memory mapped, in which case they only take
+ * space in the page cache of the operating system. An entry is discarded when the length or
+ * the modification time of its file change. When the total size of the cached contents
+ * exceeds the maximum the least recently used entries are evicted.
+ */
+class StaticResourceCache
+{
+
+    private final long maxFileSize;
+    private final long maxSize;
+    private final boolean memoryMapped;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long size;
+
+    StaticResourceCache(long maxFileSize, long maxSize, boolean memoryMapped)
+    {
+        this.maxFileSize = maxFileSize;
+        this.maxSize = maxSize;
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * @return the contents of the file, read-only and positioned at 0, or null if the file is
+     *         too large to be cached
+     */
+    ByteBuffer get(File file, long length, long lastModified) throws IOException
+    {
+        if (length > maxFileSize || length > maxSize)
+        {
+            return null;
+        }
+        String key = file.getPath();
+        synchronized (this)
+        {
+            Entry entry = entries.get(key);
+            if (entry != null)
+            {
+                if (entry.length == length && entry.lastModified == lastModified)
+                {
+                    return entry.contents.duplicate();
+                }
+                remove(key);
+            }
+        }
+
+        ByteBuffer contents = load(file, length);
+        synchronized (this)
+        {
+            Entry previous = entries.put(key, new Entry(contents, length, lastModified));
+            if (previous != null)
+            {
+                size -= previous.length;
+            }
+            size += length;
+            evict();
+        }
+        return contents.duplicate();
+    }
+
+    private ByteBuffer load(File file, long length) throws IOException
+    {
+        FileInputStream in = new FileInputStream(file);
+        try
+        {
+            FileChannel channel = in.getChannel();
+            if (memoryMapped)
+            {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, length).asReadOnlyBuffer();
+            }
+            ByteBuffer contents = ByteBuffer.allocate((int) length);
+            while (contents.hasRemaining() && channel.read(contents) >= 0)
+            {
+                // keep reading until the buffer is full
+            }
+            contents.flip();
+            return contents.asReadOnlyBuffer();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private void evict()
+    {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext())
+        {
+            size -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    private void remove(String key)
+    {
+        Entry entry = entries.remove(key);
+        if (entry != null)
+        {
+            size -= entry.length;
+        }
+    }
+
+    synchronized long getSize()
+    {
+        return size;
+    }
+
+    synchronized int getEntryCount()
+    {
+        return entries.size();
+    }
+
+    private static class Entry
+    {
+
+        private final ByteBuffer contents;
+        private final long length;
+        private final long lastModified;
+
+        Entry(ByteBuffer contents, long length, long lastModified)
+        {
+            this.contents = contents;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -13,25 +13,36 @@ import org.mule.DefaultMuleEvent;
 import org.mule.DefaultMuleMessage;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
 import org.mule.api.config.ConfigurationException;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.MessageProcessor;
+import org.mule.api.transport.OutputHandler;
 import org.mule.transport.NullPayload;
 import org.mule.transport.http.HttpConnector;
 import org.mule.transport.http.HttpConstants;
 import org.mule.transport.http.i18n.HttpMessages;
-import org.mule.util.IOUtils;
+import org.mule.transport.http.transformers.MuleMessageToHttpResponse;
 import org.mule.util.StringUtils;
 
-import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Date;
 
 import javax.activation.MimetypesFileTypeMap;
 
+import org.apache.commons.httpclient.util.DateParseException;
+import org.apache.commons.httpclient.util.DateUtil;
+
 /**
  * A MessageProcessor that can be used by HTTP endpoints to serve static files from a directory on the
  * filesystem.  This processor allows the user to specify a resourceBase which refers to the local directory
@@ -43,9 +54,17 @@ public class StaticResourceMessageProcessor implements MessageProcessor, Initial
     public static final String DEFAULT_MIME_TYPE = "application/octet-stream";
     public static final String ROOT_PATH = "/";
 
+    private static final String BYTES_UNIT = "bytes=";
+    static final long[] UNSATISFIABLE_RANGE = new long[0];
+
     private String resourceBase;
     private String defaultFile = "index.html";
     private MimetypesFileTypeMap mimeTypes;
+    private boolean streaming = false;
+    private long cacheMaxFileSize = 0;
+    private long cacheMaxSize = 10 * 1024 * 1024;
+    private boolean cacheMemoryMapped = false;
+    private StaticResourceCache cache;
 
     @Override
     public void initialise() throws InitialisationException
@@ -53,6 +72,10 @@ public class StaticResourceMessageProcessor implements MessageProcessor, Initial
         mimeTypes = new MimetypesFileTypeMap();
         mimeTypes.addMimeTypes("text/javascript js");
         mimeTypes.addMimeTypes("text/css css");
+        if (cacheMaxFileSize > 0)
+        {
+            cache = new StaticResourceCache(cacheMaxFileSize, cacheMaxSize, cacheMemoryMapped);
+        }
     }
 
     @Override
@@ -90,35 +113,247 @@ public class StaticResourceMessageProcessor implements MessageProcessor, Initial
             return resultEvent;
         }
 
-        InputStream in = null;
+        if (!file.isFile())
+        {
+            throw new ResourceNotFoundException(HttpMessages.fileNotFound(resourceBase + path), event);
+        }
+
         try
         {
-            in = new FileInputStream(file);
+            return serve(event, file);
+        }
+        catch (IOException e)
+        {
+            throw new ResourceNotFoundException(HttpMessages.fileNotFound(resourceBase + path), event);
+        }
+    }
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            IOUtils.copyLarge(in, baos);
+    private MuleEvent serve(MuleEvent event, File file) throws IOException
+    {
+        MuleMessage request = event.getMessage();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        String etag = createEtag(length, lastModified);
+        String lastModifiedDate = MuleMessageToHttpResponse.formatDate(lastModified);
 
-            byte[] buffer = baos.toByteArray();
+        if (isNotModified(request, etag, lastModified, lastModifiedDate))
+        {
+            MuleEvent resultEvent = createResultEvent(event, NullPayload.getInstance(), HttpConstants.SC_NOT_MODIFIED, 0);
+            setValidators(resultEvent.getMessage(), etag, lastModifiedDate);
+            return resultEvent;
+        }
 
-            String mimetype = mimeTypes.getContentType(file);
-            if (mimetype == null)
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+        String range = request.getInboundProperty(HttpConstants.HEADER_RANGE);
+        if (range != null && isRangeApplicable(request, etag, lastModifiedDate))
+        {
+            long[] byteRange = parseByteRange(range, length);
+            if (byteRange == UNSATISFIABLE_RANGE)
+            {
+                MuleEvent resultEvent = createResultEvent(event, NullPayload.getInstance(), HttpConstants.SC_REQUESTED_RANGE_NOT_SATISFIABLE, 0);
+                resultEvent.getMessage().setOutboundProperty(HttpConstants.HEADER_CONTENT_RANGE, "bytes */" + length);
+                return resultEvent;
+            }
+            if (byteRange != null)
             {
-                mimetype = DEFAULT_MIME_TYPE;
+                start = byteRange[0];
+                end = byteRange[1];
+                partial = true;
             }
+        }
+        long count = end - start + 1;
 
-            resultEvent = new DefaultMuleEvent(new DefaultMuleMessage(buffer, event.getMuleContext()), event);
-            resultEvent.getMessage().setOutboundProperty(HttpConnector.HTTP_STATUS_PROPERTY, String.valueOf(HttpConstants.SC_OK));
-            resultEvent.getMessage().setOutboundProperty(HttpConstants.HEADER_CONTENT_TYPE, mimetype);
-            resultEvent.getMessage().setOutboundProperty(HttpConstants.HEADER_CONTENT_LENGTH, buffer.length);
+        Object payload;
+        ByteBuffer cached = cache != null ? cache.get(file, length, lastModified) : null;
+        if (cached != null)
+        {
+            cached.position((int) start);
+            cached.limit((int) (start + count));
+            payload = new ByteBufferOutputHandler(cached);
         }
-        catch (IOException e)
+        else if (streaming)
+        {
+            payload = new FileRegionOutputHandler(file, start, count);
+        }
+        else
+        {
+            payload = readFileRegion(file, start, count);
+        }
+
+        int status = partial ? HttpConstants.SC_PARTIAL_CONTENT : HttpConstants.SC_OK;
+        MuleEvent resultEvent = createResultEvent(event, payload, status, count);
+        MuleMessage response = resultEvent.getMessage();
+        response.setOutboundProperty(HttpConstants.HEADER_CONTENT_TYPE, getMimeType(file));
+        response.setOutboundProperty(HttpConstants.HEADER_ACCEPT_RANGES, "bytes");
+        if (partial)
         {
-            throw new ResourceNotFoundException(HttpMessages.fileNotFound(resourceBase + path),event);
+            response.setOutboundProperty(HttpConstants.HEADER_CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
         }
+        setValidators(response, etag, lastModifiedDate);
+        return resultEvent;
+    }
 
+    private MuleEvent createResultEvent(MuleEvent event, Object payload, int status, long contentLength)
+    {
+        MuleEvent resultEvent = new DefaultMuleEvent(new DefaultMuleMessage(payload, event.getMuleContext()), event);
+        resultEvent.getMessage().setOutboundProperty(HttpConnector.HTTP_STATUS_PROPERTY, String.valueOf(status));
+        resultEvent.getMessage().setOutboundProperty(HttpConstants.HEADER_CONTENT_LENGTH, contentLength);
         return resultEvent;
     }
 
+    private void setValidators(MuleMessage response, String etag, String lastModifiedDate)
+    {
+        response.setOutboundProperty(HttpConstants.HEADER_ETAG, etag);
+        response.setOutboundProperty(HttpConstants.HEADER_LAST_MODIFIED, lastModifiedDate);
+    }
+
+    private String getMimeType(File file)
+    {
+        String mimetype = mimeTypes.getContentType(file);
+        if (mimetype == null)
+        {
+            mimetype = DEFAULT_MIME_TYPE;
+        }
+        return mimetype;
+    }
+
+    protected String createEtag(long length, long lastModified)
+    {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * If-None-Match takes precedence over If-Modified-Since, as required by RFC 2616.
+     */
+    private boolean isNotModified(MuleMessage request, String etag, long lastModified, String lastModifiedDate)
+    {
+        String ifNoneMatch = request.getInboundProperty(HttpConstants.HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch != null)
+        {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        String ifModifiedSince = request.getInboundProperty(HttpConstants.HEADER_IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null)
+        {
+            if (ifModifiedSince.equals(lastModifiedDate))
+            {
+                return true;
+            }
+            Date date = parseDate(ifModifiedSince);
+            // HTTP dates have a precision of seconds
+            return date != null && lastModified / 1000 <= date.getTime() / 1000;
+        }
+        return false;
+    }
+
+    private boolean matchesEtag(String ifNoneMatch, String etag)
+    {
+        for (String candidate : ifNoneMatch.split(","))
+        {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A range is only served if the representation the client has is still current, as
+     * stated by an If-Range header.
+     */
+    private boolean isRangeApplicable(MuleMessage request, String etag, String lastModifiedDate)
+    {
+        String ifRange = request.getInboundProperty(HttpConstants.HEADER_IF_RANGE);
+        return ifRange == null || ifRange.equals(etag) || ifRange.equals(lastModifiedDate);
+    }
+
+    /**
+     * Parses a Range header with a single byte range. Multiple ranges are not supported, in
+     * which case the whole file is served, as allowed by RFC 2616.
+     *
+     * @return the first and last positions of the range, null if the header is ignored or
+     *         {@link #UNSATISFIABLE_RANGE} if no byte of the file is in the range
+     */
+    static long[] parseByteRange(String range, long length)
+    {
+        if (!range.startsWith(BYTES_UNIT) || range.indexOf(',') != -1)
+        {
+            return null;
+        }
+        String spec = range.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1)
+        {
+            return null;
+        }
+        try
+        {
+            long start;
+            long end;
+            if (dash == 0)
+            {
+                long suffix = Long.parseLong(spec.substring(1).trim());
+                if (suffix == 0)
+                {
+                    return UNSATISFIABLE_RANGE;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            }
+            else
+            {
+                start = Long.parseLong(spec.substring(0, dash).trim());
+                String last = spec.substring(dash + 1).trim();
+                end = last.length() == 0 ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (end < start && start < length)
+                {
+                    return null;
+                }
+            }
+            if (start >= length)
+            {
+                return UNSATISFIABLE_RANGE;
+            }
+            return new long[] {start, end};
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    private Date parseDate(String date)
+    {
+        try
+        {
+            return DateUtil.parseDate(date);
+        }
+        catch (DateParseException e)
+        {
+            return null;
+        }
+    }
+
+    private byte[] readFileRegion(File file, long start, long count) throws IOException
+    {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try
+        {
+            byte[] buffer = new byte[(int) count];
+            in.seek(start);
+            in.readFully(buffer);
+            return buffer;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
     public String getResourceBase()
     {
         return resourceBase;
@@ -138,4 +373,128 @@ public class StaticResourceMessageProcessor implements MessageProcessor, Initial
     {
         this.defaultFile = defaultFile;
     }
+
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    /**
+     * @param streaming if true files are written to the response with
+     *            {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     *            instead of being read into the payload first
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
+    public long getCacheMaxFileSize()
+    {
+        return cacheMaxFileSize;
+    }
+
+    /**
+     * @param cacheMaxFileSize files up to this size, in bytes, are cached. 0 disables the cache.
+     */
+    public void setCacheMaxFileSize(long cacheMaxFileSize)
+    {
+        this.cacheMaxFileSize = cacheMaxFileSize;
+    }
+
+    public long getCacheMaxSize()
+    {
+        return cacheMaxSize;
+    }
+
+    /**
+     * @param cacheMaxSize maximum total size, in bytes, of the cached files
+     */
+    public void setCacheMaxSize(long cacheMaxSize)
+    {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public boolean isCacheMemoryMapped()
+    {
+        return cacheMemoryMapped;
+    }
+
+    /**
+     * @param cacheMemoryMapped if true cached files are memory mapped instead of copied to
+     *            the heap
+     */
+    public void setCacheMemoryMapped(boolean cacheMemoryMapped)
+    {
+        this.cacheMemoryMapped = cacheMemoryMapped;
+    }
+
+    /**
+     * Writes a region of a file to the response without copying it to the heap when the
+     * response stream is backed by a channel.
+     */
+    private static class FileRegionOutputHandler implements OutputHandler
+    {
+
+        private final File file;
+        private final long start;
+        private final long count;
+
+        FileRegionOutputHandler(File file, long start, long count)
+        {
+            this.file = file;
+            this.start = start;
+            this.count = count;
+        }
+
+        @Override
+        public void write(MuleEvent event, OutputStream out) throws IOException
+        {
+            FileInputStream in = new FileInputStream(file);
+            try
+            {
+                FileChannel channel = in.getChannel();
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                long remaining = count;
+                while (remaining > 0)
+                {
+                    long transferred = channel.transferTo(position, remaining, target);
+                    if (transferred <= 0)
+                    {
+                        // the file was truncated while being served
+                        throw new EOFException(file.getPath());
+                    }
+                    position += transferred;
+                    remaining -= transferred;
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+    }
+
+    private static class ByteBufferOutputHandler implements OutputHandler
+    {
+
+        private final ByteBuffer contents;
+
+        ByteBufferOutputHandler(ByteBuffer contents)
+        {
+            this.contents = contents;
+        }
+
+        @Override
+        public void write(MuleEvent event, OutputStream out) throws IOException
+        {
+            WritableByteChannel target = Channels.newChannel(out);
+            ByteBuffer buffer = contents.duplicate();
+            while (buffer.hasRemaining())
+            {
+                target.write(buffer);
+            }
+        }
+    }
 }
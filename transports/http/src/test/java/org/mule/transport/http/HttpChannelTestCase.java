@@ -0,0 +1,104 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpChannelTestCase extends AbstractMuleTestCase
+{
+
+    private static final String FIRST = "POST /first HTTP/1.1\r\nContent-Length: 4\r\n\r\n";
+    private static final String SECOND = "GET /second HTTP/1.1\r\nHost: localhost\r\n\r\n";
+
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private HttpChannel channel;
+
+    @Before
+    public void connect() throws IOException
+    {
+        server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("localhost", 0));
+        client = SocketChannel.open(server.socket().getLocalSocketAddress());
+        SocketChannel accepted = server.accept();
+        accepted.configureBlocking(false);
+        channel = new HttpChannel(accepted, 1024);
+    }
+
+    @After
+    public void close() throws IOException
+    {
+        channel.close();
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void readsBodyByteByByteAndKeepsPipelinedRequest() throws IOException
+    {
+        client.write(ByteBuffer.wrap((FIRST + "body" + SECOND).getBytes()));
+
+        assertThat(new String(awaitHead()), is(FIRST));
+
+        channel.configureBlocking(true);
+        InputStream body = channel.getInputStream();
+        StringBuilder read = new StringBuilder();
+        for (int i = 0; i < 4; i++)
+        {
+            read.append((char) body.read());
+        }
+        assertThat(read.toString(), is("body"));
+        channel.configureBlocking(false);
+
+        assertThat(channel.hasInbound(), is(true));
+        assertThat(new String(awaitHead()), is(SECOND));
+        assertThat(channel.hasInbound(), is(false));
+    }
+
+    @Test
+    public void readsBodyInChunksAcrossRefills() throws IOException
+    {
+        client.write(ByteBuffer.wrap((FIRST + "bo").getBytes()));
+        assertThat(new String(awaitHead()), is(FIRST));
+
+        channel.configureBlocking(true);
+        InputStream body = channel.getInputStream();
+        byte[] buffer = new byte[4];
+        assertThat(body.read(buffer, 0, 4), is(2));
+        client.write(ByteBuffer.wrap("dy".getBytes()));
+        assertThat(body.read(buffer, 2, 2), is(2));
+        assertThat(new String(buffer), is("body"));
+        assertThat(body.available(), is(0));
+    }
+
+    private byte[] awaitHead() throws IOException
+    {
+        byte[] head;
+        while ((head = channel.readRequestHead()) == null)
+        {
+            Thread.yield();
+        }
+        return head;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+@SmallTest
+public class HttpRequestHeadParserTestCase extends AbstractMuleTestCase
+{
+
+    private static final String HEAD = "GET /path HTTP/1.1\r\nHost: localhost\r\n\r\n";
+
+    private final HttpRequestHeadParser parser = new HttpRequestHeadParser(64);
+    private final ByteBuffer buffer = ByteBuffer.allocate(256);
+
+    @Test
+    public void parsesCompleteHead() throws IOException
+    {
+        buffer.put(HEAD.getBytes());
+        assertThat(new String(parser.parse(buffer)), is(HEAD));
+        assertThat(buffer.position(), is(0));
+    }
+
+    @Test
+    public void parsesHeadReceivedInFragments() throws IOException
+    {
+        byte[] bytes = HEAD.getBytes();
+        for (int i = 0; i < bytes.length - 1; i++)
+        {
+            buffer.put(bytes[i]);
+            assertThat(parser.parse(buffer), is(nullValue()));
+        }
+        buffer.put(bytes[bytes.length - 1]);
+        assertThat(new String(parser.parse(buffer)), is(HEAD));
+    }
+
+    @Test
+    public void skipsEmptyLinesBeforeRequestLine() throws IOException
+    {
+        buffer.put(("\r\n\r\n" + HEAD).getBytes());
+        assertThat(new String(parser.parse(buffer)), is(HEAD));
+    }
+
+    @Test
+    public void acceptsBareLineFeeds() throws IOException
+    {
+        buffer.put("GET / HTTP/1.0\nHost: localhost\n\n".getBytes());
+        assertThat(new String(parser.parse(buffer)), is("GET / HTTP/1.0\nHost: localhost\n\n"));
+    }
+
+    @Test
+    public void leavesBodyAndPipelinedRequestsInBuffer() throws IOException
+    {
+        buffer.put((HEAD + "body" + HEAD).getBytes());
+        assertThat(new String(parser.parse(buffer)), is(HEAD));
+
+        buffer.flip();
+        byte[] remaining = new byte[buffer.remaining()];
+        buffer.get(remaining);
+        assertThat(new String(remaining), is("body" + HEAD));
+    }
+
+    @Test(expected = IOException.class)
+    public void failsWhenHeadIsTooLarge() throws IOException
+    {
+        buffer.put("GET /path HTTP/1.1\r\nX-Large: ".getBytes());
+        for (int i = 0; i < 64; i++)
+        {
+            buffer.put((byte) 'a');
+        }
+        parser.parse(buffer);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+@SmallTest
+public class HttpResponseParserTestCase extends AbstractMuleTestCase
+{
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(512);
+
+    @Test
+    public void parsesResponseWithContentLength() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        buffer.put("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello".getBytes());
+        assertThat(parser.parse(buffer), is(true));
+        assertThat(parser.getStatusLine().getStatusCode(), is(200));
+        assertThat(new String(parser.getBody()), is("hello"));
+        assertThat(parser.isKeepAlive(), is(true));
+        assertThat(buffer.position(), is(0));
+    }
+
+    @Test
+    public void parsesResponseReceivedInFragments() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        byte[] bytes = "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello".getBytes();
+        for (int i = 0; i < bytes.length - 1; i++)
+        {
+            buffer.put(bytes[i]);
+            assertThat(parser.parse(buffer), is(false));
+        }
+        buffer.put(bytes[bytes.length - 1]);
+        assertThat(parser.parse(buffer), is(true));
+        assertThat(new String(parser.getBody()), is("hello"));
+    }
+
+    @Test
+    public void parsesChunkedResponse() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        buffer.put("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5;ext=1\r\nhello\r\n6\r\n world\r\n0\r\nX-Trailer: a\r\n\r\n".getBytes());
+        assertThat(parser.parse(buffer), is(true));
+        assertThat(new String(parser.getBody()), is("hello world"));
+        assertThat(parser.isKeepAlive(), is(true));
+    }
+
+    @Test
+    public void readsBodyUntilEndOfStreamWithoutLength() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        buffer.put("HTTP/1.0 200 OK\r\n\r\nhello".getBytes());
+        assertThat(parser.parse(buffer), is(false));
+        assertThat(parser.endOfStream(), is(true));
+        assertThat(new String(parser.getBody()), is("hello"));
+        assertThat(parser.isKeepAlive(), is(false));
+    }
+
+    @Test
+    public void ignoresBodyOfHeadResponse() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, true);
+        buffer.put("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\n".getBytes());
+        assertThat(parser.parse(buffer), is(true));
+        assertThat(parser.getBody(), is(nullValue()));
+    }
+
+    @Test
+    public void skipsInformationalResponses() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        buffer.put("HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 204 No Content\r\n\r\n".getBytes());
+        assertThat(parser.parse(buffer), is(true));
+        assertThat(parser.getStatusLine().getStatusCode(), is(204));
+        assertThat(parser.getBody(), is(nullValue()));
+    }
+
+    @Test
+    public void honoursConnectionClose() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        buffer.put("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n".getBytes());
+        assertThat(parser.parse(buffer), is(true));
+        assertThat(parser.isKeepAlive(), is(false));
+    }
+
+    @Test
+    public void leavesPipelinedBytesInBuffer() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        buffer.put("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nokextra".getBytes());
+        assertThat(parser.parse(buffer), is(true));
+        assertThat(buffer.position(), is("extra".length()));
+    }
+
+    @Test(expected = EOFException.class)
+    public void failsWhenConnectionClosedBeforeEndOfBody() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        buffer.put("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nhello".getBytes());
+        assertThat(parser.parse(buffer), is(false));
+        assertThat(parser.hasStarted(), is(true));
+        parser.endOfStream();
+    }
+
+    @Test(expected = IOException.class)
+    public void failsOnInvalidContentLength() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser(256, false);
+        buffer.put("HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n".getBytes());
+        parser.parse(buffer);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http.components;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+@SmallTest
+public class StaticResourceMessageProcessorTestCase extends AbstractMuleTestCase
+{
+
+    private static final long LENGTH = 100;
+
+    @Test
+    public void parsesClosedRange()
+    {
+        assertRange("bytes=10-19", 10, 19);
+    }
+
+    @Test
+    public void parsesOpenRange()
+    {
+        assertRange("bytes=90-", 90, 99);
+    }
+
+    @Test
+    public void parsesSuffixRange()
+    {
+        assertRange("bytes=-10", 90, 99);
+        assertRange("bytes=-200", 0, 99);
+    }
+
+    @Test
+    public void truncatesRangeToFileLength()
+    {
+        assertRange("bytes=50-500", 50, 99);
+    }
+
+    @Test
+    public void rejectsRangeStartingAfterEndOfFile()
+    {
+        assertThat(StaticResourceMessageProcessor.parseByteRange("bytes=100-", LENGTH), sameInstance(StaticResourceMessageProcessor.UNSATISFIABLE_RANGE));
+        assertThat(StaticResourceMessageProcessor.parseByteRange("bytes=-0", LENGTH), sameInstance(StaticResourceMessageProcessor.UNSATISFIABLE_RANGE));
+    }
+
+    @Test
+    public void ignoresUnsupportedRanges()
+    {
+        assertThat(StaticResourceMessageProcessor.parseByteRange("bytes=0-9,20-29", LENGTH), is(nullValue()));
+        assertThat(StaticResourceMessageProcessor.parseByteRange("items=0-9", LENGTH), is(nullValue()));
+        assertThat(StaticResourceMessageProcessor.parseByteRange("bytes=20-10", LENGTH), is(nullValue()));
+        assertThat(StaticResourceMessageProcessor.parseByteRange("bytes=a-b", LENGTH), is(nullValue()));
+    }
+
+    private void assertRange(String range, long start, long end)
+    {
+        long[] byteRange = StaticResourceMessageProcessor.parseByteRange(range, LENGTH);
+        assertThat(byteRange[0], is(start));
+        assertThat(byteRange[1], is(end));
+    }
+}
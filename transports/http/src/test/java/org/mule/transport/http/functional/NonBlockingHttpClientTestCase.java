@@ -0,0 +1,244 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.http.functional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.MuleClient;
+import org.mule.api.transport.DispatchException;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.probe.Probe;
+import org.mule.tck.testmodels.mule.TestExceptionStrategy;
+import org.mule.tck.testmodels.mule.TestExceptionStrategy.ExceptionCallback;
+import org.mule.transport.http.HttpConnector;
+import org.mule.transport.http.HttpConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class NonBlockingHttpClientTestCase extends FunctionalTestCase
+{
+
+    private static final long RESPONSE_DELAY = 300;
+
+    @Rule
+    public DynamicPort port1 = new DynamicPort("port1");
+
+    @Rule
+    public DynamicPort port2 = new DynamicPort("port2");
+
+    private RecordingHttpServer server;
+    private MuleClient client;
+
+    @Override
+    protected String getConfigResources()
+    {
+        return "http-non-blocking-client-config.xml";
+    }
+
+    @Before
+    public void startServer() throws Exception
+    {
+        server = new RecordingHttpServer(port1.getNumber());
+        server.start();
+        client = muleContext.getClient();
+    }
+
+    @After
+    public void stopServer() throws Exception
+    {
+        if (server != null)
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void reusesPooledConnection() throws Exception
+    {
+        assertEquals("1.1", get("pooled"));
+        assertEquals("1.2", get("pooled"));
+        assertEquals("1.3", get("pooled"));
+
+        assertEquals(1, server.getConnections().size());
+    }
+
+    @Test
+    public void opensAtMostMaxConnectionsPerRoute() throws Exception
+    {
+        server.setResponseDelay(RESPONSE_DELAY);
+
+        List<String> responses = getConcurrently("pooled", 6);
+
+        assertEquals(6, responses.size());
+        assertEquals(2, server.getConnections().size());
+        // pipelining is disabled by default, so the other requests waited for a connection
+        assertEquals(1, server.getMaxRequestsInFlight());
+    }
+
+    @Test
+    public void closesIdleConnections() throws Exception
+    {
+        assertEquals("1.1", get("idle"));
+
+        new PollingProber(5000, 100).check(new Probe()
+        {
+            public boolean isSatisfied()
+            {
+                return server.getConnections().get(0).isClosedByClient();
+            }
+
+            public String describeFailure()
+            {
+                return "Idle connection was not closed by the client";
+            }
+        });
+
+        assertEquals("2.1", get("idle"));
+    }
+
+    @Test
+    public void retriesIdempotentRequestOnStaleConnection() throws Exception
+    {
+        server.setDropRequest(2);
+
+        assertEquals("1.1", get("pooled"));
+        // the server closes the pooled connection when the second request arrives
+        assertEquals("2.1", get("pooled"));
+
+        assertEquals(2, server.getConnections().size());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void doesNotRetryNonIdempotentRequestOnStaleConnection() throws Exception
+    {
+        server.setDropRequest(2);
+
+        assertEquals("1.1", get("pooled"));
+        try
+        {
+            client.send("pooled", TEST_MESSAGE, null);
+            fail("POST must not be sent again once written to a connection closed by the server");
+        }
+        catch (DispatchException e)
+        {
+            // expected
+        }
+
+        assertEquals(1, server.getConnections().size());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void pipelinesUpToMaxPipelinedRequests() throws Exception
+    {
+        server.setResponseDelay(RESPONSE_DELAY);
+
+        List<String> responses = getConcurrently("pipelined", 5);
+
+        assertEquals(5, responses.size());
+        assertEquals(1, server.getConnections().size());
+        assertEquals(2, server.getMaxRequestsInFlight());
+    }
+
+    @Test
+    public void handlesOneWayResponsesOffTheSelectorThread() throws Exception
+    {
+        final CountDownLatch failureLatch = new CountDownLatch(1);
+        final List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+        TestExceptionStrategy exceptionListener = new TestExceptionStrategy();
+        exceptionListener.setExceptionCallback(new ExceptionCallback()
+        {
+            public void onException(Throwable t)
+            {
+                threadNames.add(Thread.currentThread().getName());
+                failureLatch.countDown();
+            }
+        });
+        muleContext.setExceptionListener(exceptionListener);
+
+        client.dispatch("failingOneWay", TEST_MESSAGE, null);
+
+        assertTrue(failureLatch.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertFalse(threadNames.get(0).contains("http.client.pooledConnector"));
+    }
+
+    @Test
+    public void sendsOverHttps() throws Exception
+    {
+        MuleMessage response = client.send("secure", TEST_MESSAGE, null);
+        assertEquals(TEST_MESSAGE + " received", response.getPayloadAsString());
+
+        // over the pooled TLS connection
+        response = client.send("secure", TEST_MESSAGE, null);
+        assertEquals(TEST_MESSAGE + " received", response.getPayloadAsString());
+    }
+
+    private String get(String endpoint) throws Exception
+    {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(HttpConnector.HTTP_METHOD_PROPERTY, HttpConstants.METHOD_GET);
+        MuleMessage response = client.send(endpoint, null, properties);
+        int status = response.getInboundProperty(HttpConnector.HTTP_STATUS_PROPERTY, 0);
+        assertEquals(HttpConstants.SC_OK, status);
+        return response.getPayloadAsString();
+    }
+
+    private List<String> getConcurrently(final String endpoint, int requests) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try
+        {
+            List<Future<String>> futures = new ArrayList<Future<String>>(requests);
+            for (int i = 0; i < requests; i++)
+            {
+                futures.add(executor.submit(new Callable<String>()
+                {
+                    public String call() throws Exception
+                    {
+                        return get(endpoint);
+                    }
+                }));
+            }
+            List<String> responses = new ArrayList<String>(requests);
+            for (Future<String> future : futures)
+            {
+                responses.add(future.get(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS));
+            }
+            return responses;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
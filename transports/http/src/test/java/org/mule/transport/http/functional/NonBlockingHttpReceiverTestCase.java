@@ -0,0 +1,266 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.http.functional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.transport.http.HttpsConnector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Sends requests through raw sockets to a receiver with <code>nonBlockingReceiver</code>
+ * set, so that the framing of the requests is under the control of the test.
+ */
+public class NonBlockingHttpReceiverTestCase extends FunctionalTestCase
+{
+
+    private static final int KEEP_ALIVE_TIMEOUT = 1000;
+
+    @Rule
+    public DynamicPort port1 = new DynamicPort("port1");
+
+    @Rule
+    public DynamicPort port2 = new DynamicPort("port2");
+
+    private Socket socket;
+
+    @Override
+    protected String getConfigResources()
+    {
+        return "http-non-blocking-receiver-config.xml";
+    }
+
+    @After
+    public void closeSocket() throws IOException
+    {
+        if (socket != null)
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void keepsConnectionAlive() throws Exception
+    {
+        connect(new Socket("localhost", port1.getNumber()));
+
+        write(post("first"));
+        assertEquals("first received", readResponse());
+
+        write(post("second"));
+        assertEquals("second received", readResponse());
+    }
+
+    @Test
+    public void answersPipelinedRequestsInOrder() throws Exception
+    {
+        connect(new Socket("localhost", port1.getNumber()));
+
+        write(post("first") + post("second") + post("third"));
+
+        assertEquals("first received", readResponse());
+        assertEquals("second received", readResponse());
+        assertEquals("third received", readResponse());
+    }
+
+    @Test
+    public void readsChunkedRequestBody() throws Exception
+    {
+        connect(new Socket("localhost", port1.getNumber()));
+
+        write("POST /echo HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+              + "5\r\nfirst\r\n7\r\n chunk \r\n0\r\n\r\n");
+        assertEquals("first chunk  received", readResponse());
+
+        // the connection is kept alive once the chunked body has been read
+        write(post("second"));
+        assertEquals("second received", readResponse());
+    }
+
+    @Test
+    public void readsRequestSentInPieces() throws Exception
+    {
+        connect(new Socket("localhost", port1.getNumber()));
+
+        String request = post("streamed body");
+        // the head is split too, so that the selector reads it in several rounds
+        int[] splits = {5, request.indexOf("\r\n\r\n") - 3, request.length() - 6, request.length()};
+        int start = 0;
+        for (int end : splits)
+        {
+            write(request.substring(start, end));
+            start = end;
+            Thread.sleep(100);
+        }
+        assertEquals("streamed body received", readResponse());
+
+        write(post("second"));
+        assertEquals("second received", readResponse());
+    }
+
+    @Test
+    public void closesIdleConnection() throws Exception
+    {
+        connect(new Socket("localhost", port1.getNumber()));
+
+        write(post("first"));
+        assertEquals("first received", readResponse());
+
+        long idleSince = System.currentTimeMillis();
+        assertConnectionClosed();
+        assertTrue(System.currentTimeMillis() - idleSince >= KEEP_ALIVE_TIMEOUT / 2);
+    }
+
+    @Test
+    public void keepsHttpsConnectionAlive() throws Exception
+    {
+        HttpsConnector connector = (HttpsConnector) muleContext.getRegistry().lookupConnector("httpsConnector");
+        SSLContext sslContext = SSLContext.getInstance(connector.getSslType());
+        sslContext.init(null, connector.getTrustManagerFactory().getTrustManagers(), null);
+        connect(sslContext.getSocketFactory().createSocket("localhost", port2.getNumber()));
+
+        write(post("first") + post("second"));
+        assertEquals("first received", readResponse());
+        assertEquals("second received", readResponse());
+
+        write(post("third"));
+        assertEquals("third received", readResponse());
+    }
+
+    private void connect(Socket socket) throws IOException
+    {
+        this.socket = socket;
+        socket.setSoTimeout(RECEIVE_TIMEOUT);
+    }
+
+    private String post(String body)
+    {
+        return "POST /echo HTTP/1.1\r\nHost: localhost\r\nContent-Type: text/plain\r\nContent-Length: "
+               + body.length() + "\r\n\r\n" + body;
+    }
+
+    private void write(String data) throws IOException
+    {
+        OutputStream out = socket.getOutputStream();
+        out.write(data.getBytes("US-ASCII"));
+        out.flush();
+    }
+
+    private void assertConnectionClosed() throws IOException
+    {
+        try
+        {
+            assertEquals(-1, socket.getInputStream().read());
+        }
+        catch (SocketTimeoutException e)
+        {
+            fail("Idle connection was not closed by the receiver");
+        }
+    }
+
+    /**
+     * Reads a response with a content length or a chunked body.
+     *
+     * @return the body of the response
+     */
+    private String readResponse() throws IOException
+    {
+        // not buffered, so that nothing of the next pipelined response is read ahead
+        InputStream in = socket.getInputStream();
+        String statusLine = readLine(in);
+        assertEquals("HTTP/1.1 200 OK", statusLine);
+        int contentLength = -1;
+        boolean chunked = false;
+        String header;
+        while ((header = readLine(in)).length() > 0)
+        {
+            String name = header.substring(0, header.indexOf(':')).trim();
+            String value = header.substring(header.indexOf(':') + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length"))
+            {
+                contentLength = Integer.parseInt(value);
+            }
+            else if (name.equalsIgnoreCase("Transfer-Encoding") && value.equalsIgnoreCase("chunked"))
+            {
+                chunked = true;
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (chunked)
+        {
+            int chunkSize;
+            while ((chunkSize = Integer.parseInt(readLine(in).split(";")[0].trim(), 16)) > 0)
+            {
+                readFully(in, body, chunkSize);
+                readLine(in);
+            }
+            // trailers
+            while (readLine(in).length() > 0)
+            {
+                // ignored
+            }
+        }
+        else
+        {
+            assertTrue("Response has neither a content length nor a chunked body", contentLength >= 0);
+            readFully(in, body, contentLength);
+        }
+        return body.toString("US-ASCII");
+    }
+
+    private void readFully(InputStream in, OutputStream out, int length) throws IOException
+    {
+        for (int i = 0; i < length; i++)
+        {
+            out.write(readByte(in));
+        }
+    }
+
+    private String readLine(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = readByte(in)) != '\n')
+        {
+            if (b != '\r')
+            {
+                line.write(b);
+            }
+        }
+        return line.toString("US-ASCII");
+    }
+
+    private int readByte(InputStream in) throws IOException
+    {
+        int b = in.read();
+        if (b == -1)
+        {
+            fail("Connection closed before the response was read");
+        }
+        return b;
+    }
+}
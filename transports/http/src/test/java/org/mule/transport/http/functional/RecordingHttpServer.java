@@ -0,0 +1,311 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.http.functional;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A keep alive HTTP server that records the connections it accepts and the requests read
+ * on each of them, so that tests can check how a client pools and pipelines its requests.
+ * <p/>
+ * Requests are read as soon as they arrive, even while the response of a previous request
+ * of the same connection is held for {@link #setResponseDelay(long)}, so that the number of
+ * requests pipelined by the client can be measured. Responses hold the number of the
+ * connection and of the request on that connection, as in <code>1.2</code>. Requests to a
+ * path ending with <code>/fail</code> get a 500 response.
+ */
+public class RecordingHttpServer implements Runnable
+{
+
+    private final ServerSocket serverSocket;
+    private final List<RecordedConnection> connections = new CopyOnWriteArrayList<RecordedConnection>();
+    private volatile long responseDelay;
+    private volatile int dropRequest;
+
+    public RecordingHttpServer(int port) throws IOException
+    {
+        serverSocket = new ServerSocket(port);
+    }
+
+    public void start()
+    {
+        Thread thread = new Thread(this, "recording-http-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() throws IOException
+    {
+        serverSocket.close();
+        for (RecordedConnection connection : connections)
+        {
+            connection.close();
+        }
+    }
+
+    /**
+     * Holds every response for <code>responseDelay</code> milliseconds.
+     */
+    public void setResponseDelay(long responseDelay)
+    {
+        this.responseDelay = responseDelay;
+    }
+
+    /**
+     * Closes, without answering, the connections that get their <code>request</code>th
+     * request, as a server closing a kept alive connection would. 0 answers all requests.
+     */
+    public void setDropRequest(int dropRequest)
+    {
+        this.dropRequest = dropRequest;
+    }
+
+    public List<RecordedConnection> getConnections()
+    {
+        return connections;
+    }
+
+    public int getRequestCount()
+    {
+        int count = 0;
+        for (RecordedConnection connection : connections)
+        {
+            count += connection.getRequestCount();
+        }
+        return count;
+    }
+
+    public int getMaxRequestsInFlight()
+    {
+        int max = 0;
+        for (RecordedConnection connection : connections)
+        {
+            max = Math.max(max, connection.getMaxRequestsInFlight());
+        }
+        return max;
+    }
+
+    public void run()
+    {
+        try
+        {
+            while (true)
+            {
+                Socket socket = serverSocket.accept();
+                RecordedConnection connection = new RecordedConnection(connections.size() + 1, socket);
+                connections.add(connection);
+                connection.start();
+            }
+        }
+        catch (IOException e)
+        {
+            // stopped
+        }
+    }
+
+    public class RecordedConnection
+    {
+
+        private final int number;
+        private final Socket socket;
+        private final BlockingQueue<String> requests = new LinkedBlockingQueue<String>();
+        private final AtomicInteger received = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile boolean closedByClient;
+
+        RecordedConnection(int number, Socket socket)
+        {
+            this.number = number;
+            this.socket = socket;
+        }
+
+        void start()
+        {
+            Thread reader = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    read();
+                }
+            }, "recording-http-server-reader-" + number);
+            reader.setDaemon(true);
+            reader.start();
+
+            Thread writer = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    write();
+                }
+            }, "recording-http-server-writer-" + number);
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        private void read()
+        {
+            try
+            {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                String requestLine;
+                while ((requestLine = readRequest(in)) != null)
+                {
+                    int count = received.incrementAndGet();
+                    if (count == dropRequest)
+                    {
+                        close();
+                        return;
+                    }
+                    int current = inFlight.incrementAndGet();
+                    if (current > maxInFlight.get())
+                    {
+                        maxInFlight.set(current);
+                    }
+                    requests.add(requestLine);
+                }
+                closedByClient = true;
+            }
+            catch (IOException e)
+            {
+                closedByClient = !socket.isClosed();
+            }
+            finally
+            {
+                requests.add("");
+            }
+        }
+
+        private void write()
+        {
+            try
+            {
+                OutputStream out = socket.getOutputStream();
+                int answered = 0;
+                String requestLine;
+                while ((requestLine = requests.take()).length() > 0)
+                {
+                    if (responseDelay > 0)
+                    {
+                        Thread.sleep(responseDelay);
+                    }
+                    answered++;
+                    String status = requestLine.contains("/fail ") ? "500 Internal Server Error" : "200 OK";
+                    byte[] body = (number + "." + answered).getBytes("US-ASCII");
+                    out.write(("HTTP/1.1 " + status + "\r\nContent-Type: text/plain\r\nContent-Length: "
+                               + body.length + "\r\n\r\n").getBytes("US-ASCII"));
+                    out.write(body);
+                    out.flush();
+                    inFlight.decrementAndGet();
+                }
+            }
+            catch (SocketException e)
+            {
+                // closed
+            }
+            catch (Exception e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Reads the head and the body of a request.
+         *
+         * @return the request line, or null if the connection was closed
+         */
+        private String readRequest(InputStream in) throws IOException
+        {
+            String requestLine = readLine(in);
+            if (requestLine == null)
+            {
+                return null;
+            }
+            int contentLength = 0;
+            String header;
+            while ((header = readLine(in)) != null && header.length() > 0)
+            {
+                if (header.toLowerCase().startsWith("content-length:"))
+                {
+                    contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+                }
+            }
+            for (int i = 0; i < contentLength; i++)
+            {
+                if (in.read() == -1)
+                {
+                    return null;
+                }
+            }
+            return requestLine;
+        }
+
+        private String readLine(InputStream in) throws IOException
+        {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != '\n')
+            {
+                if (b == -1)
+                {
+                    return null;
+                }
+                if (b != '\r')
+                {
+                    line.write(b);
+                }
+            }
+            return line.toString("US-ASCII");
+        }
+
+        void close()
+        {
+            try
+            {
+                socket.close();
+            }
+            catch (IOException e)
+            {
+                // ignored
+            }
+        }
+
+        public int getRequestCount()
+        {
+            return received.get();
+        }
+
+        public int getMaxRequestsInFlight()
+        {
+            return maxInFlight.get();
+        }
+
+        /**
+         * @return true once the client closed the connection
+         */
+        public boolean isClosedByClient()
+        {
+            return closedByClient;
+        }
+    }
+}
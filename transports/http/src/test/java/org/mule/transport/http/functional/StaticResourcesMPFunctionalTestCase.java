@@ -33,6 +33,9 @@ public class StaticResourcesMPFunctionalTestCase extends FunctionalTestCase
     @ClassRule
     public static DynamicPort port3 = new DynamicPort("port3");
 
+    @ClassRule
+    public static DynamicPort port4 = new DynamicPort("port4");
+
     private HttpMethod method;
     private int responseCode;
     private String payload;
@@ -129,6 +132,78 @@ public class StaticResourcesMPFunctionalTestCase extends FunctionalTestCase
         assertEquals(HttpConstants.SC_NOT_FOUND, responseCode);
     }
 
+    @Test
+    public void streamedResourceShouldBeReturned() throws Exception
+    {
+        String url = String.format("http://localhost:%d/static/index.html", port4.getNumber());
+        request(url, true);
+        assertEquals(HttpConstants.SC_OK, responseCode);
+        assertEquals("Test index.html", payload);
+        assertEquals("bytes", method.getResponseHeader(HttpConstants.HEADER_ACCEPT_RANGES).getValue());
+    }
+
+    @Test
+    public void cachedResourceShouldBeReturned() throws Exception
+    {
+        String url = String.format("http://localhost:%d/static/main.html", port4.getNumber());
+        request(url, true);
+        assertEquals(HttpConstants.SC_OK, responseCode);
+        request(url, true);
+        assertEquals(HttpConstants.SC_OK, responseCode);
+        assertEquals("Test main.html", payload);
+    }
+
+    @Test
+    public void requestWithCurrentEtagShouldReturnNotModified() throws Exception
+    {
+        String url = String.format("http://localhost:%d/static/main.html", port1.getNumber());
+        request(url, true);
+        String etag = method.getResponseHeader(HttpConstants.HEADER_ETAG).getValue();
+
+        method = new GetMethod(url);
+        method.setRequestHeader(HttpConstants.HEADER_IF_NONE_MATCH, etag);
+        responseCode = new HttpClient().executeMethod(method);
+        assertEquals(HttpConstants.SC_NOT_MODIFIED, responseCode);
+    }
+
+    @Test
+    public void requestWithCurrentModificationDateShouldReturnNotModified() throws Exception
+    {
+        String url = String.format("http://localhost:%d/static/main.html", port4.getNumber());
+        request(url, true);
+        String lastModified = method.getResponseHeader(HttpConstants.HEADER_LAST_MODIFIED).getValue();
+
+        method = new GetMethod(url);
+        method.setRequestHeader(HttpConstants.HEADER_IF_MODIFIED_SINCE, lastModified);
+        responseCode = new HttpClient().executeMethod(method);
+        assertEquals(HttpConstants.SC_NOT_MODIFIED, responseCode);
+    }
+
+    @Test
+    public void rangeRequestShouldReturnPartialContent() throws Exception
+    {
+        for (DynamicPort port : new DynamicPort[] {port1, port4})
+        {
+            String url = String.format("http://localhost:%d/static/main.html", port.getNumber());
+            method = new GetMethod(url);
+            method.setRequestHeader(HttpConstants.HEADER_RANGE, "bytes=5-8");
+            responseCode = new HttpClient().executeMethod(method);
+            assertEquals(HttpConstants.SC_PARTIAL_CONTENT, responseCode);
+            assertEquals("main", method.getResponseBodyAsString());
+            assertEquals("bytes 5-8/14", method.getResponseHeader(HttpConstants.HEADER_CONTENT_RANGE).getValue());
+        }
+    }
+
+    @Test
+    public void unsatisfiableRangeRequestShouldFail() throws Exception
+    {
+        String url = String.format("http://localhost:%d/static/main.html", port1.getNumber());
+        method = new GetMethod(url);
+        method.setRequestHeader(HttpConstants.HEADER_RANGE, "bytes=100-");
+        responseCode = new HttpClient().executeMethod(method);
+        assertEquals(HttpConstants.SC_REQUESTED_RANGE_NOT_SATISFIABLE, responseCode);
+    }
+
     private void request(String url, boolean followRedirects) throws Exception
     {
         method = new GetMethod(url);
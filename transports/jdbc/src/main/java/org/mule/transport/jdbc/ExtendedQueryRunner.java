@@ -13,30 +13,52 @@ package org.mule.transport.jdbc;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.dbutils.QueryRunner;
 
 /**
- * An extended version of the Query runner that supports query timeouts
+ * An extended version of the Query runner that supports query timeouts and reusing the
+ * statements of a {@link PreparedStatementCache}
  * 
  * @since 2.2.6
  */
 public class ExtendedQueryRunner extends QueryRunner
 {
     private int queryTimeout;
+    private PreparedStatementCache statementCache;
 
     public ExtendedQueryRunner(DataSource ds, int queryTimeout)
+    {
+        this(ds, queryTimeout, null);
+    }
+
+    /**
+     * @param statementCache the cache to take statements from, or null to prepare a new
+     *            statement for every query
+     */
+    public ExtendedQueryRunner(DataSource ds, int queryTimeout, PreparedStatementCache statementCache)
     {
         super (ds);
         this.queryTimeout = queryTimeout;
+        this.statementCache = statementCache;
     }
 
     @Override
     protected PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException
     {
-        PreparedStatement statement = super.prepareStatement(conn, sql);
+        PreparedStatement statement;
+        if (statementCache != null)
+        {
+            statement = statementCache.prepareStatement(conn, sql);
+            // a cached statement may have been used with the timeout of another endpoint
+            statement.setQueryTimeout(Math.max(this.queryTimeout, 0));
+            return statement;
+        }
+
+        statement = super.prepareStatement(conn, sql);
         if (this.queryTimeout >= 0)
         {
             statement.setQueryTimeout(this.queryTimeout);
@@ -44,6 +66,27 @@ public class ExtendedQueryRunner extends QueryRunner
         return statement;
     }
 
+    @Override
+    protected void close(Statement stmt) throws SQLException
+    {
+        if (statementCache != null && stmt instanceof PreparedStatement
+            && statementCache.contains((PreparedStatement) stmt))
+        {
+            // kept open for the next query on the same connection
+            return;
+        }
+        super.close(stmt);
+    }
+
+    /**
+     * Binds <code>params</code> to <code>statement</code> as the queries of the runner do,
+     * using the parameter metadata of the statement for the type of null values.
+     */
+    void fillParameters(PreparedStatement statement, Object[] params) throws SQLException
+    {
+        fillStatement(statement, params);
+    }
+
     public int getQueryTimeout()
     {
         return this.queryTimeout;
@@ -0,0 +1,94 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jdbc;
+
+import org.mule.api.DefaultMuleException;
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.transport.jdbc.i18n.JdbcMessages;
+import org.mule.util.concurrent.Batcher;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Executes the statement of an outbound query in JDBC batches, committed at once, instead
+ * of executing and committing it for every event written outside of a transaction.
+ * <p/>
+ * The parameter rows of the events are batched by {@link Batcher} with
+ * {@link JdbcConnector#getOutboundBatchSize()} and
+ * {@link JdbcConnector#getOutboundBatchInterval()}, and every batch is executed on a
+ * connection of its own. Every caller blocks in {@link #write} until its batch has been
+ * committed, and fails if the batch was rolled back.
+ */
+class JdbcBatchWriter extends Batcher<Object[]>
+{
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private final JdbcConnector connector;
+    private final ImmutableEndpoint endpoint;
+    private final String sql;
+
+    JdbcBatchWriter(JdbcConnector connector, ImmutableEndpoint endpoint, String sql)
+    {
+        super(connector.getOutboundBatchSize(), connector.getOutboundBatchInterval());
+        this.connector = connector;
+        this.endpoint = endpoint;
+        this.sql = sql;
+    }
+
+    /**
+     * Adds parameter rows to the current batch and waits until the batch has been committed.
+     */
+    void write(Object[][] paramRows) throws Exception
+    {
+        add(Arrays.asList(paramRows));
+    }
+
+    @Override
+    protected void flush(List<Object[]> rows) throws Exception
+    {
+        Connection connection = null;
+        try
+        {
+            connection = connector.getConnection();
+            Object[][] paramRows = rows.toArray(new Object[rows.size()][]);
+            connector.getQueryRunnerFor(endpoint).batch(connection, sql, paramRows);
+            JdbcUtils.commitAndClose(connection);
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Committed a batch of " + paramRows.length + " rows for: " + sql);
+            }
+        }
+        catch (Exception e)
+        {
+            try
+            {
+                JdbcUtils.rollbackAndClose(connection);
+            }
+            catch (Exception rollbackException)
+            {
+                logger.debug("(Ignored) Failed to roll back the batch: " + rollbackException.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected Exception batchFailed(int size, Exception cause)
+    {
+        return new DefaultMuleException(JdbcMessages.batchWriteFailed(size, sql), cause);
+    }
+}
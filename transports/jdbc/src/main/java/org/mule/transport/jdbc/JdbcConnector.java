@@ -44,6 +44,8 @@ import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -62,6 +64,10 @@ public class JdbcConnector extends AbstractConnector implements Testable
     public static final String PROPERTY_POLLING_FREQUENCY = "pollingFrequency";
     public static final long DEFAULT_POLLING_FREQUENCY = 1000;
 
+    public static final long DEFAULT_OUTBOUND_BATCH_INTERVAL = 50;
+
+    public static final int DEFAULT_FETCH_SIZE = 100;
+
     private static final Pattern STATEMENT_ARGS = TemplateParser.WIGGLY_MULE_TEMPLATE_PATTERN;
 
     private SqlStatementStrategyFactory sqlStatementStrategyFactory = new DefaultSqlStatementStrategyFactory();
@@ -87,6 +93,38 @@ public class JdbcConnector extends AbstractConnector implements Testable
      */
     protected boolean transactionPerMessage = true;
 
+    /**
+     * The number of parameter rows of outbound insert, update and delete statements that are
+     * executed as a single JDBC batch, 0 to execute the statement for every event.
+     */
+    private int outboundBatchSize = 0;
+
+    /**
+     * Milliseconds a batch waits for more rows before it is executed anyway.
+     */
+    private long outboundBatchInterval = DEFAULT_OUTBOUND_BATCH_INTERVAL;
+
+    private final ConcurrentMap<String, JdbcBatchWriter> batchWriters = new ConcurrentHashMap<String, JdbcBatchWriter>();
+
+    /**
+     * Whether inbound endpoints read the rows of their select statement through a
+     * {@link ResultSetIterator} as they are processed instead of loading them all at once.
+     */
+    private boolean streaming = false;
+
+    /**
+     * The number of rows fetched from the database at a time when streaming.
+     */
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /**
+     * The number of prepared statements kept open per connection, 0 to prepare every
+     * statement again.
+     */
+    private int preparedStatementCacheSize = 0;
+
+    private PreparedStatementCache statementCache;
+
     public JdbcConnector(MuleContext context)
     {
         super(context);
@@ -106,11 +144,15 @@ public class JdbcConnector extends AbstractConnector implements Testable
             resultSetHandler = new org.apache.commons.dbutils.handlers.MapListHandler(
                 new ColumnAliasRowProcessor());
         }
+        if (preparedStatementCacheSize > 0)
+        {
+            statementCache = new PreparedStatementCache(preparedStatementCacheSize);
+        }
         if (queryRunner == null)
         {
-            if (this.queryTimeout >= 0)
+            if (this.queryTimeout >= 0 || statementCache != null)
             {
-                queryRunner = new ExtendedQueryRunner(dataSource, this.queryTimeout);
+                queryRunner = new ExtendedQueryRunner(dataSource, this.queryTimeout, statementCache);
             }
             else
             {
@@ -361,7 +403,32 @@ public class JdbcConnector extends AbstractConnector implements Testable
     @Override
     protected void doDispose()
     {
-        // template method
+        clearStatementCache();
+        closeBatchWriters();
+    }
+
+    /**
+     * Flushes the batches still waiting for more rows and forgets the writers, including the
+     * ones of statements built from messages, which would otherwise accumulate.
+     */
+    private void closeBatchWriters()
+    {
+        for (String key : batchWriters.keySet())
+        {
+            JdbcBatchWriter writer = batchWriters.remove(key);
+            if (writer != null)
+            {
+                writer.flushPending();
+            }
+        }
+    }
+
+    private void clearStatementCache()
+    {
+        if (statementCache != null)
+        {
+            statementCache.clear();
+        }
     }
 
     @Override
@@ -415,7 +482,8 @@ public class JdbcConnector extends AbstractConnector implements Testable
     @Override
     protected void doDisconnect() throws Exception
     {
-        // template method
+        clearStatementCache();
+        closeBatchWriters();
     }
 
     @Override
@@ -483,7 +551,7 @@ public class JdbcConnector extends AbstractConnector implements Testable
         if (queryTimeout >= 0)
         {
             ExtendedQueryRunner extendedQueryRunner = new ExtendedQueryRunner(
-                this.queryRunner.getDataSource(), queryTimeout);
+                this.queryRunner.getDataSource(), queryTimeout, statementCache);
             return extendedQueryRunner;
         }
         else
@@ -544,6 +612,78 @@ public class JdbcConnector extends AbstractConnector implements Testable
         this.sqlStatementStrategyFactory = sqlStatementStrategyFactory;
     }
 
+    /**
+     * @return the writer batching the executions of <code>sql</code> for <code>endpoint</code>.
+     *         Writers are only shared by endpoints with the same address and query timeout,
+     *         as the query runner of a writer is the one of the endpoint that created it.
+     * @see #getOutboundBatchSize()
+     */
+    JdbcBatchWriter getBatchWriter(ImmutableEndpoint endpoint, String sql)
+    {
+        String key = endpoint.getEndpointURI().getAddress() + "~" + endpoint.getProperty("queryTimeout") + "~" + sql;
+        JdbcBatchWriter writer = batchWriters.get(key);
+        if (writer == null)
+        {
+            writer = new JdbcBatchWriter(this, endpoint, sql);
+            JdbcBatchWriter existing = batchWriters.putIfAbsent(key, writer);
+            if (existing != null)
+            {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
+    public int getFetchSize()
+    {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize)
+    {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getPreparedStatementCacheSize()
+    {
+        return preparedStatementCacheSize;
+    }
+
+    public void setPreparedStatementCacheSize(int preparedStatementCacheSize)
+    {
+        this.preparedStatementCacheSize = preparedStatementCacheSize;
+    }
+
+    public int getOutboundBatchSize()
+    {
+        return outboundBatchSize;
+    }
+
+    public void setOutboundBatchSize(int outboundBatchSize)
+    {
+        this.outboundBatchSize = outboundBatchSize;
+    }
+
+    public long getOutboundBatchInterval()
+    {
+        return outboundBatchInterval;
+    }
+
+    public void setOutboundBatchInterval(long outboundBatchInterval)
+    {
+        this.outboundBatchInterval = outboundBatchInterval;
+    }
+
     public String getStatement(ImmutableEndpoint endpoint)
     {
         String writeStmt = endpoint.getEndpointURI().getAddress();
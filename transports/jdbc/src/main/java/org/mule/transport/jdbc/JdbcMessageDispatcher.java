@@ -17,6 +17,7 @@ import org.mule.api.MuleMessage;
 import org.mule.api.endpoint.OutboundEndpoint;
 import org.mule.transaction.TransactionCoordination;
 import org.mule.transport.AbstractMessageDispatcher;
+import org.mule.transport.jdbc.sqlstrategy.SimpleUpdateSqlStatementStrategy;
 import org.mule.transport.jdbc.sqlstrategy.SqlStatementStrategy;
 
 import org.apache.commons.logging.Log;
@@ -68,10 +69,30 @@ public class JdbcMessageDispatcher extends AbstractMessageDispatcher
         
         SqlStatementStrategy strategy = 
             jdbcConnector.getSqlStatementStrategyFactory().create(statement, payload);
+        if (jdbcConnector.getOutboundBatchSize() > 0 && strategy instanceof SimpleUpdateSqlStatementStrategy
+            && TransactionCoordination.getInstance().getTransaction() == null)
+        {
+            return writeInBatch((SimpleUpdateSqlStatementStrategy) strategy, jdbcConnector, event);
+        }
         Connection connection = (Connection) connector.getTransactionalResource(endpoint);
         return sqlStatementExecutor.execute(strategy,jdbcConnector, endpoint, event, event.getTimeout(), connection);
     }
 
+    /**
+     * Hands the parameter rows of the event over to the {@link JdbcBatchWriter} of the
+     * statement and returns once the batch they have been added to has been committed.
+     * Events written in a transaction are not batched, as the batch would be committed
+     * independently of the transaction.
+     */
+    protected MuleMessage writeInBatch(SimpleUpdateSqlStatementStrategy strategy, JdbcConnector jdbcConnector,
+                                       MuleEvent event) throws Exception
+    {
+        String sql = strategy.getSql(jdbcConnector, endpoint);
+        Object[][] paramRows = strategy.getBatchParamRows(jdbcConnector, endpoint, event);
+        jdbcConnector.getBatchWriter(endpoint, sql).write(paramRows);
+        return event.getMessage();
+    }
+
     @Override
     protected void doConnect() throws Exception
     {
@@ -11,9 +11,12 @@
 package org.mule.transport.jdbc;
 
 import org.mule.DefaultMuleMessage;
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
 import org.mule.api.MuleMessage;
 import org.mule.api.construct.FlowConstruct;
 import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.api.execution.ExecutionTemplate;
 import org.mule.api.lifecycle.CreateException;
 import org.mule.api.transaction.Transaction;
 import org.mule.api.transport.Connector;
@@ -28,6 +31,7 @@ import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Implements {@link TransactedPollingMessageReceiver} reading data from a database.
@@ -245,6 +249,107 @@ public class JdbcMessageReceiver extends TransactedPollingMessageReceiver
         return nbRows;
     }
 
+    /**
+     * Streams the rows of the read statement when the connector is streaming and the rows
+     * are not received in a single transaction, otherwise reads them all at once.
+     */
+    @Override
+    public void poll() throws Exception
+    {
+        if (connector.isStreaming() && !isReceiveMessagesInTransaction())
+        {
+            pollInPages();
+        }
+        else
+        {
+            super.poll();
+        }
+    }
+
+    /**
+     * Processes the rows of the read statement a page of <code>fetchSize</code> rows at a
+     * time, waiting for the rows of a page to be processed before reading the next one, so
+     * that only one page is held in memory.
+     */
+    protected void pollInPages() throws Exception
+    {
+        if (!flowConstruct.getMuleContext().isPrimaryPollingInstance())
+        {
+            return;
+        }
+        ResultSetIterator rows = null;
+        try
+        {
+            ExecutionTemplate<MuleEvent> pt = createExecutionTemplate();
+            Object[] params = connector.getParams(endpoint, this.readParams, null, this.endpoint.getEndpointURI().getAddress());
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("SQL QUERY: " + readStmt + ", params = " + ArrayUtils.toString(params));
+            }
+            Connection con = this.connector.getConnection();
+            try
+            {
+                rows = ResultSetIterator.execute(connector.getQueryRunnerFor(endpoint), con, readStmt, params,
+                    connector.getFetchSize(), true);
+            }
+            catch (Exception e)
+            {
+                JdbcUtils.close(con);
+                throw e;
+            }
+
+            List<Object> page = new ArrayList<Object>(connector.getFetchSize());
+            while (rows.hasNext())
+            {
+                page.add(rows.next());
+                if (page.size() == connector.getFetchSize() || !rows.hasNext())
+                {
+                    processPage(pt, page);
+                    page.clear();
+                }
+            }
+        }
+        catch (MessagingException e)
+        {
+            //Already handled by exception strategy
+        }
+        catch (Exception e)
+        {
+            getConnector().getMuleContext().handleException(e);
+        }
+        finally
+        {
+            if (rows != null)
+            {
+                rows.close();
+            }
+        }
+    }
+
+    private void processPage(ExecutionTemplate<MuleEvent> pt, List<Object> page) throws Exception
+    {
+        CountDownLatch countdown = new CountDownLatch(page.size());
+        int scheduled = 0;
+        try
+        {
+            for (Object message : page)
+            {
+                this.getWorkManager().scheduleWork(new MessageProcessorWorker(pt, countdown, message));
+                scheduled++;
+            }
+        }
+        finally
+        {
+            // the rows of the page must not be closed while scheduled workers read them, so
+            // even if scheduling failed wait for the workers that were scheduled
+            for (int i = scheduled; i < page.size(); i++)
+            {
+                countdown.countDown();
+            }
+            countdown.await();
+        }
+    }
+
     @Override
     public List getMessages() throws Exception
     {
@@ -0,0 +1,280 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Keeps the statements prepared on each open connection, so that executing the same SQL
+ * again on a connection, for instance the ack statement of every record received in a
+ * transaction, does not prepare it again.
+ * <p/>
+ * Up to <code>maxSize</code> statements are kept per connection, the least recently used
+ * one being closed when more are prepared. Statements of connections that have been closed
+ * since are discarded the next time a connection is added to the cache. A statement must
+ * only be used by one thread at a time, which JDBC already requires of its connection.
+ * <p/>
+ * The statements of every connection are guarded by a lock of their own, and no lock is
+ * held while the driver prepares or closes statements or checks whether connections are
+ * closed, so threads working on different connections do not wait for each other.
+ */
+public class PreparedStatementCache
+{
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private final int maxSize;
+
+    /**
+     * Guarded by itself, only while looking up or adding the statements of a connection.
+     */
+    private final Map<Connection, ConnectionStatements> statements =
+        new IdentityHashMap<Connection, ConnectionStatements>();
+
+    private final Set<PreparedStatement> cached =
+        Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<PreparedStatement, Boolean>()));
+
+    public PreparedStatementCache(int maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the statement prepared for <code>sql</code> on <code>connection</code>,
+     *         preparing it if needed
+     */
+    public PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException
+    {
+        ConnectionStatements connectionStatements = getStatements(connection);
+        PreparedStatement statement = connectionStatements.get(sql);
+        if (statement != null)
+        {
+            return statement;
+        }
+        return connectionStatements.put(sql, connection.prepareStatement(sql));
+    }
+
+    /**
+     * @return true if <code>statement</code> is kept by the cache, and must therefore not
+     *         be closed after being executed
+     */
+    public boolean contains(PreparedStatement statement)
+    {
+        return cached.contains(statement);
+    }
+
+    /**
+     * Closes all the cached statements.
+     */
+    public void clear()
+    {
+        List<ConnectionStatements> all;
+        synchronized (statements)
+        {
+            all = new ArrayList<ConnectionStatements>(statements.values());
+            statements.clear();
+        }
+        for (ConnectionStatements connectionStatements : all)
+        {
+            for (PreparedStatement statement : connectionStatements.discard())
+            {
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    private ConnectionStatements getStatements(Connection connection)
+    {
+        ConnectionStatements connectionStatements;
+        synchronized (statements)
+        {
+            connectionStatements = statements.get(connection);
+            if (connectionStatements != null)
+            {
+                return connectionStatements;
+            }
+            connectionStatements = new ConnectionStatements();
+            statements.put(connection, connectionStatements);
+        }
+        removeClosedConnections(connection);
+        return connectionStatements;
+    }
+
+    /**
+     * Forgets the statements of the connections that have been closed, which the driver has
+     * closed along with them.
+     */
+    private void removeClosedConnections(Connection current)
+    {
+        List<Connection> connections;
+        synchronized (statements)
+        {
+            connections = new ArrayList<Connection>(statements.keySet());
+        }
+        for (Connection connection : connections)
+        {
+            if (connection != current && isClosed(connection))
+            {
+                ConnectionStatements removed;
+                synchronized (statements)
+                {
+                    removed = statements.remove(connection);
+                }
+                if (removed != null)
+                {
+                    removed.discard();
+                }
+            }
+        }
+    }
+
+    private boolean isClosed(Connection connection)
+    {
+        try
+        {
+            return connection.isClosed();
+        }
+        catch (SQLException e)
+        {
+            return true;
+        }
+    }
+
+    private boolean isClosed(PreparedStatement statement)
+    {
+        try
+        {
+            return statement.isClosed();
+        }
+        catch (SQLException e)
+        {
+            return true;
+        }
+        catch (AbstractMethodError e)
+        {
+            // driver older than JDBC 4
+            return false;
+        }
+    }
+
+    private void closeQuietly(PreparedStatement statement)
+    {
+        try
+        {
+            statement.close();
+        }
+        catch (SQLException e)
+        {
+            logger.debug("(Ignored) Failed to close prepared statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The statements of a connection, least recently used first.
+     */
+    private class ConnectionStatements
+    {
+
+        private final LinkedHashMap<String, PreparedStatement> bySql =
+            new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+
+        /**
+         * @return the open statement prepared for <code>sql</code>, or null
+         */
+        PreparedStatement get(String sql)
+        {
+            PreparedStatement statement;
+            synchronized (this)
+            {
+                statement = bySql.get(sql);
+            }
+            if (statement == null || !isClosed(statement))
+            {
+                return statement;
+            }
+            remove(sql, statement);
+            return null;
+        }
+
+        /**
+         * Keeps <code>statement</code> for <code>sql</code>, closing the least recently used
+         * statement if there are too many.
+         *
+         * @return the statement to use, which is the one prepared by another thread if it
+         *         got there first
+         */
+        PreparedStatement put(String sql, PreparedStatement statement)
+        {
+            PreparedStatement existing;
+            PreparedStatement evicted = null;
+            synchronized (this)
+            {
+                existing = bySql.get(sql);
+                if (existing == null)
+                {
+                    bySql.put(sql, statement);
+                    cached.add(statement);
+                    if (bySql.size() > maxSize)
+                    {
+                        Map.Entry<String, PreparedStatement> eldest = bySql.entrySet().iterator().next();
+                        evicted = eldest.getValue();
+                        bySql.remove(eldest.getKey());
+                        cached.remove(evicted);
+                    }
+                }
+            }
+            if (existing != null)
+            {
+                closeQuietly(statement);
+                return existing;
+            }
+            if (evicted != null)
+            {
+                closeQuietly(evicted);
+            }
+            return statement;
+        }
+
+        private synchronized void remove(String sql, PreparedStatement statement)
+        {
+            if (bySql.get(sql) == statement)
+            {
+                bySql.remove(sql);
+            }
+            cached.remove(statement);
+        }
+
+        /**
+         * Forgets all the statements.
+         *
+         * @return the statements that were kept
+         */
+        synchronized List<PreparedStatement> discard()
+        {
+            List<PreparedStatement> discarded = new ArrayList<PreparedStatement>(bySql.values());
+            bySql.clear();
+            cached.removeAll(discarded);
+            return discarded;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jdbc;
+
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.api.MuleRuntimeException;
+import org.mule.streaming.ConsumerIterator;
+import org.mule.streaming.ElementBasedPagingConsumer;
+import org.mule.streaming.PagingDelegate;
+import org.mule.streaming.PagingDelegateProducer;
+import org.mule.transport.jdbc.i18n.JdbcMessages;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.RowProcessor;
+
+/**
+ * Iterates over the rows of a query as maps from column label to value, reading them from
+ * the {@link ResultSet} one page of <code>fetchSize</code> rows at a time instead of
+ * loading the whole result set in memory.
+ * <p/>
+ * The result set is closed once all the rows have been read or the iterator is closed,
+ * along with the statement unless it is kept by the statement cache of the query runner,
+ * and the connection if the iterator owns it. Callers that stop iterating before the end
+ * must close the iterator.
+ */
+public class ResultSetIterator extends ConsumerIterator<Map<String, Object>>
+{
+
+    public ResultSetIterator(ResultSetPagingDelegate delegate)
+    {
+        super(new ElementBasedPagingConsumer<Map<String, Object>>(
+            new PagingDelegateProducer<Map<String, Object>>(delegate)));
+    }
+
+    /**
+     * Executes <code>sql</code> and returns an iterator over its rows. The statement is
+     * prepared, filled and closed by <code>queryRunner</code> as for its other queries, so
+     * its query timeout and statement cache apply.
+     *
+     * @param closeConnection whether the connection must be committed and closed with the
+     *            iterator, which is the case unless it belongs to a transaction
+     */
+    public static ResultSetIterator execute(QueryRunner queryRunner, Connection connection, String sql,
+                                            Object[] params, int fetchSize, boolean closeConnection) throws SQLException
+    {
+        ExtendedQueryRunner runner = queryRunner instanceof ExtendedQueryRunner
+                                     ? (ExtendedQueryRunner) queryRunner
+                                     : new ExtendedQueryRunner(queryRunner.getDataSource(), -1);
+        PreparedStatement statement = runner.prepareStatement(connection, sql);
+        try
+        {
+            statement.setFetchSize(fetchSize);
+            runner.fillParameters(statement, params);
+            ResultSet resultSet = statement.executeQuery();
+            return new ResultSetIterator(new ResultSetPagingDelegate(runner, connection, statement, resultSet,
+                fetchSize, closeConnection));
+        }
+        catch (SQLException e)
+        {
+            runner.close(statement);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the rows of a result set a page at a time.
+     */
+    public static class ResultSetPagingDelegate extends PagingDelegate<Map<String, Object>>
+    {
+
+        private static final RowProcessor ROW_PROCESSOR = new ColumnAliasRowProcessor();
+
+        private final ExtendedQueryRunner queryRunner;
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private final int pageSize;
+        private final boolean closeConnection;
+        private boolean closed;
+
+        public ResultSetPagingDelegate(ExtendedQueryRunner queryRunner, Connection connection,
+                                       PreparedStatement statement, ResultSet resultSet, int pageSize,
+                                       boolean closeConnection)
+        {
+            this.queryRunner = queryRunner;
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.pageSize = pageSize;
+            this.closeConnection = closeConnection;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Map<String, Object>> getPage()
+        {
+            if (closed)
+            {
+                return null;
+            }
+            List<Map<String, Object>> page = new ArrayList<Map<String, Object>>(pageSize);
+            try
+            {
+                while (page.size() < pageSize && resultSet.next())
+                {
+                    page.add(ROW_PROCESSOR.toMap(resultSet));
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new MuleRuntimeException(JdbcMessages.failedToReadResultSet(), e);
+            }
+            return page;
+        }
+
+        @Override
+        public int getTotalResults()
+        {
+            return -1;
+        }
+
+        @Override
+        public void close() throws MuleException
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            SQLException failure = null;
+            try
+            {
+                resultSet.close();
+                queryRunner.close(statement);
+            }
+            catch (SQLException e)
+            {
+                failure = e;
+            }
+            if (closeConnection)
+            {
+                try
+                {
+                    JdbcUtils.commitAndClose(connection);
+                }
+                catch (SQLException e)
+                {
+                    failure = e;
+                }
+            }
+            if (failure != null)
+            {
+                throw new DefaultMuleException(JdbcMessages.failedToReadResultSet(), failure);
+            }
+        }
+    }
+}
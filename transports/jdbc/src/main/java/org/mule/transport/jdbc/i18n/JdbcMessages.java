@@ -44,6 +44,14 @@ public class JdbcMessages extends MessageFactory
         return factory.createMessage(BUNDLE_PATH, 5, property1, property2);
     }
 
-}
+    public static Message batchWriteFailed(int size, String sql)
+    {
+        return factory.createMessage(BUNDLE_PATH, 6, size, sql);
+    }
 
+    public static Message failedToReadResultSet()
+    {
+        return factory.createMessage(BUNDLE_PATH, 7);
+    }
 
+}
@@ -19,6 +19,7 @@ import org.mule.util.ArrayUtils;
 
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.log4j.Logger;
@@ -34,22 +35,8 @@ public  class SimpleUpdateSqlStatementStrategy implements SqlStatementStrategy
     public MuleMessage executeStatement(JdbcConnector connector,
                                         ImmutableEndpoint endpoint, MuleEvent event, long timeout, Connection connection) throws Exception
     {
-        //Unparsed SQL statement (with #[foo] format parameters)
-        String statement = connector.getStatement(endpoint);
-
-        //Storage for parameters
-        List<String> paramNames = new ArrayList<String>();
-
-        //Parsed SQL statement (with ? placeholders instead of #[foo] params)
-        String sql = connector.parseStatement(statement, paramNames);
-
-        //Optionally escape or further manipulate SQL statement.  Used in subclasses.
-        sql = escapeStatement(sql);
-
-        //Get parameter values from message
-        MuleMessage message = event.getMessage();
-        Object[] paramValues = connector.getParams(endpoint, paramNames, new DefaultMuleMessage(
-            event.getMessage().getPayload(), message, event.getMuleContext()), endpoint.getEndpointURI().getAddress());
+        String sql = getSql(connector, endpoint);
+        Object[] paramValues = getParams(connector, endpoint, event);
 
         if (logger.isDebugEnabled())
         {
@@ -73,6 +60,71 @@ public  class SimpleUpdateSqlStatementStrategy implements SqlStatementStrategy
         return event.getMessage();
     }
 
+    /**
+     * @return the statement of the endpoint, with <code>?</code> placeholders instead of
+     *         <code>#[foo]</code> parameters
+     */
+    public String getSql(JdbcConnector connector, ImmutableEndpoint endpoint)
+    {
+        //Unparsed SQL statement (with #[foo] format parameters)
+        String statement = connector.getStatement(endpoint);
+
+        //Parsed SQL statement (with ? placeholders instead of #[foo] params)
+        String sql = connector.parseStatement(statement, new ArrayList<String>());
+
+        //Optionally escape or further manipulate SQL statement.  Used in subclasses.
+        return escapeStatement(sql);
+    }
+
+    /**
+     * Evaluates the parameters of the statement against the message of the event.
+     *
+     * @return the parameter values of a single execution of the statement
+     */
+    public Object[] getParams(JdbcConnector connector, ImmutableEndpoint endpoint, MuleEvent event) throws Exception
+    {
+        MuleMessage message = event.getMessage();
+        return connector.getParams(endpoint, getParamNames(connector, endpoint),
+            new DefaultMuleMessage(message.getPayload(), message, event.getMuleContext()),
+            endpoint.getEndpointURI().getAddress());
+    }
+
+    /**
+     * Evaluates the parameters of the statement for a batched write. When the payload is a
+     * collection, the parameters are evaluated once for every element of the collection, so
+     * that all of them are written in the same batch.
+     *
+     * @return a row of parameter values for every time the statement must be executed
+     */
+    public Object[][] getBatchParamRows(JdbcConnector connector, ImmutableEndpoint endpoint, MuleEvent event) throws Exception
+    {
+        MuleMessage message = event.getMessage();
+        Object payload = message.getPayload();
+        if (!(payload instanceof Collection))
+        {
+            return new Object[][] {getParams(connector, endpoint, event)};
+        }
+
+        List<String> paramNames = getParamNames(connector, endpoint);
+        String address = endpoint.getEndpointURI().getAddress();
+        Collection<?> elements = (Collection<?>) payload;
+        Object[][] paramRows = new Object[elements.size()][];
+        int i = 0;
+        for (Object element : elements)
+        {
+            paramRows[i++] = connector.getParams(endpoint, paramNames,
+                new DefaultMuleMessage(element, message, event.getMuleContext()), address);
+        }
+        return paramRows;
+    }
+
+    private List<String> getParamNames(JdbcConnector connector, ImmutableEndpoint endpoint)
+    {
+        List<String> paramNames = new ArrayList<String>();
+        connector.parseStatement(connector.getStatement(endpoint), paramNames);
+        return paramNames;
+    }
+
     protected String escapeStatement(String statement)
     {
         //no escaping needed for normal SQL statement
@@ -0,0 +1,151 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jdbc;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.MuleException;
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class JdbcBatchWriterTestCase extends AbstractMuleTestCase
+{
+
+    private static final String SQL = "insert into test values (?)";
+
+    @Mock
+    private JdbcConnector mockConnector;
+    @Mock
+    private ImmutableEndpoint mockEndpoint;
+    @Mock
+    private QueryRunner mockQueryRunner;
+    @Mock
+    private Connection mockConnection;
+
+    @Before
+    public void setUpConnector() throws Exception
+    {
+        when(mockConnector.getConnection()).thenReturn(mockConnection);
+        when(mockConnector.getQueryRunnerFor(mockEndpoint)).thenReturn(mockQueryRunner);
+    }
+
+    @Test
+    public void executesRowsOfConcurrentEventsInOneBatch() throws Exception
+    {
+        final JdbcBatchWriter writer = createWriter(3, 60000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<Void> first = executor.submit(write(writer, new Object[][] {{1}, {2}}));
+            Future<Void> second = executor.submit(write(writer, new Object[][] {{3}}));
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        verify(mockQueryRunner, times(1)).batch(eq(mockConnection), eq(SQL), argThat(hasRows(3)));
+        verify(mockConnection).commit();
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void executesIncompleteBatchAfterInterval() throws Exception
+    {
+        JdbcBatchWriter writer = createWriter(10, 20);
+        writer.write(new Object[][] {{1}});
+
+        verify(mockQueryRunner).batch(eq(mockConnection), eq(SQL), argThat(hasRows(1)));
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    public void rollsBackFailedBatch() throws Exception
+    {
+        when(mockQueryRunner.batch(eq(mockConnection), eq(SQL), any(Object[][].class))).thenThrow(new SQLException());
+        JdbcBatchWriter writer = createWriter(1, 60000);
+        try
+        {
+            writer.write(new Object[][] {{1}});
+            fail("the batch was not committed");
+        }
+        catch (MuleException e)
+        {
+            // expected
+        }
+
+        verify(mockConnection).rollback();
+        verify(mockConnection).close();
+    }
+
+    private JdbcBatchWriter createWriter(int batchSize, long batchInterval)
+    {
+        when(mockConnector.getOutboundBatchSize()).thenReturn(batchSize);
+        when(mockConnector.getOutboundBatchInterval()).thenReturn(batchInterval);
+        return new JdbcBatchWriter(mockConnector, mockEndpoint, SQL);
+    }
+
+    private Callable<Void> write(final JdbcBatchWriter writer, final Object[][] paramRows)
+    {
+        return new Callable<Void>()
+        {
+            public Void call() throws Exception
+            {
+                writer.write(paramRows);
+                return null;
+            }
+        };
+    }
+
+    private BaseMatcher<Object[][]> hasRows(final int count)
+    {
+        return new BaseMatcher<Object[][]>()
+        {
+            public boolean matches(Object item)
+            {
+                return ((Object[][]) item).length == count;
+            }
+
+            public void describeTo(Description description)
+            {
+                description.appendText(count + " rows");
+            }
+        };
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jdbc;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class PreparedStatementCacheTestCase extends AbstractMuleTestCase
+{
+
+    @Mock
+    private Connection mockConnection;
+    @Mock
+    private Connection otherConnection;
+
+    private PreparedStatementCache cache = new PreparedStatementCache(2);
+
+    @Before
+    public void setUpConnections() throws Exception
+    {
+        prepareStatements(mockConnection);
+        prepareStatements(otherConnection);
+    }
+
+    private void prepareStatements(Connection connection) throws SQLException
+    {
+        when(connection.prepareStatement(anyString())).thenAnswer(new Answer<PreparedStatement>()
+        {
+            @Override
+            public PreparedStatement answer(InvocationOnMock invocation) throws Throwable
+            {
+                return mock(PreparedStatement.class);
+            }
+        });
+    }
+
+    @Test
+    public void reusesStatementOnSameConnection() throws Exception
+    {
+        PreparedStatement statement = cache.prepareStatement(mockConnection, "select 1");
+
+        assertThat(cache.prepareStatement(mockConnection, "select 1"), is(sameInstance(statement)));
+        assertThat(cache.contains(statement), is(true));
+        verify(mockConnection).prepareStatement("select 1");
+    }
+
+    @Test
+    public void preparesStatementAgainOnOtherConnection() throws Exception
+    {
+        PreparedStatement statement = cache.prepareStatement(mockConnection, "select 1");
+
+        assertThat(cache.prepareStatement(otherConnection, "select 1"), is(not(sameInstance(statement))));
+    }
+
+    @Test
+    public void closesLeastRecentlyUsedStatement() throws Exception
+    {
+        PreparedStatement first = cache.prepareStatement(mockConnection, "select 1");
+        PreparedStatement second = cache.prepareStatement(mockConnection, "select 2");
+        cache.prepareStatement(mockConnection, "select 1");
+        cache.prepareStatement(mockConnection, "select 3");
+
+        verify(second).close();
+        verify(first, never()).close();
+        assertThat(cache.contains(second), is(false));
+        assertThat(cache.contains(first), is(true));
+    }
+
+    @Test
+    public void preparesClosedStatementAgain() throws Exception
+    {
+        PreparedStatement statement = cache.prepareStatement(mockConnection, "select 1");
+        when(statement.isClosed()).thenReturn(true);
+
+        assertThat(cache.prepareStatement(mockConnection, "select 1"), is(not(sameInstance(statement))));
+    }
+
+    @Test
+    public void discardsStatementsOfClosedConnections() throws Exception
+    {
+        PreparedStatement statement = cache.prepareStatement(mockConnection, "select 1");
+        when(mockConnection.isClosed()).thenReturn(true);
+        cache.prepareStatement(otherConnection, "select 1");
+
+        assertThat(cache.contains(statement), is(false));
+    }
+
+    @Test
+    public void doesNotWaitForStatementPreparedOnOtherConnection() throws Exception
+    {
+        final CountDownLatch preparing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(mockConnection.prepareStatement("select 1")).thenAnswer(new Answer<PreparedStatement>()
+        {
+            @Override
+            public PreparedStatement answer(InvocationOnMock invocation) throws Throwable
+            {
+                preparing.countDown();
+                release.await();
+                return mock(PreparedStatement.class);
+            }
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<PreparedStatement> slow = executor.submit(new Callable<PreparedStatement>()
+            {
+                @Override
+                public PreparedStatement call() throws Exception
+                {
+                    return cache.prepareStatement(mockConnection, "select 1");
+                }
+            });
+            assertThat(preparing.await(5, TimeUnit.SECONDS), is(true));
+
+            cache.prepareStatement(otherConnection, "select 1");
+            release.countDown();
+            assertThat(cache.contains(slow.get(5, TimeUnit.SECONDS)), is(true));
+        }
+        finally
+        {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void clearClosesAllStatements() throws Exception
+    {
+        PreparedStatement statement = cache.prepareStatement(mockConnection, "select 1");
+        PreparedStatement other = cache.prepareStatement(otherConnection, "select 1");
+        cache.clear();
+
+        verify(statement).close();
+        verify(other).close();
+        assertThat(cache.contains(statement), is(false));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jdbc;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Map;
+
+import org.apache.commons.dbutils.QueryRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class ResultSetIteratorTestCase extends AbstractMuleTestCase
+{
+
+    private static final int ROWS = 5;
+
+    @Mock
+    private Connection mockConnection;
+    @Mock
+    private PreparedStatement mockStatement;
+    @Mock
+    private ResultSet mockResultSet;
+    @Mock
+    private ResultSetMetaData mockMetaData;
+    @Mock
+    private ParameterMetaData mockParameterMetaData;
+
+    private QueryRunner queryRunner = new QueryRunner();
+
+    private int row;
+
+    @Before
+    public void setUpResultSet() throws Exception
+    {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        when(mockStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockStatement.getParameterMetaData()).thenReturn(mockParameterMetaData);
+        when(mockParameterMetaData.getParameterCount()).thenReturn(1);
+        when(mockParameterMetaData.getParameterType(1)).thenReturn(Types.INTEGER);
+        when(mockResultSet.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getColumnCount()).thenReturn(1);
+        when(mockMetaData.getColumnLabel(1)).thenReturn("ID");
+        when(mockResultSet.next()).thenAnswer(new Answer<Boolean>()
+        {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable
+            {
+                return ++row <= ROWS;
+            }
+        });
+        when(mockResultSet.getObject(1)).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                return row;
+            }
+        });
+    }
+
+    @Test
+    public void readsRowsOnePageAtATime() throws Exception
+    {
+        ResultSetIterator rows = ResultSetIterator.execute(queryRunner, mockConnection, "select id from test",
+            new Object[] {"a"}, 2, true);
+
+        verify(mockStatement).setFetchSize(2);
+        verify(mockStatement).setObject(1, "a");
+
+        Map<String, Object> first = rows.next();
+        assertThat(first.get("id"), is((Object) 1));
+        // only the first page has been read
+        verify(mockResultSet, times(2)).next();
+
+        int count = 1;
+        while (rows.hasNext())
+        {
+            assertThat(rows.next().get("ID"), is((Object) ++count));
+        }
+        assertThat(count, is(ROWS));
+    }
+
+    @Test
+    public void bindsNullWithTypeOfParameter() throws Exception
+    {
+        ResultSetIterator.execute(queryRunner, mockConnection, "select id from test where id = ?",
+            new Object[] {null}, 10, true);
+
+        verify(mockStatement).setNull(1, Types.INTEGER);
+    }
+
+    @Test
+    public void keepsCachedStatementOpen() throws Exception
+    {
+        PreparedStatementCache cache = new PreparedStatementCache(1);
+        ResultSetIterator rows = ResultSetIterator.execute(new ExtendedQueryRunner(null, 5, cache), mockConnection,
+            "select id from test", new Object[0], 10, true);
+        rows.close();
+
+        verify(mockStatement).setQueryTimeout(5);
+        verify(mockResultSet).close();
+        verify(mockStatement, never()).close();
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void closesResultSetAndConnectionOnceRead() throws Exception
+    {
+        ResultSetIterator rows = ResultSetIterator.execute(queryRunner, mockConnection, "select id from test",
+            new Object[0], 10, true);
+        while (rows.hasNext())
+        {
+            rows.next();
+        }
+
+        verify(mockResultSet).close();
+        verify(mockStatement).close();
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void leavesTransactedConnectionOpen() throws Exception
+    {
+        ResultSetIterator rows = ResultSetIterator.execute(queryRunner, mockConnection, "select id from test",
+            new Object[0], 10, false);
+        rows.close();
+
+        verify(mockResultSet).close();
+        verify(mockStatement).close();
+        verify(mockConnection, never()).close();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jms;
+
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.transport.jms.i18n.JmsMessages;
+import org.mule.util.concurrent.Batcher;
+
+import java.util.List;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Sends the messages dispatched to an endpoint in batches, each committed at once on a
+ * transacted session owned by the sender, instead of sending and committing every message
+ * on its own.
+ * <p/>
+ * Messages are batched by {@link Batcher} with {@link JmsConnector#getOutboundBatchSize()}
+ * and {@link JmsConnector#getOutboundBatchInterval()}. Every caller blocks in {@link #send}
+ * until its batch has been committed, so a dispatch only returns once its message is safely
+ * on the broker, and fails if its batch was rolled back.
+ */
+class JmsBatchSender extends Batcher<JmsBatchSender.PendingMessage>
+{
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private final JmsConnector connector;
+    private final ImmutableEndpoint endpoint;
+    private final boolean topic;
+
+    /**
+     * Guards the session, which only one batch may use at a time.
+     */
+    private final Object sessionLock = new Object();
+    private Session session;
+    private MessageProducer producer;
+    private int connectionGeneration;
+
+    JmsBatchSender(JmsConnector connector, ImmutableEndpoint endpoint, boolean topic)
+    {
+        super(connector.getOutboundBatchSize(), connector.getOutboundBatchInterval());
+        this.connector = connector;
+        this.endpoint = endpoint;
+        this.topic = topic;
+    }
+
+    /**
+     * Adds a message to the current batch and waits until the batch has been committed.
+     */
+    void send(Message message, boolean persistent, int priority, long ttl) throws Exception
+    {
+        add(new PendingMessage(message, persistent, priority, ttl));
+    }
+
+    @Override
+    protected void flush(List<PendingMessage> messages) throws Exception
+    {
+        synchronized (sessionLock)
+        {
+            try
+            {
+                checkSession();
+                for (PendingMessage pending : messages)
+                {
+                    connector.getJmsSupport().send(producer, pending.message, pending.persistent,
+                        pending.priority, pending.ttl, topic, endpoint);
+                }
+                session.commit();
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Committed a batch of " + messages.size() + " messages sent to "
+                                 + endpoint.getEndpointURI());
+                }
+            }
+            catch (Exception e)
+            {
+                rollback();
+                // the session may be unusable, start the next batch on a new one
+                closeSession();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    protected Exception batchFailed(int size, Exception cause)
+    {
+        return new DefaultMuleException(JmsMessages.batchSendFailed(size, endpoint), cause);
+    }
+
+    /**
+     * Creates the session and producer of the sender, again if the connection has been lost
+     * since they were created.
+     */
+    private void checkSession() throws JMSException, MuleException
+    {
+        if (session != null && connectionGeneration != connector.getConnectionGeneration())
+        {
+            closeSession();
+        }
+        if (session == null)
+        {
+            connectionGeneration = connector.getConnectionGeneration();
+            Connection connection = connector.getConnection();
+            if (connection == null)
+            {
+                throw new DefaultMuleException(JmsMessages.connectionNotAvailable(connector.getName()));
+            }
+            session = connector.getJmsSupport().createSession(connection, topic, true,
+                Session.SESSION_TRANSACTED, connector.isNoLocal());
+            Destination destination = connector.getJmsSupport().createDestination(session, endpoint);
+            producer = connector.getJmsSupport().createProducer(session, destination, topic);
+        }
+    }
+
+    private void rollback()
+    {
+        if (session != null)
+        {
+            try
+            {
+                session.rollback();
+            }
+            catch (JMSException e)
+            {
+                logger.debug("(Ignored) Failed to roll back the batch: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeSession()
+    {
+        connector.closeQuietly(producer);
+        connector.closeQuietly(session);
+        producer = null;
+        session = null;
+    }
+
+    /**
+     * Closes the session of the sender. Callers still waiting for their batch will fail to
+     * send it unless the connector has reconnected by then.
+     */
+    void close()
+    {
+        synchronized (sessionLock)
+        {
+            closeSession();
+        }
+    }
+
+    static class PendingMessage
+    {
+
+        private final Message message;
+        private final boolean persistent;
+        private final int priority;
+        private final long ttl;
+
+        PendingMessage(Message message, boolean persistent, int priority, long ttl)
+        {
+            this.message = message;
+            this.persistent = persistent;
+            this.priority = priority;
+            this.ttl = ttl;
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.mule.config.i18n.MessageFactory;
 import org.mule.context.notification.ClusterNodeNotification;
 import org.mule.context.notification.ConnectionNotification;
 import org.mule.context.notification.NotificationException;
+import org.mule.management.stats.ConnectorStatisticsProvider;
 import org.mule.routing.MessageFilter;
 import org.mule.transaction.TransactionCoordination;
 import org.mule.transport.AbstractConnector;
@@ -46,6 +47,8 @@ import org.mule.util.BeanUtils;
 
 import java.text.MessageFormat;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.Connection;
@@ -67,7 +70,7 @@ import javax.naming.NamingException;
  * and queues, durable subscribers, acknowledgement modes and local transactions.
  */
 
-public class JmsConnector extends AbstractConnector implements ExceptionListener
+public class JmsConnector extends AbstractConnector implements ExceptionListener, ConnectorStatisticsProvider
 {
 
     public static final String JMS = "jms";
@@ -79,8 +82,22 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
 
     public static final int REDELIVERY_IGNORE = -1;
 
+    public static final int DEFAULT_MAX_CACHED_PRODUCERS = 16;
+
+    public static final long DEFAULT_OUTBOUND_BATCH_INTERVAL = 50;
+
     private AtomicInteger receiverReportedExceptionCount = new AtomicInteger();
 
+    /**
+     * Incremented whenever the connection is lost, so that dispatchers know the
+     * producers they cached are no longer usable.
+     */
+    private AtomicInteger connectionGeneration = new AtomicInteger();
+
+    private final JmsProducerCacheStatistics producerCacheStatistics = new JmsProducerCacheStatistics();
+
+    private final ConcurrentMap<String, JmsBatchSender> batchSenders = new ConcurrentHashMap<String, JmsBatchSender>();
+
     ////////////////////////////////////////////////////////////////////////
     // Properties
     ////////////////////////////////////////////////////////////////////////
@@ -101,6 +118,23 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
 
     private boolean cacheJmsSessions = false;
 
+    /**
+     * The number of producers each dispatcher keeps open on its cached session, 0 to
+     * create a producer for every message.
+     */
+    private int maxCachedProducers = DEFAULT_MAX_CACHED_PRODUCERS;
+
+    /**
+     * The number of messages dispatched outside of a transaction that are sent and
+     * committed together on a transacted session, 0 or 1 to send every message on its own.
+     */
+    private int outboundBatchSize = 0;
+
+    /**
+     * Milliseconds a batch waits for more messages before it is sent anyway.
+     */
+    private long outboundBatchInterval = DEFAULT_OUTBOUND_BATCH_INTERVAL;
+
     /**
      * Whether to create a consumer on connect.
      */
@@ -366,6 +400,8 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         {
             jndiNameResolver.dispose();
         }
+
+        closeBatchSenders();
     }
 
     protected Object lookupFromJndi(String jndiName) throws NamingException
@@ -479,6 +515,9 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
 
     public void onException(JMSException jmsException)
     {
+        // producers cached by dispatchers belong to the failed connection
+        connectionGeneration.incrementAndGet();
+
         final JmsConnector jmsConnector = JmsConnector.this;
         Map receivers = jmsConnector.getReceivers();
         boolean isMultiConsumerReceiver = false;
@@ -542,6 +581,36 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         finally
         {
             connection = null;
+            connectionGeneration.incrementAndGet();
+            closeBatchSenders();
+        }
+    }
+
+    /**
+     * @return the sender batching the messages dispatched to <code>endpoint</code>
+     * @see #getOutboundBatchSize()
+     */
+    JmsBatchSender getBatchSender(ImmutableEndpoint endpoint, boolean topic)
+    {
+        String key = (topic ? "topic://" : "queue://") + endpoint.getEndpointURI().getAddress();
+        JmsBatchSender sender = batchSenders.get(key);
+        if (sender == null)
+        {
+            sender = new JmsBatchSender(this, endpoint, topic);
+            JmsBatchSender existing = batchSenders.putIfAbsent(key, sender);
+            if (existing != null)
+            {
+                sender = existing;
+            }
+        }
+        return sender;
+    }
+
+    private void closeBatchSenders()
+    {
+        for (JmsBatchSender sender : batchSenders.values())
+        {
+            sender.close();
         }
     }
 
@@ -1162,6 +1231,58 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         this.cacheJmsSessions = cacheJmsSessions;
     }
 
+    public int getMaxCachedProducers()
+    {
+        return maxCachedProducers;
+    }
+
+    public void setMaxCachedProducers(int maxCachedProducers)
+    {
+        this.maxCachedProducers = maxCachedProducers;
+    }
+
+    public int getOutboundBatchSize()
+    {
+        return outboundBatchSize;
+    }
+
+    public void setOutboundBatchSize(int outboundBatchSize)
+    {
+        this.outboundBatchSize = outboundBatchSize;
+    }
+
+    public long getOutboundBatchInterval()
+    {
+        return outboundBatchInterval;
+    }
+
+    public void setOutboundBatchInterval(long outboundBatchInterval)
+    {
+        this.outboundBatchInterval = outboundBatchInterval;
+    }
+
+    public JmsProducerCacheStatistics getProducerCacheStatistics()
+    {
+        return producerCacheStatistics;
+    }
+
+    /**
+     * Publishes the {@link JmsProducerCacheStatistics} of the connector through the JMX agent
+     * when producers are cached.
+     */
+    public Object getStatisticsMBean()
+    {
+        return cacheJmsSessions && maxCachedProducers > 0 ? producerCacheStatistics : null;
+    }
+
+    /**
+     * @return a number that changes every time the connection is lost or closed
+     */
+    int getConnectionGeneration()
+    {
+        return connectionGeneration.get();
+    }
+
     public ConnectionFactory getConnectionFactory()
     {
         return connectionFactory;
@@ -54,6 +54,7 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
 
     private JmsConnector connector;
     private Session cachedSession;
+    private JmsProducerCache producerCache;
     private boolean disableTemporaryDestinations = false;
     private boolean returnOriginalMessageAsReply = false;
 
@@ -69,6 +70,10 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
         {
             logger.warn("The returnOriginalMessageAsReply property will be ignored because disableTemporaryReplyToDestinations=false.  You need to disable temporary ReplyTo destinations in order for this propery to take effect.");
         }
+        if (connector.getMaxCachedProducers() > 0)
+        {
+            producerCache = new JmsProducerCache(connector);
+        }
         logger.warn("Starting patched JmsMessageReceiver");
     }
 
@@ -91,7 +96,7 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
     @Override
     protected void doDisconnect() throws Exception
     {
-        // template method
+        closeCachedProducers();
     }
 
     protected boolean isDisableTemporaryDestinations()
@@ -101,12 +106,18 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
 
     private MuleMessage dispatchMessage(MuleEvent event, boolean doSend) throws Exception
     {
+        if (isBatched(event, doSend))
+        {
+            return dispatchInBatch(event);
+        }
+
         Session session = null;
         MessageProducer producer = null;
         MessageConsumer consumer = null;
         Destination replyTo = null;
         boolean transacted = false;
         boolean cached = false;
+        boolean producerCached = false;
         boolean useReplyToDestination;
 
         final Transaction muleTx = TransactionCoordination.getInstance().getTransaction();
@@ -133,6 +144,12 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
             {
                 sessionManaged = false;
                 cached = true;
+                if (cachedSession != null && producerCache != null && producerCache.isStale())
+                {
+                    // the connection was lost since the session was created
+                    connector.closeQuietly(cachedSession);
+                    cachedSession = null;
+                }
                 if (cachedSession != null)
                 {
                     session = cachedSession;
@@ -141,6 +158,7 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
                 {
                     session = connector.getTransactionalResource(endpoint);
                     cachedSession = session;
+                    closeCachedProducers();
                 }
             }
             else
@@ -162,7 +180,15 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
             boolean topic = connector.getTopicResolver().isTopic(endpoint, true);
 
             Destination dest = connector.getJmsSupport().createDestination(session, endpoint);
-            producer = connector.getJmsSupport().createProducer(session, dest, topic);
+            if (cached && producerCache != null)
+            {
+                producer = producerCache.getProducer(session, dest, topic);
+                producerCached = producer != null;
+            }
+            if (producer == null)
+            {
+                producer = connector.getJmsSupport().createProducer(session, dest, topic);
+            }
 
             Object message = event.getMessage().getPayload();
             if (!(message instanceof Message))
@@ -189,24 +215,8 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
 
             // QoS support
             long ttl = eventMsg.getOutboundProperty(JmsConstants.TIME_TO_LIVE_PROPERTY, Message.DEFAULT_TIME_TO_LIVE);
-            int priority = eventMsg.getOutboundProperty(JmsConstants.PRIORITY_PROPERTY, Message.DEFAULT_PRIORITY);
-            boolean persistent= eventMsg.getOutboundProperty(JmsConstants.PERSISTENT_DELIVERY_PROPERTY, connector.isPersistentDelivery());
-
-            // If we are honouring the current QoS message headers we need to use the ones set on the current message
-            if (connector.isHonorQosHeaders())
-            {
-                Object priorityProp = eventMsg.getInboundProperty(JmsConstants.JMS_PRIORITY);
-                Object deliveryModeProp = eventMsg.getInboundProperty(JmsConstants.JMS_DELIVERY_MODE);
-
-                if (priorityProp != null)
-                {
-                    priority = NumberUtils.toInt(priorityProp);
-                }
-                if (deliveryModeProp != null)
-                {
-                    persistent = NumberUtils.toInt(deliveryModeProp) == DeliveryMode.PERSISTENT;
-                }
-            }
+            int priority = getPriority(eventMsg);
+            boolean persistent = isPersistent(eventMsg);
 
             if (logger.isDebugEnabled())
             {
@@ -283,9 +293,23 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
                 return returnOriginalMessageAsReply ? createMuleMessage(msg) : null;
             }
         }
+        catch (JMSException e)
+        {
+            if (producerCached)
+            {
+                // do not reuse a producer that failed
+                producerCache.remove(producer);
+                producerCached = false;
+                producer = null;
+            }
+            throw e;
+        }
         finally
         {
-            connector.closeQuietly(producer);
+            if (!producerCached)
+            {
+                connector.closeQuietly(producer);
+            }
             connector.closeQuietly(consumer);
 
             // TODO AP check if TopicResolver is to be utilized for temp destinations as well
@@ -317,6 +341,73 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
         }
     }
 
+    /**
+     * Messages are batched when the connector has an outbound batch size, no response is
+     * expected and the caller has no transaction the message should be part of.
+     */
+    private boolean isBatched(MuleEvent event, boolean doSend)
+    {
+        if (connector.getOutboundBatchSize() <= 1 || returnResponse(event, doSend)
+            || TransactionCoordination.getInstance().getTransaction() != null)
+        {
+            return false;
+        }
+        MuleMessage message = event.getMessage();
+        return message.getOutboundProperty(JmsConstants.JMS_REPLY_TO) == null
+               && message.getOutboundProperty(MuleProperties.MULE_REPLY_TO_PROPERTY) == null;
+    }
+
+    /**
+     * Hands the message over to the {@link JmsBatchSender} of the endpoint and returns once
+     * the batch it has been added to has been committed.
+     */
+    private MuleMessage dispatchInBatch(MuleEvent event) throws Exception
+    {
+        Object payload = event.getMessage().getPayload();
+        if (!(payload instanceof Message))
+        {
+            throw new DispatchException(
+                    JmsMessages.checkTransformer("JMS message", payload.getClass(), connector.getName()),
+                    event, getEndpoint());
+        }
+        Message msg = (Message) payload;
+        processMessage(msg, event);
+
+        MuleMessage eventMsg = event.getMessage();
+        long ttl = eventMsg.getOutboundProperty(JmsConstants.TIME_TO_LIVE_PROPERTY, Message.DEFAULT_TIME_TO_LIVE);
+        boolean topic = connector.getTopicResolver().isTopic(endpoint, true);
+        connector.getBatchSender(endpoint, topic).send(msg, isPersistent(eventMsg), getPriority(eventMsg), ttl);
+
+        return returnOriginalMessageAsReply ? createMuleMessage(msg) : null;
+    }
+
+    private int getPriority(MuleMessage eventMsg)
+    {
+        // If we are honouring the current QoS message headers we need to use the ones set on the current message
+        if (connector.isHonorQosHeaders())
+        {
+            Object priorityProp = eventMsg.getInboundProperty(JmsConstants.JMS_PRIORITY);
+            if (priorityProp != null)
+            {
+                return NumberUtils.toInt(priorityProp);
+            }
+        }
+        return eventMsg.getOutboundProperty(JmsConstants.PRIORITY_PROPERTY, Message.DEFAULT_PRIORITY);
+    }
+
+    private boolean isPersistent(MuleMessage eventMsg)
+    {
+        if (connector.isHonorQosHeaders())
+        {
+            Object deliveryModeProp = eventMsg.getInboundProperty(JmsConstants.JMS_DELIVERY_MODE);
+            if (deliveryModeProp != null)
+            {
+                return NumberUtils.toInt(deliveryModeProp) == DeliveryMode.PERSISTENT;
+            }
+        }
+        return eventMsg.getOutboundProperty(JmsConstants.PERSISTENT_DELIVERY_PROPERTY, connector.isPersistentDelivery());
+    }
+
     protected MuleMessage createMessageWithJmsMessagePayload(Message jmsMessage) throws Exception
     {
         MuleMessage muleMessage = createMuleMessage(jmsMessage);
@@ -352,7 +443,15 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
     @Override
     protected void doDispose()
     {
-        // template method
+        closeCachedProducers();
+    }
+
+    private void closeCachedProducers()
+    {
+        if (producerCache != null)
+        {
+            producerCache.clear();
+        }
     }
 
     /**
@@ -0,0 +1,153 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jms;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.Topic;
+
+/**
+ * Keeps the producers created on the cached session of a {@link JmsMessageDispatcher},
+ * keyed by destination, so that each message sent does not have to create and close a
+ * producer. The least recently used producer is closed once more than
+ * {@link JmsConnector#getMaxCachedProducers()} producers are cached.
+ * <p/>
+ * The producers are only valid as long as the connection they were created on: the cache
+ * is {@link #isStale() stale} once the connector has reported a connection exception or
+ * disconnected, and must then be cleared together with the session.
+ * <p/>
+ * Like the dispatcher that owns it, the cache is not thread safe.
+ */
+class JmsProducerCache
+{
+
+    private final JmsConnector connector;
+    private final Map<String, MessageProducer> producers;
+    private int connectionGeneration;
+
+    JmsProducerCache(JmsConnector connector)
+    {
+        this.connector = connector;
+        final int maxSize = connector.getMaxCachedProducers();
+        this.producers = new LinkedHashMap<String, MessageProducer>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MessageProducer> eldest)
+            {
+                if (size() > maxSize)
+                {
+                    JmsProducerCache.this.connector.closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.connectionGeneration = connector.getConnectionGeneration();
+    }
+
+    /**
+     * @return the cached producer for <code>destination</code>, creating it on
+     *         <code>session</code> if needed, or null if producers for this kind of
+     *         destination cannot be cached
+     */
+    MessageProducer getProducer(Session session, Destination destination, boolean topic) throws JMSException
+    {
+        String key = getKey(destination, topic);
+        if (key == null)
+        {
+            return null;
+        }
+
+        MessageProducer producer = producers.get(key);
+        if (producer != null)
+        {
+            connector.getProducerCacheStatistics().incHits();
+            return producer;
+        }
+
+        connector.getProducerCacheStatistics().incMisses();
+        producer = connector.getJmsSupport().createProducer(session, destination, topic);
+        producers.put(key, producer);
+        return producer;
+    }
+
+    /**
+     * @return true if the connection the producers were created on has been lost since
+     */
+    boolean isStale()
+    {
+        return connectionGeneration != connector.getConnectionGeneration();
+    }
+
+    /**
+     * Discards a producer that failed to send, which usually means the session is no
+     * longer usable either.
+     */
+    void remove(MessageProducer producer)
+    {
+        Iterator<MessageProducer> iterator = producers.values().iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next() == producer)
+            {
+                iterator.remove();
+                break;
+            }
+        }
+        connector.closeQuietly(producer);
+    }
+
+    /**
+     * Closes all the cached producers and binds the cache to the current connection.
+     */
+    void clear()
+    {
+        if (isStale() && !producers.isEmpty())
+        {
+            connector.getProducerCacheStatistics().incInvalidations();
+        }
+        for (MessageProducer producer : producers.values())
+        {
+            connector.closeQuietly(producer);
+        }
+        producers.clear();
+        connectionGeneration = connector.getConnectionGeneration();
+    }
+
+    int size()
+    {
+        return producers.size();
+    }
+
+    /**
+     * Destinations do not necessarily implement <code>equals()</code>, so producers are
+     * keyed by destination name instead.
+     */
+    private static String getKey(Destination destination, boolean topic) throws JMSException
+    {
+        if (topic && destination instanceof Topic)
+        {
+            return "topic://" + ((Topic) destination).getTopicName();
+        }
+        else if (!topic && destination instanceof Queue)
+        {
+            return "queue://" + ((Queue) destination).getQueueName();
+        }
+        return null;
+    }
+}
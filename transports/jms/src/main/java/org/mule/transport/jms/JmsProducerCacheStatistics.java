@@ -0,0 +1,62 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jms;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the hits and misses of the {@link JmsProducerCache}s of the dispatchers of a
+ * {@link JmsConnector}.
+ */
+public class JmsProducerCacheStatistics implements JmsProducerCacheStatisticsMBean
+{
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    void incHits()
+    {
+        hits.incrementAndGet();
+    }
+
+    void incMisses()
+    {
+        misses.incrementAndGet();
+    }
+
+    void incInvalidations()
+    {
+        invalidations.incrementAndGet();
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public long getInvalidations()
+    {
+        return invalidations.get();
+    }
+
+    public void clear()
+    {
+        hits.set(0);
+        misses.set(0);
+        invalidations.set(0);
+    }
+}
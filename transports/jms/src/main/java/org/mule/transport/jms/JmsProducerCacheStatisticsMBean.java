@@ -0,0 +1,36 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jms;
+
+/**
+ * JMX view of the {@link JmsProducerCacheStatistics} of a {@link JmsConnector}.
+ */
+public interface JmsProducerCacheStatisticsMBean
+{
+
+    /**
+     * @return the number of sends that reused a cached producer
+     */
+    long getHits();
+
+    /**
+     * @return the number of sends that had to create a producer
+     */
+    long getMisses();
+
+    /**
+     * @return the number of times the cached producers were discarded after the connection
+     *         was lost
+     */
+    long getInvalidations();
+
+    void clear();
+}
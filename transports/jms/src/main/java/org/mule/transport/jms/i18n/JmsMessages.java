@@ -103,4 +103,14 @@ public class JmsMessages extends MessageFactory
     {
         return factory.createMessage(BUNDLE_PATH, 17);
     }
+
+    public static Message batchSendFailed(int size, ImmutableEndpoint endpoint)
+    {
+        return factory.createMessage(BUNDLE_PATH, 18, size, endpoint.getEndpointURI());
+    }
+
+    public static Message connectionNotAvailable(String connectorName)
+    {
+        return factory.createMessage(BUNDLE_PATH, 19, connectorName);
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jms;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.MuleException;
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JmsBatchSenderTestCase extends AbstractMuleContextTestCase
+{
+
+    private JmsConnector connector;
+    private JmsSupport jmsSupport;
+    private ImmutableEndpoint endpoint;
+    private Session session;
+    private MessageProducer producer;
+    private ExecutorService executor = Executors.newCachedThreadPool();
+
+    @Before
+    public void createConnector() throws Exception
+    {
+        connector = new JmsConnector(muleContext);
+        jmsSupport = mock(JmsSupport.class);
+        connector.setJmsSupport(jmsSupport);
+        Connection connection = mock(Connection.class);
+        connector.setConnection(connection);
+        endpoint = mock(ImmutableEndpoint.class);
+
+        session = mock(Session.class);
+        producer = mock(MessageProducer.class);
+        Destination destination = mock(Destination.class);
+        when(jmsSupport.createSession(connection, false, true, Session.SESSION_TRANSACTED, false)).thenReturn(session);
+        when(jmsSupport.createDestination(session, endpoint)).thenReturn(destination);
+        when(jmsSupport.createProducer(session, destination, false)).thenReturn(producer);
+    }
+
+    @After
+    public void stopExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void commitsFullBatchOnce() throws Exception
+    {
+        connector.setOutboundBatchSize(3);
+        connector.setOutboundBatchInterval(60000);
+        JmsBatchSender sender = new JmsBatchSender(connector, endpoint, false);
+
+        for (Future<Void> result : sendConcurrently(sender, 3))
+        {
+            result.get(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        verify(jmsSupport, times(3)).send(eq(producer), any(Message.class), anyBoolean(), anyInt(), anyLong(),
+            eq(false), eq(endpoint));
+        verify(session, times(1)).commit();
+    }
+
+    @Test
+    public void commitsIncompleteBatchAfterInterval() throws Exception
+    {
+        connector.setOutboundBatchSize(10);
+        connector.setOutboundBatchInterval(20);
+        JmsBatchSender sender = new JmsBatchSender(connector, endpoint, false);
+
+        sender.send(mock(Message.class), true, 4, 0);
+
+        verify(session, times(1)).commit();
+    }
+
+    @Test
+    public void failsEveryMessageOfRolledBackBatch() throws Exception
+    {
+        connector.setOutboundBatchSize(2);
+        connector.setOutboundBatchInterval(60000);
+        doThrow(new JMSException("broker unavailable")).when(session).commit();
+        JmsBatchSender sender = new JmsBatchSender(connector, endpoint, false);
+
+        for (Future<Void> result : sendConcurrently(sender, 2))
+        {
+            try
+            {
+                result.get(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+                fail("the batch was not committed");
+            }
+            catch (ExecutionException e)
+            {
+                if (!(e.getCause() instanceof MuleException))
+                {
+                    throw e;
+                }
+            }
+        }
+
+        verify(session).rollback();
+        verify(session).close();
+    }
+
+    private List<Future<Void>> sendConcurrently(final JmsBatchSender sender, int count)
+    {
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+        for (int i = 0; i < count; i++)
+        {
+            results.add(executor.submit(new Callable<Void>()
+            {
+                public Void call() throws Exception
+                {
+                    sender.send(mock(Message.class), true, 4, 0);
+                    return null;
+                }
+            }));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.jms;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JmsProducerCacheTestCase extends AbstractMuleContextTestCase
+{
+
+    private JmsConnector connector;
+    private JmsSupport jmsSupport;
+    private Session session;
+
+    @Before
+    public void createConnector()
+    {
+        connector = new JmsConnector(muleContext);
+        jmsSupport = mock(JmsSupport.class);
+        connector.setJmsSupport(jmsSupport);
+        session = mock(Session.class);
+    }
+
+    @Test
+    public void reusesProducerOfDestination() throws Exception
+    {
+        Queue queue = queue("a");
+        MessageProducer producer = producer(queue);
+        JmsProducerCache cache = new JmsProducerCache(connector);
+
+        assertThat(cache.getProducer(session, queue, false), is(sameInstance(producer)));
+        assertThat(cache.getProducer(session, queue("a"), false), is(sameInstance(producer)));
+
+        verify(jmsSupport, times(1)).createProducer(session, queue, false);
+        assertThat(connector.getProducerCacheStatistics().getMisses(), is(1L));
+        assertThat(connector.getProducerCacheStatistics().getHits(), is(1L));
+    }
+
+    @Test
+    public void closesLeastRecentlyUsedProducer() throws Exception
+    {
+        connector.setMaxCachedProducers(2);
+        Queue a = queue("a");
+        Queue b = queue("b");
+        Queue c = queue("c");
+        MessageProducer producerA = producer(a);
+        MessageProducer producerB = producer(b);
+        producer(c);
+        JmsProducerCache cache = new JmsProducerCache(connector);
+
+        cache.getProducer(session, a, false);
+        cache.getProducer(session, b, false);
+        cache.getProducer(session, a, false);
+        cache.getProducer(session, c, false);
+
+        assertThat(cache.size(), is(2));
+        verify(producerB).close();
+        verify(producerA, never()).close();
+    }
+
+    @Test
+    public void isStaleOnceConnectionIsClosed() throws Exception
+    {
+        Queue queue = queue("a");
+        MessageProducer producer = producer(queue);
+        JmsProducerCache cache = new JmsProducerCache(connector);
+        cache.getProducer(session, queue, false);
+        assertThat(cache.isStale(), is(false));
+
+        connector.doDisconnect();
+
+        assertThat(cache.isStale(), is(true));
+        cache.clear();
+        assertThat(cache.isStale(), is(false));
+        assertThat(cache.size(), is(0));
+        verify(producer).close();
+        assertThat(connector.getProducerCacheStatistics().getInvalidations(), is(1L));
+    }
+
+    @Test
+    public void doesNotCacheProducersOfUnnamedDestinations() throws Exception
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector);
+        assertThat(cache.getProducer(session, mock(Destination.class), false), is(nullValue()));
+    }
+
+    private Queue queue(String name) throws JMSException
+    {
+        Queue queue = mock(Queue.class);
+        when(queue.getQueueName()).thenReturn(name);
+        return queue;
+    }
+
+    private MessageProducer producer(Queue queue) throws JMSException
+    {
+        MessageProducer producer = mock(MessageProducer.class);
+        when(jmsSupport.createProducer(session, queue, false)).thenReturn(producer);
+        return producer;
+    }
+}
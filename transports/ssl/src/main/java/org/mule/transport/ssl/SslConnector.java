@@ -20,6 +20,7 @@ import org.mule.api.security.TlsProtocolHandler;
 import org.mule.api.security.provider.SecurityProviderFactory;
 import org.mule.api.security.tls.TlsConfiguration;
 import org.mule.transport.tcp.TcpConnector;
+import org.mule.transport.tcp.i18n.TcpMessages;
 import org.mule.transport.tcp.protocols.DirectProtocol;
 
 import java.io.IOException;
@@ -66,6 +67,11 @@ public class SslConnector extends TcpConnector
     protected void doInitialise() throws InitialisationException
     {
         super.doInitialise();
+        if (isNonBlockingReceiver())
+        {
+            // the server socket would not be an SSL server socket
+            throw new InitialisationException(TcpMessages.nonBlockingReceiverNotSupported(getProtocol()), this);
+        }
         // the original logic here was slightly different to other uses of the TlsSupport code -
         // it appeared to be equivalent to switching anon by whether or not a keyStore was defined
         // (which seems to make sense), so that is used here.
@@ -0,0 +1,28 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.tcp;
+
+/**
+ * A {@link TcpProtocol} that can also read its messages from the bytes received by a
+ * non-blocking channel, so that a {@link TcpConnector} with a non-blocking receiver does
+ * not need a thread per connection.
+ */
+public interface NonBlockingTcpProtocol extends TcpProtocol
+{
+
+    /**
+     * Creates the decoder for the messages of a single connection. Decoders may keep state
+     * between calls, so they are never shared between connections.
+     *
+     * @return a new decoder
+     */
+    TcpFrameDecoder createFrameDecoder();
+}
@@ -0,0 +1,530 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.transaction.Transaction;
+import org.mule.api.transaction.TransactionException;
+import org.mule.transport.AbstractReceiverWorker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.resource.spi.work.WorkException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Reads the connections accepted by a non-blocking {@link TcpMessageReceiver} and splits
+ * what they receive into messages with the {@link TcpFrameDecoder} of every connection.
+ * <p/>
+ * The messages decoded from a connection are processed by a worker scheduled on the work
+ * manager of the receiver, so a thread is only used while a connection has messages to
+ * process. The connection is not read while its messages are processed: messages are
+ * processed in the order they were sent, and a client sending faster than its messages
+ * are processed is held back by TCP flow control. Responses are written by the selector
+ * thread once the worker is done. Connections idle for longer than the idle timeout are
+ * closed, and so are connections sending a message that does not fit in the maximum buffer
+ * size.
+ */
+class TcpChannelSelector implements Runnable
+{
+
+    static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private static final long SELECT_TIMEOUT = 1000;
+
+    /**
+     * Bytes read from a connection before moving on to the other ready connections.
+     */
+    private static final int MAX_READ_SIZE = 64 * 1024;
+
+    private static Log logger = LogFactory.getLog(TcpChannelSelector.class);
+
+    private final TcpMessageReceiver receiver;
+    private final NonBlockingTcpProtocol protocol;
+    private final long idleTimeout;
+    private final int maxBufferSize;
+    private final Selector selector;
+    private final Queue<Connection> registrations = new ConcurrentLinkedQueue<Connection>();
+    private final Queue<Connection> resumptions = new ConcurrentLinkedQueue<Connection>();
+    private volatile boolean running = true;
+    private long lastIdleCheck = System.currentTimeMillis();
+
+    /**
+     * @param maxBufferSize the maximum number of bytes buffered for a connection while waiting
+     *            for the end of a message, zero or less for no limit
+     */
+    TcpChannelSelector(TcpMessageReceiver receiver, NonBlockingTcpProtocol protocol, long idleTimeout, int maxBufferSize) throws IOException
+    {
+        this.receiver = receiver;
+        this.protocol = protocol;
+        this.idleTimeout = idleTimeout;
+        this.maxBufferSize = maxBufferSize;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * @param channel a connected channel in non-blocking mode
+     */
+    void register(SocketChannel channel)
+    {
+        registrations.add(new Connection(channel, protocol.createFrameDecoder()));
+        selector.wakeup();
+    }
+
+    public void run()
+    {
+        while (running)
+        {
+            try
+            {
+                selector.select(SELECT_TIMEOUT);
+                registerPendingConnections();
+                resumeConnections();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isValid() && key.isWritable())
+                    {
+                        connection.write();
+                    }
+                    if (key.isValid() && key.isReadable())
+                    {
+                        connection.read();
+                    }
+                }
+                closeIdleConnections();
+            }
+            catch (Exception e)
+            {
+                if (running)
+                {
+                    logger.warn("Failed to select TCP connections: " + e.getMessage(), e);
+                }
+            }
+        }
+        closeAll();
+    }
+
+    private void registerPendingConnections()
+    {
+        Connection connection;
+        while ((connection = registrations.poll()) != null)
+        {
+            try
+            {
+                connection.register();
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to register TCP connection: " + e.getMessage());
+                connection.close();
+            }
+        }
+    }
+
+    private void resumeConnections()
+    {
+        Connection connection;
+        while ((connection = resumptions.poll()) != null)
+        {
+            connection.resume();
+        }
+    }
+
+    private void closeIdleConnections()
+    {
+        long now = System.currentTimeMillis();
+        if (idleTimeout <= 0 || now - lastIdleCheck < SELECT_TIMEOUT)
+        {
+            return;
+        }
+        lastIdleCheck = now;
+        for (SelectionKey key : selector.keys())
+        {
+            Connection connection = (Connection) key.attachment();
+            if (key.isValid() && !connection.processing && now - connection.lastActivity > idleTimeout)
+            {
+                logger.debug("Closing idle TCP connection");
+                connection.close();
+            }
+        }
+    }
+
+    void stop()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void closeAll()
+    {
+        for (SelectionKey key : selector.keys())
+        {
+            ((Connection) key.attachment()).close();
+        }
+        Connection connection;
+        while ((connection = registrations.poll()) != null)
+        {
+            connection.close();
+        }
+        try
+        {
+            selector.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("(Ignored) Error closing the selector: " + e.getMessage());
+        }
+    }
+
+    private void handleException(Exception e)
+    {
+        receiver.getConnector().getMuleContext().getExceptionListener().handleException(e);
+    }
+
+    /**
+     * The state of an accepted connection. Only the selector thread reads from and writes to
+     * the channel; the worker processing its messages only adds responses to the output.
+     */
+    private class Connection
+    {
+
+        private final SocketChannel channel;
+        private final TcpFrameDecoder decoder;
+        private final String remoteAddress;
+        private final Queue<ByteBuffer> output = new ConcurrentLinkedQueue<ByteBuffer>();
+        private SelectionKey key;
+        private ByteBuffer input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private boolean endOfStream;
+        private boolean processing;
+        private volatile boolean closeAfterOutput;
+        private long lastActivity = System.currentTimeMillis();
+
+        Connection(SocketChannel channel, TcpFrameDecoder decoder)
+        {
+            this.channel = channel;
+            this.decoder = decoder;
+            SocketAddress address = channel.socket().getRemoteSocketAddress();
+            this.remoteAddress = address == null ? null : address.toString();
+        }
+
+        void register() throws IOException
+        {
+            key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        void read()
+        {
+            int total = 0;
+            int count = 0;
+            try
+            {
+                while (total < MAX_READ_SIZE)
+                {
+                    if (!input.hasRemaining())
+                    {
+                        if (maxBufferSize > 0 && input.capacity() >= maxBufferSize)
+                        {
+                            // decode what has been read before deciding whether the limit
+                            // is exceeded
+                            break;
+                        }
+                        ByteBuffer larger = ByteBuffer.allocate(growCapacity(input.capacity()));
+                        input.flip();
+                        larger.put(input);
+                        input = larger;
+                    }
+                    count = channel.read(input);
+                    if (count <= 0)
+                    {
+                        break;
+                    }
+                    total += count;
+                }
+            }
+            catch (IOException e)
+            {
+                logger.debug("Closing TCP connection after read failure: " + e.getMessage());
+                close();
+                return;
+            }
+
+            if (total > 0)
+            {
+                lastActivity = System.currentTimeMillis();
+            }
+            endOfStream = count < 0;
+            decode(count <= 0);
+        }
+
+        /**
+         * @param drained true if all the bytes available on the channel have been read
+         */
+        private void decode(boolean drained)
+        {
+            List<Object> messages = new ArrayList<Object>();
+            input.flip();
+            try
+            {
+                Object message;
+                while ((message = decoder.decode(input, drained)) != null)
+                {
+                    messages.add(message);
+                }
+                if (endOfStream && (message = decoder.decodeLast(input)) != null)
+                {
+                    messages.add(message);
+                }
+            }
+            catch (Exception e)
+            {
+                handleException(e);
+                close();
+                return;
+            }
+            finally
+            {
+                input.compact();
+            }
+
+            if (maxBufferSize > 0 && !input.hasRemaining() && input.capacity() >= maxBufferSize)
+            {
+                // the incomplete message alone fills the buffer
+                handleException(new IOException("Message from " + remoteAddress + " exceeds the maximum buffer size of "
+                                                + maxBufferSize + " bytes"));
+                close();
+                return;
+            }
+
+            if (input.position() == 0 && input.capacity() > INITIAL_BUFFER_SIZE)
+            {
+                // keep the buffers of idle connections small
+                input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+            }
+
+            if (!messages.isEmpty())
+            {
+                process(messages);
+            }
+            else if (endOfStream)
+            {
+                close();
+            }
+        }
+
+        private int growCapacity(int capacity)
+        {
+            int larger = capacity * 2;
+            return maxBufferSize > 0 ? Math.min(larger, maxBufferSize) : larger;
+        }
+
+        private void process(List<Object> messages)
+        {
+            processing = true;
+            key.interestOps(0);
+            try
+            {
+                receiver.scheduleFrameWork(new FrameWorker(this, messages));
+            }
+            catch (WorkException e)
+            {
+                handleException(e);
+                close();
+            }
+        }
+
+        /**
+         * Queues a response. Called by the worker while the connection is not read.
+         */
+        void send(ResponseBuffer response)
+        {
+            output.add(response.toByteBuffer());
+            if (response.closed)
+            {
+                closeAfterOutput = true;
+            }
+        }
+
+        /**
+         * Called by the worker once it has processed the messages of the connection.
+         */
+        void processed()
+        {
+            resumptions.add(this);
+            selector.wakeup();
+        }
+
+        void resume()
+        {
+            processing = false;
+            lastActivity = System.currentTimeMillis();
+            if (!key.isValid())
+            {
+                close();
+                return;
+            }
+            write();
+        }
+
+        /**
+         * Writes the pending responses, and starts reading again once they have all been
+         * written.
+         */
+        void write()
+        {
+            try
+            {
+                ByteBuffer buffer;
+                while ((buffer = output.peek()) != null)
+                {
+                    if (channel.write(buffer) > 0)
+                    {
+                        lastActivity = System.currentTimeMillis();
+                    }
+                    if (buffer.hasRemaining())
+                    {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    output.poll();
+                }
+            }
+            catch (IOException e)
+            {
+                logger.debug("Closing TCP connection after write failure: " + e.getMessage());
+                close();
+                return;
+            }
+
+            if (closeAfterOutput || endOfStream)
+            {
+                close();
+            }
+            else
+            {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void close()
+        {
+            if (key != null)
+            {
+                key.cancel();
+            }
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                logger.debug("(Ignored) Error closing TCP connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Processes the messages decoded from a connection like the blocking
+     * {@link TcpMessageReceiver.TcpWorker} does, but hands the responses over to the
+     * selector instead of writing them to the socket.
+     */
+    private class FrameWorker extends AbstractReceiverWorker
+    {
+
+        private final Connection connection;
+
+        FrameWorker(Connection connection, List<Object> messages)
+        {
+            super(messages, TcpChannelSelector.this.receiver);
+            this.connection = connection;
+        }
+
+        @Override
+        protected void bindTransaction(Transaction tx) throws TransactionException
+        {
+            //nothing to do
+        }
+
+        @Override
+        protected void preRouteMuleMessage(MuleMessage message) throws Exception
+        {
+            super.preRouteMuleMessage(message);
+
+            if (connection.remoteAddress != null)
+            {
+                message.setOutboundProperty(MuleProperties.MULE_REMOTE_CLIENT_ADDRESS, connection.remoteAddress);
+            }
+        }
+
+        @Override
+        protected void handleResults(List messages) throws Exception
+        {
+            //should send back only if remote synch is set or no outbound endpoints
+            if (endpoint.getExchangePattern().hasResponse())
+            {
+                for (Object message : messages)
+                {
+                    ResponseBuffer response = new ResponseBuffer();
+                    protocol.write(response, message);
+                    connection.send(response);
+                }
+            }
+        }
+
+        /**
+         * Called once the messages have been processed, even if processing failed, so the
+         * connection is always read again.
+         */
+        @Override
+        public void release()
+        {
+            connection.processed();
+        }
+    }
+
+    /**
+     * Collects a response written by the protocol. Protocols close the stream after
+     * streamed payloads, in which case the connection is closed once the response has been
+     * written, as the blocking receiver does.
+     */
+    private static class ResponseBuffer extends ByteArrayOutputStream
+    {
+
+        private boolean closed;
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+
+        ByteBuffer toByteBuffer()
+        {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -54,6 +54,7 @@ public class TcpConnector extends AbstractConnector
     public static final int DEFAULT_BUFFER_SIZE = INT_VALUE_NOT_SET;
     public static final int DEFAULT_BACKLOG = INT_VALUE_NOT_SET;
     public static final int DEFAULT_WAIT_TIMEOUT = INT_VALUE_NOT_SET;
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 16 * 1024 * 1024;
 
     // to clarify arg to configureSocket
     public static final boolean SERVER = false;
@@ -90,6 +91,22 @@ public class TcpConnector extends AbstractConnector
      */
     private boolean keepAlive = false;
 
+    /**
+     * If set, accepted connections are read without blocking by a small set of selector
+     * threads, and threads are only used while messages are processed.
+     */
+    private boolean nonBlockingReceiver = false;
+
+    private int selectorThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of bytes a non-blocking receiver buffers for a connection while
+     * waiting for the end of a message.
+     */
+    private int maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+
+    private final ServerSocketChannelFactory serverSocketChannelFactory = new ServerSocketChannelFactory();
+
     //TODO MULE-2300 remove once fixed
     private TcpSocketKey lastSocketKey;
 
@@ -470,6 +487,10 @@ public class TcpConnector extends AbstractConnector
 
     protected ServerSocket getServerSocket(URI uri) throws IOException
     {
+        if (nonBlockingReceiver)
+        {
+            return serverSocketChannelFactory.createServerSocket(uri, getReceiveBacklog(), isReuseAddress());
+        }
         return getServerSocketFactory().createServerSocket(uri, getReceiveBacklog(), isReuseAddress());
     }
 
@@ -524,6 +545,56 @@ public class TcpConnector extends AbstractConnector
         this.keepAliveTimeout = keepAliveTimeout;
     }
     
+    /**
+     * @return true if accepted connections are read without blocking, so that a thread is
+     *         only used for a connection while one of its messages is processed. The
+     *         server socket is then created from a
+     *         {@link java.nio.channels.ServerSocketChannel}.
+     */
+    public boolean isNonBlockingReceiver()
+    {
+        return nonBlockingReceiver;
+    }
+
+    public void setNonBlockingReceiver(boolean nonBlockingReceiver)
+    {
+        this.nonBlockingReceiver = nonBlockingReceiver;
+    }
+
+    /**
+     * @return the number of threads reading the connections of every listening port when
+     *         {@link #isNonBlockingReceiver()} is true
+     */
+    public int getSelectorThreads()
+    {
+        return selectorThreads;
+    }
+
+    public void setSelectorThreads(int selectorThreads)
+    {
+        if (selectorThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    CoreMessages.propertyHasInvalidValue("selectorThreads", selectorThreads).toString());
+        }
+        this.selectorThreads = selectorThreads;
+    }
+
+    /**
+     * @return the maximum number of bytes buffered for a connection while waiting for the end
+     *         of a message when {@link #isNonBlockingReceiver()} is true. Connections sending
+     *         larger messages are closed. Zero or less means no limit.
+     */
+    public int getMaxBufferSize()
+    {
+        return maxBufferSize;
+    }
+
+    public void setMaxBufferSize(int maxBufferSize)
+    {
+        this.maxBufferSize = maxBufferSize;
+    }
+
     @Override
     public void setDispatcherFactory(MessageDispatcherFactory dispatcherFactory)
     {
@@ -0,0 +1,45 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.tcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Splits the bytes received on a connection into messages as they arrive, instead of
+ * blocking on an input stream like {@link TcpProtocol#read(java.io.InputStream)}.
+ */
+public interface TcpFrameDecoder
+{
+
+    /**
+     * Reads the next message from the bytes received so far.
+     *
+     * @param buffer buffer ready to be read, holding the bytes received and not yet
+     *            consumed. The bytes of the returned message are consumed from it.
+     * @param drained true if no more bytes are available (momentarily) on the connection,
+     *            which is the point where protocols that read while data are available
+     *            end their messages
+     * @return the message, or null if more bytes are needed
+     * @throws IOException if the bytes do not follow the protocol
+     */
+    Object decode(ByteBuffer buffer, boolean drained) throws IOException;
+
+    /**
+     * Reads the last message once the connection has been closed by the other end.
+     * {@link #decode(ByteBuffer, boolean)} has already returned every complete message.
+     *
+     * @param buffer buffer ready to be read, holding the bytes not yet consumed
+     * @return the last message, or null if there is none
+     * @throws IOException if the connection was closed in the middle of a message
+     */
+    Object decodeLast(ByteBuffer buffer) throws IOException;
+}
@@ -27,6 +27,8 @@ import org.mule.transport.AbstractMessageReceiver;
 import org.mule.transport.AbstractReceiverResourceWorker;
 import org.mule.transport.ConnectException;
 import org.mule.transport.tcp.i18n.TcpMessages;
+import org.mule.util.concurrent.NamedThreadFactory;
+import org.mule.util.concurrent.ThreadNameHelper;
 import org.mule.util.monitor.Expirable;
 
 import java.io.BufferedInputStream;
@@ -39,10 +41,14 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.nio.channels.SocketChannel;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.resource.spi.work.Work;
 import javax.resource.spi.work.WorkException;
@@ -51,17 +57,33 @@ import javax.resource.spi.work.WorkManager;
 /**
  * <code>TcpMessageReceiver</code> acts like a TCP server to receive socket
  * requests.
+ * <p/>
+ * If the connector has a non-blocking receiver, accepted connections are not given a
+ * {@link TcpWorker} each but are read by a small set of {@link TcpChannelSelector}s, and
+ * the protocol of the connector must be a {@link NonBlockingTcpProtocol}.
  */
 public class TcpMessageReceiver extends AbstractMessageReceiver implements Work
 {
     private ServerSocket serverSocket = null;
 
+    private volatile TcpChannelSelector[] selectors;
+
+    private ExecutorService selectorExecutor;
+
+    private final AtomicInteger nextSelector = new AtomicInteger();
+
     protected final AtomicBoolean disposing = new AtomicBoolean(false);
     
     public TcpMessageReceiver(Connector connector, FlowConstruct flowConstruct, InboundEndpoint endpoint)
             throws CreateException
     {
         super(connector, flowConstruct, endpoint);
+
+        TcpConnector tcpConnector = (TcpConnector) connector;
+        if (tcpConnector.isNonBlockingReceiver() && !(tcpConnector.getTcpProtocol() instanceof NonBlockingTcpProtocol))
+        {
+            throw new CreateException(TcpMessages.protocolCannotReadWithoutBlocking(tcpConnector.getTcpProtocol().getClass()), this);
+        }
     }
 
     @Override
@@ -74,6 +96,10 @@ public class TcpMessageReceiver extends AbstractMessageReceiver implements Work
         try
         {
             serverSocket = ((TcpConnector) connector).getServerSocket(uri);
+            if (((TcpConnector) connector).isNonBlockingReceiver())
+            {
+                startSelectors();
+            }
         }
         catch (Exception e)
         {
@@ -95,6 +121,7 @@ public class TcpMessageReceiver extends AbstractMessageReceiver implements Work
     {
         // this will cause the server thread to quit
         disposing.set(true);
+        stopSelectors();
 
         try
         {
@@ -125,6 +152,55 @@ public class TcpMessageReceiver extends AbstractMessageReceiver implements Work
         // nothing to do
     }
 
+    private void startSelectors() throws IOException
+    {
+        TcpConnector tcpConnector = (TcpConnector) connector;
+        NonBlockingTcpProtocol protocol = (NonBlockingTcpProtocol) tcpConnector.getTcpProtocol();
+        long idleTimeout = getIdleTimeout(tcpConnector);
+        selectors = new TcpChannelSelector[tcpConnector.getSelectorThreads()];
+        String threadNamePrefix = String.format("%s%s.selector.%d", ThreadNameHelper.getPrefix(connector.getMuleContext()),
+                                                connector.getProtocol(), serverSocket.getLocalPort());
+        selectorExecutor = Executors.newFixedThreadPool(selectors.length, new NamedThreadFactory(threadNamePrefix));
+        for (int i = 0; i < selectors.length; i++)
+        {
+            selectors[i] = new TcpChannelSelector(this, protocol, idleTimeout, tcpConnector.getMaxBufferSize());
+            selectorExecutor.execute(selectors[i]);
+        }
+    }
+
+    /**
+     * Idle connections are closed after the keep alive timeout or, if not set, the server
+     * socket timeout, as blocking reads would time out.
+     */
+    private static long getIdleTimeout(TcpConnector tcpConnector)
+    {
+        if (tcpConnector.getKeepAliveTimeout() > 0)
+        {
+            return tcpConnector.getKeepAliveTimeout();
+        }
+        if (tcpConnector.getServerSoTimeout() != Connector.INT_VALUE_NOT_SET)
+        {
+            return tcpConnector.getServerSoTimeout();
+        }
+        return 0;
+    }
+
+    private void stopSelectors()
+    {
+        if (selectors != null)
+        {
+            for (TcpChannelSelector selector : selectors)
+            {
+                if (selector != null)
+                {
+                    selector.stop();
+                }
+            }
+            selectorExecutor.shutdown();
+            selectors = null;
+        }
+    }
+
     /**
      * Obtain the serverSocket
      * @return the server socket for this server
@@ -161,8 +237,16 @@ public class TcpMessageReceiver extends AbstractMessageReceiver implements Work
 
                             if (socket != null)
                             {
-                                Work work = createWork(socket);
-                                getWorkManager().scheduleWork(work, WorkManager.INDEFINITE, null, connector);
+                                TcpChannelSelector[] currentSelectors = selectors;
+                                if (currentSelectors != null)
+                                {
+                                    register(socket, currentSelectors);
+                                }
+                                else
+                                {
+                                    Work work = createWork(socket);
+                                    getWorkManager().scheduleWork(work, WorkManager.INDEFINITE, null, connector);
+                                }
                             }
                         }
 
@@ -185,6 +269,30 @@ public class TcpMessageReceiver extends AbstractMessageReceiver implements Work
         // template method
     }
 
+    private void register(Socket socket, TcpChannelSelector[] currentSelectors) throws IOException
+    {
+        SocketChannel channel = socket.getChannel();
+        try
+        {
+            ((TcpConnector) connector).configureSocket(TcpConnector.SERVER, socket);
+            channel.configureBlocking(false);
+            currentSelectors[(nextSelector.getAndIncrement() & Integer.MAX_VALUE) % currentSelectors.length].register(channel);
+        }
+        catch (IOException e)
+        {
+            logger.debug("Failed to set up TCP connection: " + e.getMessage());
+            channel.close();
+        }
+    }
+
+    /**
+     * Schedules the processing of the messages read by a {@link TcpChannelSelector}.
+     */
+    void scheduleFrameWork(Work work) throws WorkException
+    {
+        getWorkManager().scheduleWork(work, WorkManager.INDEFINITE, null, connector);
+    }
+
     @Override
     protected void doDispose()
     {
@@ -52,6 +52,16 @@ public class TcpMessages extends MessageFactory
     {
         return factory.createMessage(BUNDLE_PATH, 6, TcpPropertyHelper.MULE_TCP_BIND_LOCALHOST_TO_ALL_LOCAL_INTERFACES_PROPERTY);
     }
+
+    public static Message protocolCannotReadWithoutBlocking(Class c)
+    {
+        return factory.createMessage(BUNDLE_PATH, 7, c.getName());
+    }
+
+    public static Message nonBlockingReceiverNotSupported(String protocol)
+    {
+        return factory.createMessage(BUNDLE_PATH, 8, protocol);
+    }
 }
 
 
@@ -10,8 +10,12 @@
 
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.TcpFrameDecoder;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.commons.io.input.ClassLoaderObjectInputStream;
 import org.apache.log4j.Logger;
@@ -58,6 +62,43 @@ public class CustomClassLoadingLengthProtocol extends LengthProtocol
         }
     }
 
+    /**
+     * Objects read without blocking are deserialized from the bytes of their message.
+     */
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new LengthFrameDecoder(getMaxMessageLength())
+        {
+            @Override
+            public Object decode(ByteBuffer buffer, boolean drained) throws IOException
+            {
+                byte[] bytes = (byte[]) super.decode(buffer, drained);
+                return bytes == null ? null : readObject(new ByteArrayInputStream(bytes));
+            }
+        };
+    }
+
+    private Object readObject(InputStream is) throws IOException
+    {
+        ClassLoaderObjectInputStream classLoaderIS = new ClassLoaderObjectInputStream(this.getClassLoader(), is);
+        try
+        {
+            return classLoaderIS.readObject();
+        }
+        catch (ClassNotFoundException e)
+        {
+            logger.warn(e.getMessage());
+            IOException iox = new IOException();
+            iox.initCause(e);
+            throw iox;
+        }
+        finally
+        {
+            classLoaderIS.close();
+        }
+    }
+
     public ClassLoader getClassLoader()
     {
         if (this.classLoader == null)
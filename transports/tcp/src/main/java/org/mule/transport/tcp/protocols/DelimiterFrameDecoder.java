@@ -0,0 +1,88 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import org.mule.transport.tcp.TcpFrameDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes messages that start with a delimiter, such as the xml declaration that starts
+ * the documents of {@link XmlMessageProtocol}. A message ends where the delimiter of the
+ * next one is found and, depending on the protocol, when no more bytes are available or
+ * when the connection is closed.
+ */
+public class DelimiterFrameDecoder implements TcpFrameDecoder
+{
+
+    private final byte[] delimiter;
+    private final boolean untilEndOfStream;
+
+    /**
+     * Bytes after the start of the buffer that have already been searched for the
+     * delimiter.
+     */
+    private int searched;
+
+    /**
+     * @param delimiter the bytes every message starts with
+     * @param untilEndOfStream true if a message without a following delimiter only ends
+     *            with the connection rather than when no more bytes are available
+     */
+    public DelimiterFrameDecoder(byte[] delimiter, boolean untilEndOfStream)
+    {
+        this.delimiter = delimiter.clone();
+        this.untilEndOfStream = untilEndOfStream;
+    }
+
+    public Object decode(ByteBuffer buffer, boolean drained) throws IOException
+    {
+        int start = buffer.position();
+        // the search starts at the second byte, as the message itself starts with the delimiter
+        int index = indexOf(buffer, start + Math.max(searched, 1));
+        if (index >= 0)
+        {
+            searched = 0;
+            return DirectFrameDecoder.get(buffer, index - start);
+        }
+        if (drained && !untilEndOfStream && buffer.hasRemaining())
+        {
+            searched = 0;
+            return DirectFrameDecoder.get(buffer, buffer.remaining());
+        }
+        searched = Math.max(buffer.remaining() - delimiter.length + 1, 0);
+        return null;
+    }
+
+    public Object decodeLast(ByteBuffer buffer) throws IOException
+    {
+        searched = 0;
+        return buffer.hasRemaining() ? DirectFrameDecoder.get(buffer, buffer.remaining()) : null;
+    }
+
+    private int indexOf(ByteBuffer buffer, int from)
+    {
+        int last = buffer.limit() - delimiter.length;
+        for (int i = from; i <= last; i++)
+        {
+            int j = 0;
+            while (j < delimiter.length && buffer.get(i + j) == delimiter[j])
+            {
+                j++;
+            }
+            if (j == delimiter.length)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import org.mule.transport.tcp.TcpFrameDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the messages of {@link DirectProtocol}, which end when no more bytes are
+ * available, and of {@link EOFProtocol}, which end with the connection.
+ */
+public class DirectFrameDecoder implements TcpFrameDecoder
+{
+
+    private final boolean untilEndOfStream;
+
+    /**
+     * @param untilEndOfStream true if the message ends with the connection rather than
+     *            when no more bytes are available
+     */
+    public DirectFrameDecoder(boolean untilEndOfStream)
+    {
+        this.untilEndOfStream = untilEndOfStream;
+    }
+
+    public Object decode(ByteBuffer buffer, boolean drained) throws IOException
+    {
+        if (drained && !untilEndOfStream && buffer.hasRemaining())
+        {
+            return get(buffer, buffer.remaining());
+        }
+        return null;
+    }
+
+    public Object decodeLast(ByteBuffer buffer) throws IOException
+    {
+        return buffer.hasRemaining() ? get(buffer, buffer.remaining()) : null;
+    }
+
+    static byte[] get(ByteBuffer buffer, int length)
+    {
+        byte[] message = new byte[length];
+        buffer.get(message);
+        return message;
+    }
+}
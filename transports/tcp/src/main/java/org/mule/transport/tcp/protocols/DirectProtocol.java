@@ -10,6 +10,9 @@
 
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.NonBlockingTcpProtocol;
+import org.mule.transport.tcp.TcpFrameDecoder;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
@@ -28,7 +31,7 @@ import org.apache.commons.logging.LogFactory;
  *
  * <p>Writing simply writes the data to the socket.</p>
  */
-public class DirectProtocol extends AbstractByteProtocol
+public class DirectProtocol extends AbstractByteProtocol implements NonBlockingTcpProtocol
 {
 
     protected static final int UNLIMITED = -1;
@@ -89,6 +92,11 @@ public class DirectProtocol extends AbstractByteProtocol
         return nullEmptyArray(baos.toByteArray());
     }
 
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new DirectFrameDecoder(false);
+    }
+
     protected int remaining(int limit, int remain, int len)
     {
         if (UNLIMITED == limit)
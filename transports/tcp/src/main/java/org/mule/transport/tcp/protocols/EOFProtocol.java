@@ -10,6 +10,8 @@
 
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.TcpFrameDecoder;
+
 /**
  * The EOFProtocol class is an application level tcp protocol that does nothing.
  * Reading is terminated by the stream being closed by the client.
@@ -30,4 +32,10 @@ public class EOFProtocol extends DirectProtocol
         return true;
     }
 
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new DirectFrameDecoder(true);
+    }
+
 }
@@ -0,0 +1,70 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import org.mule.transport.tcp.TcpFrameDecoder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the messages of {@link LengthProtocol}: an integer with the length of the
+ * payload followed by the payload itself.
+ */
+public class LengthFrameDecoder implements TcpFrameDecoder
+{
+
+    private static final int SIZE_INT = 4;
+
+    private final int maxMessageLength;
+
+    /**
+     * @param maxMessageLength the maximum length of a payload, or
+     *            {@link LengthProtocol#NO_MAX_LENGTH}
+     */
+    public LengthFrameDecoder(int maxMessageLength)
+    {
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    public Object decode(ByteBuffer buffer, boolean drained) throws IOException
+    {
+        if (buffer.remaining() < SIZE_INT)
+        {
+            return null;
+        }
+
+        // the length is checked as soon as it arrives, before buffering the payload
+        int length = buffer.getInt(buffer.position());
+        if (length < 0 || (maxMessageLength > 0 && length > maxMessageLength))
+        {
+            throw new IOException("Length " + length + " exceeds limit: " + maxMessageLength);
+        }
+        if (buffer.remaining() - SIZE_INT < length)
+        {
+            return null;
+        }
+
+        buffer.position(buffer.position() + SIZE_INT);
+        byte[] message = new byte[length];
+        buffer.get(message);
+        return message;
+    }
+
+    public Object decodeLast(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.hasRemaining())
+        {
+            throw new EOFException("Connection closed after " + buffer.remaining() + " bytes of an incomplete message");
+        }
+        return null;
+    }
+}
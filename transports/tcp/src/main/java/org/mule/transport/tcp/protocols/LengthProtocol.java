@@ -10,6 +10,8 @@
 
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.TcpFrameDecoder;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -86,6 +88,12 @@ public class LengthProtocol extends DirectProtocol
         return buffer;
     }
 
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new LengthFrameDecoder(getMaxMessageLength());
+    }
+
     @Override
     protected void writeByteArray(OutputStream os, byte[] data) throws IOException
     {
@@ -0,0 +1,42 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import org.mule.transport.tcp.TcpFrameDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the Mule messages serialized in the messages of another decoder, for the
+ * non-blocking variants of the MuleMessage protocols.
+ */
+class MuleMessageFrameDecoder implements TcpFrameDecoder
+{
+
+    private final TcpFrameDecoder delegate;
+    private final MuleMessageWorker messageWorker;
+
+    MuleMessageFrameDecoder(TcpFrameDecoder delegate, MuleMessageWorker messageWorker)
+    {
+        this.delegate = delegate;
+        this.messageWorker = messageWorker;
+    }
+
+    public Object decode(ByteBuffer buffer, boolean drained) throws IOException
+    {
+        return messageWorker.doRead(delegate.decode(buffer, drained));
+    }
+
+    public Object decodeLast(ByteBuffer buffer) throws IOException
+    {
+        return messageWorker.doRead(delegate.decodeLast(buffer));
+    }
+}
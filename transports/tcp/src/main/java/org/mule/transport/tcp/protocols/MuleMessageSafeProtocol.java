@@ -13,6 +13,7 @@ package org.mule.transport.tcp.protocols;
 import org.mule.api.MuleContext;
 import org.mule.api.context.MuleContextAware;
 import org.mule.transformer.wire.SerializedMuleMessageWireFormat;
+import org.mule.transport.tcp.TcpFrameDecoder;
 
 import java.io.InputStream;
 import java.io.IOException;
@@ -36,6 +37,12 @@ public class MuleMessageSafeProtocol extends SafeProtocol implements MuleContext
         return messageWorker.doRead(super.read(is));
     }
 
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new MuleMessageFrameDecoder(super.createFrameDecoder(), messageWorker);
+    }
+
     @Override
     public void write(OutputStream os, Object unused) throws IOException
     {
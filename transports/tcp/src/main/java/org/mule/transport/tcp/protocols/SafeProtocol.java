@@ -11,12 +11,14 @@
 package org.mule.transport.tcp.protocols;
 
 import org.mule.ResponseOutputStream;
-import org.mule.transport.tcp.TcpProtocol;
+import org.mule.transport.tcp.NonBlockingTcpProtocol;
+import org.mule.transport.tcp.TcpFrameDecoder;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 /**
  * This precedes every message with a cookie.
@@ -25,12 +27,12 @@ import java.net.Socket;
  * You should probably change to LengthProtocol.
  * Remember - both sender and receiver must use the same protocol.
  */
-public class SafeProtocol implements TcpProtocol
+public class SafeProtocol implements NonBlockingTcpProtocol
 {
 
     public static final String COOKIE = "You are using SafeProtocol";
-    private TcpProtocol delegate = new LengthProtocol();
-    private TcpProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
+    private LengthProtocol delegate = new LengthProtocol();
+    private LengthProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
 
     public Object read(InputStream is) throws IOException
     {
@@ -56,6 +58,11 @@ public class SafeProtocol implements TcpProtocol
         delegate.write(os, data);
     }
 
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new SafeFrameDecoder(cookieProtocol.createFrameDecoder(), delegate.createFrameDecoder());
+    }
+
     public ResponseOutputStream createResponse(Socket socket) throws IOException
     {
         return new ResponseOutputStream(socket, new ProtocolStream(this, false, socket.getOutputStream()));
@@ -84,20 +91,22 @@ public class SafeProtocol implements TcpProtocol
         }
         if (null != cookie)
         {
-            if (!(cookie instanceof byte[]
-                    && ((byte[]) cookie).length == COOKIE.length()
-                    && COOKIE.equals(new String((byte[]) cookie))))
-            {
-                helpUser();
-            }
-            else
-            {
-                return true;
-            }
+            assertCookie(cookie);
+            return true;
         }
         return false; // eof
     }
 
+    private void assertCookie(Object cookie) throws IOException
+    {
+        if (!(cookie instanceof byte[]
+                && ((byte[]) cookie).length == COOKIE.length()
+                && COOKIE.equals(new String((byte[]) cookie))))
+        {
+            helpUser();
+        }
+    }
+
     private void helpUser() throws IOException
     {
         throw new IOException("You are not using a consistent protocol on your TCP transport. "
@@ -118,4 +127,69 @@ public class SafeProtocol implements TcpProtocol
         delegate = new LengthProtocol(maxMessageLength);
     }
 
+    /**
+     * Decodes the cookie and then the message, checking the cookie as soon as it has
+     * been received.
+     */
+    private class SafeFrameDecoder implements TcpFrameDecoder
+    {
+
+        private final TcpFrameDecoder cookieDecoder;
+        private final TcpFrameDecoder messageDecoder;
+        private boolean cookieRead;
+
+        SafeFrameDecoder(TcpFrameDecoder cookieDecoder, TcpFrameDecoder messageDecoder)
+        {
+            this.cookieDecoder = cookieDecoder;
+            this.messageDecoder = messageDecoder;
+        }
+
+        public Object decode(ByteBuffer buffer, boolean drained) throws IOException
+        {
+            if (!cookieRead)
+            {
+                Object cookie = null;
+                try
+                {
+                    cookie = cookieDecoder.decode(buffer, drained);
+                }
+                catch (Exception e)
+                {
+                    helpUser(e);
+                }
+                if (null == cookie)
+                {
+                    return null;
+                }
+                assertCookie(cookie);
+                cookieRead = true;
+            }
+            Object result = messageDecoder.decode(buffer, drained);
+            if (null != result)
+            {
+                cookieRead = false;
+            }
+            return result;
+        }
+
+        public Object decodeLast(ByteBuffer buffer) throws IOException
+        {
+            if (cookieRead)
+            {
+                messageDecoder.decodeLast(buffer);
+                // EOF after cookie but before data
+                helpUser();
+            }
+            try
+            {
+                cookieDecoder.decodeLast(buffer);
+            }
+            catch (Exception e)
+            {
+                helpUser(e);
+            }
+            return null;
+        }
+    }
+
 }
@@ -10,12 +10,15 @@
 
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.TcpFrameDecoder;
 import org.mule.transport.tcp.TcpInputStream;
 import org.mule.transport.tcp.TcpProtocol;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class StreamingProtocol extends EOFProtocol implements TcpProtocol
 {
@@ -35,6 +38,24 @@ public class StreamingProtocol extends EOFProtocol implements TcpProtocol
         return is;
     }
 
+    /**
+     * Without blocking, the data can only be passed on once the connection has been
+     * closed, so they are buffered and passed as a stream over the bytes received.
+     */
+    @Override
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        return new DirectFrameDecoder(true)
+        {
+            @Override
+            public Object decodeLast(ByteBuffer buffer) throws IOException
+            {
+                byte[] bytes = (byte[]) super.decodeLast(buffer);
+                return bytes == null ? null : new ByteArrayInputStream(bytes);
+            }
+        };
+    }
+
     /**
      * 
      * @param is
@@ -10,6 +10,9 @@
 
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.NonBlockingTcpProtocol;
+import org.mule.transport.tcp.TcpFrameDecoder;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
@@ -48,11 +51,15 @@ import java.util.concurrent.ConcurrentMap;
  * limited to insure that unread characters remain on the stream so that all data may
  * be read later.
  * </p>
+ * <p>
+ * When read without blocking, messages are split at the xml declarations in the
+ * same way, see {@link DelimiterFrameDecoder}.
+ * </p>
  */
-public class XmlMessageProtocol extends AbstractByteProtocol
+public class XmlMessageProtocol extends AbstractByteProtocol implements NonBlockingTcpProtocol
 {
     
-    private static final String XML_PATTERN = "<?xml";
+    static final String XML_PATTERN = "<?xml";
 
     private static final int READ_BUFFER_SIZE = 4096;
     private static final int PUSHBACK_BUFFER_SIZE = READ_BUFFER_SIZE * 2;
@@ -131,6 +138,12 @@ public class XmlMessageProtocol extends AbstractByteProtocol
         }
     }
 
+    public TcpFrameDecoder createFrameDecoder()
+    {
+        // TODO encoding, as for the blocking read
+        return new DelimiterFrameDecoder(XML_PATTERN.getBytes(), false);
+    }
+
     /**
      * Show we continue reading?  This class, following previous implementations, only
      * reads while input is saturated.
@@ -0,0 +1,144 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TcpNonBlockingReceiverTestCase extends FunctionalTestCase
+{
+
+    private static final String TEST_MESSAGE = "Test TCP Request";
+
+    private static final int MAX_BUFFER_SIZE = 4096;
+
+    private static final int READ_TIMEOUT = 10000;
+
+    @Rule
+    public DynamicPort dynamicPort = new DynamicPort("port1");
+
+    @Override
+    protected String getConfigResources()
+    {
+        return "tcp-non-blocking-receiver-test.xml";
+    }
+
+    @Test
+    public void echoesMessage() throws Exception
+    {
+        Socket socket = connect();
+        try
+        {
+            socket.getOutputStream().write(TEST_MESSAGE.getBytes());
+            socket.shutdownOutput();
+            assertEquals(TEST_MESSAGE, new String(readAll(socket.getInputStream())));
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void echoesMessageLargerThanInitialBuffer() throws Exception
+    {
+        byte[] message = new byte[MAX_BUFFER_SIZE - 1];
+        Arrays.fill(message, (byte) 'a');
+        Socket socket = connect();
+        try
+        {
+            socket.getOutputStream().write(message);
+            socket.shutdownOutput();
+            assertEquals(new String(message), new String(readAll(socket.getInputStream())));
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void closesConnectionExceedingMaxBufferSize() throws Exception
+    {
+        byte[] chunk = new byte[1024];
+        Arrays.fill(chunk, (byte) 'a');
+        Socket socket = connect();
+        try
+        {
+            OutputStream out = socket.getOutputStream();
+            try
+            {
+                for (int i = 0; i < 4 * MAX_BUFFER_SIZE / chunk.length; i++)
+                {
+                    out.write(chunk);
+                    out.flush();
+                }
+            }
+            catch (IOException e)
+            {
+                // the receiver may already have closed the connection
+            }
+            assertTrue(isClosedByPeer(socket));
+        }
+        finally
+        {
+            socket.close();
+        }
+
+        // other connections are still served
+        echoesMessage();
+    }
+
+    private Socket connect() throws IOException
+    {
+        Socket socket = new Socket("localhost", dynamicPort.getNumber());
+        socket.setSoTimeout(READ_TIMEOUT);
+        return socket;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = in.read(buffer)) != -1)
+        {
+            bytes.write(buffer, 0, count);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean isClosedByPeer(Socket socket)
+    {
+        try
+        {
+            return socket.getInputStream().read() == -1;
+        }
+        catch (IOException e)
+        {
+            // reset, as the receiver closed the connection with unread bytes
+            return !(e instanceof SocketTimeoutException);
+        }
+    }
+}
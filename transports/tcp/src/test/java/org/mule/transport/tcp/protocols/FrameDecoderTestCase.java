@@ -0,0 +1,154 @@
+/*
+ * $Id$
+ * --------------------------------------------------------------------------------------
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.transport.tcp.protocols;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.transport.tcp.TcpFrameDecoder;
+import org.mule.transport.tcp.TcpProtocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+@SmallTest
+public class FrameDecoderTestCase extends AbstractMuleTestCase
+{
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(512);
+
+    @Test
+    public void decodesLengthMessagesReceivedInFragments() throws IOException
+    {
+        TcpFrameDecoder decoder = new LengthProtocol().createFrameDecoder();
+        byte[] bytes = write(new LengthProtocol(), "hello", "world");
+        for (int i = 0; i < 8; i++)
+        {
+            assertThat(decode(decoder, bytes, i, i + 1, false), is(nullValue()));
+        }
+        assertThat(decode(decoder, bytes, 8, 9, false), is("hello"));
+        assertThat(decode(decoder, bytes, 9, bytes.length, false), is("world"));
+        buffer.flip();
+        assertThat(decoder.decodeLast(buffer), is(nullValue()));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsLengthAboveLimit() throws IOException
+    {
+        TcpFrameDecoder decoder = new LengthProtocol(4).createFrameDecoder();
+        byte[] bytes = write(new LengthProtocol(), "hello");
+        // the length is rejected before the payload arrives
+        decode(decoder, bytes, 0, 4, false);
+    }
+
+    @Test(expected = EOFException.class)
+    public void failsOnIncompleteLengthMessage() throws IOException
+    {
+        TcpFrameDecoder decoder = new LengthProtocol().createFrameDecoder();
+        byte[] bytes = write(new LengthProtocol(), "hello");
+        assertThat(decode(decoder, bytes, 0, 6, false), is(nullValue()));
+        buffer.flip();
+        decoder.decodeLast(buffer);
+    }
+
+    @Test
+    public void decodesDirectMessageOnceDrained() throws IOException
+    {
+        TcpFrameDecoder decoder = new DirectProtocol().createFrameDecoder();
+        byte[] bytes = "hello".getBytes();
+        assertThat(decode(decoder, bytes, 0, 3, false), is(nullValue()));
+        assertThat(decode(decoder, bytes, 3, 5, true), is("hello"));
+    }
+
+    @Test
+    public void decodesEofMessageAtEndOfStream() throws IOException
+    {
+        TcpFrameDecoder decoder = new EOFProtocol().createFrameDecoder();
+        byte[] bytes = "hello".getBytes();
+        assertThat(decode(decoder, bytes, 0, 5, true), is(nullValue()));
+        buffer.flip();
+        assertThat(new String((byte[]) decoder.decodeLast(buffer)), is("hello"));
+    }
+
+    @Test
+    public void splitsXmlDocuments() throws IOException
+    {
+        TcpFrameDecoder decoder = new XmlMessageProtocol().createFrameDecoder();
+        byte[] bytes = "<?xml version=\"1.0\"?><a/><?xml version=\"1.0\"?><b/>".getBytes();
+        assertThat(decode(decoder, bytes, 0, 30, false), is("<?xml version=\"1.0\"?><a/>"));
+        assertThat(decode(decoder, bytes, 30, bytes.length, false), is(nullValue()));
+        buffer.flip();
+        assertThat(new String((byte[]) decoder.decode(buffer, true)), is("<?xml version=\"1.0\"?><b/>"));
+    }
+
+    @Test
+    public void waitsForEndOfStreamAfterLastXmlDocument() throws IOException
+    {
+        TcpFrameDecoder decoder = new XmlMessageEOFProtocol().createFrameDecoder();
+        byte[] bytes = "<?xml version=\"1.0\"?><a/>".getBytes();
+        assertThat(decode(decoder, bytes, 0, bytes.length, true), is(nullValue()));
+        buffer.flip();
+        assertThat(new String((byte[]) decoder.decodeLast(buffer)), is("<?xml version=\"1.0\"?><a/>"));
+    }
+
+    @Test
+    public void decodesSafeMessages() throws IOException
+    {
+        TcpFrameDecoder decoder = new SafeProtocol().createFrameDecoder();
+        byte[] bytes = write(new SafeProtocol(), "hello", "world");
+        int split = bytes.length / 2 + 3;
+        assertThat(decode(decoder, bytes, 0, split, false), is("hello"));
+        assertThat(decode(decoder, bytes, split, bytes.length, false), is("world"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMessagesWithoutCookie() throws IOException
+    {
+        TcpFrameDecoder decoder = new SafeProtocol().createFrameDecoder();
+        byte[] bytes = write(new LengthProtocol(), "You are not using SafeProtocol");
+        decode(decoder, bytes, 0, bytes.length, false);
+    }
+
+    private byte[] write(TcpProtocol protocol, String... messages) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String message : messages)
+        {
+            protocol.write(out, message);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Adds <code>bytes[from..to)</code> to the buffer and decodes the first message.
+     */
+    private String decode(TcpFrameDecoder decoder, byte[] bytes, int from, int to, boolean drained) throws IOException
+    {
+        buffer.put(bytes, from, to - from);
+        buffer.flip();
+        try
+        {
+            byte[] message = (byte[]) decoder.decode(buffer, drained);
+            return message == null ? null : new String(message);
+        }
+        finally
+        {
+            buffer.compact();
+        }
+    }
+}